@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.discovery;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.base.ServerConfigurationException;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
+import org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the rendered OIDC discovery document of each tenant, so that the discovery endpoint does not rebuild the
+ * endpoint URLs, the supported scopes and claims and the JSON of the document on every request.
+ *
+ * A document is rebuilt when the OIDC scopes of the tenant are changed, which is detected through the scope claim
+ * index of the tenant that the document was built from, and when it is cleared by the listeners of the changes to the
+ * claims of the OIDC dialect and to the resident identity provider of the tenant. The configured timeout bounds the
+ * staleness of the other configurations. The same timeout is used as the max-age of the Cache-Control header of the
+ * responses, and each document carries a strong ETag of its content for conditional requests.
+ */
+public class DiscoveryDocumentCache {
+
+    private static final Log log = LogFactory.getLog(DiscoveryDocumentCache.class);
+
+    private static final String TIMEOUT = "OAuth.OIDCDiscovery.DocumentCacheTimeout";
+    private static final int DEFAULT_TIMEOUT_SECONDS = 300;
+    private static final String NO_CACHE = "no-cache";
+
+    private static volatile DiscoveryDocumentCache instance;
+
+    private final long timeoutMillis;
+    private final String cacheControl;
+    private final Map<String, RenderedDocument> documents = new ConcurrentHashMap<>();
+
+    DiscoveryDocumentCache(int timeoutSeconds) {
+
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(Math.max(timeoutSeconds, 0));
+        this.cacheControl = timeoutSeconds > 0 ? "public, max-age=" + timeoutSeconds : NO_CACHE;
+    }
+
+    public static DiscoveryDocumentCache getInstance() {
+
+        if (instance == null) {
+            synchronized (DiscoveryDocumentCache.class) {
+                if (instance == null) {
+                    instance = new DiscoveryDocumentCache(
+                            OAuth2ConfigUtil.getIntProperty(TIMEOUT, DEFAULT_TIMEOUT_SECONDS));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Get the rendered discovery document of a tenant, which is rendered if there is no valid document of the tenant.
+     *
+     * @param tenantDomain Tenant domain.
+     * @param renderer     Renderer of the document of the tenant.
+     * @return Rendered document.
+     * @throws OIDCDiscoveryEndPointException If the document could not be rendered.
+     * @throws ServerConfigurationException   If the document could not be rendered.
+     */
+    public RenderedDocument getDocument(String tenantDomain, Renderer renderer) throws OIDCDiscoveryEndPointException,
+            ServerConfigurationException {
+
+        // The source is taken before rendering, so that a change made while rendering is not missed.
+        Object source = timeoutMillis > 0 ? getSource(tenantDomain) : null;
+        if (source != null) {
+            RenderedDocument document = documents.get(tenantDomain);
+            if (document != null && document.isBuiltFrom(source) &&
+                    System.currentTimeMillis() - document.getCreatedTime() < timeoutMillis) {
+                return document;
+            }
+        }
+        RenderedDocument document = new RenderedDocument(renderer.render(), source);
+        if (source != null) {
+            documents.put(tenantDomain, document);
+            if (log.isDebugEnabled()) {
+                log.debug("OIDC discovery document of the tenant: " + tenantDomain + " is rendered with the ETag: " +
+                        document.getETag());
+            }
+        }
+        return document;
+    }
+
+    /**
+     * Clear the rendered document of a tenant, such as when the claims of the OIDC dialect of the tenant are changed.
+     *
+     * @param tenantDomain Tenant domain.
+     */
+    public void clear(String tenantDomain) {
+
+        documents.remove(tenantDomain);
+    }
+
+    /**
+     * Clear the rendered documents of all the tenants.
+     */
+    public void clear() {
+
+        documents.clear();
+    }
+
+    /**
+     * Get the value of the Cache-Control header of the discovery responses.
+     *
+     * @return Cache-Control header value.
+     */
+    public String getCacheControl() {
+
+        return cacheControl;
+    }
+
+    /**
+     * Get the object which the document of a tenant is built from, which is replaced when the OIDC scopes of the
+     * tenant are changed.
+     *
+     * @param tenantDomain Tenant domain.
+     * @return Source of the document, or null if it could not be retrieved, in which case the document is not kept.
+     */
+    Object getSource(String tenantDomain) {
+
+        try {
+            return OAuthTokenPersistenceFactory.getInstance().getScopeClaimMappingDAO()
+                    .getScopeClaimIndex(IdentityTenantUtil.getTenantId(tenantDomain));
+        } catch (IdentityOAuth2Exception e) {
+            log.error("Error while retrieving the OIDC scopes of the tenant: " + tenantDomain + ". The discovery " +
+                    "document of the tenant is not kept.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Renders the discovery document of a tenant.
+     */
+    @FunctionalInterface
+    public interface Renderer {
+
+        String render() throws OIDCDiscoveryEndPointException, ServerConfigurationException;
+    }
+
+    /**
+     * A rendered document, with the strong ETag of its content.
+     */
+    public static class RenderedDocument {
+
+        private static final String WEAK_ETAG_PREFIX = "W/";
+        private static final String ANY_ETAG = "*";
+
+        private final String content;
+        private final String eTag;
+        private final Object source;
+        private final long createdTime = System.currentTimeMillis();
+
+        public RenderedDocument(String content) {
+
+            this(content, null);
+        }
+
+        RenderedDocument(String content, Object source) {
+
+            this.content = content;
+            this.eTag = buildETag(content);
+            this.source = source;
+        }
+
+        public String getContent() {
+
+            return content;
+        }
+
+        public String getETag() {
+
+            return eTag;
+        }
+
+        /**
+         * Check whether the value of an If-None-Match header matches the document, in which case the client has the
+         * document and a 304 response is sent. The ETags are compared weakly as specified in RFC 7232.
+         *
+         * @param ifNoneMatch If-None-Match header value.
+         * @return true if the header matches the document.
+         */
+        public boolean matches(String ifNoneMatch) {
+
+            if (StringUtils.isBlank(ifNoneMatch)) {
+                return false;
+            }
+            for (String value : ifNoneMatch.split(",")) {
+                String eTagValue = value.trim();
+                if (ANY_ETAG.equals(eTagValue)) {
+                    return true;
+                }
+                if (eTagValue.startsWith(WEAK_ETAG_PREFIX)) {
+                    eTagValue = eTagValue.substring(WEAK_ETAG_PREFIX.length());
+                }
+                if (eTag.equals(eTagValue)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long getCreatedTime() {
+
+            return createdTime;
+        }
+
+        boolean isBuiltFrom(Object source) {
+
+            return this.source == source;
+        }
+
+        private static String buildETag(String content) {
+
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+                return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+            } catch (NoSuchAlgorithmException e) {
+                // SHA-256 is available in every Java platform.
+                throw new IllegalStateException("SHA-256 is not available.", e);
+            }
+        }
+    }
+}
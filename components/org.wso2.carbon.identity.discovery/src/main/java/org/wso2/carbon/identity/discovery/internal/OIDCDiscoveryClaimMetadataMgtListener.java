@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.discovery.internal;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.claim.metadata.mgt.exception.ClaimMetadataException;
+import org.wso2.carbon.identity.claim.metadata.mgt.listener.AbstractClaimMetadataMgtListener;
+import org.wso2.carbon.identity.claim.metadata.mgt.model.ClaimDialect;
+import org.wso2.carbon.identity.claim.metadata.mgt.model.ExternalClaim;
+import org.wso2.carbon.identity.discovery.DiscoveryDocumentCache;
+
+/**
+ * Clears the cached discovery document of a tenant when the claims of the OIDC dialect of the tenant are changed, as
+ * the document lists the claims of the dialect.
+ */
+public class OIDCDiscoveryClaimMetadataMgtListener extends AbstractClaimMetadataMgtListener {
+
+    private static final Log log = LogFactory.getLog(OIDCDiscoveryClaimMetadataMgtListener.class);
+
+    private static final String OIDC_CLAIM_DIALECT = "http://wso2.org/oidc/claim";
+
+    @Override
+    public int getDefaultOrderId() {
+
+        return 200;
+    }
+
+    @Override
+    public boolean doPostRenameClaimDialect(ClaimDialect oldClaimDialect, ClaimDialect newClaimDialect,
+                                            String tenantDomain) throws ClaimMetadataException {
+
+        if (isOIDCDialect(oldClaimDialect.getClaimDialectURI()) ||
+                isOIDCDialect(newClaimDialect.getClaimDialectURI())) {
+            clearDocument(tenantDomain);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean doPostRemoveClaimDialect(ClaimDialect claimDialect, String tenantDomain)
+            throws ClaimMetadataException {
+
+        if (isOIDCDialect(claimDialect.getClaimDialectURI())) {
+            clearDocument(tenantDomain);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean doPostAddExternalClaim(ExternalClaim externalClaim, String tenantDomain)
+            throws ClaimMetadataException {
+
+        if (isOIDCDialect(externalClaim.getClaimDialectURI())) {
+            clearDocument(tenantDomain);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean doPostUpdateExternalClaim(ExternalClaim externalClaim, String tenantDomain)
+            throws ClaimMetadataException {
+
+        if (isOIDCDialect(externalClaim.getClaimDialectURI())) {
+            clearDocument(tenantDomain);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean doPostRemoveExternalClaim(String claimDialectURI, String externalClaimURI, String tenantDomain)
+            throws ClaimMetadataException {
+
+        if (isOIDCDialect(claimDialectURI)) {
+            clearDocument(tenantDomain);
+        }
+        return true;
+    }
+
+    private boolean isOIDCDialect(String claimDialectURI) {
+
+        return OIDC_CLAIM_DIALECT.equals(claimDialectURI);
+    }
+
+    private void clearDocument(String tenantDomain) {
+
+        DiscoveryDocumentCache.getInstance().clear(tenantDomain);
+        if (log.isDebugEnabled()) {
+            log.debug("Cleared the OIDC discovery document of the tenant: " + tenantDomain + " as the claims of the " +
+                    "OIDC dialect are changed.");
+        }
+    }
+}
@@ -27,8 +27,10 @@ import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
 import org.wso2.carbon.identity.claim.metadata.mgt.ClaimMetadataManagementService;
+import org.wso2.carbon.identity.claim.metadata.mgt.listener.ClaimMetadataMgtListener;
 import org.wso2.carbon.identity.discovery.DefaultOIDCProcessor;
 import org.wso2.carbon.identity.discovery.OIDCProcessor;
+import org.wso2.carbon.idp.mgt.listener.IdentityProviderMgtListener;
 
 /**
  * Service component for OpenID Connect Discovery.
@@ -49,6 +51,11 @@ public class OIDCDiscoveryServiceComponent {
         try {
             bundleContext = context.getBundleContext();
             bundleContext.registerService(OIDCProcessor.class.getName(), DefaultOIDCProcessor.getInstance(), null);
+            // Clear the cached discovery documents when the claims or the resident IdP of a tenant are changed.
+            bundleContext.registerService(ClaimMetadataMgtListener.class.getName(),
+                    new OIDCDiscoveryClaimMetadataMgtListener(), null);
+            bundleContext.registerService(IdentityProviderMgtListener.class.getName(),
+                    new OIDCDiscoveryIdentityProviderMgtListener(), null);
             // exposing server configuration as a service
             if (log.isDebugEnabled()) {
                 log.debug("Identity OIDCDiscovery bundle is activated");
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.discovery;
+
+import org.powermock.reflect.Whitebox;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.claim.metadata.mgt.model.ClaimDialect;
+import org.wso2.carbon.identity.claim.metadata.mgt.model.ExternalClaim;
+import org.wso2.carbon.identity.discovery.DiscoveryDocumentCache.RenderedDocument;
+import org.wso2.carbon.identity.discovery.internal.OIDCDiscoveryClaimMetadataMgtListener;
+import org.wso2.carbon.identity.discovery.internal.OIDCDiscoveryIdentityProviderMgtListener;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for DiscoveryDocumentCache.
+ */
+public class DiscoveryDocumentCacheTest {
+
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final String OIDC_CLAIM_DIALECT = "http://wso2.org/oidc/claim";
+    private static final String OTHER_CLAIM_DIALECT = "urn:ietf:params:scim:schemas:core:2.0:User";
+
+    @Test
+    public void testDocumentIsRenderedOncePerSource() throws Exception {
+
+        AtomicReference<Object> source = new AtomicReference<>(new Object());
+        DiscoveryDocumentCache documentCache = new DiscoveryDocumentCache(300) {
+
+            @Override
+            Object getSource(String tenantDomain) {
+
+                return source.get();
+            }
+        };
+        AtomicInteger renderCount = new AtomicInteger();
+        DiscoveryDocumentCache.Renderer renderer = () -> "{\"issuer\":\"" + renderCount.incrementAndGet() + "\"}";
+
+        RenderedDocument document = documentCache.getDocument(TENANT_DOMAIN, renderer);
+        assertSame(documentCache.getDocument(TENANT_DOMAIN, renderer), document);
+        assertEquals(renderCount.get(), 1);
+        assertNotSame(documentCache.getDocument("wso2.com", renderer), document);
+
+        // The document is rendered again when the OIDC scopes of the tenant are changed.
+        source.set(new Object());
+        RenderedDocument changedDocument = documentCache.getDocument(TENANT_DOMAIN, renderer);
+        assertNotEquals(changedDocument.getETag(), document.getETag());
+
+        documentCache.clear(TENANT_DOMAIN);
+        assertNotSame(documentCache.getDocument(TENANT_DOMAIN, renderer), changedDocument);
+        assertEquals(renderCount.get(), 4);
+        assertEquals(documentCache.getCacheControl(), "public, max-age=300");
+    }
+
+    @Test
+    public void testDocumentIsNotKeptWithoutTimeoutOrSource() throws Exception {
+
+        AtomicInteger renderCount = new AtomicInteger();
+        DiscoveryDocumentCache.Renderer renderer = () -> "{\"issuer\":\"" + renderCount.incrementAndGet() + "\"}";
+        DiscoveryDocumentCache disabledCache = new DiscoveryDocumentCache(0) {
+
+            @Override
+            Object getSource(String tenantDomain) {
+
+                return new Object();
+            }
+        };
+        disabledCache.getDocument(TENANT_DOMAIN, renderer);
+        disabledCache.getDocument(TENANT_DOMAIN, renderer);
+        assertEquals(renderCount.get(), 2);
+        assertEquals(disabledCache.getCacheControl(), "no-cache");
+
+        DiscoveryDocumentCache cacheWithoutSource = new DiscoveryDocumentCache(300) {
+
+            @Override
+            Object getSource(String tenantDomain) {
+
+                return null;
+            }
+        };
+        cacheWithoutSource.getDocument(TENANT_DOMAIN, renderer);
+        cacheWithoutSource.getDocument(TENANT_DOMAIN, renderer);
+        assertEquals(renderCount.get(), 4);
+    }
+
+    @Test
+    public void testIfNoneMatch() {
+
+        RenderedDocument document = new RenderedDocument("{\"issuer\":\"https://localhost:9443/oauth2/token\"}");
+        String eTag = document.getETag();
+
+        assertEquals(eTag, new RenderedDocument(document.getContent()).getETag());
+        assertTrue(eTag.startsWith("\"") && eTag.endsWith("\""));
+        assertTrue(document.matches(eTag));
+        assertTrue(document.matches("W/" + eTag));
+        assertTrue(document.matches("\"other\", " + eTag));
+        assertTrue(document.matches("*"));
+        assertFalse(document.matches("\"other\""));
+        assertFalse(document.matches(eTag.substring(1, eTag.length() - 1)));
+        assertFalse(document.matches(null));
+        assertFalse(document.matches(""));
+    }
+
+    @Test
+    public void testDocumentIsClearedByListeners() throws Exception {
+
+        Object source = new Object();
+        Whitebox.setInternalState(DiscoveryDocumentCache.class, "instance", new DiscoveryDocumentCache(300) {
+
+            @Override
+            Object getSource(String tenantDomain) {
+
+                return source;
+            }
+        });
+        AtomicInteger renderCount = new AtomicInteger();
+        DiscoveryDocumentCache.Renderer renderer = () -> "{\"issuer\":\"" + renderCount.incrementAndGet() + "\"}";
+        OIDCDiscoveryClaimMetadataMgtListener claimListener = new OIDCDiscoveryClaimMetadataMgtListener();
+        try {
+            DiscoveryDocumentCache.getInstance().getDocument(TENANT_DOMAIN, renderer);
+
+            // Only the claims of the OIDC dialect are listed in the document.
+            claimListener.doPostAddExternalClaim(new ExternalClaim(OTHER_CLAIM_DIALECT, "urn:other",
+                    "http://wso2.org/claims/other"), TENANT_DOMAIN);
+            claimListener.doPostRemoveClaimDialect(new ClaimDialect(OTHER_CLAIM_DIALECT), TENANT_DOMAIN);
+            DiscoveryDocumentCache.getInstance().getDocument(TENANT_DOMAIN, renderer);
+            assertEquals(renderCount.get(), 1);
+
+            claimListener.doPostAddExternalClaim(new ExternalClaim(OIDC_CLAIM_DIALECT, "given_name",
+                    "http://wso2.org/claims/givenname"), TENANT_DOMAIN);
+            DiscoveryDocumentCache.getInstance().getDocument(TENANT_DOMAIN, renderer);
+            assertEquals(renderCount.get(), 2);
+
+            claimListener.doPostRemoveExternalClaim(OIDC_CLAIM_DIALECT, "given_name", TENANT_DOMAIN);
+            DiscoveryDocumentCache.getInstance().getDocument(TENANT_DOMAIN, renderer);
+            assertEquals(renderCount.get(), 3);
+
+            new OIDCDiscoveryIdentityProviderMgtListener().doPostUpdateResidentIdP(new IdentityProvider(),
+                    TENANT_DOMAIN);
+            DiscoveryDocumentCache.getInstance().getDocument(TENANT_DOMAIN, renderer);
+            assertEquals(renderCount.get(), 4);
+        } finally {
+            Whitebox.setInternalState(DiscoveryDocumentCache.class, "instance", (DiscoveryDocumentCache) null);
+        }
+    }
+}
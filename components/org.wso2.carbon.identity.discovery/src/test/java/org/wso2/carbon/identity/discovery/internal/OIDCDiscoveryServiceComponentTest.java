@@ -29,12 +29,16 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.ObjectFactory;
 import org.testng.annotations.Test;
 import org.wso2.carbon.identity.claim.metadata.mgt.ClaimMetadataManagementService;
+import org.wso2.carbon.identity.claim.metadata.mgt.listener.ClaimMetadataMgtListener;
 import org.wso2.carbon.identity.discovery.DefaultOIDCProcessor;
+import org.wso2.carbon.idp.mgt.listener.IdentityProviderMgtListener;
 
 import java.util.Dictionary;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.powermock.api.mockito.PowerMockito.doAnswer;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
@@ -87,8 +91,10 @@ public class OIDCDiscoveryServiceComponentTest {
             @Override
             public Object answer(InvocationOnMock invocation) throws Throwable {
 
-                DefaultOIDCProcessor defaultOIDCProcessor = (DefaultOIDCProcessor) invocation.getArguments()[1];
-                serviceName[0] = defaultOIDCProcessor.getClass().getName();
+                Object service = invocation.getArguments()[1];
+                if (service instanceof DefaultOIDCProcessor) {
+                    serviceName[0] = service.getClass().getName();
+                }
                 return null;
             }
         }).when(bundleContext).registerService(anyString(), any(DefaultOIDCProcessor.class), any(Dictionary.class));
@@ -97,6 +103,10 @@ public class OIDCDiscoveryServiceComponentTest {
         oidcDiscoveryServiceComponent.activate(context);
 
         assertEquals(DefaultOIDCProcessor.class.getName(), serviceName[0], "error");
+        verify(bundleContext).registerService(eq(ClaimMetadataMgtListener.class.getName()),
+                any(OIDCDiscoveryClaimMetadataMgtListener.class), any(Dictionary.class));
+        verify(bundleContext).registerService(eq(IdentityProviderMgtListener.class.getName()),
+                any(OIDCDiscoveryIdentityProviderMgtListener.class), any(Dictionary.class));
     }
 
     @Test
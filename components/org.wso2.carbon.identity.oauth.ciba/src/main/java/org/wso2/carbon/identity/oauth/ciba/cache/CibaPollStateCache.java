@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.ciba.cache;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.ciba.dao.CibaDAOFactory;
+import org.wso2.carbon.identity.oauth.ciba.dao.CibaMgtDAO;
+import org.wso2.carbon.identity.oauth.ciba.exceptions.CibaCoreException;
+import org.wso2.carbon.identity.oauth.ciba.model.CibaAuthCodeDO;
+import org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil;
+
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the last polled time and the polling interval of the pending CIBA authentication requests polled at this
+ * node, so that a token poll does not write to the database.
+ *
+ * The polling state is written to the database by a background flusher at the configured interval. As the state
+ * kept here is never older than the state in the database, it is merged with the state read from the database by
+ * taking the latest of the two, and nothing has to be invalidated across the cluster. A poll served by another node
+ * sees the state of this node once it is flushed. The status of the requests is not kept here, hence the
+ * authentication, denial and expiry of a request are seen by every node on the next poll. When the cache is disabled
+ * or full, the polling state is written to the database by the caller, as before. The cache is disabled when the
+ * flush interval is not positive, as the polling state would then never be written to the database.
+ */
+public class CibaPollStateCache {
+
+    private static final Log log = LogFactory.getLog(CibaPollStateCache.class);
+
+    private static final String ENABLE = "OAuth.CIBA.PollStateCache.Enable";
+    private static final String CAPACITY = "OAuth.CIBA.PollStateCache.Capacity";
+    private static final String FLUSH_INTERVAL = "OAuth.CIBA.PollStateCache.FlushInterval";
+    private static final int DEFAULT_CAPACITY = 100000;
+    private static final int DEFAULT_FLUSH_INTERVAL_MILLIS = 5000;
+
+    private static volatile CibaPollStateCache instance;
+
+    private final Map<String, PollState> pollStates = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final int capacity;
+    private final long flushIntervalMillis;
+    private ScheduledExecutorService flusher;
+
+    CibaPollStateCache(boolean enabled, int capacity, long flushIntervalMillis) {
+
+        this.enabled = enabled;
+        this.capacity = Math.max(capacity, 0);
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    public static CibaPollStateCache getInstance() {
+
+        if (instance == null) {
+            synchronized (CibaPollStateCache.class) {
+                if (instance == null) {
+                    String enable = IdentityUtil.getProperty(ENABLE);
+                    boolean enabled = StringUtils.isBlank(enable) || Boolean.parseBoolean(enable);
+                    int flushIntervalMillis =
+                            OAuth2ConfigUtil.getIntProperty(FLUSH_INTERVAL, DEFAULT_FLUSH_INTERVAL_MILLIS);
+                    if (enabled && flushIntervalMillis <= 0) {
+                        log.warn("Invalid value: " + flushIntervalMillis + " for the property: " + FLUSH_INTERVAL +
+                                ". The CIBA poll state cache is disabled, and the polling state is written to the " +
+                                "database on every poll.");
+                        enabled = false;
+                    }
+                    instance = new CibaPollStateCache(enabled,
+                            OAuth2ConfigUtil.getIntProperty(CAPACITY, DEFAULT_CAPACITY), flushIntervalMillis);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Merge the polling state of this node into the CibaAuthCodeDO read from the database.
+     *
+     * @param cibaAuthCodeDO DO read from the database.
+     */
+    public void applyTo(CibaAuthCodeDO cibaAuthCodeDO) {
+
+        PollState pollState = pollStates.get(cibaAuthCodeDO.getCibaAuthCodeKey());
+        if (pollState == null) {
+            return;
+        }
+        synchronized (pollState) {
+            if (cibaAuthCodeDO.getLastPolledTime() == null ||
+                    pollState.lastPolledTime > cibaAuthCodeDO.getLastPolledTime().getTime()) {
+                cibaAuthCodeDO.setLastPolledTime(new Timestamp(pollState.lastPolledTime));
+            }
+            if (pollState.interval > cibaAuthCodeDO.getInterval()) {
+                cibaAuthCodeDO.setInterval(pollState.interval);
+            }
+        }
+    }
+
+    /**
+     * Record a poll of a pending request.
+     *
+     * @param cibaAuthCodeDO   DO of the polled request.
+     * @param polledTimeMillis Time of the poll.
+     * @return False if the poll was not recorded, and has to be written to the database by the caller.
+     */
+    public boolean recordPoll(CibaAuthCodeDO cibaAuthCodeDO, long polledTimeMillis) {
+
+        PollState pollState = getPollState(cibaAuthCodeDO);
+        if (pollState == null) {
+            return false;
+        }
+        synchronized (pollState) {
+            pollState.lastPolledTime = Math.max(pollState.lastPolledTime, polledTimeMillis);
+            pollState.lastPolledTimeChanged = true;
+        }
+        return true;
+    }
+
+    /**
+     * Record an increased polling interval of a request.
+     *
+     * @param cibaAuthCodeDO DO of the polled request.
+     * @param interval       New polling interval in seconds.
+     * @return False if the interval was not recorded, and has to be written to the database by the caller.
+     */
+    public boolean recordInterval(CibaAuthCodeDO cibaAuthCodeDO, long interval) {
+
+        PollState pollState = getPollState(cibaAuthCodeDO);
+        if (pollState == null) {
+            return false;
+        }
+        synchronized (pollState) {
+            pollState.interval = Math.max(pollState.interval, interval);
+            pollState.intervalChanged = true;
+        }
+        return true;
+    }
+
+    /**
+     * Remove the polling state of a request which is no longer polled, as its token is issued, or it is denied or
+     * expired. A polling state which is not flushed yet is dropped.
+     *
+     * @param authCodeKey Identifier of the CibaAuthCode.
+     */
+    public void remove(String authCodeKey) {
+
+        if (authCodeKey != null) {
+            pollStates.remove(authCodeKey);
+        }
+    }
+
+    /**
+     * Write the changed polling states to the database, and drop the states of the expired requests.
+     */
+    public void flush() {
+
+        long currentTimeMillis = System.currentTimeMillis();
+        CibaMgtDAO cibaMgtDAO = CibaDAOFactory.getInstance().getCibaAuthMgtDAO();
+        for (Map.Entry<String, PollState> entry : pollStates.entrySet()) {
+            String authCodeKey = entry.getKey();
+            PollState pollState = entry.getValue();
+            long lastPolledTime = 0;
+            long interval = 0;
+            synchronized (pollState) {
+                if (pollState.lastPolledTimeChanged) {
+                    lastPolledTime = pollState.lastPolledTime;
+                    pollState.lastPolledTimeChanged = false;
+                }
+                if (pollState.intervalChanged) {
+                    interval = pollState.interval;
+                    pollState.intervalChanged = false;
+                }
+            }
+            try {
+                if (lastPolledTime > 0) {
+                    cibaMgtDAO.updateLastPollingTime(authCodeKey, new Timestamp(lastPolledTime));
+                }
+                if (interval > 0) {
+                    cibaMgtDAO.updatePollingInterval(authCodeKey, interval);
+                }
+            } catch (CibaCoreException e) {
+                log.warn("Error occurred while flushing the polling state of the cibaAuthCodeKey: " + authCodeKey +
+                        ". The state will be flushed again.", e);
+                synchronized (pollState) {
+                    pollState.lastPolledTimeChanged |= lastPolledTime > 0;
+                    pollState.intervalChanged |= interval > 0;
+                }
+                continue;
+            }
+            if (currentTimeMillis > pollState.expiryTime) {
+                pollStates.remove(authCodeKey, pollState);
+            }
+        }
+    }
+
+    /**
+     * Stop the background flusher, and flush the polling states which are not written yet.
+     */
+    public void shutdown() {
+
+        synchronized (this) {
+            if (flusher != null) {
+                flusher.shutdownNow();
+                flusher = null;
+            }
+        }
+        flush();
+    }
+
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    public int size() {
+
+        return pollStates.size();
+    }
+
+    private PollState getPollState(CibaAuthCodeDO cibaAuthCodeDO) {
+
+        String authCodeKey = cibaAuthCodeDO.getCibaAuthCodeKey();
+        if (!enabled || authCodeKey == null) {
+            return null;
+        }
+        PollState pollState = pollStates.get(authCodeKey);
+        if (pollState == null) {
+            if (pollStates.size() >= capacity) {
+                if (log.isDebugEnabled()) {
+                    log.debug("CIBA poll state cache is full. Polling state of the cibaAuthCodeKey: " + authCodeKey +
+                            " is written to the database.");
+                }
+                return null;
+            }
+            pollState = pollStates.computeIfAbsent(authCodeKey, key -> new PollState(getExpiryTime(cibaAuthCodeDO)));
+            startFlusher();
+        }
+        return pollState;
+    }
+
+    private static long getExpiryTime(CibaAuthCodeDO cibaAuthCodeDO) {
+
+        if (cibaAuthCodeDO.getIssuedTime() == null) {
+            return Long.MAX_VALUE;
+        }
+        return cibaAuthCodeDO.getIssuedTime().getTime() + TimeUnit.SECONDS.toMillis(cibaAuthCodeDO.getExpiresIn());
+    }
+
+    private synchronized void startFlusher() {
+
+        if (flusher != null || flushIntervalMillis <= 0) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "CIBA-PollStateFlusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("Error occurred while flushing the CIBA polling states.", e);
+            }
+        }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Polling state of a request, guarded by its own monitor.
+     */
+    private static class PollState {
+
+        private final long expiryTime;
+        private long lastPolledTime;
+        private long interval;
+        private boolean lastPolledTimeChanged;
+        private boolean intervalChanged;
+
+        private PollState(long expiryTime) {
+
+            this.expiryTime = expiryTime;
+        }
+    }
+}
@@ -100,6 +100,16 @@ public interface CibaMgtDAO {
      */
     CibaAuthCodeDO getCibaAuthCode(String authCodeKey) throws CibaCoreException;
 
+    /**
+     * Returns CibaAuthCodeDO identified by the authentication request identifier, with a single query. The scopes
+     * are always populated, and the authenticated user is populated once the request is authenticated.
+     *
+     * @param authReqId Authentication request identifier.
+     * @return CibaAuthCodeDO, or null if no request is identified by the authentication request identifier.
+     * @throws CibaCoreException Exception thrown from CIBA core Component.
+     */
+    CibaAuthCodeDO getCibaAuthCodeByAuthReqId(String authReqId) throws CibaCoreException;
+
     /**
      * Retrieve scopes requested in CIBA authentication request.
      *
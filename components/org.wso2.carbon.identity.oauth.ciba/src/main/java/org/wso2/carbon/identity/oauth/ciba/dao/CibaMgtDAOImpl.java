@@ -321,6 +321,62 @@ public class CibaMgtDAOImpl implements CibaMgtDAO {
         return cibaAuthCodeDO;
     }
 
+    @Override
+    public CibaAuthCodeDO getCibaAuthCodeByAuthReqId(String authReqId) throws CibaCoreException {
+
+        CibaAuthCodeDO cibaAuthCodeDO = null;
+        try (Connection connection = IdentityDatabaseUtil.getDBConnection(false)) {
+            try (PreparedStatement prepStmt = connection.prepareStatement(SQLQueries.
+                    CibaSQLQueries.RETRIEVE_AUTH_CODE_WITH_SCOPES_BY_AUTH_REQ_ID)) {
+
+                prepStmt.setString(1, authReqId);
+                List<String> scopes = new ArrayList<>();
+                try (ResultSet resultSet = prepStmt.executeQuery()) {
+                    // The auth code columns are repeated in every row, with one row per scope.
+                    while (resultSet.next()) {
+                        if (cibaAuthCodeDO == null) {
+                            cibaAuthCodeDO = new CibaAuthCodeDO();
+                            cibaAuthCodeDO.setCibaAuthCodeKey(resultSet.getString(1));
+                            cibaAuthCodeDO.setAuthReqId(resultSet.getString(2));
+                            cibaAuthCodeDO.setConsumerKey(resultSet.getString(3));
+                            cibaAuthCodeDO.setLastPolledTime(resultSet.getTimestamp(4,
+                                    Calendar.getInstance(TimeZone.getTimeZone(CibaConstants.UTC))));
+                            cibaAuthCodeDO.setInterval(resultSet.getLong(5));
+                            cibaAuthCodeDO.setExpiresIn(resultSet.getLong(6));
+                            cibaAuthCodeDO.setAuthReqStatus(AuthReqStatus.valueOf(resultSet.getString(7)));
+                            cibaAuthCodeDO.setIssuedTime(resultSet.getTimestamp(8,
+                                    Calendar.getInstance(TimeZone.getTimeZone(CibaConstants.UTC))));
+                            if (AuthReqStatus.AUTHENTICATED.equals(cibaAuthCodeDO.getAuthReqStatus())) {
+                                AuthenticatedUser authenticatedUser = new AuthenticatedUser();
+                                authenticatedUser.setUserName(resultSet.getString(9));
+                                authenticatedUser.setUserStoreDomain(resultSet.getString(10));
+                                authenticatedUser.setTenantDomain(OAuth2Util.getTenantDomain(resultSet.getInt(11)));
+                                cibaAuthCodeDO.setAuthenticatedUser(authenticatedUser);
+                            }
+                        }
+                        String scope = resultSet.getString(12);
+                        if (scope != null) {
+                            scopes.add(scope);
+                        }
+                    }
+                }
+                if (cibaAuthCodeDO == null) {
+                    return null;
+                }
+                cibaAuthCodeDO.setScopes(scopes.toArray(new String[0]));
+                if (log.isDebugEnabled()) {
+                    log.debug("Successfully obtained cibaAuthCode for auth_req_id : " + authReqId);
+                }
+            } catch (IdentityOAuth2Exception e) {
+                throw new CibaCoreException("Error occurred in obtaining authenticatedUser of the cibaAuthCode " +
+                        "for auth_req_id : " + authReqId, e);
+            }
+        } catch (SQLException e) {
+            throw new CibaCoreException("Error in obtaining cibaAuthCode for auth_req_id : " + authReqId, e);
+        }
+        return cibaAuthCodeDO;
+    }
+
     @Override
     public List<String> getScopes(String authCodeKey) throws CibaCoreException {
 
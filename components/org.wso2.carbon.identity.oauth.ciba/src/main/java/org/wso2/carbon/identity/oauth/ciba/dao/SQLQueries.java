@@ -68,6 +68,13 @@ public class SQLQueries {
                 " AUTH_REQ_ID, CONSUMER_KEY, LAST_POLLED_TIME, POLLING_INTERVAL, EXPIRES_IN, AUTH_REQ_STATUS, " +
                 " ISSUED_TIME FROM IDN_OAUTH2_CIBA_AUTH_CODE WHERE AUTH_CODE_KEY = ?";
 
+        public static final String RETRIEVE_AUTH_CODE_WITH_SCOPES_BY_AUTH_REQ_ID = "SELECT " +
+                "AUTH_CODE.AUTH_CODE_KEY, AUTH_CODE.AUTH_REQ_ID, AUTH_CODE.CONSUMER_KEY, AUTH_CODE.LAST_POLLED_TIME, " +
+                "AUTH_CODE.POLLING_INTERVAL, AUTH_CODE.EXPIRES_IN, AUTH_CODE.AUTH_REQ_STATUS, AUTH_CODE.ISSUED_TIME, " +
+                "AUTH_CODE.AUTHENTICATED_USER_NAME, AUTH_CODE.USER_STORE_DOMAIN, AUTH_CODE.TENANT_ID, SCOPES.SCOPE " +
+                "FROM IDN_OAUTH2_CIBA_AUTH_CODE AUTH_CODE LEFT OUTER JOIN IDN_OAUTH2_CIBA_REQUEST_SCOPES SCOPES ON " +
+                "AUTH_CODE.AUTH_CODE_KEY = SCOPES.AUTH_CODE_KEY WHERE AUTH_CODE.AUTH_REQ_ID = ?";
+
         public static final String STORE_SCOPES = "INSERT INTO IDN_OAUTH2_CIBA_REQUEST_SCOPES (AUTH_CODE_KEY,SCOPE) " +
                 "VALUES (?,?)";
 
@@ -21,7 +21,7 @@ package org.wso2.carbon.identity.oauth.ciba.grant;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.oauth.ciba.cache.CibaPollStateCache;
 import org.wso2.carbon.identity.oauth.ciba.common.AuthReqStatus;
 import org.wso2.carbon.identity.oauth.ciba.common.CibaConstants;
 import org.wso2.carbon.identity.oauth.ciba.dao.CibaDAOFactory;
@@ -36,7 +36,6 @@ import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 
 import java.sql.Timestamp;
 import java.util.Calendar;
-import java.util.List;
 import java.util.TimeZone;
 
 import static org.wso2.carbon.identity.oauth.ciba.common.CibaConstants.AUTH_REQ_ID;
@@ -53,6 +52,7 @@ import static org.wso2.carbon.identity.oauth.common.OAuth2ErrorCodes.INVALID_REQ
 public class CibaGrantHandler extends AbstractAuthorizationGrantHandler {
 
     // Used to keep the pre-processed authorization code in the OAuthTokenReqMessageContext.
+    private static final String CIBA_AUTH_CODE_KEY = "cibaAuthCodeKey";
     private static final String INVALID_GRANT = "invalid_grant";
     private static final String MISSING_AUTH_REQ_ID = "auth_req_id_missing";
     private static final String INVALID_AUTH_REQ_ID = "invalid auth_req_id";
@@ -65,11 +65,15 @@ public class CibaGrantHandler extends AbstractAuthorizationGrantHandler {
 
         OAuth2AccessTokenRespDTO responseDTO = super.issue(tokReqMsgCtx);
         String authReqId = getAuthReqId(tokReqMsgCtx);
-        CibaAuthCodeDO cibaAuthCodeDO = retrieveCibaAuthCode(authReqId);
+        // The auth code key is kept in the context when the grant is validated, hence the auth code is not read again.
+        String cibaAuthCodeKey = (String) tokReqMsgCtx.getProperty(CIBA_AUTH_CODE_KEY);
+        if (cibaAuthCodeKey == null) {
+            cibaAuthCodeKey = retrieveCibaAuthCode(authReqId).getCibaAuthCodeKey();
+        }
 
         try {
-            CibaDAOFactory.getInstance().getCibaAuthMgtDAO()
-                    .updateStatus(cibaAuthCodeDO.getCibaAuthCodeKey(), AuthReqStatus.TOKEN_ISSUED);
+            CibaDAOFactory.getInstance().getCibaAuthMgtDAO().updateStatus(cibaAuthCodeKey, AuthReqStatus.TOKEN_ISSUED);
+            CibaPollStateCache.getInstance().remove(cibaAuthCodeKey);
             if (log.isDebugEnabled()) {
                 log.debug("Successfully updated the status of authentication request made by client:" +
                         tokReqMsgCtx.getOauth2AccessTokenReqDTO().getClientId());
@@ -113,6 +117,7 @@ public class CibaGrantHandler extends AbstractAuthorizationGrantHandler {
 
             // Validate whether authentication  is provided with affirmative consent.
             if (!isAuthorized(cibaAuthCodeDO)) {
+                CibaPollStateCache.getInstance().remove(cibaAuthCodeDO.getCibaAuthCodeKey());
                 throw new IdentityOAuth2Exception(ACCESS_DENIED, "User denied authentication");
             }
 
@@ -126,6 +131,7 @@ public class CibaGrantHandler extends AbstractAuthorizationGrantHandler {
             }
 
             setPropertiesForTokenGeneration(tokReqMsgCtx, cibaAuthCodeDO);
+            tokReqMsgCtx.addProperty(CIBA_AUTH_CODE_KEY, cibaAuthCodeDO.getCibaAuthCodeKey());
             return true;
         } catch (CibaCoreException e) {
             throw new IdentityOAuth2Exception(INVALID_PARAMETERS, e);
@@ -193,6 +199,7 @@ public class CibaGrantHandler extends AbstractAuthorizationGrantHandler {
             }
             CibaDAOFactory.getInstance().getCibaAuthMgtDAO().updateStatus(cibaAuthCodeDO.getCibaAuthCodeKey(),
                     AuthReqStatus.EXPIRED);
+            CibaPollStateCache.getInstance().remove(cibaAuthCodeDO.getCibaAuthCodeKey());
             throw new IdentityOAuth2Exception(EXPIRED_AUTH_REQ_ID, "Token expired");
         }
     }
@@ -207,7 +214,8 @@ public class CibaGrantHandler extends AbstractAuthorizationGrantHandler {
     }
 
     /**
-     * Validates the polling frequency of token request.
+     * Validates the polling frequency of token request. An increased polling interval is kept in the poll state
+     * cache, and written to the database by its flusher.
      *
      * @param cibaAuthCodeDO JSON auth_req_id from the tokenRequest.
      * @throws IdentityOAuth2Exception,CibaCoreException Identity Exception related to OAuth2.
@@ -227,13 +235,16 @@ public class CibaGrantHandler extends AbstractAuthorizationGrantHandler {
                         "cibaAuthCodeDOKey : " + cibaAuthCodeDO.getCibaAuthCodeKey() + ". Updated the Polling " +
                         "frequency on the table.");
             }
-            CibaDAOFactory.getInstance().getCibaAuthMgtDAO().updatePollingInterval(cibaAuthCodeID, newInterval);
+            if (!CibaPollStateCache.getInstance().recordInterval(cibaAuthCodeDO, newInterval)) {
+                CibaDAOFactory.getInstance().getCibaAuthMgtDAO().updatePollingInterval(cibaAuthCodeID, newInterval);
+            }
             throw new IdentityOAuth2Exception(SLOW_DOWN, "Slow down");
         }
     }
 
     /**
-     * Updates the last polled time..
+     * Updates the last polled time. The time is kept in the poll state cache, and written to the database by its
+     * flusher.
      *
      * @param cibaAuthCodeDO JSON auth_req_id from the tokenRequest.
      * @throws CibaCoreException CIBA core component exception.
@@ -241,6 +252,9 @@ public class CibaGrantHandler extends AbstractAuthorizationGrantHandler {
     private void updateLastPolledTime(CibaAuthCodeDO cibaAuthCodeDO) throws CibaCoreException {
 
         long currentTimeInMillis = Calendar.getInstance(TimeZone.getTimeZone(CibaConstants.UTC)).getTimeInMillis();
+        if (CibaPollStateCache.getInstance().recordPoll(cibaAuthCodeDO, currentTimeInMillis)) {
+            return;
+        }
         Timestamp latestPollingTime = new Timestamp(currentTimeInMillis);
         CibaDAOFactory.getInstance().getCibaAuthMgtDAO().updateLastPollingTime(cibaAuthCodeDO.getCibaAuthCodeKey(),
                 latestPollingTime);
@@ -304,7 +318,8 @@ public class CibaGrantHandler extends AbstractAuthorizationGrantHandler {
     }
 
     /**
-     * Validates whether provided auth_req_id exists in and return AuthCode if exists.
+     * Validates whether provided auth_req_id exists in and return AuthCode if exists. The auth code, its scopes and
+     * its authenticated user are read with a single query, and the polling state of this node is merged into it.
      *
      * @param authReqId Authentication Request Identifier.
      * @throws IdentityOAuth2Exception
@@ -312,9 +327,10 @@ public class CibaGrantHandler extends AbstractAuthorizationGrantHandler {
     private CibaAuthCodeDO retrieveCibaAuthCode(String authReqId) throws IdentityOAuth2Exception {
 
         try {
-            String authCodeKey = CibaDAOFactory.getInstance().getCibaAuthMgtDAO().getCibaAuthCodeKey(authReqId);
+            CibaAuthCodeDO cibaAuthCodeDO =
+                    CibaDAOFactory.getInstance().getCibaAuthMgtDAO().getCibaAuthCodeByAuthReqId(authReqId);
 
-            if (StringUtils.isBlank(authCodeKey)) {
+            if (cibaAuthCodeDO == null || StringUtils.isBlank(cibaAuthCodeDO.getCibaAuthCodeKey())) {
                 if (log.isDebugEnabled()) {
                     log.debug("Provided auth_req_id : " +
                             authReqId + " with the token request is not valid.Or not issued by Identity server.");
@@ -322,21 +338,7 @@ public class CibaGrantHandler extends AbstractAuthorizationGrantHandler {
                 throw new IdentityOAuth2Exception(INVALID_AUTH_REQ_ID);
             }
 
-            CibaAuthCodeDO cibaAuthCodeDO =
-                    CibaDAOFactory.getInstance().getCibaAuthMgtDAO().getCibaAuthCode(authCodeKey);
-
-            if (cibaAuthCodeDO.getAuthReqStatus().equals(AuthReqStatus.AUTHENTICATED)) {
-
-                // Retrieve scopes.
-                List<String> scope =
-                        CibaDAOFactory.getInstance().getCibaAuthMgtDAO().getScopes(cibaAuthCodeDO.getCibaAuthCodeKey());
-                cibaAuthCodeDO.setScopes(scope.toArray(new String[scope.size()]));
-
-                // Retrieve authenticated user.
-                AuthenticatedUser authenticatedUser = CibaDAOFactory.getInstance().getCibaAuthMgtDAO()
-                        .getAuthenticatedUser(cibaAuthCodeDO.getCibaAuthCodeKey());
-                cibaAuthCodeDO.setAuthenticatedUser(authenticatedUser);
-            }
+            CibaPollStateCache.getInstance().applyTo(cibaAuthCodeDO);
             return cibaAuthCodeDO;
         } catch (CibaCoreException e) {
             throw new IdentityOAuth2Exception(INVALID_AUTH_REQ_ID, e);
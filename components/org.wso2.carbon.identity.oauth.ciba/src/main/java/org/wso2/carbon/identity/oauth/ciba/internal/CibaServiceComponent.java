@@ -26,6 +26,7 @@ import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
 import org.wso2.carbon.identity.oauth.ciba.api.CibaAuthService;
 import org.wso2.carbon.identity.oauth.ciba.api.CibaAuthServiceImpl;
+import org.wso2.carbon.identity.oauth.ciba.cache.CibaPollStateCache;
 
 /**
  * Service component for CIBA.
@@ -55,6 +56,7 @@ public class CibaServiceComponent {
     @Deactivate
     protected void deactivate(ComponentContext context) {
 
+        CibaPollStateCache.getInstance().shutdown();
         if (log.isDebugEnabled()) {
             log.debug("CIBA component bundle is deactivated.");
         }
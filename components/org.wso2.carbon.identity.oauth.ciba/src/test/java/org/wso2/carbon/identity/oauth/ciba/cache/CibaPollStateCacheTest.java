@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.ciba.cache;
+
+import org.mockito.Mock;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.powermock.reflect.Whitebox;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.ciba.dao.CibaDAOFactory;
+import org.wso2.carbon.identity.oauth.ciba.dao.CibaMgtDAO;
+import org.wso2.carbon.identity.oauth.ciba.exceptions.CibaCoreException;
+import org.wso2.carbon.identity.oauth.ciba.model.CibaAuthCodeDO;
+
+import java.sql.Timestamp;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for CibaPollStateCache.
+ */
+@PrepareForTest({CibaDAOFactory.class, IdentityUtil.class})
+public class CibaPollStateCacheTest extends PowerMockTestCase {
+
+    private static final String AUTH_CODE_KEY = "039e8fff-1b24-420a-9dae-0ad745c96e97";
+    private static final String OTHER_AUTH_CODE_KEY = "5d8e2a4c-8f1b-4b57-9a0e-2c41d3f7e6b8";
+
+    @Mock
+    CibaDAOFactory cibaDAOFactory;
+
+    @Mock
+    CibaMgtDAO cibaMgtDAO;
+
+    @BeforeMethod
+    public void setUp() {
+
+        reset(cibaMgtDAO);
+        mockStatic(CibaDAOFactory.class);
+        when(CibaDAOFactory.getInstance()).thenReturn(cibaDAOFactory);
+        when(cibaDAOFactory.getCibaAuthMgtDAO()).thenReturn(cibaMgtDAO);
+    }
+
+    @Test
+    public void testApplyTo() {
+
+        CibaPollStateCache cache = new CibaPollStateCache(true, 10, 0);
+        long now = System.currentTimeMillis();
+        assertTrue(cache.recordPoll(buildCibaAuthCodeDO(AUTH_CODE_KEY, now - 10000, 2), now));
+        assertTrue(cache.recordInterval(buildCibaAuthCodeDO(AUTH_CODE_KEY, now - 10000, 2), 5));
+
+        CibaAuthCodeDO staleCibaAuthCodeDO = buildCibaAuthCodeDO(AUTH_CODE_KEY, now - 10000, 2);
+        cache.applyTo(staleCibaAuthCodeDO);
+        assertEquals(staleCibaAuthCodeDO.getLastPolledTime().getTime(), now);
+        assertEquals(staleCibaAuthCodeDO.getInterval(), 5);
+
+        // A newer state read from the database, flushed by another node, is kept.
+        CibaAuthCodeDO newerCibaAuthCodeDO = buildCibaAuthCodeDO(AUTH_CODE_KEY, now + 1000, 8);
+        cache.applyTo(newerCibaAuthCodeDO);
+        assertEquals(newerCibaAuthCodeDO.getLastPolledTime().getTime(), now + 1000);
+        assertEquals(newerCibaAuthCodeDO.getInterval(), 8);
+    }
+
+    @Test
+    public void testFlush() throws Exception {
+
+        CibaPollStateCache cache = new CibaPollStateCache(true, 10, 0);
+        long now = System.currentTimeMillis();
+        cache.recordPoll(buildCibaAuthCodeDO(AUTH_CODE_KEY, now, 2), now);
+
+        cache.flush();
+        verify(cibaMgtDAO).updateLastPollingTime(AUTH_CODE_KEY, new Timestamp(now));
+        verify(cibaMgtDAO, never()).updatePollingInterval(anyString(), anyLong());
+
+        // Unchanged states are not written again.
+        cache.flush();
+        verify(cibaMgtDAO, times(1)).updateLastPollingTime(anyString(), any(Timestamp.class));
+        assertEquals(cache.size(), 1);
+    }
+
+    @Test
+    public void testFailedFlushIsRetried() throws Exception {
+
+        CibaPollStateCache cache = new CibaPollStateCache(true, 10, 0);
+        long now = System.currentTimeMillis();
+        cache.recordPoll(buildCibaAuthCodeDO(AUTH_CODE_KEY, now, 2), now);
+
+        doThrow(new CibaCoreException("Error")).when(cibaMgtDAO).updateLastPollingTime(eq(AUTH_CODE_KEY),
+                any(Timestamp.class));
+        cache.flush();
+        reset(cibaMgtDAO);
+        cache.flush();
+        verify(cibaMgtDAO).updateLastPollingTime(AUTH_CODE_KEY, new Timestamp(now));
+    }
+
+    @Test
+    public void testExpiredStatesAreDropped() throws Exception {
+
+        CibaPollStateCache cache = new CibaPollStateCache(true, 10, 0);
+        long now = System.currentTimeMillis();
+        CibaAuthCodeDO expiredCibaAuthCodeDO = buildCibaAuthCodeDO(AUTH_CODE_KEY, now, 2);
+        expiredCibaAuthCodeDO.setIssuedTime(new Timestamp(now - 10000));
+        expiredCibaAuthCodeDO.setExpiresIn(1);
+        cache.recordPoll(expiredCibaAuthCodeDO, now);
+
+        cache.flush();
+        verify(cibaMgtDAO).updateLastPollingTime(AUTH_CODE_KEY, new Timestamp(now));
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testFallbackWhenFullOrDisabled() {
+
+        long now = System.currentTimeMillis();
+        CibaPollStateCache cache = new CibaPollStateCache(true, 1, 0);
+        assertTrue(cache.recordPoll(buildCibaAuthCodeDO(AUTH_CODE_KEY, now, 2), now));
+        assertFalse(cache.recordPoll(buildCibaAuthCodeDO(OTHER_AUTH_CODE_KEY, now, 2), now));
+        // Requests already in the cache are still recorded when it is full.
+        assertTrue(cache.recordInterval(buildCibaAuthCodeDO(AUTH_CODE_KEY, now, 2), 5));
+
+        cache.remove(AUTH_CODE_KEY);
+        assertEquals(cache.size(), 0);
+
+        CibaPollStateCache disabledCache = new CibaPollStateCache(false, 10, 0);
+        assertFalse(disabledCache.recordPoll(buildCibaAuthCodeDO(AUTH_CODE_KEY, now, 2), now));
+        assertFalse(disabledCache.recordInterval(buildCibaAuthCodeDO(AUTH_CODE_KEY, now, 2), 5));
+    }
+
+    @Test
+    public void testDisabledWithoutFlushInterval() {
+
+        CibaPollStateCache instance = Whitebox.getInternalState(CibaPollStateCache.class, "instance");
+        try {
+            mockStatic(IdentityUtil.class);
+            when(IdentityUtil.getProperty("OAuth.CIBA.PollStateCache.FlushInterval")).thenReturn("0");
+            Whitebox.setInternalState(CibaPollStateCache.class, "instance", (Object) null);
+
+            CibaPollStateCache cache = CibaPollStateCache.getInstance();
+            long now = System.currentTimeMillis();
+            assertFalse(cache.isEnabled());
+            // Polls are written to the database by the caller, as they would never be flushed.
+            assertFalse(cache.recordPoll(buildCibaAuthCodeDO(AUTH_CODE_KEY, now, 2), now));
+            assertEquals(cache.size(), 0);
+        } finally {
+            Whitebox.setInternalState(CibaPollStateCache.class, "instance", instance);
+        }
+    }
+
+    private static CibaAuthCodeDO buildCibaAuthCodeDO(String authCodeKey, long lastPolledTime, long interval) {
+
+        CibaAuthCodeDO cibaAuthCodeDO = new CibaAuthCodeDO();
+        cibaAuthCodeDO.setCibaAuthCodeKey(authCodeKey);
+        cibaAuthCodeDO.setLastPolledTime(new Timestamp(lastPolledTime));
+        cibaAuthCodeDO.setInterval(interval);
+        cibaAuthCodeDO.setIssuedTime(new Timestamp(System.currentTimeMillis()));
+        cibaAuthCodeDO.setExpiresIn(3600);
+        return cibaAuthCodeDO;
+    }
+}
@@ -46,9 +46,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
 
+import static org.mockito.Matchers.anyInt;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertEqualsNoOrder;
+import static org.testng.Assert.assertNull;
 
 @PrepareForTest({IdentityDatabaseUtil.class, OAuthServerConfiguration.class, OAuth2Util.class})
 @WithH2Database(files = {"dbScripts/h2.sql", "dbScripts/identity.sql"})
@@ -203,6 +206,42 @@ public class CibaMgtDAOImplTest extends PowerMockTestCase {
         }
     }
 
+    @Test
+    public void testGetCibaAuthCodeByAuthReqId() throws Exception {
+
+        try (Connection connection1 = getConnection(DB_NAME)) {
+            prepareConnection(connection1, true);
+            cibaMgtDAO.updateStatus(AUTH_CODE_KEY, AuthReqStatus.REQUESTED);
+        }
+        try (Connection connection1 = getConnection(DB_NAME)) {
+            prepareConnection(connection1, false);
+            CibaAuthCodeDO retrievedCibaAuthCodeDO = cibaMgtDAO.getCibaAuthCodeByAuthReqId(AUTH_REQ_ID);
+            assertEquals(retrievedCibaAuthCodeDO.getCibaAuthCodeKey(), AUTH_CODE_KEY);
+            assertEquals(retrievedCibaAuthCodeDO.getConsumerKey(), CONSUMER_KEY);
+            assertEquals(retrievedCibaAuthCodeDO.getAuthReqStatus(), AuthReqStatus.REQUESTED);
+            assertEqualsNoOrder(retrievedCibaAuthCodeDO.getScopes(), scopes);
+            assertNull(retrievedCibaAuthCodeDO.getAuthenticatedUser());
+        }
+
+        try (Connection connection1 = getConnection(DB_NAME)) {
+            prepareConnection(connection1, true);
+            cibaMgtDAO.updateStatus(AUTH_CODE_KEY, AuthReqStatus.AUTHENTICATED);
+        }
+        mockStatic(OAuth2Util.class);
+        when(OAuth2Util.getTenantDomain(anyInt())).thenReturn("carbon.super");
+        try (Connection connection1 = getConnection(DB_NAME)) {
+            prepareConnection(connection1, false);
+            CibaAuthCodeDO retrievedCibaAuthCodeDO = cibaMgtDAO.getCibaAuthCodeByAuthReqId(AUTH_REQ_ID);
+            assertEqualsNoOrder(retrievedCibaAuthCodeDO.getScopes(), scopes);
+            assertEquals(retrievedCibaAuthCodeDO.getAuthenticatedUser().getTenantDomain(), "carbon.super");
+        }
+
+        try (Connection connection1 = getConnection(DB_NAME)) {
+            prepareConnection(connection1, false);
+            assertNull(cibaMgtDAO.getCibaAuthCodeByAuthReqId("not-existing-auth-req-id"));
+        }
+    }
+
     @Test
     public void testGetScope() throws Exception {
 
@@ -26,6 +26,7 @@ import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import org.wso2.carbon.identity.common.testng.WithH2Database;
+import org.wso2.carbon.identity.oauth.ciba.cache.CibaPollStateCache;
 import org.wso2.carbon.identity.oauth.ciba.common.AuthReqStatus;
 import org.wso2.carbon.identity.oauth.ciba.dao.CibaDAOFactory;
 import org.wso2.carbon.identity.oauth.ciba.dao.CibaMgtDAO;
@@ -40,8 +41,14 @@ import java.sql.Timestamp;
 import java.util.Calendar;
 import java.util.TimeZone;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.when;
+import static org.wso2.carbon.identity.oauth.ciba.exceptions.ErrorCodes.SLOW_DOWN;
 
 @WithH2Database(files = {"dbScripts/h2.sql", "dbScripts/identity.sql"})
 @PrepareForTest({OAuth2Util.class, OAuthServerConfiguration.class, CibaDAOFactory.class})
@@ -125,6 +132,38 @@ public class CibaGrantHandlerTest extends PowerMockTestCase {
                 cibaAuthCodeDoDenied));
     }
 
+    @Test
+    public void testLastPolledTimeIsCached() throws Exception {
+
+        long currentTimeInMillis = Calendar.getInstance(TimeZone.getTimeZone("UTC")).getTimeInMillis();
+        CibaAuthCodeDO cibaAuthCodeDO = new CibaAuthCodeDO();
+        cibaAuthCodeDO.setCibaAuthCodeKey(AUTH_CODE_KEY);
+        cibaAuthCodeDO.setIssuedTime(new Timestamp(currentTimeInMillis));
+        cibaAuthCodeDO.setExpiresIn(120L);
+        cibaAuthCodeDO.setLastPolledTime(new Timestamp(currentTimeInMillis - 10000));
+        cibaAuthCodeDO.setInterval(2);
+
+        when(CibaDAOFactory.getInstance().getCibaAuthMgtDAO()).thenReturn(cibaMgtDAO);
+
+        try {
+            WhiteboxImpl.invokeMethod(cibaGrantHandler, "updateLastPolledTime", cibaAuthCodeDO);
+            verify(cibaMgtDAO, never()).updateLastPollingTime(anyString(), any(Timestamp.class));
+
+            // The next poll read from the database gets the cached polling time, and is too frequent.
+            CibaPollStateCache.getInstance().applyTo(cibaAuthCodeDO);
+            Assert.assertTrue(cibaAuthCodeDO.getLastPolledTime().getTime() >= currentTimeInMillis);
+            try {
+                WhiteboxImpl.invokeMethod(cibaGrantHandler, "validatePollingFrequency", cibaAuthCodeDO);
+                Assert.fail("Polling frequency validation should fail.");
+            } catch (IdentityOAuth2Exception e) {
+                Assert.assertEquals(e.getErrorCode(), SLOW_DOWN);
+            }
+            verify(cibaMgtDAO, never()).updatePollingInterval(anyString(), anyLong());
+        } finally {
+            CibaPollStateCache.getInstance().remove(AUTH_CODE_KEY);
+        }
+    }
+
     @Test(expectedExceptions = IdentityOAuth2Exception.class)
     public void testActiveAuthReqId() throws Exception {
 
@@ -20,17 +20,21 @@ package org.wso2.carbon.identity.oauth.endpoint.introspection;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.json.JSONArray;
 import org.json.JSONException;
+import org.json.JSONObject;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.central.log.mgt.utils.LoggerUtils;
 import org.wso2.carbon.identity.core.handler.AbstractIdentityHandler;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2ClientException;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.IntrospectionDataProvider;
 import org.wso2.carbon.identity.oauth2.OAuth2TokenValidationService;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2IntrospectionResponseDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationRequestDTO;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -60,6 +64,10 @@ public class OAuth2IntrospectionEndpoint {
     private static final String INVALID_INPUT = "Invalid input";
 
     private static final String ACCESS_TOKEN_HINT = "access_token";
+    private static final String TOKEN = "token";
+    private static final String TOKEN_TYPE_HINT = "token_type_hint";
+    private static final String REQUIRED_CLAIMS = "required_claims";
+    private static final String INACTIVE_TOKEN_RESPONSE = "{\"active\":false}";
 
     /**
      * Token introspection endpoint.
@@ -111,6 +119,111 @@ public class OAuth2IntrospectionEndpoint {
                     entity("{\"error\": \"" + INVALID_INPUT + "\"}").build();
         }
 
+        introspectionRequest = buildIntrospectionRequest(token, tokenTypeHint, requiredClaims);
+
+        OAuth2TokenValidationService tokenService = (OAuth2TokenValidationService) PrivilegedCarbonContext
+                .getThreadLocalCarbonContext().getOSGiService(OAuth2TokenValidationService.class);
+
+        introspectionResponse = tokenService.buildIntrospectionResponse(introspectionRequest);
+
+        String responseBody;
+        try {
+            responseBody = buildIntrospectionResponseBody(introspectionRequest, introspectionResponse,
+                    requiredClaims != null);
+        } catch (IdentityOAuth2Exception e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("{\"error\": \"Error occurred while building the introspection " +
+                            "response.\"}")
+                    .build();
+        } catch (JSONException e) {
+            LoggerUtils.triggerDiagnosticLogEvent(OAuthConstants.LogConstants.OAUTH_INBOUND_SERVICE, null,
+                    OAuthConstants.LogConstants.FAILED, "System error occurred.", "generate-introspect-response", null);
+            log.error("Error occurred while building the json response.", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("{\"error\": \"Error occurred while building the json response.\"}").build();
+        }
+        return Response.ok(responseBody, MediaType.APPLICATION_JSON).status(Response.Status.OK).build();
+    }
+
+    /**
+     * Bulk token introspection endpoint. Accepts a JSON array of token introspection requests, each with the
+     * parameters of the token introspection endpoint, and returns a JSON array of the introspection responses in the
+     * same order.
+     *
+     * @param payload JSON array of token introspection requests
+     * @return
+     */
+    @POST
+    @Path("/bulk")
+    @Consumes({MediaType.APPLICATION_JSON})
+    public Response introspectBulk(String payload) {
+
+        List<OAuth2TokenValidationRequestDTO> introspectionRequests = new ArrayList<>();
+        List<Boolean> claimsRequested = new ArrayList<>();
+        try {
+            JSONArray tokens = new JSONArray(StringUtils.defaultString(payload));
+            for (int i = 0; i < tokens.length(); i++) {
+                JSONObject tokenRequest = tokens.optJSONObject(i);
+                if (tokenRequest == null || StringUtils.isBlank(tokenRequest.optString(TOKEN, null))) {
+                    return buildInvalidInputResponse();
+                }
+                String requiredClaims = tokenRequest.optString(REQUIRED_CLAIMS, null);
+                introspectionRequests.add(buildIntrospectionRequest(tokenRequest.getString(TOKEN),
+                        tokenRequest.optString(TOKEN_TYPE_HINT, null), requiredClaims));
+                claimsRequested.add(requiredClaims != null);
+            }
+        } catch (JSONException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Invalid bulk introspection request payload.", e);
+            }
+            return buildInvalidInputResponse();
+        }
+        if (introspectionRequests.isEmpty()) {
+            return buildInvalidInputResponse();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Introspecting " + introspectionRequests.size() + " tokens in a bulk introspection request.");
+        }
+
+        OAuth2TokenValidationService tokenService = (OAuth2TokenValidationService) PrivilegedCarbonContext
+                .getThreadLocalCarbonContext().getOSGiService(OAuth2TokenValidationService.class);
+
+        List<OAuth2IntrospectionResponseDTO> introspectionResponses;
+        try {
+            introspectionResponses = tokenService.buildIntrospectionResponses(introspectionRequests);
+        } catch (IdentityOAuth2ClientException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity("{\"error\": \"" + e.getMessage() + "\"}")
+                    .build();
+        }
+
+        JSONArray responseBody = new JSONArray();
+        try {
+            for (int i = 0; i < introspectionRequests.size(); i++) {
+                responseBody.put(new JSONObject(buildIntrospectionResponseBody(introspectionRequests.get(i),
+                        introspectionResponses.get(i), claimsRequested.get(i))));
+            }
+        } catch (IdentityOAuth2Exception e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("{\"error\": \"Error occurred while building the introspection response.\"}").build();
+        } catch (JSONException e) {
+            log.error("Error occurred while building the json response.", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("{\"error\": \"Error occurred while building the json response.\"}").build();
+        }
+        return Response.ok(responseBody.toString(), MediaType.APPLICATION_JSON).status(Response.Status.OK).build();
+    }
+
+    private Response buildInvalidInputResponse() {
+
+        OAuth2IntrospectionResponseDTO introspectionResponse = new OAuth2IntrospectionResponseDTO();
+        introspectionResponse.setError(INVALID_INPUT);
+        triggerOnIntrospectionExceptionListeners(null, introspectionResponse);
+        return Response.status(Response.Status.BAD_REQUEST).entity("{\"error\": \"" + INVALID_INPUT + "\"}").build();
+    }
+
+    private OAuth2TokenValidationRequestDTO buildIntrospectionRequest(String token, String tokenTypeHint,
+                                                                      String requiredClaims) {
+
         String[] claimsUris = null;
         if (StringUtils.isNotEmpty(requiredClaims)) {
             claimsUris = requiredClaims.split(",");
@@ -119,7 +232,7 @@ public class OAuth2IntrospectionEndpoint {
         }
 
         // validate the access token against the OAuth2TokenValidationService OSGi service.
-        introspectionRequest = new OAuth2TokenValidationRequestDTO();
+        OAuth2TokenValidationRequestDTO introspectionRequest = new OAuth2TokenValidationRequestDTO();
         OAuth2TokenValidationRequestDTO.OAuth2AccessToken oAuth2Token = introspectionRequest.new OAuth2AccessToken();
 
         if (tokenTypeHint == null || StringUtils.equals(tokenTypeHint, ACCESS_TOKEN_HINT)) {
@@ -131,17 +244,19 @@ public class OAuth2IntrospectionEndpoint {
         oAuth2Token.setIdentifier(token);
         introspectionRequest.setAccessToken(oAuth2Token);
         introspectionRequest.setRequiredClaimURIs(claimsUris);
+        return introspectionRequest;
+    }
 
-        OAuth2TokenValidationService tokenService = (OAuth2TokenValidationService) PrivilegedCarbonContext
-                .getThreadLocalCarbonContext().getOSGiService(OAuth2TokenValidationService.class);
-
-        introspectionResponse = tokenService.buildIntrospectionResponse(introspectionRequest);
+    private String buildIntrospectionResponseBody(OAuth2TokenValidationRequestDTO introspectionRequest,
+                                                  OAuth2IntrospectionResponseDTO introspectionResponse,
+                                                  boolean claimsRequested)
+            throws IdentityOAuth2Exception, JSONException {
 
         if (introspectionResponse.getError() != null) {
             if (log.isDebugEnabled()) {
                 log.debug("The error why token is made inactive: " + introspectionResponse.getError());
             }
-            return Response.status(Response.Status.OK).entity("{\"active\":false}").build();
+            return INACTIVE_TOKEN_RESPONSE;
         }
 
         IntrospectionResponseBuilder respBuilder = new IntrospectionResponseBuilder()
@@ -164,7 +279,7 @@ public class OAuth2IntrospectionEndpoint {
         }
 
         //provide jwt in the response only if claims are requested
-        if (introspectionResponse.getUserContext() != null && requiredClaims != null) {
+        if (introspectionResponse.getUserContext() != null && claimsRequested) {
             respBuilder.setTokenString(introspectionResponse.getUserContext());
         }
 
@@ -202,23 +317,11 @@ public class OAuth2IntrospectionEndpoint {
                             OAuthConstants.LogConstants.FAILED, "System error occurred.",
                             "generate-introspect-response", null);
                     log.error("Error occurred while processing additional token introspection data.", e);
-
-                    return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                            .entity("{\"error\": \"Error occurred while building the introspection " +
-                                    "response.\"}")
-                            .build();
+                    throw e;
                 }
             }
         }
 
-        try {
-            return Response.ok(respBuilder.build(), MediaType.APPLICATION_JSON).status(Response.Status.OK).build();
-        } catch (JSONException e) {
-            LoggerUtils.triggerDiagnosticLogEvent(OAuthConstants.LogConstants.OAUTH_INBOUND_SERVICE, null,
-                    OAuthConstants.LogConstants.FAILED, "System error occurred.", "generate-introspect-response", null);
-            log.error("Error occurred while building the json response.", e);
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("{\"error\": \"Error occurred while building the json response.\"}").build();
-        }
+        return respBuilder.build();
     }
 }
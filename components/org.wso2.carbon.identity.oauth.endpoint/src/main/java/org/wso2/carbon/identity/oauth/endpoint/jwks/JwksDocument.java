@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.endpoint.jwks;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.util.Base64;
+import com.nimbusds.jose.util.Base64URL;
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
+import org.apache.commons.lang.StringUtils;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.RSAPublicKey;
+import java.text.ParseException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A rendered JWKS document of a tenant, with the validators of the HTTP conditional requests for it.
+ */
+public class JwksDocument {
+
+    private static final String KEY_USE = "sig";
+    private static final String KEYS = "keys";
+    private static final String ANY_ENTITY_TAG = "*";
+    private static final String WEAK_ENTITY_TAG_PREFIX = "W/";
+
+    private final String json;
+    private final String entityTag;
+    private final long lastModified;
+
+    JwksDocument(String json, long lastModified) throws NoSuchAlgorithmException {
+
+        this.json = json;
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(json.getBytes(StandardCharsets.UTF_8));
+        this.entityTag = "\"" + Base64URL.encode(digest).toString() + "\"";
+        // HTTP dates have a precision of a second.
+        this.lastModified = lastModified / 1000 * 1000;
+    }
+
+    /**
+     * Render the JWKS document of the signing certificates, with a key for each of the signing algorithms.
+     *
+     * @param certInfoList Signing certificates.
+     * @param algorithms   Signing algorithms.
+     * @param tenantDomain Tenant domain the certificates belong to.
+     * @return JWKS document.
+     */
+    public static JwksDocument build(List<CertificateInfo> certInfoList, List<JWSAlgorithm> algorithms,
+                                     String tenantDomain)
+            throws IdentityOAuth2Exception, ParseException, CertificateEncodingException, NoSuchAlgorithmException {
+
+        JSONArray jwksArray = new JSONArray();
+        JSONObject jwksJson = new JSONObject();
+        // Create JWKS for different algorithms using new KeyID creation method.
+        for (CertificateInfo certInfo : certInfoList) {
+            String alias = certInfo.getCertificateAlias();
+            X509Certificate cert = (X509Certificate) certInfo.getCertificate();
+            List<Base64> encodedCertList = generateEncodedCertList(certInfo.getCertificateChain(), alias,
+                    tenantDomain);
+            Base64URL thumbprint = Base64URL.encode(OAuth2Util.getThumbPrint(cert, alias));
+            for (JWSAlgorithm algorithm : algorithms) {
+                RSAKey.Builder jwk = new RSAKey.Builder((RSAPublicKey) cert.getPublicKey());
+                jwk.keyID(OAuth2Util.getKID(cert, algorithm, tenantDomain));
+                jwk.algorithm(algorithm);
+                jwk.keyUse(KeyUse.parse(KEY_USE));
+                jwk.x509CertChain(encodedCertList);
+                jwk.x509CertSHA256Thumbprint(thumbprint);
+                jwksArray.add(jwk.build().toJSONObject());
+            }
+        }
+        jwksJson.put(KEYS, jwksArray);
+        return new JwksDocument(jwksJson.toString(), System.currentTimeMillis());
+    }
+
+    public String getJson() {
+
+        return json;
+    }
+
+    /**
+     * Get the strong entity tag of the document, which is derived from its content.
+     *
+     * @return Quoted entity tag.
+     */
+    public String getEntityTag() {
+
+        return entityTag;
+    }
+
+    public long getLastModified() {
+
+        return lastModified;
+    }
+
+    /**
+     * Get the time the document was rendered, as an HTTP date.
+     *
+     * @return HTTP date.
+     */
+    public String getLastModifiedHttpDate() {
+
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.ofInstant(Instant.ofEpochMilli(lastModified),
+                ZoneOffset.UTC));
+    }
+
+    /**
+     * Check whether a client holding the document with the given validators has the current document. The entity tag
+     * takes precedence over the modification date, as in RFC 7232.
+     *
+     * @param ifNoneMatch     Value of the If-None-Match request header.
+     * @param ifModifiedSince Value of the If-Modified-Since request header.
+     * @return True if the client has the current document.
+     */
+    public boolean isNotModified(String ifNoneMatch, String ifModifiedSince) {
+
+        if (StringUtils.isNotBlank(ifNoneMatch)) {
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith(WEAK_ENTITY_TAG_PREFIX)) {
+                    tag = tag.substring(WEAK_ENTITY_TAG_PREFIX.length());
+                }
+                if (ANY_ENTITY_TAG.equals(tag) || entityTag.equals(tag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (StringUtils.isNotBlank(ifModifiedSince)) {
+            try {
+                long since = ZonedDateTime.parse(ifModifiedSince.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                        .toInstant().toEpochMilli();
+                return lastModified <= since;
+            } catch (DateTimeParseException e) {
+                // An invalid date is ignored.
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This method generates the base64 encoded certificate list from a Certificate array
+     *
+     * @return base64 encoded certificate list
+     */
+    private static List<Base64> generateEncodedCertList(Certificate[] certificates, String alias,
+                                                        String tenantDomain) throws CertificateEncodingException {
+
+        List<Base64> certList = new ArrayList<>();
+        for (Certificate certificate : certificates) {
+            try {
+                certList.add(Base64.encode(certificate.getEncoded()));
+            } catch (CertificateEncodingException exception) {
+                String errorMessage = "Unable to encode the public certificate with alias: " + alias +
+                        " in the tenant domain: " + tenantDomain;
+                throw new CertificateEncodingException(errorMessage, exception);
+            }
+        }
+        return certList;
+    }
+}
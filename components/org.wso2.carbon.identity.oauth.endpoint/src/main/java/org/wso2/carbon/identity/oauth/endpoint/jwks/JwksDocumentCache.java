@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.endpoint.jwks;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local, in memory cache of the rendered JWKS documents, by tenant domain.
+ *
+ * A document is kept with the source it was rendered from: the version of the keystore, the signing algorithms and
+ * the key ID provider. A document is only served while its source is unchanged, so that a keystore update or a
+ * signing configuration change renders the document again on the next request.
+ */
+public class JwksDocumentCache {
+
+    private static final JwksDocumentCache instance = new JwksDocumentCache();
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    JwksDocumentCache() {
+
+    }
+
+    public static JwksDocumentCache getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Get the JWKS document of a tenant, if it was rendered from the given source.
+     *
+     * @param tenantDomain Tenant domain.
+     * @param source       Source the current document would be rendered from.
+     * @return JWKS document, or null if there is no document of the source.
+     */
+    public JwksDocument get(String tenantDomain, Object source) {
+
+        Entry entry = entries.get(tenantDomain);
+        if (entry != null && entry.source.equals(source)) {
+            return entry.document;
+        }
+        return null;
+    }
+
+    /**
+     * Add the JWKS document of a tenant, replacing the document of an earlier source.
+     *
+     * @param tenantDomain Tenant domain.
+     * @param source       Source the document was rendered from.
+     * @param document     JWKS document.
+     */
+    public void put(String tenantDomain, Object source, JwksDocument document) {
+
+        entries.put(tenantDomain, new Entry(source, document));
+    }
+
+    /**
+     * Remove the JWKS document of a tenant.
+     *
+     * @param tenantDomain Tenant domain.
+     */
+    public void invalidate(String tenantDomain) {
+
+        entries.remove(tenantDomain);
+    }
+
+    /**
+     * Remove the JWKS documents of all the tenants.
+     */
+    public void clear() {
+
+        entries.clear();
+    }
+
+    private static class Entry {
+
+        private final Object source;
+        private final JwksDocument document;
+
+        Entry(Object source, JwksDocument document) {
+
+            this.source = source;
+            this.document = document;
+        }
+    }
+}
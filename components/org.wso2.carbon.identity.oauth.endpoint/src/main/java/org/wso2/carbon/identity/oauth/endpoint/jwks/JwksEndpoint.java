@@ -18,12 +18,6 @@
 package org.wso2.carbon.identity.oauth.endpoint.jwks;
 
 import com.nimbusds.jose.JWSAlgorithm;
-import com.nimbusds.jose.jwk.KeyUse;
-import com.nimbusds.jose.jwk.RSAKey;
-import com.nimbusds.jose.util.Base64;
-import com.nimbusds.jose.util.Base64URL;
-import net.minidev.json.JSONArray;
-import net.minidev.json.JSONObject;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -35,25 +29,28 @@ import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
+import org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.utils.CarbonUtils;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.security.KeyStore;
-import java.security.cert.Certificate;
-import java.security.cert.CertificateEncodingException;
-import java.security.cert.X509Certificate;
-import java.security.interfaces.RSAPublicKey;
-import java.text.ParseException;
+import java.security.KeyStoreException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.List;
 
 import javax.jws.WebService;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 /**
  * Rest implementation for JWKS endpoint.
@@ -62,81 +59,127 @@ import javax.ws.rs.core.MediaType;
 public class JwksEndpoint {
 
     private static final Log log = LogFactory.getLog(JwksEndpoint.class);
-    private static final String KEY_USE = "sig";
     private static final String SECURITY_KEY_STORE_LOCATION = "Security.KeyStore.Location";
     private static final String SECURITY_KEY_STORE_PW = "Security.KeyStore.Password";
-    private static final String KEYS = "keys";
+    private static final String CACHE_MAX_AGE = "OAuth.JWKSEndpoint.CacheMaxAge";
+    private static final int DEFAULT_CACHE_MAX_AGE = 300;
 
     @GET
     @Path(value = "/jwks")
     @Produces(MediaType.APPLICATION_JSON)
-    public String jwks() {
+    public Response jwks(@HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                         @HeaderParam(HttpHeaders.IF_MODIFIED_SINCE) String ifModifiedSince) {
 
         String tenantDomain = getTenantDomain();
-        String keystorePath = CarbonUtils.getServerConfiguration().getFirstProperty(SECURITY_KEY_STORE_LOCATION);
-
-        try (FileInputStream file = new FileInputStream(keystorePath)) {
-            final KeyStore keystore;
-            List<CertificateInfo> certificateInfoList = new ArrayList<>();
-            if (MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equalsIgnoreCase(tenantDomain)) {
-                keystore = KeyStore.getInstance(KeyStore.getDefaultType());
-                String password = CarbonUtils.getServerConfiguration().getFirstProperty(SECURITY_KEY_STORE_PW);
-                keystore.load(file, password.toCharArray());
-            } else {
-                try {
-                    int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
-                    IdentityTenantUtil.initializeRegistry(tenantId);
-                    FrameworkUtils.startTenantFlow(tenantDomain);
-                    KeyStoreManager keyStoreManager = KeyStoreManager.getInstance(tenantId);
-                    keystore = keyStoreManager.getKeyStore(generateKSNameFromDomainName(tenantDomain));
-                } finally {
-                    FrameworkUtils.endTenantFlow();
-                }
+        try {
+            JwksDocument document = getJwksDocument(tenantDomain);
+            if (document.isNotModified(ifNoneMatch, ifModifiedSince)) {
+                return addCacheHeaders(Response.notModified(), document).build();
             }
-            Enumeration enumeration = keystore.aliases();
-            while (enumeration.hasMoreElements()) {
-                String alias = (String) enumeration.nextElement();
-                if (keystore.isKeyEntry(alias)) {
-                    CertificateInfo certificateInfo = new CertificateInfo(keystore.getCertificate(alias), alias);
-                    certificateInfo.setCertificateChain(keystore.getCertificateChain(alias));
-                    certificateInfoList.add(certificateInfo);
-                }
-            }
-            return buildResponse(certificateInfoList);
+            return addCacheHeaders(Response.ok(document.getJson()), document).build();
         } catch (Exception e) {
             String errorMessage = "Error while generating the keyset for tenant domain: " + tenantDomain;
-            return logAndReturnError(errorMessage, e);
+            return Response.ok(logAndReturnError(errorMessage, e)).build();
         }
     }
 
-    private String buildResponse(List<CertificateInfo> certInfoList)
-            throws IdentityOAuth2Exception, ParseException, CertificateEncodingException {
-
-        JSONArray jwksArray = new JSONArray();
-        JSONObject jwksJson = new JSONObject();
+    /**
+     * Get the JWKS document of the tenant. The document is rendered again only when the keystore of the tenant or
+     * the signing configuration changed since it was last rendered.
+     *
+     * @param tenantDomain Tenant domain.
+     * @return JWKS document.
+     * @throws Exception If the keystore could not be read, or the document could not be rendered.
+     */
+    private JwksDocument getJwksDocument(String tenantDomain) throws Exception {
+
+        final KeyStore keystore;
+        final Object keystoreVersion;
+        if (MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equalsIgnoreCase(tenantDomain)) {
+            // The super tenant keystore is loaded from the file system, hence it is tracked by the file attributes.
+            keystore = null;
+            String keystorePath = CarbonUtils.getServerConfiguration().getFirstProperty(SECURITY_KEY_STORE_LOCATION);
+            File keystoreFile = new File(keystorePath);
+            keystoreVersion = keystorePath + ":" + keystoreFile.lastModified() + ":" + keystoreFile.length();
+        } else {
+            // The key store manager loads a tenant keystore again when it is updated, hence it is tracked by identity.
+            keystore = getTenantKeyStore(tenantDomain);
+            if (keystore == null) {
+                throw new IdentityOAuth2Exception("Keystore not found for the tenant domain: " + tenantDomain);
+            }
+            keystoreVersion = keystore;
+        }
         OAuthServerConfiguration config = OAuthServerConfiguration.getInstance();
         JWSAlgorithm accessTokenSignAlgorithm =
                 OAuth2Util.mapSignatureAlgorithmForJWSAlgorithm(config.getSignatureAlgorithm());
         // If we read different algorithms from identity.xml then put them in a list.
         List<JWSAlgorithm> diffAlgorithms = findDifferentAlgorithms(accessTokenSignAlgorithm, config);
-        // Create JWKS for different algorithms using new KeyID creation method.
-        for (CertificateInfo certInfo : certInfoList) {
-            for (JWSAlgorithm algorithm : diffAlgorithms) {
-                String alias = certInfo.getCertificateAlias();
-                X509Certificate cert = (X509Certificate) certInfo.getCertificate();
-                Certificate[] certChain = certInfo.getCertificateChain();
-                List<Base64> encodedCertList = generateEncodedCertList(certChain, alias);
-                RSAKey.Builder jwk = new RSAKey.Builder((RSAPublicKey) cert.getPublicKey());
-                jwk.keyID(OAuth2Util.getKID(cert, algorithm, getTenantDomain()));
-                jwk.algorithm(algorithm);
-                jwk.keyUse(KeyUse.parse(KEY_USE));
-                jwk.x509CertChain(encodedCertList);
-                jwk.x509CertSHA256Thumbprint(Base64URL.encode(OAuth2Util.getThumbPrint(cert, alias)));
-                jwksArray.add(jwk.build().toJSONObject());
+        List<Object> source = Arrays.asList(keystoreVersion, diffAlgorithms,
+                OAuth2ServiceComponentHolder.getKeyIDProvider());
+
+        JwksDocumentCache cache = JwksDocumentCache.getInstance();
+        JwksDocument document = cache.get(tenantDomain, source);
+        if (document != null) {
+            return document;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Rendering the JWKS document of the tenant domain: " + tenantDomain);
+        }
+        document = JwksDocument.build(getCertificateInfoList(keystore == null ? loadSuperTenantKeyStore() : keystore),
+                diffAlgorithms, tenantDomain);
+        cache.put(tenantDomain, source, document);
+        return document;
+    }
+
+    private KeyStore loadSuperTenantKeyStore() throws Exception {
+
+        String keystorePath = CarbonUtils.getServerConfiguration().getFirstProperty(SECURITY_KEY_STORE_LOCATION);
+        try (FileInputStream file = new FileInputStream(keystorePath)) {
+            KeyStore keystore = KeyStore.getInstance(KeyStore.getDefaultType());
+            String password = CarbonUtils.getServerConfiguration().getFirstProperty(SECURITY_KEY_STORE_PW);
+            keystore.load(file, password.toCharArray());
+            return keystore;
+        }
+    }
+
+    private KeyStore getTenantKeyStore(String tenantDomain) throws Exception {
+
+        try {
+            int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
+            IdentityTenantUtil.initializeRegistry(tenantId);
+            FrameworkUtils.startTenantFlow(tenantDomain);
+            KeyStoreManager keyStoreManager = KeyStoreManager.getInstance(tenantId);
+            return keyStoreManager.getKeyStore(generateKSNameFromDomainName(tenantDomain));
+        } finally {
+            FrameworkUtils.endTenantFlow();
+        }
+    }
+
+    private List<CertificateInfo> getCertificateInfoList(KeyStore keystore) throws KeyStoreException {
+
+        List<CertificateInfo> certificateInfoList = new ArrayList<>();
+        Enumeration enumeration = keystore.aliases();
+        while (enumeration.hasMoreElements()) {
+            String alias = (String) enumeration.nextElement();
+            if (keystore.isKeyEntry(alias)) {
+                CertificateInfo certificateInfo = new CertificateInfo(keystore.getCertificate(alias), alias);
+                certificateInfo.setCertificateChain(keystore.getCertificateChain(alias));
+                certificateInfoList.add(certificateInfo);
             }
         }
-        jwksJson.put(KEYS, jwksArray);
-        return jwksJson.toString();
+        return certificateInfoList;
+    }
+
+    private Response.ResponseBuilder addCacheHeaders(Response.ResponseBuilder builder, JwksDocument document) {
+
+        return builder.header(HttpHeaders.ETAG, document.getEntityTag())
+                .header(HttpHeaders.LAST_MODIFIED, document.getLastModifiedHttpDate())
+                .header(HttpHeaders.CACHE_CONTROL, "public, max-age=" + getCacheMaxAge());
+    }
+
+    private int getCacheMaxAge() {
+
+        return Math.max(0, OAuth2ConfigUtil.getIntProperty(CACHE_MAX_AGE, DEFAULT_CACHE_MAX_AGE));
     }
 
     /**
@@ -195,25 +238,4 @@ public class JwksEndpoint {
         String ksName = tenantDomain.trim().replace(".", "-");
         return (ksName + ".jks");
     }
-
-    /**
-     * This method generates the base64 encoded certificate list from a Certificate array
-     *
-     * @return base64 encoded certificate list
-     */
-    private List<Base64> generateEncodedCertList(Certificate[] certificates, String alias)
-            throws CertificateEncodingException {
-
-        List<Base64> certList = new ArrayList<>();
-        for (Certificate certificate : certificates) {
-            try {
-                certList.add(Base64.encode(certificate.getEncoded()));
-            } catch (CertificateEncodingException exception) {
-                String errorMessage = "Unable to encode the public certificate with alias: " + alias +
-                        " in the tenant domain: " + getTenantDomain();
-                throw new CertificateEncodingException(errorMessage, exception);
-            }
-        }
-        return certList;
-    }
 }
@@ -25,6 +25,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.wso2.carbon.base.MultitenantConstants;
 import org.wso2.carbon.base.ServerConfigurationException;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.discovery.DefaultOIDCProcessor;
+import org.wso2.carbon.identity.discovery.DiscoveryDocumentCache;
+import org.wso2.carbon.identity.discovery.DiscoveryDocumentCache.RenderedDocument;
 import org.wso2.carbon.identity.discovery.OIDCDiscoveryEndPointException;
 import org.wso2.carbon.identity.discovery.OIDCProcessor;
 import org.wso2.carbon.identity.discovery.builders.OIDProviderResponseBuilder;
@@ -38,6 +41,7 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 
 /**
@@ -96,11 +100,19 @@ public class OIDCDiscoveryEndpoint {
 
     private Response getResponse(HttpServletRequest request, String tenant) {
 
-        String response;
+        RenderedDocument document;
         OIDCProcessor processor = EndpointUtil.getOIDCService();
+        DiscoveryDocumentCache documentCache = DiscoveryDocumentCache.getInstance();
         try {
             OIDProviderResponseBuilder responseBuilder = getOidProviderResponseBuilder();
-            response = responseBuilder.getOIDProviderConfigString(processor.getResponse(request, tenant));
+            DiscoveryDocumentCache.Renderer renderer =
+                    () -> responseBuilder.getOIDProviderConfigString(processor.getResponse(request, tenant));
+            // Only the document of the default processor depends on the tenant alone, and can be kept.
+            if (processor == DefaultOIDCProcessor.getInstance()) {
+                document = documentCache.getDocument(tenant, renderer);
+            } else {
+                document = new RenderedDocument(renderer.render());
+            }
         } catch (OIDCDiscoveryEndPointException e) {
             Response.ResponseBuilder errorResponse = Response.status(processor.handleError(e));
             return errorResponse.entity(e.getMessage()).build();
@@ -109,8 +121,14 @@ public class OIDCDiscoveryEndpoint {
             Response.ResponseBuilder errorResponse = Response.status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             return errorResponse.entity("Error in reading configuration.").build();
         }
-        Response.ResponseBuilder responseBuilder = Response.status(HttpServletResponse.SC_OK);
-        return responseBuilder.entity(response).build();
+        Response.ResponseBuilder responseBuilder;
+        if (document.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            responseBuilder = Response.status(HttpServletResponse.SC_NOT_MODIFIED);
+        } else {
+            responseBuilder = Response.status(HttpServletResponse.SC_OK).entity(document.getContent());
+        }
+        return responseBuilder.header(HttpHeaders.ETAG, document.getETag())
+                .header(HttpHeaders.CACHE_CONTROL, documentCache.getCacheControl()).build();
     }
 
     @Autowired
@@ -48,6 +48,9 @@ import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationResponseDTO;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.openidconnect.OIDCClaimUtil;
+import org.wso2.carbon.identity.openidconnect.UserClaimsResolutionContext;
+import org.wso2.carbon.identity.openidconnect.UserClaimsResolutionContext.Section;
+import org.wso2.carbon.identity.openidconnect.UserClaimsResolutionContextManager;
 import org.wso2.carbon.user.api.RealmConfiguration;
 import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.user.core.UserRealm;
@@ -135,8 +138,11 @@ public class ClaimUtil {
                 String clientId = getClientID(accessTokenDO);
                 OAuthAppDO oAuthAppDO = OAuth2Util.getAppInformationByClientId(clientId);
                 String spTenantDomain = OAuth2Util.getTenantDomainOfOauthApp(oAuthAppDO);
+                // The claims resolved while issuing the token are reused, if they are kept against the token.
+                UserClaimsResolutionContext resolutionContext = UserClaimsResolutionContextManager.getInstance()
+                        .getContextOfToken(accessTokenDO.getAccessToken());
 
-                ServiceProvider serviceProvider = OAuth2Util.getServiceProvider(clientId, spTenantDomain);
+                ServiceProvider serviceProvider = getServiceProvider(clientId, spTenantDomain, resolutionContext);
                 ClaimMapping[] requestedLocalClaimMappings = serviceProvider.getClaimConfig().getClaimMappings();
                 String subjectClaimURI = getSubjectClaimUri(serviceProvider, requestedLocalClaimMappings);
 
@@ -163,8 +169,9 @@ public class ClaimUtil {
                     spToLocalClaimMappings = ClaimMetadataHandler.getInstance().getMappingsMapFromOtherDialectToCarbon
                             (SP_DIALECT, null, userTenantDomain, true);
 
-                    realm = getUserRealm(null, userTenantDomain);
-                    Map<String, String> userClaims = getUserClaimsFromUserStore(userId, realm, claimURIList);
+                    realm = getUserRealm(null, userTenantDomain, resolutionContext);
+                    Map<String, String> userClaims = getUserClaimsFromUserStore(userId, userTenantDomain, realm,
+                            claimURIList, resolutionContext);
 
                     if (isNotEmpty(userClaims)) {
                         for (Map.Entry<String, String> entry : userClaims.entrySet()) {
@@ -284,6 +291,46 @@ public class ClaimUtil {
         return claimSeparator;
     }
 
+    private static ServiceProvider getServiceProvider(String clientId, String spTenantDomain,
+                                                      UserClaimsResolutionContext resolutionContext)
+            throws IdentityOAuth2Exception {
+
+        if (resolutionContext == null) {
+            return OAuth2Util.getServiceProvider(clientId, spTenantDomain);
+        }
+        String serviceProviderKey = UserClaimsResolutionContext.getServiceProviderKey(clientId, spTenantDomain);
+        ServiceProvider serviceProvider = resolutionContext.get(Section.SERVICE_PROVIDER, serviceProviderKey);
+        if (serviceProvider == null) {
+            serviceProvider = OAuth2Util.getServiceProvider(clientId, spTenantDomain);
+            resolutionContext.put(Section.SERVICE_PROVIDER, serviceProviderKey, serviceProvider);
+        }
+        return serviceProvider;
+    }
+
+    private static Map<String, String> getUserClaimsFromUserStore(String userId,
+                                                                  String userTenantDomain,
+                                                                  UserRealm realm,
+                                                                  List<String> claimURIList,
+                                                                  UserClaimsResolutionContext resolutionContext)
+            throws UserStoreException {
+
+        String userKey = UserClaimsResolutionContext.getUserKey(userTenantDomain, userId, null);
+        if (resolutionContext != null) {
+            Map<String, String> userClaims = resolutionContext.getUserClaims(userKey, claimURIList);
+            if (userClaims != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("User claims resolved while issuing the token: " + userClaims.size());
+                }
+                return userClaims;
+            }
+        }
+        Map<String, String> userClaims = getUserClaimsFromUserStore(userId, realm, claimURIList);
+        if (resolutionContext != null) {
+            resolutionContext.putUserClaims(userKey, claimURIList, userClaims);
+        }
+        return userClaims;
+    }
+
     private static Map<String, String> getUserClaimsFromUserStore(String userId,
                                                                   UserRealm realm,
                                                                   List<String> claimURIList) throws UserStoreException {
@@ -312,6 +359,21 @@ public class ClaimUtil {
         return realm;
     }
 
+    private static UserRealm getUserRealm(String username, String userTenantDomain,
+                                          UserClaimsResolutionContext resolutionContext)
+            throws IdentityException, UserInfoEndpointException {
+
+        if (resolutionContext == null) {
+            return getUserRealm(username, userTenantDomain);
+        }
+        UserRealm realm = resolutionContext.get(Section.USER_REALM, userTenantDomain);
+        if (realm == null) {
+            realm = getUserRealm(username, userTenantDomain);
+            resolutionContext.put(Section.USER_REALM, userTenantDomain, realm);
+        }
+        return realm;
+    }
+
     private static String getSubjectClaimUri(ServiceProvider serviceProvider, ClaimMapping[] requestedLocalClaimMap) {
 
         String subjectClaimURI = serviceProvider.getLocalAndOutBoundAuthenticationConfig().getSubjectClaimUri();
@@ -2,6 +2,7 @@ package org.wso2.carbon.identity.oauth.endpoint.introspection;
 
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -18,12 +19,18 @@ import org.wso2.carbon.identity.central.log.mgt.utils.LoggerUtils;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
 import org.wso2.carbon.identity.oauth.tokenprocessor.TokenPersistenceProcessor;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2ClientException;
 import org.wso2.carbon.identity.oauth2.OAuth2TokenValidationService;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2IntrospectionResponseDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationRequestDTO;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
 
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.ws.rs.core.Response;
 
@@ -31,13 +38,16 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.powermock.api.mockito.PowerMockito.mock;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.when;
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
 
 @PrepareForTest({PrivilegedCarbonContext.class, LoggerUtils.class, IdentityTenantUtil.class,
-        OAuthServerConfiguration.class, TokenPersistenceProcessor.class})
+        OAuthServerConfiguration.class, TokenPersistenceProcessor.class, OAuth2Util.class})
 public class OAuth2IntrospectionEndpointTest extends PowerMockIdentityBaseTest {
 
     @Mock
@@ -108,6 +118,93 @@ public class OAuth2IntrospectionEndpointTest extends PowerMockIdentityBaseTest {
 
     }
 
+    @Test
+    public void testIntrospectBulk() throws Exception {
+
+        OAuth2TokenValidationService mockedTokenService = mockTokenValidationService();
+        OAuth2IntrospectionResponseDTO activeResponse = new OAuth2IntrospectionResponseDTO();
+        activeResponse.setActive(true);
+        activeResponse.setTokenType("Bearer");
+        activeResponse.setClientId("clientId");
+        OAuth2IntrospectionResponseDTO inactiveResponse = new OAuth2IntrospectionResponseDTO();
+        inactiveResponse.setError("Token validation failed");
+        ArgumentCaptor<List> requestsCaptor = ArgumentCaptor.forClass(List.class);
+        when(mockedTokenService.buildIntrospectionResponses(requestsCaptor.capture()))
+                .thenReturn(Arrays.asList(activeResponse, inactiveResponse));
+
+        Response response = oAuth2IntrospectionEndpoint.introspectBulk("[{\"token\": \"TOKEN1\"}, " +
+                "{\"token\": \"TOKEN2\", \"token_type_hint\": \"refresh_token\", \"required_claims\": \"" +
+                USERNAME_CLAIM_URI + CLAIM_SEPARATOR + EMAIL_CLAIM_URI + "\"}]");
+
+        assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
+        List<Map<String, Object>> responseBody = new Gson().fromJson((String) response.getEntity(),
+                new TypeToken<List<Map<String, Object>>>() {
+                }.getType());
+        assertEquals(responseBody.size(), 2);
+        assertEquals(responseBody.get(0).get("active"), true);
+        assertEquals(responseBody.get(0).get("token_type"), "Bearer");
+        assertEquals(responseBody.get(0).get("client_id"), "clientId");
+        assertEquals(responseBody.get(1).size(), 1);
+        assertEquals(responseBody.get(1).get("active"), false);
+
+        List<OAuth2TokenValidationRequestDTO> requests = requestsCaptor.getValue();
+        assertEquals(requests.size(), 2);
+        assertEquals(requests.get(0).getAccessToken().getIdentifier(), "TOKEN1");
+        assertEquals(requests.get(0).getAccessToken().getTokenType(), BEARER_TOKEN_TYPE_HINT);
+        assertNull(requests.get(0).getRequiredClaimURIs());
+        assertEquals(requests.get(1).getAccessToken().getIdentifier(), "TOKEN2");
+        assertEquals(requests.get(1).getAccessToken().getTokenType(), "refresh_token");
+        assertEquals(requests.get(1).getRequiredClaimURIs().length, 2);
+    }
+
+    @Test
+    public void testIntrospectBulkWithTooManyTokens() throws Exception {
+
+        OAuth2TokenValidationService mockedTokenService = mockTokenValidationService();
+        when(mockedTokenService.buildIntrospectionResponses(any(List.class)))
+                .thenThrow(new IdentityOAuth2ClientException("Too many tokens"));
+
+        Response response = oAuth2IntrospectionEndpoint.introspectBulk("[{\"token\": \"TOKEN1\"}, " +
+                "{\"token\": \"TOKEN2\"}]");
+
+        assertEquals(response.getStatus(), Response.Status.BAD_REQUEST.getStatusCode());
+    }
+
+    @DataProvider(name = "provideInvalidBulkPayloads")
+    public Object[][] provideInvalidBulkPayloads() {
+
+        return new Object[][]{
+                {null},
+                {"[]"},
+                {"{\"token\": \"TOKEN\"}"},
+                {"[{\"token\": \"TOKEN\"}, {\"token_type_hint\": \"bearer\"}]"},
+                {"[\"TOKEN\"]"}
+        };
+    }
+
+    @Test(dataProvider = "provideInvalidBulkPayloads")
+    public void testIntrospectBulkWithInvalidPayload(String payload) throws Exception {
+
+        OAuth2TokenValidationService mockedTokenService = mockTokenValidationService();
+        mockStatic(OAuth2Util.class);
+
+        Response response = oAuth2IntrospectionEndpoint.introspectBulk(payload);
+
+        assertEquals(response.getStatus(), Response.Status.BAD_REQUEST.getStatusCode());
+        verify(mockedTokenService, never()).buildIntrospectionResponses(any(List.class));
+    }
+
+    private OAuth2TokenValidationService mockTokenValidationService() throws Exception {
+
+        OAuth2TokenValidationService mockedTokenService = mock(OAuth2TokenValidationService.class);
+        mockStatic(LoggerUtils.class);
+        mockOAuthServerConfiguration();
+        mockStatic(PrivilegedCarbonContext.class);
+        when(PrivilegedCarbonContext.getThreadLocalCarbonContext()).thenReturn(mockedPrivilegedCarbonContext);
+        when(mockedPrivilegedCarbonContext.getOSGiService(any())).thenReturn(mockedTokenService);
+        return mockedTokenService;
+    }
+
     private void mockOAuthServerConfiguration() throws Exception {
 
         mockStatic(OAuthServerConfiguration.class);
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.endpoint.jwks;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
+import org.wso2.carbon.identity.oauth2.keyidprovider.DefaultKeyIDProviderImpl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.file.Paths;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing a JWKS request which renders the document from the keystore, as every request did before,
+ * with a request served from {@link JwksDocumentCache}.
+ *
+ * Run the main method from the test classpath of this module. The requests/s of each path are reported as ops/s.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwksEndpointBenchmark {
+
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final String KEYSTORE_PASSWORD = "wso2carbon";
+
+    private final List<JWSAlgorithm> algorithms = Arrays.asList(JWSAlgorithm.RS256, JWSAlgorithm.RS512);
+    private final JwksDocumentCache cache = new JwksDocumentCache();
+    private String keystorePath;
+    private String entityTag;
+
+    @Setup
+    public void setUp() throws Exception {
+
+        OAuth2ServiceComponentHolder.setKeyIDProvider(new DefaultKeyIDProviderImpl());
+        keystorePath = Paths.get(System.getProperty("user.dir"), "src", "test", "resources", "repository",
+                "resources", "security", "wso2carbon.jks").toString();
+        entityTag = cachedDocument().getEntityTag();
+    }
+
+    @Benchmark
+    public String renderedDocument() throws Exception {
+
+        return renderDocument().getJson();
+    }
+
+    @Benchmark
+    public String cachedDocument200() throws Exception {
+
+        return cachedDocument().getJson();
+    }
+
+    @Benchmark
+    public boolean cachedDocument304() throws Exception {
+
+        return cachedDocument().isNotModified(entityTag, null);
+    }
+
+    private JwksDocument cachedDocument() throws Exception {
+
+        File keystoreFile = new File(keystorePath);
+        List<Object> source = Arrays.asList(keystorePath + ":" + keystoreFile.lastModified() + ":" +
+                keystoreFile.length(), algorithms, OAuth2ServiceComponentHolder.getKeyIDProvider());
+        JwksDocument document = cache.get(TENANT_DOMAIN, source);
+        if (document == null) {
+            document = renderDocument();
+            cache.put(TENANT_DOMAIN, source, document);
+        }
+        return document;
+    }
+
+    private JwksDocument renderDocument() throws Exception {
+
+        KeyStore keystore = KeyStore.getInstance(KeyStore.getDefaultType());
+        try (FileInputStream file = new FileInputStream(keystorePath)) {
+            keystore.load(file, KEYSTORE_PASSWORD.toCharArray());
+        }
+        List<CertificateInfo> certificateInfoList = new ArrayList<>();
+        Enumeration<String> aliases = keystore.aliases();
+        while (aliases.hasMoreElements()) {
+            String alias = aliases.nextElement();
+            if (keystore.isKeyEntry(alias)) {
+                CertificateInfo certificateInfo = new CertificateInfo(keystore.getCertificate(alias), alias);
+                certificateInfo.setCertificateChain(keystore.getCertificateChain(alias));
+                certificateInfoList.add(certificateInfo);
+            }
+        }
+        return JwksDocument.build(certificateInfoList, algorithms, TENANT_DOMAIN);
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        Options options = new OptionsBuilder()
+                .include(JwksEndpointBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -52,6 +52,10 @@ import java.security.KeyStore;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
@@ -59,6 +63,7 @@ import static org.powermock.api.mockito.PowerMockito.doNothing;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -85,6 +90,7 @@ public class JwksEndpointTest extends PowerMockIdentityBaseTest {
     private static final String X5T = "ZHVtbXlUaHVtYlByaW50VmFsdWU";
     private JwksEndpoint jwksEndpoint;
     private Object identityUtilObj;
+    private ThreadLocal<Map<String, Object>> threadLocalProperties;
 
     @BeforeTest
     public void setUp() throws Exception {
@@ -139,30 +145,12 @@ public class JwksEndpointTest extends PowerMockIdentityBaseTest {
     @Test(dataProvider = "provideTenantDomain")
     public void testJwks(String tenantDomain, int tenantId) throws Exception {
 
-        Path keystorePath = Paths.get(System.getProperty(CarbonBaseConstants.CARBON_HOME), "repository", "resources",
-                "security", "wso2carbon.jks");
+        JwksDocumentCache.getInstance().clear();
         mockOAuthServerConfiguration();
-        mockStatic(CarbonUtils.class);
-        when(CarbonUtils.getServerConfiguration()).thenReturn(serverConfiguration);
-        when(serverConfiguration.getFirstProperty("Security.KeyStore.Location")).thenReturn(keystorePath.toString());
-        when(serverConfiguration.getFirstProperty("Security.KeyStore.Password")).thenReturn("wso2carbon");
+        mockSuperTenantKeyStore();
         when(serverConfiguration.getFirstProperty("Security.KeyStore.KeyAlias")).thenReturn("wso2carbon");
 
-        ThreadLocal<Map<String, Object>> threadLocalProperties = new ThreadLocal() {
-            protected Map<String, Object> initialValue() {
-
-                return new HashMap();
-            }
-        };
-
-        threadLocalProperties.get().put(OAuthConstants.TENANT_NAME_FROM_CONTEXT, tenantDomain);
-
-        Field threadLocalPropertiesField = identityUtilObj.getClass().getDeclaredField("threadLocalProperties");
-        Field modifiersField = Field.class.getDeclaredField("modifiers");
-        modifiersField.setAccessible(true);
-        modifiersField.setInt(threadLocalPropertiesField, threadLocalPropertiesField.getModifiers() & ~Modifier.FINAL);
-        threadLocalPropertiesField.setAccessible(true);
-        threadLocalPropertiesField.set(identityUtilObj, threadLocalProperties);
+        setTenantDomain(tenantDomain);
 
         mockStatic(IdentityTenantUtil.class);
         when(IdentityTenantUtil.getTenantId(anyString())).thenReturn(tenantId);
@@ -190,7 +178,8 @@ public class JwksEndpointTest extends PowerMockIdentityBaseTest {
         when(KeyStoreManager.getInstance(anyInt())).thenReturn(keyStoreManager);
         when(keyStoreManager.getKeyStore("foo-com.jks")).thenReturn(getKeyStoreFromFile("foo-com.jks", "foo.com"));
 
-        String result = jwksEndpoint.jwks();
+        Response response = jwksEndpoint.jwks(null, null);
+        String result = (String) response.getEntity();
 
         try {
             JSONObject jwksJson = new JSONObject(result);
@@ -208,6 +197,9 @@ public class JwksEndpointTest extends PowerMockIdentityBaseTest {
                 assertEquals(objectArray.length(), 3, "Incorrect no of keysets");
                 assertEquals(((JSONArray) keyObject.get("x5c")).get(0), X5C_ARRAY.get(1), "Incorrect x5c value");
             }
+            assertNotNull(response.getMetadata().getFirst(HttpHeaders.ETAG), "ETag header is not set");
+            assertNotNull(response.getMetadata().getFirst(HttpHeaders.LAST_MODIFIED),
+                    "Last-Modified header is not set");
         } catch (JSONException e) {
             if ("invalid.com".equals(tenantDomain)) {
                 // This is expected. We don't validate for invalid tenants.
@@ -223,6 +215,80 @@ public class JwksEndpointTest extends PowerMockIdentityBaseTest {
         threadLocalProperties.get().remove(OAuthConstants.TENANT_NAME_FROM_CONTEXT);
     }
 
+    @Test
+    public void testConditionalJwksRequest() throws Exception {
+
+        JwksDocumentCache.getInstance().clear();
+        mockOAuthServerConfiguration();
+        mockSuperTenantKeyStore();
+        setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        mockStatic(OAuth2Util.class);
+        when(OAuth2Util.getKID(any(), any(), anyString())).thenReturn(CERT_THUMB_PRINT);
+        when(OAuth2Util.mapSignatureAlgorithmForJWSAlgorithm("SHA256withRSA")).thenReturn(JWSAlgorithm.RS256);
+        when(OAuth2Util.mapSignatureAlgorithmForJWSAlgorithm("SHA512withRSA")).thenReturn(JWSAlgorithm.RS512);
+        when(OAuth2Util.mapSignatureAlgorithmForJWSAlgorithm("SHA384withRSA")).thenReturn(JWSAlgorithm.RS384);
+        when(OAuth2Util.getThumbPrint(any(), anyString())).thenReturn("dummyThumbPrintValue");
+
+        Response response = jwksEndpoint.jwks(null, null);
+        assertEquals(response.getStatus(), HttpServletResponse.SC_OK);
+        String entityTag = (String) response.getMetadata().getFirst(HttpHeaders.ETAG);
+        String lastModified = (String) response.getMetadata().getFirst(HttpHeaders.LAST_MODIFIED);
+        assertTrue(((String) response.getMetadata().getFirst(HttpHeaders.CACHE_CONTROL)).startsWith("public"),
+                "Incorrect Cache-Control header");
+
+        // The cached document is served as long as its source is unchanged.
+        Response cachedResponse = jwksEndpoint.jwks(null, null);
+        assertEquals(cachedResponse.getMetadata().getFirst(HttpHeaders.ETAG), entityTag);
+        assertEquals(cachedResponse.getEntity(), response.getEntity());
+
+        assertEquals(jwksEndpoint.jwks(entityTag, null).getStatus(), HttpServletResponse.SC_NOT_MODIFIED);
+        assertEquals(jwksEndpoint.jwks("W/" + entityTag, null).getStatus(), HttpServletResponse.SC_NOT_MODIFIED);
+        assertEquals(jwksEndpoint.jwks("\"other\", " + entityTag, null).getStatus(),
+                HttpServletResponse.SC_NOT_MODIFIED);
+        assertEquals(jwksEndpoint.jwks("\"other\"", lastModified).getStatus(), HttpServletResponse.SC_OK);
+        assertEquals(jwksEndpoint.jwks(null, lastModified).getStatus(), HttpServletResponse.SC_NOT_MODIFIED);
+        assertEquals(jwksEndpoint.jwks(null, "Thu, 01 Jan 1970 00:00:00 GMT").getStatus(),
+                HttpServletResponse.SC_OK);
+
+        // A signing configuration change renders the document again.
+        when(oAuthServerConfiguration.getUserInfoJWTSignatureAlgorithm()).thenReturn("SHA256withRSA");
+        Response changedResponse = jwksEndpoint.jwks(entityTag, null);
+        assertEquals(changedResponse.getStatus(), HttpServletResponse.SC_OK);
+        assertEquals(new JSONObject((String) changedResponse.getEntity()).getJSONArray("keys").length(), 2,
+                "Incorrect no of keysets");
+
+        threadLocalProperties.get().remove(OAuthConstants.TENANT_NAME_FROM_CONTEXT);
+    }
+
+    private void setTenantDomain(String tenantDomain) throws Exception {
+
+        threadLocalProperties = new ThreadLocal() {
+            protected Map<String, Object> initialValue() {
+
+                return new HashMap();
+            }
+        };
+
+        threadLocalProperties.get().put(OAuthConstants.TENANT_NAME_FROM_CONTEXT, tenantDomain);
+
+        Field threadLocalPropertiesField = identityUtilObj.getClass().getDeclaredField("threadLocalProperties");
+        Field modifiersField = Field.class.getDeclaredField("modifiers");
+        modifiersField.setAccessible(true);
+        modifiersField.setInt(threadLocalPropertiesField, threadLocalPropertiesField.getModifiers() & ~Modifier.FINAL);
+        threadLocalPropertiesField.setAccessible(true);
+        threadLocalPropertiesField.set(identityUtilObj, threadLocalProperties);
+    }
+
+    private void mockSuperTenantKeyStore() {
+
+        Path keystorePath = Paths.get(System.getProperty(CarbonBaseConstants.CARBON_HOME), "repository", "resources",
+                "security", "wso2carbon.jks");
+        mockStatic(CarbonUtils.class);
+        when(CarbonUtils.getServerConfiguration()).thenReturn(serverConfiguration);
+        when(serverConfiguration.getFirstProperty("Security.KeyStore.Location")).thenReturn(keystorePath.toString());
+        when(serverConfiguration.getFirstProperty("Security.KeyStore.Password")).thenReturn("wso2carbon");
+    }
+
     private void mockOAuthServerConfiguration() throws Exception {
 
         mockStatic(OAuthServerConfiguration.class);
@@ -19,12 +19,14 @@ package org.wso2.carbon.identity.oauth.endpoint.oidcdiscovery;
 import org.junit.Assert;
 import org.mockito.Mock;
 import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.reflect.Whitebox;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import org.wso2.carbon.base.MultitenantConstants;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.discovery.DefaultOIDCProcessor;
+import org.wso2.carbon.identity.discovery.DiscoveryDocumentCache;
 import org.wso2.carbon.identity.discovery.OIDCDiscoveryEndPointException;
 import org.wso2.carbon.identity.discovery.OIDProviderConfigResponse;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
@@ -39,6 +41,7 @@ import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 
 import static org.mockito.Matchers.any;
@@ -119,6 +122,55 @@ public class OIDCDiscoveryEndpointTest extends PowerMockIdentityBaseTest {
         threadLocalProperties.get().remove(OAuthConstants.TENANT_NAME_FROM_CONTEXT);
     }
 
+    @DataProvider(name = "provideDataForConditionalRequests")
+    public Object[][] provideDataForConditionalRequests() {
+
+        // The ETag of the document replaces the %s of each If-None-Match header.
+        return new Object[][]{
+                {"%s", HttpServletResponse.SC_NOT_MODIFIED},
+                {"W/%s", HttpServletResponse.SC_NOT_MODIFIED},
+                {"*", HttpServletResponse.SC_NOT_MODIFIED},
+                {"\"other\", W/%s", HttpServletResponse.SC_NOT_MODIFIED},
+                {"\"other\"", HttpServletResponse.SC_OK},
+                {"W/\"other\"", HttpServletResponse.SC_OK},
+        };
+    }
+
+    @Test(dataProvider = "provideDataForConditionalRequests")
+    public void testConditionalRequests(String ifNoneMatch, int expectedResponse) throws Exception {
+
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.getProperty("OAuth.OIDCDiscovery.DocumentCacheTimeout")).thenReturn("300");
+        Whitebox.setInternalState(DiscoveryDocumentCache.class, "instance", (DiscoveryDocumentCache) null);
+        mockStatic(EndpointUtil.class);
+        when(EndpointUtil.getOIDCService()).thenReturn(defaultOIDCProcessor);
+        when(defaultOIDCProcessor.getResponse(any(HttpServletRequest.class), any(String.class)))
+                .thenReturn(oidProviderConfigResponse);
+        when(oidProviderConfigResponse.getConfigMap()).thenReturn(getSampleConfigMap());
+        oidcDiscoveryEndpoint.setOidProviderResponseBuilder(new OIDProviderJSONResponseBuilder());
+
+        try {
+            when(httpServletRequest.getHeader(HttpHeaders.IF_NONE_MATCH)).thenReturn(null);
+            Response response = oidcDiscoveryEndpoint.getOIDProviderConfiguration("token", httpServletRequest);
+            Assert.assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+            Assert.assertNotNull(response.getEntity());
+            Assert.assertEquals("public, max-age=300", response.getMetadata().getFirst(HttpHeaders.CACHE_CONTROL));
+            String eTag = (String) response.getMetadata().getFirst(HttpHeaders.ETAG);
+            Assert.assertTrue(eTag.startsWith("\"") && eTag.endsWith("\""));
+
+            when(httpServletRequest.getHeader(HttpHeaders.IF_NONE_MATCH))
+                    .thenReturn(String.format(ifNoneMatch, eTag));
+            response = oidcDiscoveryEndpoint.getOIDProviderConfiguration("token", httpServletRequest);
+            Assert.assertEquals(expectedResponse, response.getStatus());
+            Assert.assertEquals(expectedResponse == HttpServletResponse.SC_OK, response.getEntity() != null);
+            Assert.assertEquals(eTag, response.getMetadata().getFirst(HttpHeaders.ETAG));
+            Assert.assertEquals("public, max-age=300", response.getMetadata().getFirst(HttpHeaders.CACHE_CONTROL));
+        } finally {
+            when(httpServletRequest.getHeader(HttpHeaders.IF_NONE_MATCH)).thenReturn(null);
+            Whitebox.setInternalState(DiscoveryDocumentCache.class, "instance", (DiscoveryDocumentCache) null);
+        }
+    }
+
     private Map<String, Object> getSampleConfigMap() {
 
         Map<String, Object> configMap = new HashMap<>();
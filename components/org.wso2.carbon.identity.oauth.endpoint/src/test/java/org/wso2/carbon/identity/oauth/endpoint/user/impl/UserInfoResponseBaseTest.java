@@ -472,8 +472,6 @@ public class UserInfoResponseBaseTest extends PowerMockTestCase {
         when(OAuthServerConfiguration.getInstance().getSignatureAlgorithm()).thenReturn("SHA256withRSA");
         when(OAuth2Util.getAccessTokenIdentifier(any())).thenCallRealMethod();
         when(OAuth2Util.findAccessToken(anyString(), anyBoolean())).thenCallRealMethod();
-        when(OAuth2Util.class, "getAccessTokenDOFromMatchingTokenIssuer", anyString(), anyMap(), anyBoolean()).
-                thenCallRealMethod();
         AccessTokenDO accessTokenDO = new AccessTokenDO();
         accessTokenDO.setAccessToken(accessToken);
         when(OAuth2Util.getAccessTokenDOFromTokenIdentifier(anyString(), anyBoolean())).thenReturn(accessTokenDO);
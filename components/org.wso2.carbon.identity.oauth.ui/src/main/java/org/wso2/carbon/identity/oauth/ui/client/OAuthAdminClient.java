@@ -128,6 +128,11 @@ public class OAuthAdminClient {
         return stub.getAppsAuthorizedByUser();
     }
 
+    public OAuthConsumerAppDTO[] getPaginatedAppsAuthorizedByUser(int offset, int limit) throws Exception {
+
+        return stub.getPaginatedAppsAuthorizedByUser(offset, limit);
+    }
+
     public OAuthRevocationResponseDTO revokeAuthzForAppsByRessourceOwner(OAuthRevocationRequestDTO reqDTO)
             throws Exception {
 
@@ -349,6 +349,23 @@ public class OAuthAdminService extends AbstractAdmin {
         }
     }
 
+    /**
+     * Get a page of the apps that are authorized by the given user, ordered by their client IDs.
+     *
+     * @param offset Index of the first app of the page.
+     * @param limit  Maximum number of apps in the page.
+     * @return OAuth applications authorized by the user that have tokens in ACTIVE or EXPIRED state
+     */
+    public OAuthConsumerAppDTO[] getPaginatedAppsAuthorizedByUser(int offset, int limit)
+            throws IdentityOAuthAdminException {
+
+        try {
+            return oAuthAdminServiceImpl.getPaginatedAppsAuthorizedByUser(offset, limit);
+        } catch (IdentityOAuthAdminException ex) {
+            throw handleError(ex);
+        }
+    }
+
     /**
      * Revoke authorization for OAuth apps by resource owners
      *
@@ -18,7 +18,6 @@
 
 package org.wso2.carbon.identity.oauth;
 
-import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.io.Charsets;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
@@ -46,6 +45,7 @@ import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2ServerException;
 import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.util.BulkTokenRevoker;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.organization.management.service.exception.OrganizationManagementException;
 import org.wso2.carbon.registry.core.utils.UUIDGenerator;
@@ -56,10 +56,6 @@ import org.wso2.carbon.user.core.common.AbstractUserStoreManager;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
 import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -69,7 +65,6 @@ import javax.crypto.spec.SecretKeySpec;
 
 import static org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants.CURRENT_SESSION_IDENTIFIER;
 import static org.wso2.carbon.identity.application.authentication.framework.util.FrameworkConstants.Config.PRESERVE_LOGGED_IN_SESSION_AT_PASSWORD_UPDATE;
-import static org.wso2.carbon.identity.oauth.common.OAuthConstants.TokenBindings.NONE;
 
 /**
  * OAuth utility functionality.
@@ -550,83 +545,31 @@ public final class OAuthUtil {
             LOG.error("Error occurred while retrieving apps authorized by User ID : " + authenticatedUser, e);
             throw new UserStoreException(e);
         }
+        boolean isTokenPreservingAtPasswordUpdateEnabled =
+                Boolean.parseBoolean(IdentityUtil.getProperty(PRESERVE_LOGGED_IN_SESSION_AT_PASSWORD_UPDATE));
+        String currentTokenBindingReference = "";
+        if (isTokenPreservingAtPasswordUpdateEnabled) {
+            if (IdentityUtil.threadLocalProperties.get().get(CURRENT_SESSION_IDENTIFIER) != null) {
+                currentTokenBindingReference =
+                        (String) IdentityUtil.threadLocalProperties.get().get(CURRENT_SESSION_IDENTIFIER);
+            }
+        }
+
         boolean isErrorOnRevokingTokens = false;
         for (String clientId : clientIds) {
             try {
-                Set<AccessTokenDO> accessTokenDOs;
-                try {
-                    // retrieve all ACTIVE or EXPIRED access tokens for particular client authorized by this user
-                    accessTokenDOs = OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO()
-                            .getAccessTokens(clientId, authenticatedUser, userStoreDomain, true);
-                } catch (IdentityOAuth2Exception e) {
-                    String errorMsg = "Error occurred while retrieving access tokens issued for " +
-                            "Client ID : " + clientId + ", User ID : " + authenticatedUser;
-                    LOG.error(errorMsg, e);
-                    throw new UserStoreException(e);
-                }
-
-                if (LOG.isDebugEnabled() && CollectionUtils.isNotEmpty(accessTokenDOs)) {
-                    LOG.debug("ACTIVE or EXPIRED access tokens found for the client: " + clientId + " for the user: "
-                            + username);
-                }
-                boolean isTokenPreservingAtPasswordUpdateEnabled =
-                        Boolean.parseBoolean(IdentityUtil.getProperty(PRESERVE_LOGGED_IN_SESSION_AT_PASSWORD_UPDATE));
-                String currentTokenBindingReference = "";
-                if (isTokenPreservingAtPasswordUpdateEnabled) {
-                    if (IdentityUtil.threadLocalProperties.get().get(CURRENT_SESSION_IDENTIFIER) != null) {
-                        currentTokenBindingReference =
-                                (String) IdentityUtil.threadLocalProperties.get().get(CURRENT_SESSION_IDENTIFIER);
-                    }
+                // Revoke the ACTIVE or EXPIRED access tokens of the client authorized by this user, a page at a time.
+                long revokedTokenCount = BulkTokenRevoker.getInstance().revokeTokensOfUser(clientId,
+                        authenticatedUser, userStoreDomain, currentTokenBindingReference);
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Revoked " + revokedTokenCount + " ACTIVE or EXPIRED access tokens of the client: " +
+                            clientId + " for the user: " + username);
                 }
-
-                Set<String> scopes = new HashSet<>();
-                List<AccessTokenDO> accessTokens = new ArrayList<>();
-                boolean tokenBindingEnabled = false;
-                for (AccessTokenDO accessTokenDO : accessTokenDOs) {
-                    // Clear cache
-                    String tokenBindingReference = NONE;
-                    if (accessTokenDO.getTokenBinding() != null && StringUtils
-                            .isNotBlank(accessTokenDO.getTokenBinding().getBindingReference())) {
-                        tokenBindingReference = accessTokenDO.getTokenBinding().getBindingReference();
-                        tokenBindingEnabled = true;
-                        // Skip current token from being revoked.
-                        if (StringUtils.equals(accessTokenDO.getTokenBinding().getBindingValue(),
-                                currentTokenBindingReference)) {
-                            continue;
-                        }
-                    }
-                    OAuthUtil.clearOAuthCache(accessTokenDO.getConsumerKey(), accessTokenDO.getAuthzUser(),
-                            OAuth2Util.buildScopeString(accessTokenDO.getScope()), tokenBindingReference);
-                    OAuthUtil.clearOAuthCache(accessTokenDO.getConsumerKey(), accessTokenDO.getAuthzUser(),
-                            OAuth2Util.buildScopeString(accessTokenDO.getScope()), tokenBindingReference);
-                    OAuthUtil.clearOAuthCache(accessTokenDO.getConsumerKey(), accessTokenDO.getAuthzUser(),
-                            OAuth2Util.buildScopeString(accessTokenDO.getScope()));
-                    OAuthUtil.clearOAuthCache(accessTokenDO.getConsumerKey(), accessTokenDO.getAuthzUser());
-                    OAuthUtil.clearOAuthCache(accessTokenDO);
-                    // Get unique scopes list
-                    scopes.add(OAuth2Util.buildScopeString(accessTokenDO.getScope()));
-                    accessTokens.add(accessTokenDO);
-                }
-
-                if (!tokenBindingEnabled && OAuth2Util.isHashDisabled()) {
-                    revokeLatestTokensWithScopes(scopes, clientId, authenticatedUser);
-                } else {
-                    // If the hashed token is enabled, there can be multiple active tokens with a user with same scope.
-                    // Also, if token binding is enabled, there can be multiple active tokens for the same user, scope
-                    // and client combination.
-                    // So need to revoke all the tokens.
-                    try {
-                        revokeTokens(accessTokens);
-                    } catch (IdentityOAuth2Exception e) {
-                        String errorMsg = "Error occurred while revoking Access Token";
-                        LOG.error(errorMsg, e);
-                        throw new UserStoreException(e);
-                    }
-                }
-            } catch (UserStoreException e) {
+            } catch (IdentityOAuth2Exception e) {
                 // Set a flag to throw an exception after revoking all the possible access tokens.
-                // The error details are logged at the same place they are throwing.
                 isErrorOnRevokingTokens = true;
+                LOG.error("Error occurred while revoking access tokens issued for Client ID : " + clientId +
+                        ", User ID : " + authenticatedUser, e);
             }
         }
 
@@ -637,51 +580,6 @@ public final class OAuthUtil {
         return true;
     }
 
-    private static void revokeTokens(List<AccessTokenDO> accessTokens) throws IdentityOAuth2Exception {
-
-        if (!accessTokens.isEmpty()) {
-            // Revoking token from database.
-            for (AccessTokenDO accessToken : accessTokens) {
-                OAuthUtil.invokePreRevocationBySystemListeners(accessToken, Collections.emptyMap());
-                OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO()
-                        .revokeAccessTokens(new String[]{accessToken.getAccessToken()}, OAuth2Util.isHashEnabled());
-                OAuthUtil.invokePostRevocationBySystemListeners(accessToken, Collections.emptyMap());
-            }
-        }
-    }
-
-    private static void revokeLatestTokensWithScopes(Set<String> scopes, String clientId,
-                                                        AuthenticatedUser authenticatedUser) throws
-            UserStoreException {
-
-        for (String scope : scopes) {
-            AccessTokenDO scopedToken = null;
-            try {
-                // Retrieve latest access token for particular client, user and scope combination
-                // if its ACTIVE or EXPIRED.
-                scopedToken = OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO()
-                        .getLatestAccessToken(clientId, authenticatedUser, authenticatedUser.getUserStoreDomain(),
-                                scope, true);
-            } catch (IdentityOAuth2Exception e) {
-                String errorMsg = "Error occurred while retrieving latest access token issued for Client ID : " +
-                        clientId + ", User ID : " + authenticatedUser + " and Scope : " + scope;
-                LOG.error(errorMsg, e);
-                throw new UserStoreException(e);
-            }
-            if (scopedToken != null) {
-                try {
-                    // Revoking token from database
-                    revokeTokens(Collections.singletonList(scopedToken));
-                } catch (IdentityOAuth2Exception e) {
-                    String errorMsg = "Error occurred while revoking " + "Access Token : "
-                            + scopedToken.getAccessToken() + " for user " + authenticatedUser;
-                    LOG.error(errorMsg, e);
-                    throw new UserStoreException(e);
-                }
-            }
-        }
-    }
-
     /**
      * Resolve user.
      *
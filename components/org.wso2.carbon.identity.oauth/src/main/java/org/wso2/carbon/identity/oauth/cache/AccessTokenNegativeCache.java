@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local, in memory cache of access token identifiers which could not be resolved to an active token.
+ *
+ * Tokens which are replayed after they were revoked or expired, or which were never issued, are otherwise looked up
+ * in the database on every request. The cache is disabled by default. When enabled, entries live for a short time
+ * and the number of entries is bounded. The entries are kept in a concurrent map, so that the lookups, which are made
+ * for every token missing in the OAuthCache, do not contend on a lock. The entries are also queued in the order they
+ * were added, which is the order they expire in, so the expired entries and the oldest entries of a full cache are
+ * evicted from the head of the queue.
+ *
+ * The entries are local to the node. An entry is removed when a token with the same identifier is persisted on this
+ * node. A token is stored before it is returned to the client, also when access tokens are persisted in batches, so
+ * no node can receive a token which is not stored yet, and record a miss for it.
+ */
+public class AccessTokenNegativeCache {
+
+    private static final Log log = LogFactory.getLog(AccessTokenNegativeCache.class);
+
+    private static final String ENABLE = "OAuth.AccessTokenNegativeCache.Enable";
+    private static final String CAPACITY = "OAuth.AccessTokenNegativeCache.Capacity";
+    private static final String TIMEOUT = "OAuth.AccessTokenNegativeCache.Timeout";
+    private static final int DEFAULT_CAPACITY = 10000;
+    private static final int DEFAULT_TIMEOUT_SECONDS = 30;
+
+    private static volatile AccessTokenNegativeCache instance;
+
+    private final boolean enabled;
+    private final int capacity;
+    private final long timeoutMillis;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Entries in the order they were added. An entry which was replaced or removed stays until it reaches the head.
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    AccessTokenNegativeCache(boolean enabled, int capacity, long timeoutMillis) {
+
+        this.enabled = enabled && capacity > 0 && timeoutMillis > 0;
+        this.capacity = capacity;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public static AccessTokenNegativeCache getInstance() {
+
+        if (instance == null) {
+            synchronized (AccessTokenNegativeCache.class) {
+                if (instance == null) {
+                    instance = new AccessTokenNegativeCache(Boolean.parseBoolean(IdentityUtil.getProperty(ENABLE)),
+                            OAuth2ConfigUtil.getIntProperty(CAPACITY, DEFAULT_CAPACITY),
+                            OAuth2ConfigUtil.getIntProperty(TIMEOUT, DEFAULT_TIMEOUT_SECONDS) * 1000L);
+                }
+            }
+        }
+        return instance;
+    }
+
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    /**
+     * Check whether the token identifier is known to not resolve to a token.
+     *
+     * @param tokenIdentifier Token identifier.
+     * @param includeExpired  Whether the lookup includes expired tokens.
+     * @return True if the lookup is known to return no token.
+     */
+    public boolean isNotFound(String tokenIdentifier, boolean includeExpired) {
+
+        if (!enabled || tokenIdentifier == null) {
+            return false;
+        }
+        Entry entry = entries.get(tokenIdentifier);
+        if (entry != null) {
+            if (entry.isExpired(System.currentTimeMillis())) {
+                entries.remove(tokenIdentifier, entry);
+            } else if (entry.includesExpired || !includeExpired) {
+                // A token which was not found among the expired tokens is not active either.
+                hitCount.incrementAndGet();
+                return true;
+            }
+        }
+        missCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Record that the token identifier did not resolve to a token.
+     *
+     * @param tokenIdentifier Token identifier.
+     * @param includeExpired  Whether the lookup included expired tokens.
+     */
+    public void addNotFound(String tokenIdentifier, boolean includeExpired) {
+
+        if (!enabled || tokenIdentifier == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Entry existing = entries.get(tokenIdentifier);
+        Entry entry = new Entry(tokenIdentifier, now + timeoutMillis,
+                includeExpired || existing != null && existing.includesExpired && !existing.isExpired(now));
+        entries.put(tokenIdentifier, entry);
+        // The entry is queued again so that it is evicted along with its new expiry time.
+        insertionOrder.offer(entry);
+        evict(now);
+    }
+
+    /**
+     * Remove the token identifier from the cache.
+     *
+     * @param tokenIdentifier Token identifier.
+     */
+    public void clear(String tokenIdentifier) {
+
+        if (!enabled || tokenIdentifier == null) {
+            return;
+        }
+        if (entries.remove(tokenIdentifier) != null && log.isDebugEnabled()) {
+            log.debug("Removed a token identifier from the access token negative cache.");
+        }
+    }
+
+    /**
+     * Remove all entries from the cache.
+     */
+    public void clear() {
+
+        entries.clear();
+        insertionOrder.clear();
+    }
+
+    public long getHitCount() {
+
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+
+        return evictionCount.get();
+    }
+
+    public int getSize() {
+
+        return entries.size();
+    }
+
+    /**
+     * Remove the expired entries from the head of the queue, and the oldest entries while the cache is over its
+     * capacity. Entries which were replaced or removed since they were queued are only dropped from the queue.
+     */
+    private void evict(long now) {
+
+        int evicted = 0;
+        Entry head;
+        while ((head = insertionOrder.peek()) != null && (head.isExpired(now) || entries.size() > capacity)) {
+            if (insertionOrder.remove(head) && entries.remove(head.tokenIdentifier, head)) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            evictionCount.addAndGet(evicted);
+            if (log.isDebugEnabled()) {
+                log.debug("Evicted " + evicted + " entries from the access token negative cache.");
+            }
+        }
+    }
+
+    private static class Entry {
+
+        private final String tokenIdentifier;
+        private final long expiryTime;
+        private final boolean includesExpired;
+
+        Entry(String tokenIdentifier, long expiryTime, boolean includesExpired) {
+
+            this.tokenIdentifier = tokenIdentifier;
+            this.expiryTime = expiryTime;
+            this.includesExpired = includesExpired;
+        }
+
+        boolean isExpired(long now) {
+
+            return expiryTime < now;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.wso2.carbon.identity.core.cache.BaseCache;
+
+/**
+ * Cache of the service provider wise token expiry time configurations of the tenants, keyed by the tenant id.
+ */
+public class SpTokenExpiryTimeConfigCache extends BaseCache<Integer, SpTokenExpiryTimeConfigCacheEntry> {
+
+    public static final String SP_TOKEN_EXPIRY_TIME_CONFIG_CACHE = "SpTokenExpiryTimeConfigCache";
+    private static volatile SpTokenExpiryTimeConfigCache instance;
+
+    private SpTokenExpiryTimeConfigCache() {
+
+        super(SP_TOKEN_EXPIRY_TIME_CONFIG_CACHE);
+    }
+
+    public static SpTokenExpiryTimeConfigCache getInstance() {
+
+        if (instance == null) {
+            synchronized (SpTokenExpiryTimeConfigCache.class) {
+                if (instance == null) {
+                    instance = new SpTokenExpiryTimeConfigCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    public void addExpiryTimeConfigs(int tenantId, SpTokenExpiryTimeConfigCacheEntry cacheEntry) {
+
+        super.addToCache(tenantId, cacheEntry, tenantId);
+    }
+
+    public SpTokenExpiryTimeConfigCacheEntry getExpiryTimeConfigs(int tenantId) {
+
+        return super.getValueFromCache(tenantId, tenantId);
+    }
+
+    /**
+     * Clear the configurations of a tenant, in all the nodes of the cluster. This needs to be called whenever the
+     * configurations of the tenant are updated.
+     *
+     * @param tenantId Tenant id.
+     */
+    public void clearExpiryTimeConfigs(int tenantId) {
+
+        super.clearCacheEntry(tenantId, tenantId);
+    }
+}
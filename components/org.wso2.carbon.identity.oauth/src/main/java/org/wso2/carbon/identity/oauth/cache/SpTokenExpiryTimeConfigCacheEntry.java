@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.wso2.carbon.identity.oauth2.config.SpOAuth2ExpiryTimeConfiguration;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache entry of {@link SpTokenExpiryTimeConfigCache}, which holds an immutable map of the token expiry time
+ * configurations of the service providers of a tenant, keyed by the consumer key.
+ */
+public class SpTokenExpiryTimeConfigCacheEntry extends CacheEntry {
+
+    private static final long serialVersionUID = -2479412316842245378L;
+
+    private final Map<String, SpOAuth2ExpiryTimeConfiguration> expiryTimeConfigs;
+
+    public SpTokenExpiryTimeConfigCacheEntry(Map<String, SpOAuth2ExpiryTimeConfiguration> expiryTimeConfigs) {
+
+        this.expiryTimeConfigs = Collections.unmodifiableMap(new HashMap<>(expiryTimeConfigs));
+    }
+
+    /**
+     * Get the token expiry time configuration of a service provider.
+     *
+     * @param consumerKey Consumer key of the service provider.
+     * @return A copy of the configuration, or an empty configuration if the service provider has no configuration.
+     */
+    public SpOAuth2ExpiryTimeConfiguration getExpiryTimeConfig(String consumerKey) {
+
+        SpOAuth2ExpiryTimeConfiguration expiryTimeConfig = expiryTimeConfigs.get(consumerKey);
+        SpOAuth2ExpiryTimeConfiguration copy = new SpOAuth2ExpiryTimeConfiguration();
+        if (expiryTimeConfig != null) {
+            copy.setConsumerKey(expiryTimeConfig.getConsumerKey());
+            copy.setUserAccessTokenExpiryTime(expiryTimeConfig.getUserAccessTokenExpiryTime());
+            copy.setApplicationAccessTokenExpiryTime(expiryTimeConfig.getApplicationAccessTokenExpiryTime());
+            copy.setRefreshTokenExpiryTime(expiryTimeConfig.getRefreshTokenExpiryTime());
+        }
+        return copy;
+    }
+
+    public int size() {
+
+        return expiryTimeConfigs.size();
+    }
+}
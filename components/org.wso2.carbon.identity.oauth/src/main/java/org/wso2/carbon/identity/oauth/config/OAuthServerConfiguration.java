@@ -79,6 +79,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.xml.namespace.QName;
@@ -173,6 +174,8 @@ public class OAuthServerConfiguration {
     private Map<String, TokenIssuerDO> supportedTokenIssuers = new HashMap<>();
     private List<String> supportedTokenTypes = new ArrayList<>();
     private Map<String, OauthTokenIssuer> oauthTokenIssuerMap = new HashMap<>();
+    // Incremented whenever oauthTokenIssuerMap changes, so that derived structures know when to rebuild.
+    private final AtomicInteger oauthTokenIssuerMapVersion = new AtomicInteger();
     private String[] supportedClaims = null;
     private boolean isFapiCiba = false;
     private boolean isFapiSecurity = false;
@@ -815,6 +818,15 @@ public class OAuthServerConfiguration {
         return oauthTokenIssuerMap;
     }
 
+    /**
+     * Returns the version of the token issuer map. The version changes whenever an issuer is added to the map.
+     *
+     * @return Version of the token issuer map.
+     */
+    public int getOauthTokenIssuerMapVersion() {
+        return oauthTokenIssuerMapVersion.get();
+    }
+
     /**
      * Check if token renewal is enabled for each call to the token endpoint.
      *
@@ -2383,6 +2395,7 @@ public class OAuthServerConfiguration {
                     oauthTokenIssuer.setPersistAccessTokenAlias(
                             supportedTokenIssuers.get(tokenType).isPersistAccessTokenAlias());
                     oauthTokenIssuerMap.put(tokenType, oauthTokenIssuer);
+                    oauthTokenIssuerMapVersion.incrementAndGet();
                     log.info("An instance of " + tokenIssuerDO.getTokenImplClass()
                             + " is created for Identity OAuth token generation.");
                 } else {
@@ -3178,6 +3191,7 @@ public class OAuthServerConfiguration {
                     OauthTokenIssuer oauthTokenIssuer = (OauthTokenIssuer) clazz.newInstance();
                     oauthTokenIssuer.setPersistAccessTokenAlias(tokenIssuerDO.getValue().isPersistAccessTokenAlias());
                     oauthTokenIssuerMap.put(tokenIssuerDO.getKey(), oauthTokenIssuer);
+                    oauthTokenIssuerMapVersion.incrementAndGet();
 
                 } catch (ClassNotFoundException | IllegalAccessException | InstantiationException e) {
                     throw new IdentityOAuth2Exception("Error while populating OAuth Token Issuer Map. Issuer key: " +
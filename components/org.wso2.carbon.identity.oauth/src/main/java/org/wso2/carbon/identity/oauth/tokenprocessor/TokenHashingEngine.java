@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.tokenprocessor;
+
+import org.json.JSONObject;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hashing engine used to produce the persisted form of hashed tokens, authorization codes and client secrets.
+ *
+ * The persisted form is the JSON envelope {@code {"algorithm":..,"hash":..}} with a hex encoded hash. Instead of
+ * building a {@link JSONObject} per call, the envelope is rendered once per algorithm through {@link JSONObject}
+ * and split around the hash value, so the output stays byte-for-byte identical to the JSONObject rendering. The
+ * {@link MessageDigest} and the working buffers are reused per thread.
+ */
+public final class TokenHashingEngine {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    // Two hex characters for each of the 256 byte values.
+    private static final char[] HEX_TABLE = new char[512];
+    private static final String HASH_PLACEHOLDER = "HASH_PLACEHOLDER";
+    // Larger inputs are hashed with a temporary buffer, so that a single large JWT does not pin memory per thread.
+    private static final int MAX_REUSED_INPUT_LENGTH = 8192;
+
+    private static final Map<String, EnvelopeTemplate> TEMPLATES = new ConcurrentHashMap<>();
+    private static final ThreadLocal<HashingContext> CONTEXT = ThreadLocal.withInitial(HashingContext::new);
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            HEX_TABLE[i * 2] = HEX_DIGITS[i >>> 4];
+            HEX_TABLE[i * 2 + 1] = HEX_DIGITS[i & 0x0F];
+        }
+    }
+
+    private TokenHashingEngine() {
+
+    }
+
+    /**
+     * Hash the given value and return the persisted JSON envelope of the hash.
+     *
+     * @param plainText     Value to be hashed.
+     * @param hashAlgorithm Hash algorithm.
+     * @return JSON envelope containing the algorithm and the hex encoded hash.
+     * @throws IdentityOAuth2Exception If the hash algorithm is not supported.
+     */
+    public static String hash(String plainText, String hashAlgorithm) throws IdentityOAuth2Exception {
+
+        HashingContext context = CONTEXT.get();
+        MessageDigest messageDigest = context.getMessageDigest(hashAlgorithm);
+        int hashLength = digest(context, messageDigest, plainText);
+
+        EnvelopeTemplate template = getTemplate(hashAlgorithm);
+        int length = template.prefix.length + hashLength * 2 + template.suffix.length;
+        char[] buffer = context.getCharBuffer(length);
+        System.arraycopy(template.prefix, 0, buffer, 0, template.prefix.length);
+        int position = template.prefix.length;
+        byte[] hash = context.output;
+        for (int i = 0; i < hashLength; i++) {
+            int index = (hash[i] & 0xFF) << 1;
+            buffer[position++] = HEX_TABLE[index];
+            buffer[position++] = HEX_TABLE[index + 1];
+        }
+        System.arraycopy(template.suffix, 0, buffer, position, template.suffix.length);
+        return new String(buffer, 0, length);
+    }
+
+    /**
+     * Hash the given value and write the digest to the output buffer of the thread's context.
+     *
+     * @return Length of the digest.
+     */
+    private static int digest(HashingContext context, MessageDigest messageDigest, String plainText)
+            throws IdentityOAuth2Exception {
+
+        int length = plainText.length();
+        byte[] input = length <= MAX_REUSED_INPUT_LENGTH ? context.getInputBuffer(length) : new byte[length];
+        boolean ascii = true;
+        for (int i = 0; i < length; i++) {
+            char c = plainText.charAt(i);
+            if (c >= 0x80) {
+                ascii = false;
+                break;
+            }
+            input[i] = (byte) c;
+        }
+        messageDigest.reset();
+        if (ascii) {
+            messageDigest.update(input, 0, length);
+        } else {
+            messageDigest.update(plainText.getBytes(StandardCharsets.UTF_8));
+        }
+
+        int digestLength = messageDigest.getDigestLength();
+        if (digestLength <= 0) {
+            // The provider does not report the digest length upfront.
+            byte[] hash = messageDigest.digest();
+            context.getOutputBuffer(hash.length);
+            System.arraycopy(hash, 0, context.output, 0, hash.length);
+            return hash.length;
+        }
+        try {
+            return messageDigest.digest(context.getOutputBuffer(digestLength), 0, digestLength);
+        } catch (DigestException e) {
+            throw new IdentityOAuth2Exception("Error while computing the hash using the algorithm: " +
+                    messageDigest.getAlgorithm(), e);
+        }
+    }
+
+    private static EnvelopeTemplate getTemplate(String hashAlgorithm) {
+
+        EnvelopeTemplate template = TEMPLATES.get(hashAlgorithm);
+        if (template == null) {
+            JSONObject object = new JSONObject();
+            object.put(HashingPersistenceProcessor.ALGORITHM, hashAlgorithm);
+            object.put(HashingPersistenceProcessor.HASH, HASH_PLACEHOLDER);
+            String rendered = object.toString();
+            int index = rendered.lastIndexOf(HASH_PLACEHOLDER);
+            template = new EnvelopeTemplate(rendered.substring(0, index).toCharArray(),
+                    rendered.substring(index + HASH_PLACEHOLDER.length()).toCharArray());
+            TEMPLATES.put(hashAlgorithm, template);
+        }
+        return template;
+    }
+
+    /**
+     * JSON envelope rendered for an algorithm, split around the hash value.
+     */
+    private static class EnvelopeTemplate {
+
+        private final char[] prefix;
+        private final char[] suffix;
+
+        EnvelopeTemplate(char[] prefix, char[] suffix) {
+
+            this.prefix = prefix;
+            this.suffix = suffix;
+        }
+    }
+
+    /**
+     * Per thread message digest and working buffers.
+     */
+    private static class HashingContext {
+
+        private String algorithm;
+        private MessageDigest messageDigest;
+        private byte[] input = new byte[256];
+        private byte[] output = new byte[64];
+        private char[] chars = new char[256];
+
+        MessageDigest getMessageDigest(String hashAlgorithm) throws IdentityOAuth2Exception {
+
+            if (messageDigest == null || !hashAlgorithm.equals(algorithm)) {
+                try {
+                    messageDigest = MessageDigest.getInstance(hashAlgorithm);
+                    algorithm = hashAlgorithm;
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IdentityOAuth2Exception("Error while retrieving MessageDigest for the provided hash " +
+                            "algorithm: " + hashAlgorithm, e);
+                }
+            }
+            return messageDigest;
+        }
+
+        byte[] getInputBuffer(int length) {
+
+            if (input.length < length) {
+                input = new byte[length];
+            }
+            return input;
+        }
+
+        byte[] getOutputBuffer(int length) {
+
+            if (output.length < length) {
+                output = new byte[length];
+            }
+            return output;
+        }
+
+        char[] getCharBuffer(int length) {
+
+            if (chars.length < length) {
+                chars = new char[length];
+            }
+            return chars;
+        }
+    }
+}
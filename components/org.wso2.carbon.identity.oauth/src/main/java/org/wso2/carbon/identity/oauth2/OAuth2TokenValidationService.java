@@ -30,7 +30,10 @@ import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationResponseDTO;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.oauth2.validators.TokenValidationHandler;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.wso2.carbon.identity.oauth2.util.OAuth2Util.triggerOnIntrospectionExceptionListeners;
@@ -128,6 +131,54 @@ public class OAuth2TokenValidationService extends AbstractAdmin {
         return oAuth2IntrospectionResponseDTO;
     }
 
+    /**
+     * Returns back the introspection responses of a batch of tokens, in the order of the validation requests. Each
+     * response is compatible with RFC 7662.
+     *
+     * @param validationRequests Validation requests.
+     * @return Introspection responses.
+     * @throws IdentityOAuth2ClientException If the batch has more tokens than allowed.
+     */
+    public List<OAuth2IntrospectionResponseDTO> buildIntrospectionResponses(
+            List<OAuth2TokenValidationRequestDTO> validationRequests) throws IdentityOAuth2ClientException {
+
+        TokenValidationHandler validationHandler = TokenValidationHandler.getInstance();
+        int maxTokens = validationHandler.getMaxBulkIntrospectionTokens();
+        if (validationRequests.size() > maxTokens) {
+            throw new IdentityOAuth2ClientException("The number of tokens in the introspection request exceeds the " +
+                    "maximum of " + maxTokens);
+        }
+
+        OAuth2IntrospectionResponseDTO[] responses = new OAuth2IntrospectionResponseDTO[validationRequests.size()];
+        List<OAuth2TokenValidationRequestDTO> acceptedRequests = new ArrayList<>();
+        List<Integer> acceptedRequestIndexes = new ArrayList<>();
+        for (int i = 0; i < validationRequests.size(); i++) {
+            OAuth2TokenValidationRequestDTO validationReq = validationRequests.get(i);
+            try {
+                triggerPreValidationListeners(validationReq);
+                acceptedRequests.add(validationReq);
+                acceptedRequestIndexes.add(i);
+            } catch (IdentityOAuth2Exception e) {
+                OAuth2IntrospectionResponseDTO errRespDTO = new OAuth2IntrospectionResponseDTO();
+                errRespDTO.setActive(false);
+                errRespDTO.setError(e.getMessage());
+                triggerOnIntrospectionExceptionListeners(validationReq, errRespDTO);
+                responses[i] = errRespDTO;
+            }
+        }
+
+        List<OAuth2IntrospectionResponseDTO> acceptedResponses =
+                validationHandler.buildIntrospectionResponses(acceptedRequests);
+        for (int i = 0; i < acceptedRequests.size(); i++) {
+            OAuth2IntrospectionResponseDTO oAuth2IntrospectionResponseDTO = acceptedResponses.get(i);
+            triggerPostIntrospectionValidationListeners(acceptedRequests.get(i), oAuth2IntrospectionResponseDTO,
+                    oAuth2IntrospectionResponseDTO.getProperties());
+            oAuth2IntrospectionResponseDTO.getProperties().remove(OAuth2Util.OAUTH2_VALIDATION_MESSAGE_CONTEXT);
+            responses[acceptedRequestIndexes.get(i)] = oAuth2IntrospectionResponseDTO;
+        }
+        return Arrays.asList(responses);
+    }
+
     private void triggerPreValidationListeners(OAuth2TokenValidationRequestDTO requestDTO)
             throws IdentityOAuth2Exception {
         OAuthEventInterceptor oAuthEventInterceptorProxy = OAuthComponentServiceHolder.getInstance()
@@ -49,6 +49,8 @@ import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 import org.wso2.carbon.identity.oauth2.model.AuthzCodeDO;
 import org.wso2.carbon.identity.oauth2.token.OauthTokenIssuer;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.oauth2.util.TokenIssuanceLockManager;
+import org.wso2.carbon.identity.oauth2.util.TokenIssuanceLockManager.TokenIssuanceLock;
 import org.wso2.carbon.identity.openidconnect.IDTokenBuilder;
 
 import java.sql.Timestamp;
@@ -137,7 +139,8 @@ public class TokenResponseTypeHandler extends AbstractResponseTypeHandler {
 
         AccessTokenDO tokenDO = null;
 
-        synchronized ((consumerKey + ":" + authorizedUserId + ":" + scope).intern()) {
+        try (TokenIssuanceLock lock = TokenIssuanceLockManager.getInstance().lock(consumerKey + ":" +
+                authorizedUserId + ":" + scope)) {
 
             AccessTokenDO existingAccessTokenDO = null;
             // check if valid access token exists in cache
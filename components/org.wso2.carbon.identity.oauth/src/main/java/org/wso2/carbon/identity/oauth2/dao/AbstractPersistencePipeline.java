@@ -0,0 +1,392 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous persistence pipeline which drains a bounded queue with a configurable number of workers. Each worker
+ * collects up to the configured batch size or waits up to the configured flush interval, and then writes the
+ * collected entries with a single call to {@link #persistBatch(List)}.
+ *
+ * Each entry is tracked with a future which completes once the entry is persisted, or fails if it could not be
+ * persisted. A caller which must not proceed before the entry is stored, such as a token request which returns the
+ * token to the client, waits for it with {@link #persistAndWait(Object)}. The concurrent requests are then written
+ * in one batch, while none of them responds before its entry is committed.
+ *
+ * When the queue is full, producers wait up to the configured enqueue timeout and then persist the entry on the
+ * calling thread, so that a slow database pushes back on the request threads instead of growing the heap.
+ *
+ * @param <T> Type of the entries persisted by the pipeline.
+ */
+public abstract class AbstractPersistencePipeline<T> {
+
+    private static final Log log = LogFactory.getLog(AbstractPersistencePipeline.class);
+
+    // These config properties are defined in identity.xml
+    private static final String POOL_SIZE = "OAuth.TokenPersistence.PoolSize";
+    private static final String BATCH_SIZE = "OAuth.TokenPersistence.BatchSize";
+    private static final String FLUSH_INTERVAL = "OAuth.TokenPersistence.FlushInterval";
+    private static final String QUEUE_CAPACITY = "OAuth.TokenPersistence.QueueCapacity";
+    private static final String ENQUEUE_TIMEOUT = "OAuth.TokenPersistence.EnqueueTimeout";
+
+    private static final int DEFAULT_POOL_SIZE = 0;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 50;
+    private static final int DEFAULT_QUEUE_CAPACITY = 10000;
+    private static final long DEFAULT_ENQUEUE_TIMEOUT_MILLIS = 100;
+
+    private final String name;
+    private final int poolSize;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long enqueueTimeoutMillis;
+    private final BlockingQueue<PendingEntry<T>> queue;
+
+    private final AtomicLong flushedBatchCount = new AtomicLong();
+    private final AtomicLong persistedEntryCount = new AtomicLong();
+    private final AtomicLong failedEntryCount = new AtomicLong();
+    private final AtomicLong callerPersistedEntryCount = new AtomicLong();
+    private final AtomicLong totalFlushLatencyNanos = new AtomicLong();
+    private final AtomicLong maxFlushLatencyNanos = new AtomicLong();
+
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    protected AbstractPersistencePipeline(String name) {
+
+        this(name, OAuth2ConfigUtil.getIntProperty(POOL_SIZE, DEFAULT_POOL_SIZE),
+                OAuth2ConfigUtil.getIntProperty(BATCH_SIZE, DEFAULT_BATCH_SIZE),
+                OAuth2ConfigUtil.getLongProperty(FLUSH_INTERVAL, DEFAULT_FLUSH_INTERVAL_MILLIS),
+                OAuth2ConfigUtil.getIntProperty(QUEUE_CAPACITY, DEFAULT_QUEUE_CAPACITY),
+                OAuth2ConfigUtil.getLongProperty(ENQUEUE_TIMEOUT, DEFAULT_ENQUEUE_TIMEOUT_MILLIS));
+    }
+
+    protected AbstractPersistencePipeline(String name, int poolSize, int batchSize, long flushIntervalMillis,
+                                          int queueCapacity, long enqueueTimeoutMillis) {
+
+        this.name = name;
+        this.poolSize = Math.max(poolSize, 0);
+        this.batchSize = Math.max(batchSize, 1);
+        this.flushIntervalMillis = Math.max(flushIntervalMillis, 1);
+        this.enqueueTimeoutMillis = Math.max(enqueueTimeoutMillis, 0);
+        this.queue = new LinkedBlockingQueue<>(Math.max(queueCapacity, 1));
+    }
+
+    /**
+     * Persist the given entries. Implementations should write the entries in as few round trips as possible.
+     *
+     * @param batch Entries to be persisted.
+     * @throws IdentityOAuth2Exception If an error occurred while persisting the entries.
+     */
+    protected abstract void persistBatch(List<T> batch) throws IdentityOAuth2Exception;
+
+    /**
+     * Persist a single entry. Used when a batch fails, and when an entry is persisted on the calling thread.
+     *
+     * @param entry Entry to be persisted.
+     * @throws IdentityOAuth2Exception If an error occurred while persisting the entry.
+     */
+    protected abstract void persist(T entry) throws IdentityOAuth2Exception;
+
+    /**
+     * Whether the pipeline is configured to persist entries asynchronously. Asynchronous persistence is enabled when
+     * the configured pool size is greater than zero.
+     *
+     * @return True if asynchronous persistence is enabled.
+     */
+    public boolean isEnabled() {
+
+        return poolSize > 0;
+    }
+
+    /**
+     * Start the worker threads of the pipeline. Does nothing if the pipeline is disabled or already started.
+     */
+    public synchronized void start() {
+
+        if (!isEnabled() || running) {
+            return;
+        }
+        running = true;
+        workers = Executors.newFixedThreadPool(poolSize, new PipelineThreadFactory(name));
+        for (int i = 0; i < poolSize; i++) {
+            workers.execute(this::consume);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Started " + name + " with " + poolSize + " workers, batch size: " + batchSize +
+                    ", flush interval: " + flushIntervalMillis + "ms and queue capacity: " +
+                    queue.remainingCapacity());
+        }
+    }
+
+    /**
+     * Stop accepting entries, let the workers drain the queue and wait for them to finish. Entries which are still
+     * in the queue after the timeout are persisted on the calling thread.
+     *
+     * @param timeoutMillis Maximum time to wait for the workers to drain the queue.
+     */
+    public void shutdown(long timeoutMillis) {
+
+        ExecutorService workersToStop;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            workersToStop = workers;
+            workers = null;
+        }
+        workersToStop.shutdown();
+        try {
+            if (!workersToStop.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                workersToStop.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workersToStop.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        List<PendingEntry<T>> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            log.info("Persisting " + remaining.size() + " remaining entries of " + name + " during shutdown.");
+            flush(remaining);
+        }
+    }
+
+    /**
+     * Add an entry to the pipeline and wait until it is persisted.
+     *
+     * @param entry Entry to be persisted.
+     * @throws IdentityOAuth2Exception If the entry could not be persisted, or the wait was interrupted.
+     */
+    public void persistAndWait(T entry) throws IdentityOAuth2Exception {
+
+        try {
+            enqueue(entry).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IdentityOAuth2Exception) {
+                throw (IdentityOAuth2Exception) e.getCause();
+            }
+            throw new IdentityOAuth2Exception("Error while persisting an entry in " + name, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdentityOAuth2Exception("Interrupted while waiting for an entry to be persisted in " + name, e);
+        }
+    }
+
+    /**
+     * Add an entry to the pipeline. If the pipeline is not running, or the queue stays full for longer than the
+     * enqueue timeout, the entry is persisted on the calling thread.
+     *
+     * @param entry Entry to be persisted.
+     * @return Future which completes when the entry is persisted, or fails if it could not be persisted.
+     * @throws IdentityOAuth2Exception If the entry was persisted on the calling thread and it failed.
+     */
+    public CompletableFuture<Void> enqueue(T entry) throws IdentityOAuth2Exception {
+
+        if (running) {
+            PendingEntry<T> pendingEntry = new PendingEntry<>(entry);
+            try {
+                if (queue.offer(pendingEntry, enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    if (running || !queue.remove(pendingEntry)) {
+                        return pendingEntry.persisted;
+                    }
+                    // The pipeline was shut down after the entry was queued, and the entry was not drained.
+                }
+                if (log.isDebugEnabled()) {
+                    log.debug("The queue of " + name + " is full. Persisting the entry on the calling thread.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        callerPersistedEntryCount.incrementAndGet();
+        persist(entry);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private void consume() {
+
+        if (log.isDebugEnabled()) {
+            log.debug(name + " consumer is started.");
+        }
+        List<PendingEntry<T>> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingEntry<T> first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remainingNanos <= 0) {
+                        break;
+                    }
+                    PendingEntry<T> next = queue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Interrupted during a forced shutdown. Whatever was collected is still flushed below.
+                Thread.currentThread().interrupt();
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+        }
+    }
+
+    private void flush(List<PendingEntry<T>> batch) {
+
+        long start = System.nanoTime();
+        List<T> entries = new ArrayList<>(batch.size());
+        for (PendingEntry<T> pendingEntry : batch) {
+            entries.add(pendingEntry.entry);
+        }
+        try {
+            persistBatch(entries);
+            persistedEntryCount.addAndGet(batch.size());
+            for (PendingEntry<T> pendingEntry : batch) {
+                pendingEntry.persisted.complete(null);
+            }
+        } catch (IdentityOAuth2Exception | RuntimeException e) {
+            log.error("Error while persisting a batch of " + batch.size() + " entries in " + name +
+                    ". Persisting the entries individually.", e);
+            for (PendingEntry<T> pendingEntry : batch) {
+                try {
+                    persist(pendingEntry.entry);
+                    persistedEntryCount.incrementAndGet();
+                    pendingEntry.persisted.complete(null);
+                } catch (IdentityOAuth2Exception | RuntimeException e1) {
+                    failedEntryCount.incrementAndGet();
+                    log.error("Error while persisting an entry in " + name, e1);
+                    // The caller waiting for the entry gets the error, as if it was persisted on its own thread.
+                    pendingEntry.persisted.completeExceptionally(e1);
+                }
+            }
+        }
+        long latency = System.nanoTime() - start;
+        flushedBatchCount.incrementAndGet();
+        totalFlushLatencyNanos.addAndGet(latency);
+        maxFlushLatencyNanos.accumulateAndGet(latency, Math::max);
+    }
+
+    public String getName() {
+
+        return name;
+    }
+
+    public int getQueueDepth() {
+
+        return queue.size();
+    }
+
+    public long getFlushedBatchCount() {
+
+        return flushedBatchCount.get();
+    }
+
+    public long getPersistedEntryCount() {
+
+        return persistedEntryCount.get();
+    }
+
+    public long getFailedEntryCount() {
+
+        return failedEntryCount.get();
+    }
+
+    /**
+     * @return Number of entries persisted on the calling thread because the pipeline was full or not running.
+     */
+    public long getCallerPersistedEntryCount() {
+
+        return callerPersistedEntryCount.get();
+    }
+
+    public long getAverageFlushLatencyMillis() {
+
+        long batches = flushedBatchCount.get();
+        return batches == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalFlushLatencyNanos.get() / batches);
+    }
+
+    public long getMaxFlushLatencyMillis() {
+
+        return TimeUnit.NANOSECONDS.toMillis(maxFlushLatencyNanos.get());
+    }
+
+    /**
+     * Entry in the queue, with the future of the caller waiting for it to be persisted.
+     */
+    private static class PendingEntry<T> {
+
+        private final T entry;
+        private final CompletableFuture<Void> persisted = new CompletableFuture<>();
+
+        PendingEntry(T entry) {
+
+            this.entry = entry;
+        }
+    }
+
+    private static class PipelineThreadFactory implements ThreadFactory {
+
+        private final String namePrefix;
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        PipelineThreadFactory(String namePrefix) {
+
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+
+            Thread thread = new Thread(runnable, namePrefix + "-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -24,9 +24,14 @@ import org.wso2.carbon.identity.application.authentication.framework.model.Authe
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Access token related data access interface.
@@ -40,6 +45,24 @@ public interface AccessTokenDAO {
                               AccessTokenDO newAccessTokenDO, AccessTokenDO existingAccessTokenDO,
                               String rawUserStoreDomain) throws IdentityOAuth2Exception;
 
+    /**
+     * Persist a batch of access tokens. Implementations should store either all or none of the tokens, as the
+     * tokens of a failed batch are persisted again one by one with
+     * {@link #insertAccessToken(String, String, AccessTokenDO, AccessTokenDO, String)}. The default implementation
+     * persists the tokens one by one, and should be overridden by a DAO used with the token persistence pipeline.
+     *
+     * @param accessContextTokenDOs Access token contexts to be persisted.
+     * @throws IdentityOAuth2Exception If an error occurred while persisting the tokens.
+     */
+    default void insertAccessTokens(List<AccessContextTokenDO> accessContextTokenDOs) throws IdentityOAuth2Exception {
+
+        for (AccessContextTokenDO accessContextTokenDO : accessContextTokenDOs) {
+            insertAccessToken(accessContextTokenDO.getAccessToken(), accessContextTokenDO.getConsumerKey(),
+                    accessContextTokenDO.getNewAccessTokenDO(), accessContextTokenDO.getExistingAccessTokenDO(),
+                    accessContextTokenDO.getUserStoreDomain());
+        }
+    }
+
     AccessTokenDO getLatestAccessToken(String consumerKey, AuthenticatedUser authzUser, String userStoreDomain,
                                        String scope, boolean includeExpiredTokens) throws IdentityOAuth2Exception;
 
@@ -87,8 +110,53 @@ public interface AccessTokenDAO {
     Set<AccessTokenDO> getAccessTokens(String consumerKey, AuthenticatedUser userName,
                                        String userStoreDomain, boolean includeExpired) throws IdentityOAuth2Exception;
 
+    /**
+     * Retrieve a page of the ACTIVE or EXPIRED access tokens which a user has authorized for a client, ordered by the
+     * token id. The tokens can be iterated page by page, by passing the token id of the last token of the previous
+     * page.
+     *
+     * @param consumerKey     Client id.
+     * @param authzUser       Authorized user.
+     * @param userStoreDomain User store domain of the token partition, or null if the tokens are not partitioned.
+     * @param lastTokenId     Token id of the last token of the previous page, or null to retrieve the first page.
+     * @param limit           Maximum number of tokens in the page.
+     * @return Tokens of the page. Only the last page has less tokens than the limit.
+     * @throws IdentityOAuth2Exception If an error occurred while retrieving the tokens.
+     */
+    default List<AccessTokenDO> getAccessTokens(String consumerKey, AuthenticatedUser authzUser,
+                                                String userStoreDomain, String lastTokenId, int limit)
+            throws IdentityOAuth2Exception {
+
+        return getAccessTokens(consumerKey, authzUser, userStoreDomain, true).stream()
+                .filter(accessTokenDO -> lastTokenId == null || accessTokenDO.getTokenId().compareTo(lastTokenId) > 0)
+                .sorted(Comparator.comparing(AccessTokenDO::getTokenId))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
     AccessTokenDO getAccessToken(String accessTokenIdentifier, boolean includeExpired) throws IdentityOAuth2Exception;
 
+    /**
+     * Retrieve the active access tokens of the given identifiers.
+     *
+     * @param accessTokenIdentifiers Access token identifiers.
+     * @return Map of access token identifier to the access token. Identifiers of tokens which are not active are
+     * not in the map.
+     * @throws IdentityOAuth2Exception If an error occurred while retrieving the tokens.
+     */
+    default Map<String, AccessTokenDO> getAccessTokens(Collection<String> accessTokenIdentifiers)
+            throws IdentityOAuth2Exception {
+
+        Map<String, AccessTokenDO> accessTokenDOs = new HashMap<>();
+        for (String accessTokenIdentifier : accessTokenIdentifiers) {
+            AccessTokenDO accessTokenDO = getAccessToken(accessTokenIdentifier, false);
+            if (accessTokenDO != null) {
+                accessTokenDOs.put(accessTokenIdentifier, accessTokenDO);
+            }
+        }
+        return accessTokenDOs;
+    }
+
     Set<String> getAccessTokensByUser(AuthenticatedUser authenticatedUser) throws IdentityOAuth2Exception;
 
     default Set<AccessTokenDO> getAccessTokensByUserForOpenidScope(AuthenticatedUser authenticatedUser)
@@ -103,6 +171,26 @@ public interface AccessTokenDAO {
 
     Set<AccessTokenDO> getAccessTokensByTenant(int tenantId) throws IdentityOAuth2Exception;
 
+    /**
+     * Retrieve a page of the ACTIVE or EXPIRED access tokens of a tenant, ordered by the token id. The tokens of a
+     * tenant can be iterated page by page, by passing the token id of the last token of the previous page.
+     *
+     * @param tenantId    Tenant id.
+     * @param lastTokenId Token id of the last token of the previous page, or null to retrieve the first page.
+     * @param limit       Maximum number of tokens in the page.
+     * @return Tokens of the page. Only the last page has less tokens than the limit.
+     * @throws IdentityOAuth2Exception If an error occurred while retrieving the tokens.
+     */
+    default List<AccessTokenDO> getAccessTokensByTenant(int tenantId, String lastTokenId, int limit)
+            throws IdentityOAuth2Exception {
+
+        return getAccessTokensByTenant(tenantId).stream()
+                .filter(accessTokenDO -> lastTokenId == null || accessTokenDO.getTokenId().compareTo(lastTokenId) > 0)
+                .sorted(Comparator.comparing(AccessTokenDO::getTokenId))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
     Set<AccessTokenDO> getAccessTokensOfUserStore(int tenantId, String userStoreDomain) throws
             IdentityOAuth2Exception;
 
@@ -167,6 +255,31 @@ public interface AccessTokenDAO {
                 userStoreDomain);
     }
 
+    /**
+     * Invalidate an active or expired access token and store the new access token issued in place of it, within one
+     * transaction. The state of the existing token is changed only if it is still active or expired, hence only one
+     * of the concurrent rotations of the same token stores a new token.
+     *
+     * @param oldAccessTokenId Id of the access token to invalidate.
+     * @param tokenState       New state of the existing token.
+     * @param consumerKey      Consumer key of the existing token.
+     * @param tokenStateId     New token state id of the existing token.
+     * @param accessTokenDO    New access token.
+     * @param userStoreDomain  User store domain of the token.
+     * @param grantType        Grant type of the existing token.
+     * @return true if the existing token was invalidated and the new token was stored, false if the existing token is
+     * no longer active or expired.
+     * @throws IdentityOAuth2Exception in case of failure.
+     */
+    default boolean rotateAccessToken(String oldAccessTokenId, String tokenState, String consumerKey,
+                                      String tokenStateId, AccessTokenDO accessTokenDO, String userStoreDomain,
+                                      String grantType) throws IdentityOAuth2Exception {
+
+        invalidateAndCreateNewAccessToken(oldAccessTokenId, tokenState, consumerKey, tokenStateId, accessTokenDO,
+                userStoreDomain, grantType);
+        return true;
+    }
+
     void updateUserStoreDomain(int tenantId, String currentUserStoreDomain,
                                String newUserStoreDomain) throws IdentityOAuth2Exception;
 
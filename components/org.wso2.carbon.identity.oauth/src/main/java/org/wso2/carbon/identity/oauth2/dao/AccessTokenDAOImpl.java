@@ -37,6 +37,7 @@ import org.wso2.carbon.identity.base.IdentityConstants;
 import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.cache.AccessTokenNegativeCache;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth.common.exception.InvalidOAuthClientException;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
@@ -59,15 +60,19 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static org.apache.commons.lang.StringUtils.isNotBlank;
 import static org.wso2.carbon.identity.core.util.IdentityUtil.getProperty;
@@ -86,6 +91,10 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
     private static final int DEFAULT_TOKEN_PERSIST_RETRY_COUNT = 5;
     private static final String IDN_OAUTH2_ACCESS_TOKEN = "IDN_OAUTH2_ACCESS_TOKEN";
     private static final String CONSENTED_TOKEN_COLUMN_NAME = "CONSENTED_TOKEN";
+    private static final String ACCESS_TOKEN_HASH_COLUMN_NAME = "ACCESS_TOKEN_HASH";
+    private static final int MAX_ACCESS_TOKENS_PER_QUERY = 100;
+    private static final TimeZone UTC_TIME_ZONE = TimeZone.getTimeZone(UTC);
+    private static final AccessTokenQuery[] ACCESS_TOKEN_QUERIES = buildAccessTokenQueries();
     private boolean isTokenCleanupFeatureEnabled = OAuthServerConfiguration.getInstance().isTokenCleanupEnabled();
     private boolean isCrossTenantTokenIntrospectionAllowed
             = OAuthServerConfiguration.getInstance().isCrossTenantTokenIntrospectionAllowed();
@@ -103,6 +112,7 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
         } catch (SQLException e) {
             throw new IdentityOAuth2Exception("Error while inserting access token.", e);
         }
+        AccessTokenNegativeCache.getInstance().clear(accessToken);
     }
 
     private void insertAccessToken(String accessToken, String consumerKey, AccessTokenDO accessTokenDO,
@@ -129,23 +139,7 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
                     "Authorized user should be available for further execution.");
         }
 
-        String accessTokenHash = accessToken;
-        try {
-            OauthTokenIssuer oauthTokenIssuer = OAuth2Util.getOAuthTokenIssuerForOAuthApp(consumerKey);
-            //check for persist alias for the token type
-            if (oauthTokenIssuer.usePersistedAccessTokenAlias()) {
-                accessTokenHash = oauthTokenIssuer.getAccessTokenHash(accessToken);
-            }
-        } catch (OAuthSystemException e) {
-            if (log.isDebugEnabled() && IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.ACCESS_TOKEN)) {
-                log.debug("Error while getting access token hash for token(hashed): " + DigestUtils
-                        .sha256Hex(accessTokenHash));
-            }
-            throw new IdentityOAuth2Exception("Error while getting access token hash.", e);
-        } catch (InvalidOAuthClientException e) {
-            throw new IdentityOAuth2Exception(
-                    "Error while retrieving oauth issuer for the app with clientId: " + consumerKey, e);
-        }
+        String accessTokenHash = getAccessTokenHash(accessToken, consumerKey);
 
         if (log.isDebugEnabled()) {
             if (IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.ACCESS_TOKEN)) {
@@ -174,85 +168,15 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
             log.debug("Userstore domain for user: " + username + " is " + userDomain);
         }
 
-        String sql;
-        if (OAuth2ServiceComponentHolder.isIDPIdColumnEnabled()) {
-            if (OAuth2ServiceComponentHolder.isConsentedTokenColumnEnabled()) {
-                sql = SQLQueries.INSERT_OAUTH2_ACCESS_TOKEN_WITH_IDP_NAME_WITH_CONSENTED_TOKEN;
-            } else {
-                sql = SQLQueries.INSERT_OAUTH2_ACCESS_TOKEN_WITH_IDP_NAME;
-            }
-        } else {
-            if (OAuth2ServiceComponentHolder.isConsentedTokenColumnEnabled()) {
-                sql = SQLQueries.INSERT_OAUTH2_ACCESS_TOKEN_WITH_CONSENTED_TOKEN;
-            } else {
-                sql = SQLQueries.INSERT_OAUTH2_ACCESS_TOKEN;
-            }
-        }
-        sql = OAuth2Util.getTokenPartitionedSqlByUserStore(sql, userDomain);
+        String sql = OAuth2Util.getTokenPartitionedSqlByUserStore(getInsertAccessTokenSql(), userDomain);
         String sqlAddScopes = OAuth2Util.getTokenPartitionedSqlByUserStore(SQLQueries.INSERT_OAUTH2_TOKEN_SCOPE,
                 userDomain);
 
         try {
             insertTokenPrepStmt = connection.prepareStatement(sql);
-            insertTokenPrepStmt.setString(1, getPersistenceProcessor().getProcessedAccessTokenIdentifier(
-                    accessTokenHash));
-
-            if (accessTokenDO.getRefreshToken() != null) {
-                insertTokenPrepStmt.setString(2,
-                        getPersistenceProcessor().getProcessedRefreshToken(accessTokenDO.getRefreshToken()));
-            } else {
-                insertTokenPrepStmt.setString(2, accessTokenDO.getRefreshToken());
-            }
-
-            insertTokenPrepStmt.setString(3, accessTokenDO.getAuthzUser().getUserName());
             int tenantId = OAuth2Util.getTenantId(accessTokenDO.getAuthzUser().getTenantDomain());
-            insertTokenPrepStmt.setInt(4, tenantId);
-            insertTokenPrepStmt.setString(5, OAuth2Util.getSanitizedUserStoreDomain(userDomain));
-            insertTokenPrepStmt
-                    .setTimestamp(6, accessTokenDO.getIssuedTime(), Calendar.getInstance(TimeZone.getTimeZone(UTC)));
-            insertTokenPrepStmt.setTimestamp(7, accessTokenDO.getRefreshTokenIssuedTime(), Calendar.getInstance(TimeZone
-                    .getTimeZone(UTC)));
-            insertTokenPrepStmt.setLong(8, accessTokenDO.getValidityPeriodInMillis());
-            insertTokenPrepStmt.setLong(9, accessTokenDO.getRefreshTokenValidityPeriodInMillis());
-            insertTokenPrepStmt.setString(10, OAuth2Util.hashScopes(accessTokenDO.getScope()));
-            insertTokenPrepStmt.setString(11, accessTokenDO.getTokenState());
-            insertTokenPrepStmt.setString(12, accessTokenDO.getTokenType());
-            insertTokenPrepStmt.setString(13, accessTokenDO.getTokenId());
-            insertTokenPrepStmt.setString(14, accessTokenDO.getGrantType());
-            insertTokenPrepStmt.setString(15, accessTokenDO.getAuthzUser().getAuthenticatedSubjectIdentifier());
-            insertTokenPrepStmt
-                    .setString(16, getHashingPersistenceProcessor().getProcessedAccessTokenIdentifier(accessTokenHash));
-            if (accessTokenDO.getRefreshToken() != null) {
-                insertTokenPrepStmt.setString(17,
-                        getHashingPersistenceProcessor().getProcessedRefreshToken(accessTokenDO.getRefreshToken()));
-            } else {
-                insertTokenPrepStmt.setString(17, accessTokenDO.getRefreshToken());
-            }
-            boolean tokenBindingAvailable = isTokenBindingAvailable(accessTokenDO.getTokenBinding());
-            if (tokenBindingAvailable) {
-                insertTokenPrepStmt.setString(18, accessTokenDO.getTokenBinding().getBindingReference());
-            } else {
-                insertTokenPrepStmt.setString(18, NONE);
-            }
-            if (OAuth2ServiceComponentHolder.isIDPIdColumnEnabled()) {
-                if (OAuth2ServiceComponentHolder.isConsentedTokenColumnEnabled()) {
-                    insertTokenPrepStmt.setString(19, Boolean.toString(accessTokenDO.isConsentedToken()));
-                    insertTokenPrepStmt.setString(20, authenticatedIDP);
-                    insertTokenPrepStmt.setInt(21, tenantId);
-                    insertTokenPrepStmt.setString(22, getPersistenceProcessor().getProcessedClientId(consumerKey));
-                } else {
-                    insertTokenPrepStmt.setString(19, authenticatedIDP);
-                    insertTokenPrepStmt.setInt(20, tenantId);
-                    insertTokenPrepStmt.setString(21, getPersistenceProcessor().getProcessedClientId(consumerKey));
-                }
-            } else {
-                if (OAuth2ServiceComponentHolder.isConsentedTokenColumnEnabled()) {
-                    insertTokenPrepStmt.setString(19, Boolean.toString(accessTokenDO.isConsentedToken()));
-                    insertTokenPrepStmt.setString(20, getPersistenceProcessor().getProcessedClientId(consumerKey));
-                } else {
-                    insertTokenPrepStmt.setString(19, getPersistenceProcessor().getProcessedClientId(consumerKey));
-                }
-            }
+            boolean tokenBindingAvailable = setInsertAccessTokenParameters(insertTokenPrepStmt, accessTokenHash,
+                    consumerKey, accessTokenDO, userDomain, authenticatedIDP, tenantId);
             insertTokenPrepStmt.executeUpdate();
 
             String accessTokenId = accessTokenDO.getTokenId();
@@ -392,6 +316,7 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
                 oldTokenCleanupObject.cleanupTokenByTokenId(existingAccessTokenDO.getTokenId(), connection);
             }
             IdentityDatabaseUtil.commitTransaction(connection);
+            AccessTokenNegativeCache.getInstance().clear(accessToken);
             return true;
         } catch (SQLException e) {
             IdentityDatabaseUtil.rollbackTransaction(connection);
@@ -401,6 +326,240 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
         }
     }
 
+    /**
+     * Persist a batch of access tokens using a single connection and transaction. Token rows, scope rows and
+     * token binding rows are written as JDBC batches per token partition. If the batch fails, the transaction is
+     * rolled back and none of the tokens is stored, so that the caller can persist each token with
+     * {@link #insertAccessToken(String, String, AccessTokenDO, AccessTokenDO, String)}, which applies the
+     * 'CON_APP_KEY' constraint violation recovery.
+     *
+     * @param accessContextTokenDOs Access token contexts to be persisted.
+     * @throws IdentityOAuth2Exception If an error occurred while persisting the tokens.
+     */
+    @Override
+    public void insertAccessTokens(List<AccessContextTokenDO> accessContextTokenDOs) throws IdentityOAuth2Exception {
+
+        if (!isPersistenceEnabled() || accessContextTokenDOs == null || accessContextTokenDOs.isEmpty()) {
+            return;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Persisting a batch of " + accessContextTokenDOs.size() + " access tokens.");
+        }
+
+        // Statements are keyed by the partitioned SQL so that tokens of different user stores can share a batch.
+        Map<String, PreparedStatement> tokenStatements = new HashMap<>();
+        Map<String, PreparedStatement> scopeStatements = new HashMap<>();
+        PreparedStatement bindingStatement = null;
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        try {
+            for (AccessContextTokenDO accessContextTokenDO : accessContextTokenDOs) {
+                AccessTokenDO accessTokenDO = accessContextTokenDO.getNewAccessTokenDO();
+                if (accessTokenDO == null || accessTokenDO.getAuthzUser() == null) {
+                    throw new IdentityOAuth2Exception("Access token data object and authorized user should be " +
+                            "available for further execution.");
+                }
+                String consumerKey = accessContextTokenDO.getConsumerKey();
+                AccessTokenDO existingAccessTokenDO = accessContextTokenDO.getExistingAccessTokenDO();
+                if (existingAccessTokenDO != null) {
+                    updateAccessTokenState(connection, existingAccessTokenDO.getTokenId(),
+                            OAuthConstants.TokenStates.TOKEN_STATE_EXPIRED, UUID.randomUUID().toString(),
+                            OAuth2Util.getSanitizedUserStoreDomain(accessContextTokenDO.getUserStoreDomain()),
+                            existingAccessTokenDO.getGrantType());
+                }
+
+                String accessTokenHash = getAccessTokenHash(accessContextTokenDO.getAccessToken(), consumerKey);
+                String userDomain = OAuth2Util.getUserStoreDomain(accessTokenDO.getAuthzUser());
+                String authenticatedIDP = OAuth2Util.getAuthenticatedIDP(accessTokenDO.getAuthzUser());
+                int tenantId = OAuth2Util.getTenantId(accessTokenDO.getAuthzUser().getTenantDomain());
+
+                String sql = OAuth2Util.getTokenPartitionedSqlByUserStore(getInsertAccessTokenSql(), userDomain);
+                PreparedStatement insertTokenPrepStmt = tokenStatements.get(sql);
+                if (insertTokenPrepStmt == null) {
+                    insertTokenPrepStmt = connection.prepareStatement(sql);
+                    tokenStatements.put(sql, insertTokenPrepStmt);
+                }
+                boolean tokenBindingAvailable = setInsertAccessTokenParameters(insertTokenPrepStmt,
+                        accessTokenHash, consumerKey, accessTokenDO, userDomain, authenticatedIDP, tenantId);
+                insertTokenPrepStmt.addBatch();
+
+                if (ArrayUtils.isNotEmpty(accessTokenDO.getScope())) {
+                    String sqlAddScopes = OAuth2Util.getTokenPartitionedSqlByUserStore(
+                            SQLQueries.INSERT_OAUTH2_TOKEN_SCOPE, userDomain);
+                    PreparedStatement addScopePrepStmt = scopeStatements.get(sqlAddScopes);
+                    if (addScopePrepStmt == null) {
+                        addScopePrepStmt = connection.prepareStatement(sqlAddScopes);
+                        scopeStatements.put(sqlAddScopes, addScopePrepStmt);
+                    }
+                    for (String scope : accessTokenDO.getScope()) {
+                        addScopePrepStmt.setString(1, accessTokenDO.getTokenId());
+                        addScopePrepStmt.setString(2, scope);
+                        addScopePrepStmt.setInt(3, tenantId);
+                        addScopePrepStmt.addBatch();
+                    }
+                }
+
+                if (tokenBindingAvailable) {
+                    if (bindingStatement == null) {
+                        bindingStatement = connection.prepareStatement(STORE_TOKEN_BINDING);
+                    }
+                    bindingStatement.setString(1, accessTokenDO.getTokenId());
+                    bindingStatement.setString(2, accessTokenDO.getTokenBinding().getBindingType());
+                    bindingStatement.setString(3, accessTokenDO.getTokenBinding().getBindingReference());
+                    bindingStatement.setString(4, accessTokenDO.getTokenBinding().getBindingValue());
+                    bindingStatement.setInt(5, tenantId);
+                    bindingStatement.addBatch();
+                }
+            }
+
+            // Token rows should be written before the scope and binding rows which refer to them.
+            for (PreparedStatement insertTokenPrepStmt : tokenStatements.values()) {
+                insertTokenPrepStmt.executeBatch();
+            }
+            for (PreparedStatement addScopePrepStmt : scopeStatements.values()) {
+                addScopePrepStmt.executeBatch();
+            }
+            if (bindingStatement != null) {
+                bindingStatement.executeBatch();
+            }
+            if (isTokenCleanupFeatureEnabled) {
+                for (AccessContextTokenDO accessContextTokenDO : accessContextTokenDOs) {
+                    if (accessContextTokenDO.getExistingAccessTokenDO() != null) {
+                        oldTokenCleanupObject.cleanupTokenByTokenId(
+                                accessContextTokenDO.getExistingAccessTokenDO().getTokenId(), connection);
+                    }
+                }
+            }
+            IdentityDatabaseUtil.commitTransaction(connection);
+            for (AccessContextTokenDO accessContextTokenDO : accessContextTokenDOs) {
+                AccessTokenNegativeCache.getInstance().clear(accessContextTokenDO.getAccessToken());
+            }
+        } catch (IdentityOAuth2Exception e) {
+            IdentityDatabaseUtil.rollbackTransaction(connection);
+            throw e;
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.rollbackTransaction(connection);
+            throw new IdentityOAuth2Exception("Error occurred while persisting a batch of " +
+                    accessContextTokenDOs.size() + " access tokens", e);
+        } finally {
+            for (PreparedStatement insertTokenPrepStmt : tokenStatements.values()) {
+                IdentityDatabaseUtil.closeStatement(insertTokenPrepStmt);
+            }
+            for (PreparedStatement addScopePrepStmt : scopeStatements.values()) {
+                IdentityDatabaseUtil.closeStatement(addScopePrepStmt);
+            }
+            IdentityDatabaseUtil.closeStatement(bindingStatement);
+            IdentityDatabaseUtil.closeConnection(connection);
+        }
+    }
+
+    private String getAccessTokenHash(String accessToken, String consumerKey) throws IdentityOAuth2Exception {
+
+        String accessTokenHash = accessToken;
+        try {
+            OauthTokenIssuer oauthTokenIssuer = OAuth2Util.getOAuthTokenIssuerForOAuthApp(consumerKey);
+            //check for persist alias for the token type
+            if (oauthTokenIssuer.usePersistedAccessTokenAlias()) {
+                accessTokenHash = oauthTokenIssuer.getAccessTokenHash(accessToken);
+            }
+        } catch (OAuthSystemException e) {
+            if (log.isDebugEnabled() && IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.ACCESS_TOKEN)) {
+                log.debug("Error while getting access token hash for token(hashed): " + DigestUtils
+                        .sha256Hex(accessTokenHash));
+            }
+            throw new IdentityOAuth2Exception("Error while getting access token hash.", e);
+        } catch (InvalidOAuthClientException e) {
+            throw new IdentityOAuth2Exception(
+                    "Error while retrieving oauth issuer for the app with clientId: " + consumerKey, e);
+        }
+        return accessTokenHash;
+    }
+
+    private String getInsertAccessTokenSql() {
+
+        if (OAuth2ServiceComponentHolder.isIDPIdColumnEnabled()) {
+            if (OAuth2ServiceComponentHolder.isConsentedTokenColumnEnabled()) {
+                return SQLQueries.INSERT_OAUTH2_ACCESS_TOKEN_WITH_IDP_NAME_WITH_CONSENTED_TOKEN;
+            }
+            return SQLQueries.INSERT_OAUTH2_ACCESS_TOKEN_WITH_IDP_NAME;
+        }
+        if (OAuth2ServiceComponentHolder.isConsentedTokenColumnEnabled()) {
+            return SQLQueries.INSERT_OAUTH2_ACCESS_TOKEN_WITH_CONSENTED_TOKEN;
+        }
+        return SQLQueries.INSERT_OAUTH2_ACCESS_TOKEN;
+    }
+
+    /**
+     * Set the parameters of the statement returned by {@link #getInsertAccessTokenSql()}.
+     *
+     * @return Whether a token binding is available for the token.
+     */
+    private boolean setInsertAccessTokenParameters(PreparedStatement insertTokenPrepStmt, String accessTokenHash,
+                                                   String consumerKey, AccessTokenDO accessTokenDO,
+                                                   String userDomain, String authenticatedIDP, int tenantId)
+            throws SQLException, IdentityOAuth2Exception {
+
+        insertTokenPrepStmt.setString(1, getPersistenceProcessor().getProcessedAccessTokenIdentifier(
+                accessTokenHash));
+
+        if (accessTokenDO.getRefreshToken() != null) {
+            insertTokenPrepStmt.setString(2,
+                    getPersistenceProcessor().getProcessedRefreshToken(accessTokenDO.getRefreshToken()));
+        } else {
+            insertTokenPrepStmt.setString(2, accessTokenDO.getRefreshToken());
+        }
+
+        insertTokenPrepStmt.setString(3, accessTokenDO.getAuthzUser().getUserName());
+        insertTokenPrepStmt.setInt(4, tenantId);
+        insertTokenPrepStmt.setString(5, OAuth2Util.getSanitizedUserStoreDomain(userDomain));
+        insertTokenPrepStmt
+                .setTimestamp(6, accessTokenDO.getIssuedTime(), Calendar.getInstance(TimeZone.getTimeZone(UTC)));
+        insertTokenPrepStmt.setTimestamp(7, accessTokenDO.getRefreshTokenIssuedTime(), Calendar.getInstance(TimeZone
+                .getTimeZone(UTC)));
+        insertTokenPrepStmt.setLong(8, accessTokenDO.getValidityPeriodInMillis());
+        insertTokenPrepStmt.setLong(9, accessTokenDO.getRefreshTokenValidityPeriodInMillis());
+        insertTokenPrepStmt.setString(10, OAuth2Util.hashScopes(accessTokenDO.getScope()));
+        insertTokenPrepStmt.setString(11, accessTokenDO.getTokenState());
+        insertTokenPrepStmt.setString(12, accessTokenDO.getTokenType());
+        insertTokenPrepStmt.setString(13, accessTokenDO.getTokenId());
+        insertTokenPrepStmt.setString(14, accessTokenDO.getGrantType());
+        insertTokenPrepStmt.setString(15, accessTokenDO.getAuthzUser().getAuthenticatedSubjectIdentifier());
+        insertTokenPrepStmt
+                .setString(16, getHashingPersistenceProcessor().getProcessedAccessTokenIdentifier(accessTokenHash));
+        if (accessTokenDO.getRefreshToken() != null) {
+            insertTokenPrepStmt.setString(17,
+                    getHashingPersistenceProcessor().getProcessedRefreshToken(accessTokenDO.getRefreshToken()));
+        } else {
+            insertTokenPrepStmt.setString(17, accessTokenDO.getRefreshToken());
+        }
+        boolean tokenBindingAvailable = isTokenBindingAvailable(accessTokenDO.getTokenBinding());
+        if (tokenBindingAvailable) {
+            insertTokenPrepStmt.setString(18, accessTokenDO.getTokenBinding().getBindingReference());
+        } else {
+            insertTokenPrepStmt.setString(18, NONE);
+        }
+        if (OAuth2ServiceComponentHolder.isIDPIdColumnEnabled()) {
+            if (OAuth2ServiceComponentHolder.isConsentedTokenColumnEnabled()) {
+                insertTokenPrepStmt.setString(19, Boolean.toString(accessTokenDO.isConsentedToken()));
+                insertTokenPrepStmt.setString(20, authenticatedIDP);
+                insertTokenPrepStmt.setInt(21, tenantId);
+                insertTokenPrepStmt.setString(22, getPersistenceProcessor().getProcessedClientId(consumerKey));
+            } else {
+                insertTokenPrepStmt.setString(19, authenticatedIDP);
+                insertTokenPrepStmt.setInt(20, tenantId);
+                insertTokenPrepStmt.setString(21, getPersistenceProcessor().getProcessedClientId(consumerKey));
+            }
+        } else {
+            if (OAuth2ServiceComponentHolder.isConsentedTokenColumnEnabled()) {
+                insertTokenPrepStmt.setString(19, Boolean.toString(accessTokenDO.isConsentedToken()));
+                insertTokenPrepStmt.setString(20, getPersistenceProcessor().getProcessedClientId(consumerKey));
+            } else {
+                insertTokenPrepStmt.setString(19, getPersistenceProcessor().getProcessedClientId(consumerKey));
+            }
+        }
+        return tokenBindingAvailable;
+    }
+
     @Override
     public AccessTokenDO getLatestAccessToken(String consumerKey, AuthenticatedUser authzUser, String userStoreDomain,
                                               String scope, boolean includeExpiredTokens)
@@ -951,6 +1110,112 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
         return new HashSet<>(accessTokenDOMap.values());
     }
 
+    @Override
+    public List<AccessTokenDO> getAccessTokens(String consumerKey, AuthenticatedUser authzUser,
+                                               String userStoreDomain, String lastTokenId, int limit)
+            throws IdentityOAuth2Exception {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Retrieving a page of " + limit + " access tokens for client: " + consumerKey + " user: " +
+                    authzUser.toString() + " after token id: " + lastTokenId);
+        }
+
+        String tenantDomain = authzUser.getTenantDomain();
+        String tenantAwareUsernameWithNoUserDomain = authzUser.getUserName();
+        String userDomain = OAuth2Util.getUserStoreDomain(authzUser);
+        int tenantId = OAuth2Util.getTenantId(tenantDomain);
+        boolean isUsernameCaseSensitive = IdentityUtil.isUserStoreCaseSensitive(authzUser.getUserStoreDomain(),
+                tenantId);
+        userStoreDomain = OAuth2Util.getSanitizedUserStoreDomain(userStoreDomain);
+        String authenticatedIDP = OAuth2Util.getAuthenticatedIDP(authzUser);
+        boolean isIdpColumnEnabled = OAuth2ServiceComponentHolder.isIDPIdColumnEnabled();
+
+        String sql = isIdpColumnEnabled ?
+                SQLQueries.RETRIEVE_ACTIVE_EXPIRED_ACCESS_TOKEN_PAGE_BY_CLIENT_ID_USER_IDP_NAME :
+                SQLQueries.RETRIEVE_ACTIVE_EXPIRED_ACCESS_TOKEN_PAGE_BY_CLIENT_ID_USER;
+        sql = OAuth2Util.getTokenPartitionedSqlByUserStore(sql, userStoreDomain);
+        if (!isUsernameCaseSensitive) {
+            sql = sql.replace(AUTHZ_USER, LOWER_AUTHZ_USER);
+        }
+        if (lastTokenId == null) {
+            sql = sql.replace(SQLQueries.TOKEN_ID_AFTER_CONDITION, "");
+        }
+        String scopeSql = OAuth2Util.getTokenPartitionedSqlByUserStore(SQLQueries.LIST_SCOPES_OF_TOKENS,
+                userStoreDomain);
+
+        List<AccessTokenDO> accessTokenDOs = new ArrayList<>();
+        List<AccessTokenDO> boundAccessTokenDOs = new ArrayList<>();
+        Calendar utcCalendar = Calendar.getInstance(UTC_TIME_ZONE);
+        try (Connection connection = IdentityDatabaseUtil.getDBConnection(false)) {
+            try (PreparedStatement prepStmt = connection.prepareStatement(sql)) {
+                prepStmt.setMaxRows(limit);
+                int parameterIndex = 1;
+                prepStmt.setString(parameterIndex++, getPersistenceProcessor().getProcessedClientId(consumerKey));
+                prepStmt.setString(parameterIndex++, isUsernameCaseSensitive ? tenantAwareUsernameWithNoUserDomain :
+                        tenantAwareUsernameWithNoUserDomain.toLowerCase());
+                prepStmt.setInt(parameterIndex++, tenantId);
+                prepStmt.setString(parameterIndex++, userDomain);
+                if (isIdpColumnEnabled) {
+                    prepStmt.setString(parameterIndex++, authenticatedIDP);
+                }
+                if (lastTokenId != null) {
+                    prepStmt.setString(parameterIndex, lastTokenId);
+                }
+                try (ResultSet resultSet = prepStmt.executeQuery()) {
+                    ServiceProvider serviceProvider = null;
+                    while (accessTokenDOs.size() < limit && resultSet.next()) {
+                        if (serviceProvider == null) {
+                            serviceProvider = getServiceProvider(consumerKey, tenantDomain);
+                        }
+                        AuthenticatedUser user = OAuth2Util.createAuthenticatedUser(
+                                tenantAwareUsernameWithNoUserDomain, userDomain, tenantDomain, authenticatedIDP);
+                        user.setAuthenticatedSubjectIdentifier(resultSet.getString(9), serviceProvider);
+                        AccessTokenDO dataDO = new AccessTokenDO(consumerKey, user, new String[0],
+                                resultSet.getTimestamp(3, utcCalendar), resultSet.getTimestamp(4, utcCalendar),
+                                resultSet.getLong(5), resultSet.getLong(6), resultSet.getString(7));
+                        dataDO.setAccessToken(getPersistenceProcessor()
+                                .getPreprocessedAccessTokenIdentifier(resultSet.getString(1)));
+                        dataDO.setRefreshToken(getPersistenceProcessor()
+                                .getPreprocessedRefreshToken(resultSet.getString(2)));
+                        dataDO.setTokenId(resultSet.getString(8));
+                        String tokenBindingReference = resultSet.getString(10);
+                        if (StringUtils.isNotBlank(tokenBindingReference) && !NONE.equals(tokenBindingReference)) {
+                            boundAccessTokenDOs.add(dataDO);
+                        }
+                        accessTokenDOs.add(dataDO);
+                    }
+                }
+            }
+            Map<String, List<String>> scopesOfTokens = readScopesOfTokens(connection, scopeSql,
+                    accessTokenDOs.stream().map(AccessTokenDO::getTokenId).collect(Collectors.toList()));
+            for (AccessTokenDO accessTokenDO : accessTokenDOs) {
+                List<String> scopes = scopesOfTokens.get(accessTokenDO.getTokenId());
+                if (scopes != null) {
+                    accessTokenDO.setScope(scopes.toArray(new String[0]));
+                }
+            }
+            for (AccessTokenDO accessTokenDO : boundAccessTokenDOs) {
+                setTokenBindingToAccessTokenDO(accessTokenDO, connection, accessTokenDO.getTokenId());
+            }
+        } catch (SQLException e) {
+            throw new IdentityOAuth2Exception("Error occurred while retrieving 'ACTIVE or EXPIRED' access tokens for " +
+                    "Client ID : " + consumerKey + " and User ID : " + authzUser, e);
+        }
+        return accessTokenDOs;
+    }
+
+    private ServiceProvider getServiceProvider(String consumerKey, String tenantDomain)
+            throws IdentityOAuth2Exception {
+
+        try {
+            return OAuth2ServiceComponentHolder.getApplicationMgtService().getServiceProviderByClientId(consumerKey,
+                    OAuthConstants.Scope.OAUTH2, tenantDomain);
+        } catch (IdentityApplicationManagementException e) {
+            throw new IdentityOAuth2Exception("Error occurred while retrieving OAuth2 application data for client id " +
+                    consumerKey, e);
+        }
+    }
+
     @Override
     public AccessTokenDO getAccessToken(String accessTokenIdentifier, boolean includeExpired)
             throws IdentityOAuth2Exception {
@@ -971,148 +1236,363 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
         }
 
         try {
-            String sql;
+            AccessTokenQuery query = getAccessTokenQuery(includeExpired,
+                    OAuth2ServiceComponentHolder.isIDPIdColumnEnabled(),
+                    OAuth2ServiceComponentHolder.isConsentedTokenColumnEnabled(),
+                    isCrossTenantTokenIntrospectionAllowed);
+            String sql = OAuth2Util.getTokenPartitionedSqlByToken(query.getSql(), accessTokenIdentifier);
 
-            boolean isConsentedColumnDataFetched = false;
-            if (includeExpired) {
-                if (OAuth2ServiceComponentHolder.isIDPIdColumnEnabled()) {
-                    if (!isCrossTenantTokenIntrospectionAllowed) {
-                        sql = SQLQueries.RETRIEVE_ACTIVE_EXPIRED_TENANT_ACCESS_TOKEN_IDP_NAME;
-                    } else {
-                        sql = SQLQueries.RETRIEVE_ACTIVE_EXPIRED_ACCESS_TOKEN_IDP_NAME;
+            prepStmt = connection.prepareStatement(sql);
+
+            prepStmt.setString(1,
+                    getHashingPersistenceProcessor().getProcessedAccessTokenIdentifier(accessTokenIdentifier));
+            if (!isCrossTenantTokenIntrospectionAllowed) {
+                prepStmt.setInt(2, IdentityTenantUtil.getTenantId(tenantDomain));
+            }
+            resultSet = prepStmt.executeQuery();
+
+            AccessTokenRecord record = readAccessTokenRecord(resultSet, query);
+            if (record != null) {
+                dataDO = buildAccessTokenDO(record, accessTokenIdentifier, connection);
+            }
+        } catch (SQLException e) {
+            throw new IdentityOAuth2Exception("Error when retrieving Access Token" + e);
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(connection, resultSet, prepStmt);
+        }
+
+        return dataDO;
+    }
+
+    @Override
+    public Map<String, AccessTokenDO> getAccessTokens(Collection<String> accessTokenIdentifiers)
+            throws IdentityOAuth2Exception {
+
+        if (!OAuth2ServiceComponentHolder.isIDPIdColumnEnabled() || OAuth2Util.checkAccessTokenPartitioningEnabled()) {
+            // The bulk queries join the IDP table and can not span token partitions.
+            return AccessTokenDAO.super.getAccessTokens(accessTokenIdentifiers);
+        }
+
+        String tenantDomain = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain();
+        if (StringUtils.isEmpty(tenantDomain)) {
+            throw new IdentityOAuth2Exception("Tenant Domain should be needed for further execution");
+        }
+        int requestTenantId = IdentityTenantUtil.getTenantId(tenantDomain);
+
+        Map<String, List<String>> identifiersByHash = new HashMap<>();
+        for (String accessTokenIdentifier : accessTokenIdentifiers) {
+            String hash = getHashingPersistenceProcessor().getProcessedAccessTokenIdentifier(accessTokenIdentifier);
+            identifiersByHash.computeIfAbsent(hash, key -> new ArrayList<>(1)).add(accessTokenIdentifier);
+        }
+
+        boolean isConsentedColumnDataFetched = OAuth2ServiceComponentHolder.isConsentedTokenColumnEnabled();
+        String sqlTemplate = isConsentedColumnDataFetched ?
+                SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKENS_IDP_NAME_WITH_CONSENTED_TOKEN :
+                SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKENS_IDP_NAME;
+        List<String> hashes = new ArrayList<>(identifiersByHash.keySet());
+        Map<String, AccessTokenDO> accessTokenDOs = new HashMap<>();
+        try (Connection connection = IdentityDatabaseUtil.getDBConnection(false)) {
+            for (int from = 0; from < hashes.size(); from += MAX_ACCESS_TOKENS_PER_QUERY) {
+                List<String> chunk = hashes.subList(from, Math.min(from + MAX_ACCESS_TOKENS_PER_QUERY,
+                        hashes.size()));
+                String sql = sqlTemplate.replace(SQLQueries.ACCESS_TOKEN_HASH_LIST_PLACEHOLDER,
+                        String.join(", ", Collections.nCopies(chunk.size(), "?")));
+                Map<String, AccessTokenRecord> records;
+                try (PreparedStatement prepStmt = connection.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        prepStmt.setString(i + 1, chunk.get(i));
                     }
-                } else {
-                    if (!isCrossTenantTokenIntrospectionAllowed) {
-                        sql = SQLQueries.RETRIEVE_ACTIVE_EXPIRED_TENANT_ACCESS_TOKEN;
-                    } else {
-                        sql = SQLQueries.RETRIEVE_ACTIVE_EXPIRED_ACCESS_TOKEN;
+                    try (ResultSet resultSet = prepStmt.executeQuery()) {
+                        records = readAccessTokenRecords(resultSet, isConsentedColumnDataFetched);
                     }
                 }
-            } else {
-                if (OAuth2ServiceComponentHolder.isIDPIdColumnEnabled()) {
-                    if (!isCrossTenantTokenIntrospectionAllowed) {
-                        if (OAuth2ServiceComponentHolder.isConsentedTokenColumnEnabled()) {
-                            sql = SQLQueries.RETRIEVE_ACTIVE_TENANT_ACCESS_TOKEN_IDP_NAME_WITH_CONSENTED_TOKEN;
-                            isConsentedColumnDataFetched = true;
-                        } else {
-                            sql = SQLQueries.RETRIEVE_ACTIVE_TENANT_ACCESS_TOKEN_IDP_NAME;
-                        }
-                    } else {
-                        if (OAuth2ServiceComponentHolder.isConsentedTokenColumnEnabled()) {
-                            sql = SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKEN_IDP_NAME_WITH_CONSENTED_TOKEN;
-                            isConsentedColumnDataFetched = true;
-                        } else {
-                            sql = SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKEN_IDP_NAME;
-                        }
+                for (Map.Entry<String, AccessTokenRecord> entry : records.entrySet()) {
+                    AccessTokenRecord record = entry.getValue();
+                    if (!isCrossTenantTokenIntrospectionAllowed && record.tenantId != requestTenantId) {
+                        continue;
                     }
-                } else {
-                    if (!isCrossTenantTokenIntrospectionAllowed) {
-                        if (OAuth2ServiceComponentHolder.isConsentedTokenColumnEnabled()) {
-                            sql = SQLQueries.RETRIEVE_ACTIVE_TENANT_ACCESS_TOKEN_WITH_CONSENTED_TOKEN;
-                            isConsentedColumnDataFetched = true;
-                        } else {
-                            sql = SQLQueries.RETRIEVE_ACTIVE_TENANT_ACCESS_TOKEN;
-                        }
-                    } else {
-                        if (OAuth2ServiceComponentHolder.isConsentedTokenColumnEnabled()) {
-                            sql = SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKEN_WITH_CONSENTED_TOKEN;
-                            isConsentedColumnDataFetched = true;
-                        } else {
-                            sql = SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKEN;
-                        }
+                    for (String accessTokenIdentifier : identifiersByHash.get(entry.getKey())) {
+                        accessTokenDOs.put(accessTokenIdentifier,
+                                buildAccessTokenDO(record, accessTokenIdentifier, connection));
                     }
                 }
             }
+        } catch (SQLException e) {
+            throw new IdentityOAuth2Exception("Error when retrieving access tokens", e);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Retrieved " + accessTokenDOs.size() + " active access tokens out of " +
+                    accessTokenIdentifiers.size() + " requested.");
+        }
+        return accessTokenDOs;
+    }
 
-            sql = OAuth2Util.getTokenPartitionedSqlByToken(sql, accessTokenIdentifier);
+    private AccessTokenDO buildAccessTokenDO(AccessTokenRecord record, String accessTokenIdentifier,
+                                             Connection connection) throws IdentityOAuth2Exception, SQLException {
 
-            prepStmt = connection.prepareStatement(sql);
+        String consumerKey = getPersistenceProcessor().getPreprocessedClientId(record.consumerKey);
+        String tenantDomain = OAuth2Util.getTenantDomain(record.tenantId);
 
-            prepStmt.setString(1,
-                    getHashingPersistenceProcessor().getProcessedAccessTokenIdentifier(accessTokenIdentifier));
-            if (!isCrossTenantTokenIntrospectionAllowed) {
-                prepStmt.setInt(2, IdentityTenantUtil.getTenantId(tenantDomain));
-            }
-            resultSet = prepStmt.executeQuery();
+        AuthenticatedUser user = OAuth2Util.createAuthenticatedUser(record.authorizedUser,
+                record.userDomain, tenantDomain, record.authenticatedIDP);
+        ServiceProvider serviceProvider;
+        try {
+            serviceProvider = OAuth2ServiceComponentHolder.getApplicationMgtService().
+                    getServiceProviderByClientId(consumerKey, OAuthConstants.Scope.OAUTH2, tenantDomain);
+        } catch (IdentityApplicationManagementException e) {
+            throw new IdentityOAuth2Exception("Error occurred while retrieving OAuth2 application data " +
+                    "for client id " + consumerKey, e);
+        }
 
-            int iterateId = 0;
-            List<String> scopes = new ArrayList<>();
-            while (resultSet.next()) {
+        user.setAuthenticatedSubjectIdentifier(record.subjectIdentifier, serviceProvider);
 
-                if (iterateId == 0) {
-
-                    String consumerKey = getPersistenceProcessor().getPreprocessedClientId(resultSet.getString(1));
-                    String authorizedUser = resultSet.getString(2);
-                    int tenantId = resultSet.getInt(3);
-                    tenantDomain = OAuth2Util.getTenantDomain(tenantId);
-                    String userDomain = resultSet.getString(4);
-                    String[] scope = OAuth2Util.buildScopeArray(resultSet.getString(5));
-                    Timestamp issuedTime = resultSet.getTimestamp(6, Calendar.getInstance(TimeZone.getTimeZone(UTC)));
-                    Timestamp refreshTokenIssuedTime = resultSet.getTimestamp(7,
-                            Calendar.getInstance(TimeZone.getTimeZone(UTC)));
-                    long validityPeriodInMillis = resultSet.getLong(8);
-                    long refreshTokenValidityPeriodMillis = resultSet.getLong(9);
-                    String tokenType = resultSet.getString(10);
-                    String refreshToken = resultSet.getString(11);
-                    String tokenId = resultSet.getString(12);
-                    String grantType = resultSet.getString(13);
-                    String subjectIdentifier = resultSet.getString(14);
-                    String authenticatedIDP = null;
-                    String tokenBindingReference = resultSet.getString(15);
-                    if (OAuth2ServiceComponentHolder.isIDPIdColumnEnabled()) {
-                        authenticatedIDP = resultSet.getString(16);
-                    }
+        AccessTokenDO dataDO = new AccessTokenDO(consumerKey, user, record.scopes, record.issuedTime,
+                record.refreshTokenIssuedTime, record.validityPeriodInMillis,
+                record.refreshTokenValidityPeriodMillis, record.tokenType);
+        dataDO.setAccessToken(accessTokenIdentifier);
+        dataDO.setRefreshToken(record.refreshToken);
+        dataDO.setTokenId(record.tokenId);
+        dataDO.setGrantType(record.grantType);
+        dataDO.setTenantID(record.tenantId);
+        dataDO.setIsConsentedToken(record.isConsentedToken);
 
-                    boolean isConsentedToken = false;
-                    if (isConsentedColumnDataFetched) {
-                        int consentedTokenColumnIndex = resultSet.findColumn(CONSENTED_TOKEN_COLUMN_NAME);
-                        isConsentedToken = resultSet.getBoolean(consentedTokenColumnIndex);
-                    }
+        if (StringUtils.isNotBlank(record.tokenBindingReference) && !NONE.equals(record.tokenBindingReference)) {
+            setTokenBindingToAccessTokenDO(dataDO, connection, record.tokenId);
+        }
+        return dataDO;
+    }
 
-                    AuthenticatedUser user = OAuth2Util.createAuthenticatedUser(authorizedUser,
-                            userDomain, tenantDomain, authenticatedIDP);
-                    ServiceProvider serviceProvider;
-                    try {
-                        serviceProvider = OAuth2ServiceComponentHolder.getApplicationMgtService().
-                                getServiceProviderByClientId(consumerKey, OAuthConstants.Scope.OAUTH2, tenantDomain);
-                    } catch (IdentityApplicationManagementException e) {
-                        throw new IdentityOAuth2Exception("Error occurred while retrieving OAuth2 application data " +
-                                "for client id " + consumerKey, e);
-                    }
+    /**
+     * Get the query used to retrieve an access token by its identifier.
+     *
+     * @param includeExpired                       Whether expired tokens should be retrieved.
+     * @param idpIdColumnEnabled                   Whether the IDP_ID column is available.
+     * @param consentedTokenColumnEnabled          Whether the CONSENTED_TOKEN column is available.
+     * @param crossTenantTokenIntrospectionAllowed Whether tokens of other tenants can be retrieved.
+     * @return Access token query.
+     */
+    static AccessTokenQuery getAccessTokenQuery(boolean includeExpired, boolean idpIdColumnEnabled,
+                                                boolean consentedTokenColumnEnabled,
+                                                boolean crossTenantTokenIntrospectionAllowed) {
 
-                    user.setAuthenticatedSubjectIdentifier(subjectIdentifier, serviceProvider);
+        return ACCESS_TOKEN_QUERIES[getAccessTokenQueryIndex(includeExpired, idpIdColumnEnabled,
+                consentedTokenColumnEnabled, crossTenantTokenIntrospectionAllowed)];
+    }
 
-                    dataDO = new AccessTokenDO(consumerKey, user, scope, issuedTime, refreshTokenIssuedTime,
-                            validityPeriodInMillis, refreshTokenValidityPeriodMillis, tokenType);
-                    dataDO.setAccessToken(accessTokenIdentifier);
-                    dataDO.setRefreshToken(refreshToken);
-                    dataDO.setTokenId(tokenId);
-                    dataDO.setGrantType(grantType);
-                    dataDO.setTenantID(tenantId);
-                    dataDO.setIsConsentedToken(isConsentedToken);
+    private static int getAccessTokenQueryIndex(boolean includeExpired, boolean idpIdColumnEnabled,
+                                                boolean consentedTokenColumnEnabled,
+                                                boolean crossTenantTokenIntrospectionAllowed) {
 
-                    if (StringUtils.isNotBlank(tokenBindingReference) && !NONE.equals(tokenBindingReference)) {
-                        setTokenBindingToAccessTokenDO(dataDO, connection, tokenId);
+        return (includeExpired ? 8 : 0) | (idpIdColumnEnabled ? 4 : 0) | (consentedTokenColumnEnabled ? 2 : 0) |
+                (crossTenantTokenIntrospectionAllowed ? 1 : 0);
+    }
+
+    private static AccessTokenQuery[] buildAccessTokenQueries() {
+
+        AccessTokenQuery[] queries = new AccessTokenQuery[16];
+        for (boolean includeExpired : new boolean[]{false, true}) {
+            for (boolean idpIdColumnEnabled : new boolean[]{false, true}) {
+                for (boolean consentedTokenColumnEnabled : new boolean[]{false, true}) {
+                    for (boolean crossTenant : new boolean[]{false, true}) {
+                        queries[getAccessTokenQueryIndex(includeExpired, idpIdColumnEnabled,
+                                consentedTokenColumnEnabled, crossTenant)] = buildAccessTokenQuery(includeExpired,
+                                idpIdColumnEnabled, consentedTokenColumnEnabled, crossTenant);
                     }
-                } else {
-                    scopes.add(resultSet.getString(5));
                 }
+            }
+        }
+        return queries;
+    }
+
+    private static AccessTokenQuery buildAccessTokenQuery(boolean includeExpired, boolean idpIdColumnEnabled,
+                                                          boolean consentedTokenColumnEnabled,
+                                                          boolean crossTenantTokenIntrospectionAllowed) {
 
-                iterateId++;
+        String sql;
+        if (includeExpired) {
+            if (idpIdColumnEnabled) {
+                sql = crossTenantTokenIntrospectionAllowed ? SQLQueries.RETRIEVE_ACTIVE_EXPIRED_ACCESS_TOKEN_IDP_NAME :
+                        SQLQueries.RETRIEVE_ACTIVE_EXPIRED_TENANT_ACCESS_TOKEN_IDP_NAME;
+            } else {
+                sql = crossTenantTokenIntrospectionAllowed ? SQLQueries.RETRIEVE_ACTIVE_EXPIRED_ACCESS_TOKEN :
+                        SQLQueries.RETRIEVE_ACTIVE_EXPIRED_TENANT_ACCESS_TOKEN;
+            }
+            return new AccessTokenQuery(sql, idpIdColumnEnabled, false);
+        }
+        if (idpIdColumnEnabled) {
+            if (consentedTokenColumnEnabled) {
+                sql = crossTenantTokenIntrospectionAllowed ?
+                        SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKEN_IDP_NAME_WITH_CONSENTED_TOKEN :
+                        SQLQueries.RETRIEVE_ACTIVE_TENANT_ACCESS_TOKEN_IDP_NAME_WITH_CONSENTED_TOKEN;
+            } else {
+                sql = crossTenantTokenIntrospectionAllowed ? SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKEN_IDP_NAME :
+                        SQLQueries.RETRIEVE_ACTIVE_TENANT_ACCESS_TOKEN_IDP_NAME;
+            }
+        } else {
+            if (consentedTokenColumnEnabled) {
+                sql = crossTenantTokenIntrospectionAllowed ?
+                        SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKEN_WITH_CONSENTED_TOKEN :
+                        SQLQueries.RETRIEVE_ACTIVE_TENANT_ACCESS_TOKEN_WITH_CONSENTED_TOKEN;
+            } else {
+                sql = crossTenantTokenIntrospectionAllowed ? SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKEN :
+                        SQLQueries.RETRIEVE_ACTIVE_TENANT_ACCESS_TOKEN;
             }
+        }
+        return new AccessTokenQuery(sql, idpIdColumnEnabled, consentedTokenColumnEnabled);
+    }
+
+    /**
+     * Read the access token columns from the result of an access token query. The result has a row per scope of the
+     * token, so the token columns are read from the first row and only the scope is read from the others.
+     *
+     * @param resultSet Result of the access token query.
+     * @param query     Query which produced the result.
+     * @return Access token record, or null if the result is empty.
+     * @throws SQLException If an error occurred while reading the result.
+     */
+    static AccessTokenRecord readAccessTokenRecord(ResultSet resultSet, AccessTokenQuery query) throws SQLException {
 
-            if (scopes.size() > 0 && dataDO != null) {
-                dataDO.setScope((String[]) ArrayUtils.addAll(dataDO.getScope(),
-                        scopes.toArray(new String[scopes.size()])));
+        if (!resultSet.next()) {
+            return null;
+        }
+
+        // The driver may modify the calendar, so it is shared only within this result set.
+        Calendar utcCalendar = Calendar.getInstance(UTC_TIME_ZONE);
+        AccessTokenRecord record = readAccessTokenColumns(resultSet, query.isIdpColumnFetched(),
+                query.isConsentedColumnFetched(), utcCalendar);
+        if (!resultSet.next()) {
+            return record;
+        }
+        List<String> scopes = new ArrayList<>(Arrays.asList(record.scopes));
+        do {
+            scopes.add(resultSet.getString(5));
+        } while (resultSet.next());
+        record.scopes = scopes.toArray(new String[0]);
+        return record;
+    }
+
+    /**
+     * Read the access tokens from the result of a bulk access token query, which has a row per scope of each token
+     * and the token hash in the ACCESS_TOKEN_HASH column.
+     *
+     * @param resultSet                    Result of the bulk access token query.
+     * @param isConsentedColumnDataFetched Whether the result has the CONSENTED_TOKEN column.
+     * @return Map of access token hash to the access token record.
+     * @throws SQLException If an error occurred while reading the result.
+     */
+    static Map<String, AccessTokenRecord> readAccessTokenRecords(ResultSet resultSet,
+                                                                 boolean isConsentedColumnDataFetched)
+            throws SQLException {
+
+        Map<String, AccessTokenRecord> records = new HashMap<>();
+        Map<String, List<String>> additionalScopes = new HashMap<>();
+        Calendar utcCalendar = Calendar.getInstance(UTC_TIME_ZONE);
+        int hashColumnIndex = -1;
+        while (resultSet.next()) {
+            if (hashColumnIndex < 0) {
+                hashColumnIndex = resultSet.findColumn(ACCESS_TOKEN_HASH_COLUMN_NAME);
             }
+            String hash = resultSet.getString(hashColumnIndex);
+            if (records.containsKey(hash)) {
+                additionalScopes.computeIfAbsent(hash, key -> new ArrayList<>()).add(resultSet.getString(5));
+            } else {
+                records.put(hash, readAccessTokenColumns(resultSet, true, isConsentedColumnDataFetched,
+                        utcCalendar));
+            }
+        }
+        for (Map.Entry<String, List<String>> entry : additionalScopes.entrySet()) {
+            AccessTokenRecord record = records.get(entry.getKey());
+            List<String> scopes = new ArrayList<>(Arrays.asList(record.scopes));
+            scopes.addAll(entry.getValue());
+            record.scopes = scopes.toArray(new String[0]);
+        }
+        return records;
+    }
 
-        } catch (SQLException e) {
-            throw new IdentityOAuth2Exception("Error when retrieving Access Token" + e);
-        } finally {
-            IdentityDatabaseUtil.closeAllConnections(connection, resultSet, prepStmt);
+    private static AccessTokenRecord readAccessTokenColumns(ResultSet resultSet, boolean isIdpColumnFetched,
+                                                            boolean isConsentedColumnFetched, Calendar utcCalendar)
+            throws SQLException {
+
+        AccessTokenRecord record = new AccessTokenRecord();
+        record.consumerKey = resultSet.getString(1);
+        record.authorizedUser = resultSet.getString(2);
+        record.tenantId = resultSet.getInt(3);
+        record.userDomain = resultSet.getString(4);
+        record.scopes = OAuth2Util.buildScopeArray(resultSet.getString(5));
+        record.issuedTime = resultSet.getTimestamp(6, utcCalendar);
+        record.refreshTokenIssuedTime = resultSet.getTimestamp(7, utcCalendar);
+        record.validityPeriodInMillis = resultSet.getLong(8);
+        record.refreshTokenValidityPeriodMillis = resultSet.getLong(9);
+        record.tokenType = resultSet.getString(10);
+        record.refreshToken = resultSet.getString(11);
+        record.tokenId = resultSet.getString(12);
+        record.grantType = resultSet.getString(13);
+        record.subjectIdentifier = resultSet.getString(14);
+        record.tokenBindingReference = resultSet.getString(15);
+        if (isIdpColumnFetched) {
+            record.authenticatedIDP = resultSet.getString(16);
+        }
+        if (isConsentedColumnFetched) {
+            record.isConsentedToken = resultSet.getBoolean(resultSet.findColumn(CONSENTED_TOKEN_COLUMN_NAME));
+        }
+        return record;
+    }
+
+    /**
+     * Query used to retrieve an access token, along with the optional columns it fetches.
+     */
+    static final class AccessTokenQuery {
+
+        private final String sql;
+        private final boolean idpColumnFetched;
+        private final boolean consentedColumnFetched;
+
+        AccessTokenQuery(String sql, boolean idpColumnFetched, boolean consentedColumnFetched) {
+
+            this.sql = sql;
+            this.idpColumnFetched = idpColumnFetched;
+            this.consentedColumnFetched = consentedColumnFetched;
         }
 
-        return dataDO;
+        String getSql() {
+
+            return sql;
+        }
+
+        boolean isIdpColumnFetched() {
+
+            return idpColumnFetched;
+        }
+
+        boolean isConsentedColumnFetched() {
+
+            return consentedColumnFetched;
+        }
+    }
+
+    /**
+     * Access token columns read from the database, before the user and the application are resolved.
+     */
+    static final class AccessTokenRecord {
+
+        String accessToken;
+        String consumerKey;
+        String authorizedUser;
+        int tenantId;
+        String userDomain;
+        String[] scopes;
+        Timestamp issuedTime;
+        Timestamp refreshTokenIssuedTime;
+        long validityPeriodInMillis;
+        long refreshTokenValidityPeriodMillis;
+        String tokenType;
+        String refreshToken;
+        String tokenId;
+        String grantType;
+        String subjectIdentifier;
+        String tokenBindingReference;
+        String authenticatedIDP;
+        boolean isConsentedToken;
     }
 
     private void setTokenBindingToAccessTokenDO(AccessTokenDO dataDO, Connection connection, String tokenId)
@@ -1282,6 +1762,20 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
                                         String userStoreDomain, String grantType)
             throws IdentityOAuth2Exception, SQLException {
 
+        updateAccessTokenState(connection, tokenId, tokenState, tokenStateId, userStoreDomain, grantType, false);
+    }
+
+    /**
+     * Change the state of an access token.
+     *
+     * @param onlyIfActiveOrExpired Whether to change the state only if the token is active or expired.
+     * @return false if the state was to be changed only if the token is active or expired, and it was not.
+     */
+    private boolean updateAccessTokenState(Connection connection, String tokenId, String tokenState,
+                                           String tokenStateId, String userStoreDomain, String grantType,
+                                           boolean onlyIfActiveOrExpired)
+            throws IdentityOAuth2Exception, SQLException {
+
         PreparedStatement prepStmt = null;
         try {
             if (log.isDebugEnabled()) {
@@ -1289,20 +1783,30 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
                         " userStoreDomain: " + userStoreDomain);
             }
 
-            String sql = SQLQueries.UPDATE_TOKEN_STATE;
+            String sql = onlyIfActiveOrExpired ? SQLQueries.UPDATE_ACTIVE_OR_EXPIRED_TOKEN_STATE :
+                    SQLQueries.UPDATE_TOKEN_STATE;
             sql = OAuth2Util.getTokenPartitionedSqlByUserStore(sql, userStoreDomain);
             prepStmt = connection.prepareStatement(sql);
             prepStmt.setString(1, tokenState);
             prepStmt.setString(2, tokenStateId);
             prepStmt.setString(3, tokenId);
-            prepStmt.executeUpdate();
+            if (onlyIfActiveOrExpired) {
+                prepStmt.setString(4, OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+                prepStmt.setString(5, OAuthConstants.TokenStates.TOKEN_STATE_EXPIRED);
+            }
+            if (prepStmt.executeUpdate() == 0 && onlyIfActiveOrExpired) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Access token with id: " + tokenId + " is no longer active or expired.");
+                }
+                return false;
+            }
             if (StringUtils.equals(grantType, OAuthConstants.GrantTypes.CLIENT_CREDENTIALS) ||
                     StringUtils.equals(grantType, OAuthConstants.GrantTypes.PASSWORD)) {
                 OAuth2TokenUtil.postUpdateAccessToken(tokenId, tokenState, false);
             } else {
                 OAuth2TokenUtil.postUpdateAccessToken(tokenId, tokenState, true);
             }
-
+            return true;
         } catch (SQLException e) {
             IdentityDatabaseUtil.rollbackTransaction(connection);
             throw new IdentityOAuth2Exception("Error while updating Access Token with ID : " +
@@ -1972,6 +2476,25 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
                                                   AccessTokenDO accessTokenDO, String userStoreDomain, String grantType)
             throws IdentityOAuth2Exception {
 
+        invalidateAndCreateNewAccessToken(oldAccessTokenId, tokenState, consumerKey, tokenStateId, accessTokenDO,
+                userStoreDomain, grantType, false);
+    }
+
+    @Override
+    public boolean rotateAccessToken(String oldAccessTokenId, String tokenState, String consumerKey,
+                                     String tokenStateId, AccessTokenDO accessTokenDO, String userStoreDomain,
+                                     String grantType) throws IdentityOAuth2Exception {
+
+        return invalidateAndCreateNewAccessToken(oldAccessTokenId, tokenState, consumerKey, tokenStateId,
+                accessTokenDO, userStoreDomain, grantType, true);
+    }
+
+    private boolean invalidateAndCreateNewAccessToken(String oldAccessTokenId, String tokenState,
+                                                      String consumerKey, String tokenStateId,
+                                                      AccessTokenDO accessTokenDO, String userStoreDomain,
+                                                      String grantType, boolean onlyIfActiveOrExpired)
+            throws IdentityOAuth2Exception {
+
         if (log.isDebugEnabled()) {
             if (IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.ACCESS_TOKEN)) {
                 log.debug("Invalidating access token with id: " + oldAccessTokenId + " and creating new access token" +
@@ -1993,7 +2516,12 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
                 accessTokenDO.setIsConsentedToken(isPreviousTokenConsented);
             }
             // update existing token as inactive
-            updateAccessTokenState(connection, oldAccessTokenId, tokenState, tokenStateId, userStoreDomain, grantType);
+            if (!updateAccessTokenState(connection, oldAccessTokenId, tokenState, tokenStateId, userStoreDomain,
+                    grantType, onlyIfActiveOrExpired)) {
+                // The existing token was invalidated by a concurrent request, hence the new token is not stored.
+                IdentityDatabaseUtil.rollbackTransaction(connection);
+                return false;
+            }
 
             String newAccessToken = accessTokenDO.getAccessToken();
             // store new token in the DB
@@ -2008,6 +2536,7 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
             }
             IdentityDatabaseUtil.commitTransaction(connection);
             tokenUpdateSuccessful = true;
+            AccessTokenNegativeCache.getInstance().clear(accessTokenDO.getAccessToken());
         } catch (SQLException e) {
             IdentityDatabaseUtil.rollbackTransaction(connection);
             String errorMsg = "Error while regenerating access token";
@@ -2024,6 +2553,7 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
                 OAuth2TokenUtil.postRefreshAccessToken(oldAccessTokenId, accessTokenDO.getTokenId(), tokenState, true);
             }
         }
+        return tokenUpdateSuccessful;
     }
 
     /**
@@ -2127,6 +2657,180 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
         return new HashSet<>(accessTokenDOMap.values());
     }
 
+    @Override
+    public List<AccessTokenDO> getAccessTokensByTenant(int tenantId, String lastTokenId, int limit)
+            throws IdentityOAuth2Exception {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Retrieving a page of " + limit + " access tokens of tenant id: " + tenantId +
+                    " after token id: " + lastTokenId);
+        }
+        boolean isIdpColumnFetched = OAuth2ServiceComponentHolder.isIDPIdColumnEnabled();
+        String sql = isIdpColumnFetched ? SQLQueries.LIST_TOKENS_IN_TENANT_PAGE_IDP_NAME :
+                SQLQueries.LIST_TOKENS_IN_TENANT_PAGE;
+        List<String> userStoreDomains = new ArrayList<>();
+        userStoreDomains.add(IdentityUtil.getPrimaryDomainName());
+        if (OAuth2Util.checkAccessTokenPartitioningEnabled() && OAuth2Util.checkUserNameAssertionEnabled()) {
+            userStoreDomains.addAll(OAuth2Util.getAvailableUserStoreDomainMappings().keySet());
+        }
+        // Page query and scope query of each token partition.
+        Map<String, String> partitionedSqls = new LinkedHashMap<>();
+        for (String userStoreDomain : userStoreDomains) {
+            partitionedSqls.put(OAuth2Util.getTokenPartitionedSqlByUserStore(sql, userStoreDomain),
+                    OAuth2Util.getTokenPartitionedSqlByUserStore(SQLQueries.LIST_SCOPES_OF_TOKENS, userStoreDomain));
+        }
+        List<AccessTokenRecord> records;
+        try (Connection connection = IdentityDatabaseUtil.getDBConnection(false)) {
+            records = readPartitionedAccessTokenPage(connection, partitionedSqls, isIdpColumnFetched, tenantId,
+                    lastTokenId, limit);
+        } catch (SQLException e) {
+            throw new IdentityOAuth2Exception("Error occurred while retrieving 'ACTIVE or EXPIRED' access tokens " +
+                    "of tenant id : " + tenantId, e);
+        }
+
+        String tenantDomain = OAuth2Util.getTenantDomain(tenantId);
+        List<AccessTokenDO> accessTokenDOs = new ArrayList<>(records.size());
+        for (AccessTokenRecord record : records) {
+            AuthenticatedUser user = OAuth2Util.createAuthenticatedUser(record.authorizedUser, record.userDomain,
+                    tenantDomain, record.authenticatedIDP);
+            AccessTokenDO dataDO = new AccessTokenDO(record.consumerKey, user, record.scopes, record.issuedTime,
+                    record.refreshTokenIssuedTime, record.validityPeriodInMillis,
+                    record.refreshTokenValidityPeriodMillis, record.tokenType);
+            dataDO.setAccessToken(getPersistenceProcessor().getPreprocessedAccessTokenIdentifier(record.accessToken));
+            dataDO.setRefreshToken(getPersistenceProcessor().getPreprocessedRefreshToken(record.refreshToken));
+            dataDO.setTokenId(record.tokenId);
+            dataDO.setTenantID(tenantId);
+            accessTokenDOs.add(dataDO);
+        }
+        return accessTokenDOs;
+    }
+
+    /**
+     * Read a page of the ACTIVE or EXPIRED access tokens of a tenant, which are stored in one or more token
+     * partitions. Each partition is read after the same token id, and the pages of the partitions are merged by the
+     * token id, so that a page never reads more than the limit from a partition.
+     *
+     * @param connection         Database connection.
+     * @param partitionedSqls    Page query and scope query of each token partition.
+     * @param isIdpColumnFetched Whether the page queries fetch the IDP name.
+     * @param tenantId           Tenant id.
+     * @param lastTokenId        Token id of the last token of the previous page, or null to read the first page.
+     * @param limit              Maximum number of tokens in the page.
+     * @return Access token records of the page, ordered by the token id.
+     * @throws SQLException If an error occurred while reading the page.
+     */
+    static List<AccessTokenRecord> readPartitionedAccessTokenPage(Connection connection,
+                                                                  Map<String, String> partitionedSqls,
+                                                                  boolean isIdpColumnFetched, int tenantId,
+                                                                  String lastTokenId, int limit)
+            throws SQLException {
+
+        if (partitionedSqls.size() == 1) {
+            Map.Entry<String, String> sqls = partitionedSqls.entrySet().iterator().next();
+            return readAccessTokenPage(connection, sqls.getKey(), sqls.getValue(), isIdpColumnFetched, tenantId,
+                    lastTokenId, limit);
+        }
+        List<AccessTokenRecord> records = new ArrayList<>();
+        for (Map.Entry<String, String> sqls : partitionedSqls.entrySet()) {
+            records.addAll(readAccessTokenPage(connection, sqls.getKey(), sqls.getValue(), isIdpColumnFetched,
+                    tenantId, lastTokenId, limit));
+        }
+        records.sort(Comparator.comparing(record -> record.tokenId));
+        return records.size() > limit ? new ArrayList<>(records.subList(0, limit)) : records;
+    }
+
+    /**
+     * Read a page of the ACTIVE or EXPIRED access tokens of a tenant, ordered by the token id, along with their
+     * scopes.
+     *
+     * @param connection         Database connection.
+     * @param sql                Page query.
+     * @param scopeSql           Query of the scopes of the tokens, of the same token partition as the page query.
+     * @param isIdpColumnFetched Whether the page query fetches the IDP name.
+     * @param tenantId           Tenant id.
+     * @param lastTokenId        Token id of the last token of the previous page, or null to read the first page.
+     * @param limit              Maximum number of tokens in the page.
+     * @return Access token records of the page.
+     * @throws SQLException If an error occurred while reading the page.
+     */
+    static List<AccessTokenRecord> readAccessTokenPage(Connection connection, String sql, String scopeSql,
+                                                       boolean isIdpColumnFetched, int tenantId, String lastTokenId,
+                                                       int limit) throws SQLException {
+
+        String pageSql = lastTokenId == null ? sql.replace(SQLQueries.TOKEN_ID_AFTER_CONDITION, "") : sql;
+        List<AccessTokenRecord> records = new ArrayList<>();
+        Calendar utcCalendar = Calendar.getInstance(UTC_TIME_ZONE);
+        try (PreparedStatement prepStmt = connection.prepareStatement(pageSql)) {
+            prepStmt.setMaxRows(limit);
+            prepStmt.setInt(1, tenantId);
+            if (lastTokenId != null) {
+                prepStmt.setString(2, lastTokenId);
+            }
+            try (ResultSet resultSet = prepStmt.executeQuery()) {
+                while (records.size() < limit && resultSet.next()) {
+                    AccessTokenRecord record = new AccessTokenRecord();
+                    record.accessToken = resultSet.getString(1);
+                    record.refreshToken = resultSet.getString(2);
+                    record.issuedTime = resultSet.getTimestamp(3, utcCalendar);
+                    record.refreshTokenIssuedTime = resultSet.getTimestamp(4, utcCalendar);
+                    record.validityPeriodInMillis = resultSet.getLong(5);
+                    record.refreshTokenValidityPeriodMillis = resultSet.getLong(6);
+                    record.tokenType = resultSet.getString(7);
+                    record.tokenId = resultSet.getString(8);
+                    record.authorizedUser = resultSet.getString(9);
+                    record.userDomain = resultSet.getString(10);
+                    record.consumerKey = resultSet.getString(11);
+                    if (isIdpColumnFetched) {
+                        record.authenticatedIDP = resultSet.getString(12);
+                    }
+                    record.tenantId = tenantId;
+                    records.add(record);
+                }
+            }
+        }
+
+        Map<String, List<String>> scopesOfTokens = readScopesOfTokens(connection, scopeSql,
+                records.stream().map(record -> record.tokenId).collect(Collectors.toList()));
+        for (AccessTokenRecord record : records) {
+            List<String> scopes = scopesOfTokens.get(record.tokenId);
+            record.scopes = scopes == null ? new String[0] : scopes.toArray(new String[0]);
+        }
+        return records;
+    }
+
+    /**
+     * Read the scopes of the given tokens, a chunk of the tokens per query.
+     *
+     * @param connection Database connection.
+     * @param scopeSql   Query of the scopes of the tokens, of the token partition of the tokens.
+     * @param tokenIds   Token ids.
+     * @return Scopes of the tokens which have scopes, by the token id.
+     * @throws SQLException If an error occurred while reading the scopes.
+     */
+    private static Map<String, List<String>> readScopesOfTokens(Connection connection, String scopeSql,
+                                                                List<String> tokenIds) throws SQLException {
+
+        Map<String, List<String>> scopesOfTokens = new HashMap<>();
+        for (int from = 0; from < tokenIds.size(); from += MAX_ACCESS_TOKENS_PER_QUERY) {
+            List<String> chunk = tokenIds.subList(from, Math.min(from + MAX_ACCESS_TOKENS_PER_QUERY,
+                    tokenIds.size()));
+            String chunkScopeSql = scopeSql.replace(SQLQueries.TOKEN_ID_LIST_PLACEHOLDER,
+                    String.join(", ", Collections.nCopies(chunk.size(), "?")));
+            try (PreparedStatement prepStmt = connection.prepareStatement(chunkScopeSql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    prepStmt.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet resultSet = prepStmt.executeQuery()) {
+                    while (resultSet.next()) {
+                        scopesOfTokens.computeIfAbsent(resultSet.getString(1), key -> new ArrayList<>())
+                                .add(resultSet.getString(2));
+                    }
+                }
+            }
+        }
+        return scopesOfTokens;
+    }
+
     @Override
     public Set<AccessTokenDO> getAccessTokensOfUserStore(int tenantId, String userStoreDomain) throws
             IdentityOAuth2Exception {
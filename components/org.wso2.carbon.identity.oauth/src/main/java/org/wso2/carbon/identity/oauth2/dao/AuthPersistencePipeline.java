@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.model.AuthzCodeDO;
+
+import java.util.List;
+
+/**
+ * Authorization code persistence pipeline. Code inserts and state updates are written in JDBC batches through
+ * {@link AuthorizationCodeDAO#persistAuthorizationCodes(List)}.
+ */
+public class AuthPersistencePipeline extends AbstractPersistencePipeline<AuthContextTokenDO> {
+
+    public AuthPersistencePipeline() {
+
+        super("AuthCodePersistencePipeline");
+    }
+
+    public AuthPersistencePipeline(int poolSize, int batchSize, long flushIntervalMillis, int queueCapacity,
+                                   long enqueueTimeoutMillis) {
+
+        super("AuthCodePersistencePipeline", poolSize, batchSize, flushIntervalMillis, queueCapacity,
+                enqueueTimeoutMillis);
+    }
+
+    @Override
+    protected void persistBatch(List<AuthContextTokenDO> batch) throws IdentityOAuth2Exception {
+
+        OAuthTokenPersistenceFactory.getInstance().getAuthorizationCodeDAO().persistAuthorizationCodes(batch);
+    }
+
+    @Override
+    protected void persist(AuthContextTokenDO authContextTokenDO) throws IdentityOAuth2Exception {
+
+        AuthorizationCodeDAO authorizationCodeDAO = OAuthTokenPersistenceFactory.getInstance()
+                .getAuthorizationCodeDAO();
+        if (authContextTokenDO.getAuthzCodeDO() == null && authContextTokenDO.getTokenId() == null) {
+            authorizationCodeDAO.updateAuthorizationCodeState(authContextTokenDO.getAuthzCode(),
+                    OAuthConstants.AuthorizationCodeState.EXPIRED);
+        } else if (authContextTokenDO.getAuthzCodeDO() == null) {
+            AuthzCodeDO authzCodeDO = new AuthzCodeDO();
+            authzCodeDO.setAuthorizationCode(authContextTokenDO.getAuthzCode());
+            authzCodeDO.setOauthTokenId(authContextTokenDO.getTokenId());
+            authorizationCodeDAO.deactivateAuthorizationCode(authzCodeDO);
+        } else {
+            authorizationCodeDAO.insertAuthorizationCode(authContextTokenDO.getAuthzCode(),
+                    authContextTokenDO.getConsumerKey(), authContextTokenDO.getCallbackUrl(),
+                    authContextTokenDO.getAuthzCodeDO());
+        }
+    }
+}
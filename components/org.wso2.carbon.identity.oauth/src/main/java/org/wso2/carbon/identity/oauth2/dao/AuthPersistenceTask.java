@@ -28,7 +28,10 @@ import java.util.concurrent.BlockingDeque;
 
 /**
  * Authorization code persistence task.
+ *
+ * @deprecated use {@link AuthPersistencePipeline} which persists the entries in batches with multiple workers.
  */
+@Deprecated
 public class AuthPersistenceTask implements Runnable {
 
     private static final Log log = LogFactory.getLog(AuthPersistenceTask.class);
@@ -21,6 +21,7 @@
 package org.wso2.carbon.identity.oauth2.dao;
 
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.model.AuthzCodeDO;
 
@@ -38,6 +39,35 @@ public interface AuthorizationCodeDAO {
 
     void deactivateAuthorizationCodes(List<AuthzCodeDO> authzCodeDOs) throws IdentityOAuth2Exception;
 
+    /**
+     * Persist a batch of authorization code changes of the auth code persistence pipeline. An entry with an
+     * {@link AuthzCodeDO} inserts the code, an entry with a token id deactivates the code against the token and any
+     * other entry expires the code. Implementations should store either all or none of the changes, as the entries
+     * of a failed batch are persisted again one by one. The default implementation persists the entries one by one,
+     * and should be overridden by a DAO used with the auth code persistence pipeline.
+     *
+     * @param authContextTokenDOs Authorization code changes to be persisted.
+     * @throws IdentityOAuth2Exception If an error occurred while persisting the changes.
+     */
+    default void persistAuthorizationCodes(List<AuthContextTokenDO> authContextTokenDOs)
+            throws IdentityOAuth2Exception {
+
+        for (AuthContextTokenDO authContextTokenDO : authContextTokenDOs) {
+            if (authContextTokenDO.getAuthzCodeDO() != null) {
+                insertAuthorizationCode(authContextTokenDO.getAuthzCode(), authContextTokenDO.getConsumerKey(),
+                        authContextTokenDO.getCallbackUrl(), authContextTokenDO.getAuthzCodeDO());
+            } else if (authContextTokenDO.getTokenId() != null) {
+                AuthzCodeDO authzCodeDO = new AuthzCodeDO();
+                authzCodeDO.setAuthorizationCode(authContextTokenDO.getAuthzCode());
+                authzCodeDO.setOauthTokenId(authContextTokenDO.getTokenId());
+                deactivateAuthorizationCode(authzCodeDO);
+            } else {
+                updateAuthorizationCodeState(authContextTokenDO.getAuthzCode(),
+                        OAuthConstants.AuthorizationCodeState.EXPIRED);
+            }
+        }
+    }
+
     AuthorizationCodeValidationResult validateAuthorizationCode(String consumerKey, String authorizationKey)
             throws IdentityOAuth2Exception;
 
@@ -83,39 +83,10 @@ public class AuthorizationCodeDAOImpl extends AbstractOAuthDAO implements Author
         }
         Connection connection = IdentityDatabaseUtil.getDBConnection();
         PreparedStatement prepStmt = null;
-        String userDomain = OAuth2Util.getUserStoreDomain(authzCodeDO.getAuthorizedUser());
-        String authenticatedIDP = OAuth2Util.getAuthenticatedIDP(authzCodeDO.getAuthorizedUser());
         try {
-            String sql;
-            if (OAuth2ServiceComponentHolder.isIDPIdColumnEnabled()) {
-                sql = SQLQueries.STORE_AUTHORIZATION_CODE_WITH_PKCE_IDP_NAME;
-            } else {
-                sql = SQLQueries.STORE_AUTHORIZATION_CODE_WITH_PKCE;
-            }
-            prepStmt = connection.prepareStatement(sql);
-
-            prepStmt.setString(1, authzCodeDO.getAuthzCodeId());
-            prepStmt.setString(2, getPersistenceProcessor().getProcessedAuthzCode(authzCode));
-            prepStmt.setString(3, callbackUrl);
-            prepStmt.setString(4, "");
-            prepStmt.setString(5, authzCodeDO.getAuthorizedUser().getUserName());
-            prepStmt.setString(6, userDomain);
-            int tenantId = OAuth2Util.getTenantId(authzCodeDO.getAuthorizedUser().getTenantDomain());
-            prepStmt.setInt(7, tenantId);
-            prepStmt.setTimestamp(8, authzCodeDO.getIssuedTime(),
-                    Calendar.getInstance(TimeZone.getTimeZone(UTC)));
-            prepStmt.setLong(9, authzCodeDO.getValidityPeriod());
-            prepStmt.setString(10, authzCodeDO.getAuthorizedUser().getAuthenticatedSubjectIdentifier());
-            prepStmt.setString(11, authzCodeDO.getPkceCodeChallenge());
-            prepStmt.setString(12, authzCodeDO.getPkceCodeChallengeMethod());
-            //insert the hash value of the authorization code
-            prepStmt.setString(13, getHashingPersistenceProcessor().getProcessedAuthzCode(authzCode));
-            prepStmt.setString(14, getPersistenceProcessor().getProcessedClientId(consumerKey));
-            if (OAuth2ServiceComponentHolder.isIDPIdColumnEnabled()) {
-                prepStmt.setString(15, authenticatedIDP);
-                prepStmt.setInt(16, tenantId);
-            }
-
+            prepStmt = connection.prepareStatement(getInsertAuthorizationCodeSql());
+            int tenantId = setInsertAuthorizationCodeParameters(prepStmt, authzCode, consumerKey, callbackUrl,
+                    authzCodeDO);
             prepStmt.execute();
 
             addAuthorizationCodeScopes(authzCodeDO, connection, tenantId);
@@ -181,6 +152,102 @@ public class AuthorizationCodeDAOImpl extends AbstractOAuthDAO implements Author
         }
     }
 
+    /**
+     * Persist a batch of authorization code changes using a single connection and transaction. Code rows, scope
+     * rows, deactivations and state updates are each written as a JDBC batch, in this order. If the batch fails, the
+     * transaction is rolled back and none of the changes is stored.
+     *
+     * @param authContextTokenDOs Authorization code changes to be persisted.
+     * @throws IdentityOAuth2Exception If an error occurred while persisting the changes.
+     */
+    @Override
+    public void persistAuthorizationCodes(List<AuthContextTokenDO> authContextTokenDOs)
+            throws IdentityOAuth2Exception {
+
+        if (authContextTokenDOs == null || authContextTokenDOs.isEmpty()) {
+            return;
+        }
+        if (!isPersistenceEnabled()) {
+            // Only the state updates are written when the persistence is disabled.
+            AuthorizationCodeDAO.super.persistAuthorizationCodes(authContextTokenDOs);
+            return;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Persisting a batch of " + authContextTokenDOs.size() + " authorization code changes.");
+        }
+
+        List<AuthzCodeDO> deactivatedCodes = new ArrayList<>();
+        List<String> expiredCodes = new ArrayList<>();
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        try (PreparedStatement insertCodePrepStmt = connection.prepareStatement(getInsertAuthorizationCodeSql());
+             PreparedStatement addScopePrepStmt = connection.prepareStatement(SQLQueries.INSERT_OAUTH2_CODE_SCOPE);
+             PreparedStatement deactivatePrepStmt = connection.prepareStatement(
+                     SQLQueries.DEACTIVATE_AUTHZ_CODE_AND_INSERT_CURRENT_TOKEN);
+             PreparedStatement updateStatePrepStmt = connection.prepareStatement(
+                     SQLQueries.UPDATE_AUTHORIZATION_CODE_STATE)) {
+            boolean codesInserted = false;
+            for (AuthContextTokenDO authContextTokenDO : authContextTokenDOs) {
+                String authzCode = authContextTokenDO.getAuthzCode();
+                AuthzCodeDO authzCodeDO = authContextTokenDO.getAuthzCodeDO();
+                if (authzCodeDO != null) {
+                    int tenantId = setInsertAuthorizationCodeParameters(insertCodePrepStmt, authzCode,
+                            authContextTokenDO.getConsumerKey(), authContextTokenDO.getCallbackUrl(), authzCodeDO);
+                    insertCodePrepStmt.addBatch();
+                    addAuthorizationCodeScopes(addScopePrepStmt, authzCodeDO, tenantId);
+                    codesInserted = true;
+                } else if (authContextTokenDO.getTokenId() != null) {
+                    deactivatePrepStmt.setString(1, authContextTokenDO.getTokenId());
+                    deactivatePrepStmt.setString(2, getHashingPersistenceProcessor().getProcessedAuthzCode(
+                            authzCode));
+                    deactivatePrepStmt.addBatch();
+                    AuthzCodeDO deactivatedCode = new AuthzCodeDO();
+                    deactivatedCode.setAuthorizationCode(authzCode);
+                    deactivatedCode.setOauthTokenId(authContextTokenDO.getTokenId());
+                    deactivatedCodes.add(deactivatedCode);
+                } else {
+                    updateStatePrepStmt.setString(1, OAuthConstants.AuthorizationCodeState.EXPIRED);
+                    updateStatePrepStmt.setString(2, getHashingPersistenceProcessor().getProcessedAuthzCode(
+                            authzCode));
+                    updateStatePrepStmt.addBatch();
+                    expiredCodes.add(authzCode);
+                }
+            }
+
+            // Code rows should be written before the scope rows which refer to them, and the changes of the codes.
+            if (codesInserted) {
+                insertCodePrepStmt.executeBatch();
+                addScopePrepStmt.executeBatch();
+            }
+            if (!deactivatedCodes.isEmpty()) {
+                deactivatePrepStmt.executeBatch();
+            }
+            if (!expiredCodes.isEmpty()) {
+                updateStatePrepStmt.executeBatch();
+            }
+            IdentityDatabaseUtil.commitTransaction(connection);
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.rollbackTransaction(connection);
+            throw new IdentityOAuth2Exception("Error occurred while persisting a batch of " +
+                    authContextTokenDOs.size() + " authorization code changes", e);
+        } catch (IdentityOAuth2Exception e) {
+            IdentityDatabaseUtil.rollbackTransaction(connection);
+            throw e;
+        } finally {
+            IdentityDatabaseUtil.closeConnection(connection);
+        }
+
+        // To revoke the request objects which are persisted against the codes.
+        for (AuthzCodeDO deactivatedCode : deactivatedCodes) {
+            OAuth2TokenUtil.postRevokeCode(deactivatedCode.getAuthzCodeId(),
+                    OAuthConstants.AuthorizationCodeState.INACTIVE, deactivatedCode.getOauthTokenId(),
+                    deactivatedCode.getAuthorizationCode());
+        }
+        for (String expiredCode : expiredCodes) {
+            OAuth2TokenUtil.postRevokeCode(expiredCode, OAuthConstants.AuthorizationCodeState.EXPIRED, null, null);
+        }
+    }
+
     @Override
     public AuthorizationCodeValidationResult validateAuthorizationCode(String consumerKey, String authorizationKey)
             throws IdentityOAuth2Exception {
@@ -730,25 +797,76 @@ public class AuthorizationCodeDAOImpl extends AbstractOAuthDAO implements Author
         }
     }
 
+    private String getInsertAuthorizationCodeSql() {
+
+        if (OAuth2ServiceComponentHolder.isIDPIdColumnEnabled()) {
+            return SQLQueries.STORE_AUTHORIZATION_CODE_WITH_PKCE_IDP_NAME;
+        }
+        return SQLQueries.STORE_AUTHORIZATION_CODE_WITH_PKCE;
+    }
+
+    /**
+     * Set the parameters of the statement returned by {@link #getInsertAuthorizationCodeSql()}.
+     *
+     * @return Tenant id of the authorized user.
+     */
+    private int setInsertAuthorizationCodeParameters(PreparedStatement prepStmt, String authzCode,
+                                                     String consumerKey, String callbackUrl,
+                                                     AuthzCodeDO authzCodeDO)
+            throws SQLException, IdentityOAuth2Exception {
+
+        String userDomain = OAuth2Util.getUserStoreDomain(authzCodeDO.getAuthorizedUser());
+        String authenticatedIDP = OAuth2Util.getAuthenticatedIDP(authzCodeDO.getAuthorizedUser());
+        int tenantId = OAuth2Util.getTenantId(authzCodeDO.getAuthorizedUser().getTenantDomain());
+
+        prepStmt.setString(1, authzCodeDO.getAuthzCodeId());
+        prepStmt.setString(2, getPersistenceProcessor().getProcessedAuthzCode(authzCode));
+        prepStmt.setString(3, callbackUrl);
+        prepStmt.setString(4, "");
+        prepStmt.setString(5, authzCodeDO.getAuthorizedUser().getUserName());
+        prepStmt.setString(6, userDomain);
+        prepStmt.setInt(7, tenantId);
+        prepStmt.setTimestamp(8, authzCodeDO.getIssuedTime(),
+                Calendar.getInstance(TimeZone.getTimeZone(UTC)));
+        prepStmt.setLong(9, authzCodeDO.getValidityPeriod());
+        prepStmt.setString(10, authzCodeDO.getAuthorizedUser().getAuthenticatedSubjectIdentifier());
+        prepStmt.setString(11, authzCodeDO.getPkceCodeChallenge());
+        prepStmt.setString(12, authzCodeDO.getPkceCodeChallengeMethod());
+        //insert the hash value of the authorization code
+        prepStmt.setString(13, getHashingPersistenceProcessor().getProcessedAuthzCode(authzCode));
+        prepStmt.setString(14, getPersistenceProcessor().getProcessedClientId(consumerKey));
+        if (OAuth2ServiceComponentHolder.isIDPIdColumnEnabled()) {
+            prepStmt.setString(15, authenticatedIDP);
+            prepStmt.setInt(16, tenantId);
+        }
+        return tenantId;
+    }
+
     private void addAuthorizationCodeScopes(AuthzCodeDO authzCodeDO, Connection connection, int tenantId)
             throws SQLException {
 
         try (PreparedStatement addScopePrepStmt = connection.prepareStatement(SQLQueries.INSERT_OAUTH2_CODE_SCOPE)) {
-            String authzCodeId = authzCodeDO.getAuthzCodeId();
-            if (authzCodeDO.getScope() != null) {
-                // Get the distinct set of scopes.
-                Set<String> scopes = new HashSet<>(Arrays.asList(authzCodeDO.getScope()));
-                for (String scope : scopes) {
-                    addScopePrepStmt.setString(1, authzCodeId);
-                    addScopePrepStmt.setString(2, scope);
-                    addScopePrepStmt.setInt(3, tenantId);
-                    addScopePrepStmt.addBatch();
-                }
-            }
+            addAuthorizationCodeScopes(addScopePrepStmt, authzCodeDO, tenantId);
             addScopePrepStmt.executeBatch();
         }
     }
 
+    private void addAuthorizationCodeScopes(PreparedStatement addScopePrepStmt, AuthzCodeDO authzCodeDO,
+                                            int tenantId) throws SQLException {
+
+        String authzCodeId = authzCodeDO.getAuthzCodeId();
+        if (authzCodeDO.getScope() != null) {
+            // Get the distinct set of scopes.
+            Set<String> scopes = new HashSet<>(Arrays.asList(authzCodeDO.getScope()));
+            for (String scope : scopes) {
+                addScopePrepStmt.setString(1, authzCodeId);
+                addScopePrepStmt.setString(2, scope);
+                addScopePrepStmt.setInt(3, tenantId);
+                addScopePrepStmt.addBatch();
+            }
+        }
+    }
+
     private List<String> getAuthorizationCodeScopes(Connection connection, String codeId, int tenantId)
             throws SQLException {
 
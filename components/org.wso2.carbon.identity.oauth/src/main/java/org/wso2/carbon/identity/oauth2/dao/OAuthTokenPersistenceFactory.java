@@ -39,6 +39,8 @@ public class OAuthTokenPersistenceFactory {
     private ScopeClaimMappingDAO scopeClaimMappingDAO;
     private TokenBindingMgtDAO tokenBindingMgtDAO;
     private OAuthUserConsentedScopesDAO oauthUserConsentedScopesDAO;
+    private TokenPersistencePipeline tokenPersistencePipeline;
+    private AuthPersistencePipeline authPersistencePipeline;
 
     public OAuthTokenPersistenceFactory() {
 
@@ -50,6 +52,8 @@ public class OAuthTokenPersistenceFactory {
         this.scopeClaimMappingDAO = new CacheBackedScopeClaimMappingDAOImpl();
         this.tokenBindingMgtDAO = new TokenBindingMgtDAOImpl();
         this.oauthUserConsentedScopesDAO = new CacheBackedOAuthUserConsentedScopesDAOImpl();
+        this.tokenPersistencePipeline = new TokenPersistencePipeline();
+        this.authPersistencePipeline = new AuthPersistencePipeline();
     }
 
     public static OAuthTokenPersistenceFactory getInstance() {
@@ -96,4 +100,14 @@ public class OAuthTokenPersistenceFactory {
 
         return oauthUserConsentedScopesDAO;
     }
+
+    public TokenPersistencePipeline getTokenPersistencePipeline() {
+
+        return tokenPersistencePipeline;
+    }
+
+    public AuthPersistencePipeline getAuthPersistencePipeline() {
+
+        return authPersistencePipeline;
+    }
 }
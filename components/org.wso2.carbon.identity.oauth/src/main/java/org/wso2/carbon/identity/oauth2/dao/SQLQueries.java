@@ -437,6 +437,39 @@ public class SQLQueries {
                     + "ACCESS_TOKEN_TABLE.TOKEN_ID = IDN_OAUTH2_ACCESS_TOKEN_SCOPE.TOKEN_ID JOIN "
                     + "IDP ON IDP_ID = IDP.ID";
 
+    public static final String ACCESS_TOKEN_HASH_LIST_PLACEHOLDER = "_ACCESS_TOKEN_HASH_LIST_";
+
+    public static final String RETRIEVE_ACTIVE_ACCESS_TOKENS_IDP_NAME =
+            "SELECT CONSUMER_KEY, AUTHZ_USER, ACCESS_TOKEN_TABLE.TENANT_ID, USER_DOMAIN, TOKEN_SCOPE, TIME_CREATED, "
+                    + "REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD, REFRESH_TOKEN_VALIDITY_PERIOD, USER_TYPE, "
+                    + "REFRESH_TOKEN, ACCESS_TOKEN_TABLE.TOKEN_ID, GRANT_TYPE, SUBJECT_IDENTIFIER, TOKEN_BINDING_REF,"
+                    + " IDP.NAME, ACCESS_TOKEN_HASH FROM (SELECT TOKEN_ID, CONSUMER_KEY, AUTHZ_USER, "
+                    + "IDN_OAUTH2_ACCESS_TOKEN.TENANT_ID AS TENANT_ID, IDN_OAUTH2_ACCESS_TOKEN.USER_DOMAIN AS "
+                    + "USER_DOMAIN, TIME_CREATED, REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD, "
+                    + "REFRESH_TOKEN_VALIDITY_PERIOD, USER_TYPE, REFRESH_TOKEN, IDN_OAUTH2_ACCESS_TOKEN.GRANT_TYPE "
+                    + "AS GRANT_TYPE, SUBJECT_IDENTIFIER, IDN_OAUTH2_ACCESS_TOKEN.IDP_ID AS IDP_ID, TOKEN_BINDING_REF, "
+                    + "ACCESS_TOKEN_HASH FROM (SELECT * FROM IDN_OAUTH2_ACCESS_TOKEN WHERE ACCESS_TOKEN_HASH IN ("
+                    + ACCESS_TOKEN_HASH_LIST_PLACEHOLDER + ") AND TOKEN_STATE='ACTIVE') IDN_OAUTH2_ACCESS_TOKEN JOIN "
+                    + "IDN_OAUTH_CONSUMER_APPS ON CONSUMER_KEY_ID = ID) ACCESS_TOKEN_TABLE LEFT JOIN "
+                    + "IDN_OAUTH2_ACCESS_TOKEN_SCOPE ON ACCESS_TOKEN_TABLE.TOKEN_ID = "
+                    + "IDN_OAUTH2_ACCESS_TOKEN_SCOPE.TOKEN_ID JOIN IDP ON IDP_ID = IDP.ID";
+
+    public static final String RETRIEVE_ACTIVE_ACCESS_TOKENS_IDP_NAME_WITH_CONSENTED_TOKEN =
+            "SELECT CONSUMER_KEY, AUTHZ_USER, ACCESS_TOKEN_TABLE.TENANT_ID, USER_DOMAIN, TOKEN_SCOPE, TIME_CREATED, "
+                    + "REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD, REFRESH_TOKEN_VALIDITY_PERIOD, USER_TYPE, "
+                    + "REFRESH_TOKEN, ACCESS_TOKEN_TABLE.TOKEN_ID, GRANT_TYPE, SUBJECT_IDENTIFIER, TOKEN_BINDING_REF,"
+                    + " IDP.NAME, ACCESS_TOKEN_HASH, CONSENTED_TOKEN FROM (SELECT TOKEN_ID, CONSUMER_KEY, "
+                    + "AUTHZ_USER, IDN_OAUTH2_ACCESS_TOKEN.TENANT_ID AS TENANT_ID, "
+                    + "IDN_OAUTH2_ACCESS_TOKEN.USER_DOMAIN AS USER_DOMAIN, TIME_CREATED, REFRESH_TOKEN_TIME_CREATED, "
+                    + "VALIDITY_PERIOD, REFRESH_TOKEN_VALIDITY_PERIOD, USER_TYPE, REFRESH_TOKEN, "
+                    + "IDN_OAUTH2_ACCESS_TOKEN.GRANT_TYPE AS GRANT_TYPE, SUBJECT_IDENTIFIER, "
+                    + "IDN_OAUTH2_ACCESS_TOKEN.IDP_ID AS IDP_ID, TOKEN_BINDING_REF, ACCESS_TOKEN_HASH, CONSENTED_TOKEN "
+                    + "FROM (SELECT * FROM IDN_OAUTH2_ACCESS_TOKEN WHERE ACCESS_TOKEN_HASH IN ("
+                    + ACCESS_TOKEN_HASH_LIST_PLACEHOLDER + ") AND TOKEN_STATE='ACTIVE') "
+                    + "IDN_OAUTH2_ACCESS_TOKEN JOIN IDN_OAUTH_CONSUMER_APPS ON CONSUMER_KEY_ID = ID) "
+                    + "ACCESS_TOKEN_TABLE LEFT JOIN IDN_OAUTH2_ACCESS_TOKEN_SCOPE ON ACCESS_TOKEN_TABLE.TOKEN_ID = "
+                    + "IDN_OAUTH2_ACCESS_TOKEN_SCOPE.TOKEN_ID JOIN IDP ON IDP_ID = IDP.ID";
+
 
     public static final String RETRIEVE_ACTIVE_EXPIRED_ACCESS_TOKEN = "SELECT CONSUMER_KEY, AUTHZ_USER, " +
             "ACCESS_TOKEN_TABLE.TENANT_ID, USER_DOMAIN, TOKEN_SCOPE, TIME_CREATED, REFRESH_TOKEN_TIME_CREATED, " +
@@ -499,6 +532,9 @@ public class SQLQueries {
     public static final String UPDATE_TOKEN_STATE = "UPDATE IDN_OAUTH2_ACCESS_TOKEN SET TOKEN_STATE=?, " +
             "TOKEN_STATE_ID=? WHERE TOKEN_ID=?";
 
+    public static final String UPDATE_ACTIVE_OR_EXPIRED_TOKEN_STATE = "UPDATE IDN_OAUTH2_ACCESS_TOKEN SET " +
+            "TOKEN_STATE=?, TOKEN_STATE_ID=? WHERE TOKEN_ID=? AND TOKEN_STATE IN (?, ?)";
+
     public static final String UPDATE_TOKEN_CONSENTED_TOKEN = "UPDATE IDN_OAUTH2_ACCESS_TOKEN SET " +
             "CONSENTED_TOKEN=? WHERE TOKEN_ID=?";
     @Deprecated
@@ -604,6 +640,14 @@ public class SQLQueries {
             "ID WHERE AUTHZ_USER=? AND IDN_OAUTH2_ACCESS_TOKEN.TENANT_ID=? AND IDN_OAUTH2_ACCESS_TOKEN.USER_DOMAIN=? " +
             "AND (TOKEN_STATE='ACTIVE' OR TOKEN_STATE='EXPIRED')";
 
+    public static final String GET_DISTINCT_APPS_AUTHORIZED_BY_USER_IDP_NAME = "SELECT DISTINCT CONSUMER_KEY FROM " +
+            "IDN_OAUTH2_ACCESS_TOKEN JOIN IDN_OAUTH_CONSUMER_APPS ON CONSUMER_KEY_ID = IDN_OAUTH_CONSUMER_APPS.ID " +
+            "WHERE AUTHZ_USER=? AND IDN_OAUTH2_ACCESS_TOKEN.TENANT_ID=? AND IDN_OAUTH2_ACCESS_TOKEN.USER_DOMAIN=? " +
+            "AND (TOKEN_STATE='ACTIVE' OR TOKEN_STATE='EXPIRED') AND IDP_ID=(SELECT IDP.ID FROM IDP WHERE " +
+            "IDP.NAME=? AND IDP.TENANT_ID=IDN_OAUTH2_ACCESS_TOKEN.TENANT_ID)";
+
+    public static final String ORDER_BY_CONSUMER_KEY = " ORDER BY CONSUMER_KEY";
+
     public static final String RETRIEVE_ACCESS_TOKEN_VALIDATION_DATA_MYSQL = "SELECT ACCESS_TOKEN, AUTHZ_USER, " +
             "ACCESS_TOKEN_SELECTED.TENANT_ID, USER_DOMAIN, TOKEN_SCOPE, TOKEN_STATE, REFRESH_TOKEN_TIME_CREATED, " +
             "REFRESH_TOKEN_VALIDITY_PERIOD, ACCESS_TOKEN_SELECTED.TOKEN_ID, GRANT_TYPE, SUBJECT_IDENTIFIER, " +
@@ -893,6 +937,42 @@ public class SQLQueries {
             "ON ACCESS_TOKEN_TABLE.TOKEN_ID = IDN_OAUTH2_ACCESS_TOKEN_SCOPE.TOKEN_ID " +
             "JOIN IDP ON IDP.ID=IDP_ID";
 
+    public static final String TOKEN_ID_AFTER_CONDITION = " AND TOKEN_ID > ?";
+
+    public static final String LIST_TOKENS_IN_TENANT_PAGE = "SELECT ACCESS_TOKEN, REFRESH_TOKEN, TIME_CREATED, " +
+            "REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD, REFRESH_TOKEN_VALIDITY_PERIOD, USER_TYPE, TOKEN_ID, " +
+            "AUTHZ_USER, IDN_OAUTH2_ACCESS_TOKEN.USER_DOMAIN, CONSUMER_KEY FROM IDN_OAUTH2_ACCESS_TOKEN JOIN " +
+            "IDN_OAUTH_CONSUMER_APPS ON IDN_OAUTH_CONSUMER_APPS.ID = CONSUMER_KEY_ID WHERE " +
+            "IDN_OAUTH2_ACCESS_TOKEN.TENANT_ID=? AND (TOKEN_STATE='ACTIVE' OR TOKEN_STATE='EXPIRED')" +
+            TOKEN_ID_AFTER_CONDITION + " ORDER BY TOKEN_ID";
+
+    public static final String LIST_TOKENS_IN_TENANT_PAGE_IDP_NAME = "SELECT ACCESS_TOKEN, REFRESH_TOKEN, " +
+            "TIME_CREATED, REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD, REFRESH_TOKEN_VALIDITY_PERIOD, USER_TYPE, " +
+            "TOKEN_ID, AUTHZ_USER, IDN_OAUTH2_ACCESS_TOKEN.USER_DOMAIN, CONSUMER_KEY, IDP.NAME FROM " +
+            "IDN_OAUTH2_ACCESS_TOKEN JOIN IDN_OAUTH_CONSUMER_APPS ON IDN_OAUTH_CONSUMER_APPS.ID = CONSUMER_KEY_ID " +
+            "JOIN IDP ON IDP.ID = IDN_OAUTH2_ACCESS_TOKEN.IDP_ID WHERE IDN_OAUTH2_ACCESS_TOKEN.TENANT_ID=? AND " +
+            "(TOKEN_STATE='ACTIVE' OR TOKEN_STATE='EXPIRED')" + TOKEN_ID_AFTER_CONDITION + " ORDER BY TOKEN_ID";
+
+    public static final String RETRIEVE_ACTIVE_EXPIRED_ACCESS_TOKEN_PAGE_BY_CLIENT_ID_USER = "SELECT " +
+            "ACCESS_TOKEN, REFRESH_TOKEN, TIME_CREATED, REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD, " +
+            "REFRESH_TOKEN_VALIDITY_PERIOD, USER_TYPE, TOKEN_ID, SUBJECT_IDENTIFIER, TOKEN_BINDING_REF FROM " +
+            "IDN_OAUTH2_ACCESS_TOKEN WHERE CONSUMER_KEY_ID = (SELECT ID FROM IDN_OAUTH_CONSUMER_APPS WHERE " +
+            "CONSUMER_KEY = ?) AND AUTHZ_USER=? AND TENANT_ID=? AND USER_DOMAIN=? AND (TOKEN_STATE='ACTIVE' OR " +
+            "TOKEN_STATE='EXPIRED')" + TOKEN_ID_AFTER_CONDITION + " ORDER BY TOKEN_ID";
+
+    public static final String RETRIEVE_ACTIVE_EXPIRED_ACCESS_TOKEN_PAGE_BY_CLIENT_ID_USER_IDP_NAME = "SELECT " +
+            "ACCESS_TOKEN, REFRESH_TOKEN, TIME_CREATED, REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD, " +
+            "REFRESH_TOKEN_VALIDITY_PERIOD, USER_TYPE, TOKEN_ID, SUBJECT_IDENTIFIER, TOKEN_BINDING_REF FROM " +
+            "IDN_OAUTH2_ACCESS_TOKEN WHERE CONSUMER_KEY_ID = (SELECT ID FROM IDN_OAUTH_CONSUMER_APPS WHERE " +
+            "CONSUMER_KEY = ?) AND AUTHZ_USER=? AND TENANT_ID=? AND USER_DOMAIN=? AND (TOKEN_STATE='ACTIVE' OR " +
+            "TOKEN_STATE='EXPIRED') AND IDP_ID=(SELECT ID FROM IDP WHERE NAME=? AND " +
+            "TENANT_ID=IDN_OAUTH2_ACCESS_TOKEN.TENANT_ID)" + TOKEN_ID_AFTER_CONDITION + " ORDER BY TOKEN_ID";
+
+    public static final String TOKEN_ID_LIST_PLACEHOLDER = "_TOKEN_ID_LIST_";
+
+    public static final String LIST_SCOPES_OF_TOKENS = "SELECT TOKEN_ID, TOKEN_SCOPE FROM " +
+            "IDN_OAUTH2_ACCESS_TOKEN_SCOPE WHERE TOKEN_ID IN (" + TOKEN_ID_LIST_PLACEHOLDER + ")";
+
     public static final String LIST_ALL_TOKENS_IN_USER_STORE = "SELECT ACCESS_TOKEN, REFRESH_TOKEN, " +
             "TIME_CREATED, REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD, REFRESH_TOKEN_VALIDITY_PERIOD, USER_TYPE, " +
             "TOKEN_SCOPE, ACCESS_TOKEN_TABLE.TOKEN_ID, AUTHZ_USER, CONSUMER_KEY FROM (SELECT AUTHZ_USER, " +
@@ -27,6 +27,9 @@ import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 import org.wso2.carbon.identity.oauth2.model.RefreshTokenValidationDataDO;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 
@@ -73,4 +76,25 @@ public interface TokenManagementDAO {
             IdentityOAuth2Exception;
 
     Set<String> getAllTimeAuthorizedClientIds(AuthenticatedUser authzUser) throws IdentityOAuth2Exception;
+
+    /**
+     * Get a page of the client IDs of the apps which hold active or expired access tokens of a user, which are the
+     * apps authorized by the user, in the order of the client IDs. Only the client IDs up to the end of the page are
+     * read from the database.
+     *
+     * @param authzUser       Authorized user.
+     * @param userStoreDomain User store domain of the token partition, if the tokens are partitioned by user store.
+     * @param offset          Index of the first client ID of the page.
+     * @param limit           Maximum number of client IDs in the page.
+     * @return Client IDs of the page.
+     * @throws IdentityOAuth2Exception If the client IDs could not be retrieved.
+     */
+    default List<String> getAuthorizedClientIds(AuthenticatedUser authzUser, String userStoreDomain, int offset,
+                                                int limit) throws IdentityOAuth2Exception {
+
+        List<String> clientIds = new ArrayList<>(getAllTimeAuthorizedClientIds(authzUser));
+        Collections.sort(clientIds);
+        int fromIndex = Math.min(offset, clientIds.size());
+        return clientIds.subList(fromIndex, (int) Math.min((long) fromIndex + limit, clientIds.size()));
+    }
 }
@@ -763,4 +763,64 @@ public class TokenManagementDAOImpl extends AbstractOAuthDAO implements TokenMan
         return distinctConsumerKeys;
     }
 
+    @Override
+    public List<String> getAuthorizedClientIds(AuthenticatedUser authzUser, String userStoreDomain, int offset,
+                                               int limit) throws IdentityOAuth2Exception {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Retrieving " + limit + " clients authorized by user: " + authzUser.toString() +
+                    " from offset: " + offset);
+        }
+
+        String tenantAwareUsernameWithNoUserDomain = authzUser.getUserName();
+        String userDomain = OAuth2Util.getUserStoreDomain(authzUser);
+        int tenantId = OAuth2Util.getTenantId(authzUser.getTenantDomain());
+        boolean isUsernameCaseSensitive = IdentityUtil.isUserStoreCaseSensitive(authzUser.getUserStoreDomain(),
+                tenantId);
+        boolean isIDPIdColumnEnabled = OAuth2ServiceComponentHolder.isIDPIdColumnEnabled();
+
+        String sqlQuery = isIDPIdColumnEnabled ? SQLQueries.GET_DISTINCT_APPS_AUTHORIZED_BY_USER_IDP_NAME :
+                SQLQueries.GET_DISTINCT_APPS_AUTHORIZED_BY_USER_ALL_TIME;
+        sqlQuery = OAuth2Util.getTokenPartitionedSqlByUserStore(sqlQuery + SQLQueries.ORDER_BY_CONSUMER_KEY,
+                OAuth2Util.getSanitizedUserStoreDomain(userStoreDomain));
+        if (!isUsernameCaseSensitive) {
+            sqlQuery = sqlQuery.replace(AUTHZ_USER, LOWER_AUTHZ_USER);
+        }
+
+        List<String> consumerKeys = new ArrayList<>();
+        try (Connection connection = IdentityDatabaseUtil.getDBConnection(false);
+             PreparedStatement ps = connection.prepareStatement(sqlQuery)) {
+            // The rows before the offset are skipped while reading, and no row after the page is read.
+            long maxRows = (long) offset + limit;
+            if (maxRows < Integer.MAX_VALUE) {
+                ps.setMaxRows((int) maxRows);
+            }
+            if (isUsernameCaseSensitive) {
+                ps.setString(1, tenantAwareUsernameWithNoUserDomain);
+            } else {
+                ps.setString(1, tenantAwareUsernameWithNoUserDomain.toLowerCase());
+            }
+            ps.setInt(2, tenantId);
+            ps.setString(3, userDomain);
+            if (isIDPIdColumnEnabled) {
+                ps.setString(4, OAuth2Util.getAuthenticatedIDP(authzUser));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                int rowIndex = 0;
+                while (consumerKeys.size() < limit && rs.next()) {
+                    if (rowIndex++ >= offset) {
+                        consumerKeys.add(getPersistenceProcessor().getPreprocessedClientId(rs.getString(1)));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new IdentityOAuth2Exception("Error occurred while retrieving the Client IDs authorized by " +
+                    "User ID : " + authzUser, e);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Found " + consumerKeys.size() + " authorized clients for user: " + authzUser.toString());
+        }
+        return consumerKeys;
+    }
+
 }
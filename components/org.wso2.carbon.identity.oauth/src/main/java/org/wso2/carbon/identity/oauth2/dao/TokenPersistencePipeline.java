@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+
+import java.util.List;
+
+/**
+ * Access token persistence pipeline. Tokens are written in JDBC batches through
+ * {@link AccessTokenDAO#insertAccessTokens(List)}.
+ */
+public class TokenPersistencePipeline extends AbstractPersistencePipeline<AccessContextTokenDO> {
+
+    public TokenPersistencePipeline() {
+
+        super("AccessTokenPersistencePipeline");
+    }
+
+    public TokenPersistencePipeline(int poolSize, int batchSize, long flushIntervalMillis, int queueCapacity,
+                                    long enqueueTimeoutMillis) {
+
+        super("AccessTokenPersistencePipeline", poolSize, batchSize, flushIntervalMillis, queueCapacity,
+                enqueueTimeoutMillis);
+    }
+
+    @Override
+    protected void persistBatch(List<AccessContextTokenDO> batch) throws IdentityOAuth2Exception {
+
+        OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO().insertAccessTokens(batch);
+    }
+
+    @Override
+    protected void persist(AccessContextTokenDO accessContextTokenDO) throws IdentityOAuth2Exception {
+
+        OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO()
+                .insertAccessToken(accessContextTokenDO.getAccessToken(), accessContextTokenDO.getConsumerKey(),
+                        accessContextTokenDO.getNewAccessTokenDO(), accessContextTokenDO.getExistingAccessTokenDO(),
+                        accessContextTokenDO.getUserStoreDomain());
+    }
+}
@@ -25,7 +25,10 @@ import java.util.concurrent.BlockingDeque;
 
 /**
  * OAuth token persistence task.
+ *
+ * @deprecated use {@link TokenPersistencePipeline} which persists the entries in batches with multiple workers.
  */
+@Deprecated
 public class TokenPersistenceTask implements Runnable {
 
     private static final Log log = LogFactory.getLog(TokenPersistenceTask.class);
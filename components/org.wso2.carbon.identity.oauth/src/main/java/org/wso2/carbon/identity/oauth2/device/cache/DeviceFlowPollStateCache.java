@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.device.cache;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth2.device.constants.Constants;
+import org.wso2.carbon.identity.oauth2.device.model.DeviceFlowDO;
+import org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil;
+
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local, in memory polling state of the pending device codes, which lets a device flow token poll be served without
+ * writing to the database.
+ *
+ * The state of a device code lives until the device code expires. It keeps the time of the last poll served by this
+ * node, which is used to enforce the polling interval instead of writing the poll time to the database, and the
+ * pending status read from the database, which is served for the configured status timeout. When the user completes
+ * the authentication of a user code at this node, the cached status of its device code is dropped, so that the next
+ * poll reads the authorized status. A poll served by another node reads the status from the database once the
+ * status timeout elapses. When the cache is disabled or full, the poll time is written to the database, as before.
+ */
+public class DeviceFlowPollStateCache {
+
+    private static final Log log = LogFactory.getLog(DeviceFlowPollStateCache.class);
+
+    private static final String ENABLE = "OAuth.DeviceCodeGrant.PollStateCache.Enable";
+    private static final String CAPACITY = "OAuth.DeviceCodeGrant.PollStateCache.Capacity";
+    private static final String STATUS_TIMEOUT = "OAuth.DeviceCodeGrant.PollStateCache.StatusTimeout";
+    private static final int DEFAULT_CAPACITY = 100000;
+    private static final int DEFAULT_STATUS_TIMEOUT_MILLIS = 3000;
+
+    private static volatile DeviceFlowPollStateCache instance;
+
+    private final boolean enabled;
+    private final int capacity;
+    private final long statusTimeoutMillis;
+    private final Map<String, PollState> pollStates = new ConcurrentHashMap<>();
+    private final Map<String, String> deviceCodesOfUserCodes = new ConcurrentHashMap<>();
+    private final LongAdder polls = new LongAdder();
+    private final LongAdder slowDowns = new LongAdder();
+    private final LongAdder statusHits = new LongAdder();
+    private final LongAdder statusMisses = new LongAdder();
+
+    DeviceFlowPollStateCache(boolean enabled, int capacity, long statusTimeoutMillis) {
+
+        this.enabled = enabled;
+        this.capacity = Math.max(capacity, 0);
+        this.statusTimeoutMillis = Math.max(statusTimeoutMillis, 0);
+    }
+
+    public static DeviceFlowPollStateCache getInstance() {
+
+        if (instance == null) {
+            synchronized (DeviceFlowPollStateCache.class) {
+                if (instance == null) {
+                    String enable = IdentityUtil.getProperty(ENABLE);
+                    instance = new DeviceFlowPollStateCache(StringUtils.isBlank(enable) ||
+                            Boolean.parseBoolean(enable), OAuth2ConfigUtil.getIntProperty(CAPACITY, DEFAULT_CAPACITY),
+                            OAuth2ConfigUtil.getIntProperty(STATUS_TIMEOUT, DEFAULT_STATUS_TIMEOUT_MILLIS));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Get the cached pending status of a device code.
+     *
+     * @param deviceCode Device code.
+     * @param clientId   Client id of the token request.
+     * @return Status details of the device code, or null if the status has to be read from the database.
+     */
+    public DeviceFlowDO getStatus(String deviceCode, String clientId) {
+
+        if (!enabled || deviceCode == null) {
+            return null;
+        }
+        long currentTimeMillis = System.currentTimeMillis();
+        PollState pollState = pollStates.get(deviceCode);
+        if (pollState != null) {
+            synchronized (pollState) {
+                if (pollState.status != null && pollState.clientId.equals(clientId) &&
+                        currentTimeMillis - pollState.statusTime < statusTimeoutMillis &&
+                        currentTimeMillis <= pollState.expiryTime) {
+                    statusHits.increment();
+                    DeviceFlowDO deviceFlowDO = new DeviceFlowDO();
+                    deviceFlowDO.setDeviceCode(deviceCode);
+                    deviceFlowDO.setUserCode(pollState.userCode);
+                    deviceFlowDO.setStatus(pollState.status);
+                    deviceFlowDO.setLastPollTime(new Timestamp(pollState.lastPollTime));
+                    deviceFlowDO.setPollTime(pollState.pollTime);
+                    deviceFlowDO.setExpiryTime(new Timestamp(pollState.expiryTime));
+                    return deviceFlowDO;
+                }
+            }
+        }
+        statusMisses.increment();
+        return null;
+    }
+
+    /**
+     * Keep the status of a device code read from the database, if it is pending.
+     *
+     * @param deviceCode   Device code.
+     * @param clientId     Client id of the token request.
+     * @param deviceFlowDO Status details of the device code read from the database.
+     */
+    public void putStatus(String deviceCode, String clientId, DeviceFlowDO deviceFlowDO) {
+
+        if (!enabled || deviceCode == null || clientId == null || deviceFlowDO.getExpiryTime() == null ||
+                deviceFlowDO.getLastPollTime() == null) {
+            return;
+        }
+        boolean pending = Constants.PENDING.equals(deviceFlowDO.getStatus()) ||
+                Constants.USED.equals(deviceFlowDO.getStatus());
+        PollState pollState = pollStates.get(deviceCode);
+        if (pollState == null) {
+            if (!pending || !hasCapacity()) {
+                return;
+            }
+            pollState = pollStates.computeIfAbsent(deviceCode, key -> new PollState(clientId,
+                    deviceFlowDO.getUserCode(), deviceFlowDO.getExpiryTime().getTime()));
+            if (pollState.userCode != null) {
+                deviceCodesOfUserCodes.put(pollState.userCode, deviceCode);
+            }
+        }
+        synchronized (pollState) {
+            pollState.status = pending ? deviceFlowDO.getStatus() : null;
+            pollState.statusTime = System.currentTimeMillis();
+            pollState.pollTime = deviceFlowDO.getPollTime();
+            pollState.lastPollTime = Math.max(pollState.lastPollTime, deviceFlowDO.getLastPollTime().getTime());
+        }
+    }
+
+    /**
+     * Record a poll of a device code. The time of the last poll served by this node is set to the given device flow
+     * details if it is later than the one read from the database.
+     *
+     * @param deviceFlowDO Status details of the device code.
+     * @param pollTime     Time of the poll.
+     * @return False if the poll was not recorded, and the poll time has to be written to the database by the caller.
+     */
+    public boolean recordPoll(DeviceFlowDO deviceFlowDO, Timestamp pollTime) {
+
+        polls.increment();
+        PollState pollState = deviceFlowDO.getDeviceCode() == null ? null :
+                pollStates.get(deviceFlowDO.getDeviceCode());
+        if (pollState == null) {
+            return false;
+        }
+        synchronized (pollState) {
+            if (deviceFlowDO.getLastPollTime() == null ||
+                    pollState.lastPollTime > deviceFlowDO.getLastPollTime().getTime()) {
+                deviceFlowDO.setLastPollTime(new Timestamp(pollState.lastPollTime));
+            }
+            pollState.lastPollTime = Math.max(pollState.lastPollTime, pollTime.getTime());
+        }
+        return true;
+    }
+
+    public void recordSlowDown() {
+
+        slowDowns.increment();
+    }
+
+    /**
+     * Drop the cached status of the device code of a user code, as its status has changed.
+     *
+     * @param userCode User code.
+     */
+    public void invalidateStatus(String userCode) {
+
+        String deviceCode = userCode == null ? null : deviceCodesOfUserCodes.get(userCode);
+        PollState pollState = deviceCode == null ? null : pollStates.get(deviceCode);
+        if (pollState != null) {
+            synchronized (pollState) {
+                pollState.status = null;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Invalidated the cached polling status of the device code of user_code: " + userCode);
+            }
+        }
+    }
+
+    /**
+     * Remove the polling state of a device code which is no longer polled, as it is used or expired.
+     *
+     * @param deviceCode Device code.
+     */
+    public void remove(String deviceCode) {
+
+        PollState pollState = deviceCode == null ? null : pollStates.remove(deviceCode);
+        if (pollState != null && pollState.userCode != null) {
+            deviceCodesOfUserCodes.remove(pollState.userCode, deviceCode);
+        }
+    }
+
+    public long getPollCount() {
+
+        return polls.sum();
+    }
+
+    /**
+     * Get the number of polls answered with slow_down, as they were more frequent than the polling interval.
+     *
+     * @return Number of slow_down responses.
+     */
+    public long getSlowDownCount() {
+
+        return slowDowns.sum();
+    }
+
+    public long getStatusHitCount() {
+
+        return statusHits.sum();
+    }
+
+    public long getStatusMissCount() {
+
+        return statusMisses.sum();
+    }
+
+    public int size() {
+
+        return pollStates.size();
+    }
+
+    private boolean hasCapacity() {
+
+        if (pollStates.size() < capacity) {
+            return true;
+        }
+        long currentTimeMillis = System.currentTimeMillis();
+        for (Map.Entry<String, PollState> entry : pollStates.entrySet()) {
+            if (currentTimeMillis > entry.getValue().expiryTime) {
+                remove(entry.getKey());
+            }
+        }
+        if (pollStates.size() < capacity) {
+            return true;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Device flow poll state cache is full. The poll time is written to the database.");
+        }
+        return false;
+    }
+
+    /**
+     * Polling state of a device code, guarded by its own monitor.
+     */
+    private static class PollState {
+
+        private final String clientId;
+        private final String userCode;
+        private final long expiryTime;
+        private String status;
+        private long statusTime;
+        private long pollTime;
+        private long lastPollTime;
+
+        private PollState(String clientId, String userCode, long expiryTime) {
+
+            this.clientId = clientId;
+            this.userCode = userCode;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
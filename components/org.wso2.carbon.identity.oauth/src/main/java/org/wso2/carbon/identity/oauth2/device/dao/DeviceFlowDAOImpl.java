@@ -189,6 +189,7 @@ public class DeviceFlowDAOImpl implements DeviceFlowDAO {
                     userDomain = resultSet.getString(7);
                     authenticatedIDP = resultSet.getString(8);
                     scopes = getScopesForCodeId(resultSet.getString(9), connection);
+                    deviceFlowDO.setUserCode(resultSet.getString(10));
                     isMatchingDeviceCodeAndClientId = true;
                 }
                 if (isMatchingDeviceCodeAndClientId) {
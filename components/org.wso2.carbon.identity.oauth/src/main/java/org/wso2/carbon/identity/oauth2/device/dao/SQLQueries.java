@@ -52,7 +52,7 @@ public class SQLQueries {
                 "IDN_OAUTH2_DEVICE_FLOW.LAST_POLL_TIME, IDN_OAUTH2_DEVICE_FLOW.POLL_TIME, " +
                 "IDN_OAUTH2_DEVICE_FLOW.EXPIRY_TIME, IDN_OAUTH2_DEVICE_FLOW.AUTHZ_USER, " +
                 "IDN_OAUTH2_DEVICE_FLOW.TENANT_ID, IDN_OAUTH2_DEVICE_FLOW.USER_DOMAIN, IDP.NAME, " +
-                "IDN_OAUTH2_DEVICE_FLOW.CODE_ID FROM " +
+                "IDN_OAUTH2_DEVICE_FLOW.CODE_ID, IDN_OAUTH2_DEVICE_FLOW.USER_CODE FROM " +
                 "IDN_OAUTH2_DEVICE_FLOW LEFT JOIN IDP ON IDN_OAUTH2_DEVICE_FLOW.IDP_ID = IDP.ID INNER JOIN " +
                 "IDN_OAUTH_CONSUMER_APPS on IDN_OAUTH_CONSUMER_APPS.ID = IDN_OAUTH2_DEVICE_FLOW.CONSUMER_KEY_ID " +
                 "WHERE DEVICE_CODE = ? AND IDN_OAUTH_CONSUMER_APPS.CONSUMER_KEY = ?";
@@ -23,6 +23,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.device.cache.DeviceFlowPollStateCache;
 import org.wso2.carbon.identity.oauth2.device.constants.Constants;
 import org.wso2.carbon.identity.oauth2.device.dao.DeviceFlowPersistenceFactory;
 import org.wso2.carbon.identity.oauth2.device.errorcodes.DeviceErrorCodes;
@@ -64,8 +65,14 @@ public class DeviceFlowGrant extends AbstractAuthorizationGrantHandler {
             log.debug("Getting ready to release token for device_code: " + deviceCode);
         }
 
-        DeviceFlowDO deviceFlowDO = DeviceFlowPersistenceFactory.getInstance().getDeviceFlowDAO()
-                .getAuthenticationDetails(deviceCode, clientId);
+        // A pending status is served from the poll state cache for a short while, instead of reading it again.
+        DeviceFlowPollStateCache pollStateCache = DeviceFlowPollStateCache.getInstance();
+        DeviceFlowDO deviceFlowDO = pollStateCache.getStatus(deviceCode, clientId);
+        if (deviceFlowDO == null) {
+            deviceFlowDO = DeviceFlowPersistenceFactory.getInstance().getDeviceFlowDAO()
+                    .getAuthenticationDetails(deviceCode, clientId);
+            pollStateCache.putStatus(deviceCode, clientId, deviceFlowDO);
+        }
         Date date = new Date();
         deviceStatus = deviceFlowDO.getStatus();
         deviceFlowDO.setDeviceCode(deviceCode);
@@ -73,17 +80,22 @@ public class DeviceFlowGrant extends AbstractAuthorizationGrantHandler {
             throw new IdentityOAuth2Exception(DeviceErrorCodes.INVALID_REQUEST, DeviceErrorCodes.INVALID_REQUEST);
         }
         Timestamp newPollTime = new Timestamp(date.getTime());
-        DeviceFlowPersistenceFactory.getInstance().getDeviceFlowDAO().setLastPollTime(deviceCode, newPollTime);
+        if (!pollStateCache.recordPoll(deviceFlowDO, newPollTime)) {
+            DeviceFlowPersistenceFactory.getInstance().getDeviceFlowDAO().setLastPollTime(deviceCode, newPollTime);
+        }
         if (!isWithinValidPollInterval(newPollTime, deviceFlowDO)) {
+            pollStateCache.recordSlowDown();
             throw new IdentityOAuth2Exception(DeviceErrorCodes.SubDeviceErrorCodes.SLOW_DOWN,
                     DeviceErrorCodes.SubDeviceErrorCodesDescriptions.SLOW_DOWN);
         } else if (Constants.EXPIRED.equals(deviceStatus) || isExpiredDeviceCode(deviceFlowDO, date)) {
+            pollStateCache.remove(deviceCode);
             throw new IdentityOAuth2Exception(DeviceErrorCodes.SubDeviceErrorCodes.EXPIRED_TOKEN,
                     DeviceErrorCodes.SubDeviceErrorCodesDescriptions.EXPIRED_TOKEN);
         } else if (Constants.AUTHORIZED.equals(deviceStatus)) {
             authStatus = true;
             DeviceFlowPersistenceFactory.getInstance().getDeviceFlowDAO().setDeviceCodeExpired(deviceCode,
                     Constants.EXPIRED);
+            pollStateCache.remove(deviceCode);
             setPropertiesForTokenGeneration(oAuthTokenReqMessageContext, deviceFlowDO);
         } else if (Constants.USED.equals(deviceStatus) || Constants.PENDING.equals(deviceStatus)) {
             throw new IdentityOAuth2Exception(DeviceErrorCodes.SubDeviceErrorCodes.AUTHORIZATION_PENDING,
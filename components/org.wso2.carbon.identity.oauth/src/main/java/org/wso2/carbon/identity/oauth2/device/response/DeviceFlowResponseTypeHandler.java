@@ -27,6 +27,7 @@ import org.wso2.carbon.identity.oauth.dao.OAuthAppDO;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.authz.OAuthAuthzReqMessageContext;
 import org.wso2.carbon.identity.oauth2.authz.handlers.AbstractResponseTypeHandler;
+import org.wso2.carbon.identity.oauth2.device.cache.DeviceFlowPollStateCache;
 import org.wso2.carbon.identity.oauth2.device.constants.Constants;
 import org.wso2.carbon.identity.oauth2.device.dao.DeviceFlowPersistenceFactory;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2AuthorizeReqDTO;
@@ -57,6 +58,7 @@ public class DeviceFlowResponseTypeHandler extends AbstractResponseTypeHandler {
         String userCode = authzReqDTO.getNonce();
         DeviceFlowPersistenceFactory.getInstance().getDeviceFlowDAO().setAuthzUserAndStatus(userCode,
                 Constants.AUTHORIZED, authenticatedUser);
+        DeviceFlowPollStateCache.getInstance().invalidateStatus(userCode);
         OAuthAppDO oAuthAppDO = (OAuthAppDO) oauthAuthzMsgCtx.getProperty("OAuthAppDO");
         String redirectionURI = OAuth2Util.getDeviceFlowCompletionPageURI(oAuthAppDO.getApplicationName(),
                 oauthAuthzMsgCtx.getAuthorizationReqDTO().getTenantDomain());
@@ -66,6 +66,9 @@ import org.wso2.carbon.identity.oauth2.token.bindings.impl.CookieBasedTokenBinde
 import org.wso2.carbon.identity.oauth2.token.bindings.impl.DeviceFlowTokenBinder;
 import org.wso2.carbon.identity.oauth2.token.bindings.impl.SSOSessionBasedTokenBinder;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.oauth2.util.OAuthBackgroundJobExecutor;
+import org.wso2.carbon.identity.oauth2.util.OAuthScopeCachePreloader;
+import org.wso2.carbon.identity.oauth2.validators.TokenValidationHandler;
 import org.wso2.carbon.identity.oauth2.validators.scope.ScopeValidator;
 import org.wso2.carbon.identity.openidconnect.OpenIDConnectClaimFilter;
 import org.wso2.carbon.identity.openidconnect.OpenIDConnectClaimFilterImpl;
@@ -75,8 +78,10 @@ import org.wso2.carbon.identity.organization.management.role.management.service.
 import org.wso2.carbon.identity.organization.management.service.OrganizationUserResidentResolverService;
 import org.wso2.carbon.identity.user.store.configuration.listener.UserStoreConfigListener;
 import org.wso2.carbon.idp.mgt.IdpManager;
+import org.wso2.carbon.registry.core.exceptions.RegistryException;
 import org.wso2.carbon.registry.core.service.RegistryService;
 import org.wso2.carbon.stratos.common.listeners.TenantMgtListener;
+import org.wso2.carbon.utils.Axis2ConfigurationContextObserver;
 import org.wso2.carbon.utils.CarbonUtils;
 
 import java.io.File;
@@ -116,6 +121,7 @@ public class OAuth2ServiceComponent {
     private static final String DESCRIPTION = "description";
     private static final String PERMISSION = "Permission";
     private static final String CLAIM = "Claim";
+    private static final long PERSISTENCE_PIPELINE_SHUTDOWN_TIMEOUT_MILLIS = 30000;
     private BundleContext bundleContext;
 
     @Reference(
@@ -169,6 +175,12 @@ public class OAuth2ServiceComponent {
             }
             // iniating oauth scopes
             OAuth2Util.initiateOAuthScopePermissionsBindings(tenantId);
+            // Preload the scope caches of the super tenant now, and of the other tenants when they are loaded.
+            if (OAuthScopeCachePreloader.getInstance().isEnabled()) {
+                OAuthScopeCachePreloader.getInstance().preloadAsync(tenantId);
+                bundleContext.registerService(Axis2ConfigurationContextObserver.class.getName(),
+                        new OAuthScopeCachePreloadObserver(), null);
+            }
             // exposing server configuration as a service
             OAuthServerConfiguration oauthServerConfig = OAuthServerConfiguration.getInstance();
             bundleContext.registerService(OAuthServerConfiguration.class.getName(), oauthServerConfig, null);
@@ -269,6 +281,19 @@ public class OAuth2ServiceComponent {
                 log.debug("TokenBindingExpiryEventHandler is successfully registered.");
             }
 
+            // Clear the cached SP-token expiry time configurations of a tenant when the registry resource changes.
+            try {
+                SpTokenExpiryTimeConfigRegistryHandler.register(OAuth2ServiceComponentHolder.getRegistryService()
+                        .getConfigSystemRegistry().getRegistryContext().getHandlerManager());
+            } catch (RegistryException e) {
+                log.error("Error while registering the registry handler of the SP-token expiry time " +
+                        "configurations.", e);
+            }
+
+            // Start the asynchronous token persistence workers, if configured.
+            OAuthTokenPersistenceFactory.getInstance().getTokenPersistencePipeline().start();
+            OAuthTokenPersistenceFactory.getInstance().getAuthPersistencePipeline().start();
+
             // Registering OAuth2Service as a OSGIService
             bundleContext.registerService(OAuth2Service.class.getName(), new OAuth2Service(), null);
             // Registering OAuth2ScopeService as a OSGIService
@@ -319,6 +344,21 @@ public class OAuth2ServiceComponent {
         }
     }
 
+    protected void deactivate(ComponentContext context) {
+
+        // Drain the tokens and codes which are yet to be persisted.
+        OAuthTokenPersistenceFactory.getInstance().getTokenPersistencePipeline()
+                .shutdown(PERSISTENCE_PIPELINE_SHUTDOWN_TIMEOUT_MILLIS);
+        OAuthTokenPersistenceFactory.getInstance().getAuthPersistencePipeline()
+                .shutdown(PERSISTENCE_PIPELINE_SHUTDOWN_TIMEOUT_MILLIS);
+        OAuthBackgroundJobExecutor.getInstance().shutdown();
+        OAuthScopeCachePreloader.getInstance().shutdown();
+        TokenValidationHandler.getInstance().shutdown();
+        if (log.isDebugEnabled()) {
+            log.debug("Identity OAuth bundle is deactivated");
+        }
+    }
+
     /**
      * Set Application management service implementation
      *
@@ -60,6 +60,8 @@ import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 import org.wso2.carbon.identity.oauth2.model.AuthzCodeDO;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.oauth2.util.OAuthBackgroundJobExecutor;
+import org.wso2.carbon.identity.oauth2.util.OAuthBackgroundJobExecutor.JobStatus;
 
 import java.io.ByteArrayInputStream;
 import java.io.StringWriter;
@@ -204,7 +206,7 @@ public class OAuthApplicationMgtListener extends AbstractApplicationMgtListener
             }
             OAuth2ServiceComponentHolder.getInstance().getOAuthAdminService().removeOAuthApplicationData(consumerKey);
         }
-        removeEntriesFromCache(associatedOAuthConsumerKeys);
+        removeEntriesFromCache(associatedOAuthConsumerKeys, true);
     }
 
     public void onPreCreateInbound(ServiceProvider serviceProvider, boolean isUpdate) throws
@@ -427,41 +429,63 @@ public class OAuthApplicationMgtListener extends AbstractApplicationMgtListener
         }
     }
 
-    private void removeEntriesFromCache(Set<String> consumerKeys) throws IdentityOAuth2Exception {
-
-
+    /**
+     * Clears the cache entries of the given consumer keys, and of their tokens and authorization codes. The entries
+     * of the tokens and authorization codes are cleared by a background job, in parallel across the consumer keys.
+     *
+     * @param consumerKeys      Consumer keys.
+     * @param waitForCompletion Whether to wait until the entries of the tokens and authorization codes are cleared.
+     * @throws IdentityOAuth2Exception If the entries of the tokens and authorization codes of a consumer key could not
+     *                                 be cleared, when waiting for completion.
+     */
+    private void removeEntriesFromCache(Set<String> consumerKeys, boolean waitForCompletion)
+            throws IdentityOAuth2Exception {
 
         if (isNotEmpty(consumerKeys)) {
-            Set<AccessTokenDO> accessTokenDOSet = new HashSet<>();
-            Set<AuthzCodeDO> authzCodeDOSet = new HashSet<>();
-
             AppInfoCache appInfoCache = AppInfoCache.getInstance();
             for (String oauthKey : consumerKeys) {
-                accessTokenDOSet.addAll(OAuthTokenPersistenceFactory.getInstance()
-                        .getAccessTokenDAO().getActiveTokenSetWithTokenIdByConsumerKeyForOpenidScope(oauthKey));
-                authzCodeDOSet.addAll(OAuthTokenPersistenceFactory.getInstance()
-                        .getAuthorizationCodeDAO().getAuthorizationCodeDOSetByConsumerKeyForOpenidScope(oauthKey));
                 // Remove client credential from AppInfoCache
                 appInfoCache.clearCacheEntry(oauthKey);
                 OAuthCache.getInstance().clearCacheEntry(new OAuthCacheKey(oauthKey));
             }
 
-            if (isNotEmpty(accessTokenDOSet)) {
-                clearCacheEntriesAgainstToken(accessTokenDOSet);
+            JobStatus jobStatus = OAuthBackgroundJobExecutor.getInstance().submit("cache clearing of tokens and " +
+                    "authorization codes", consumerKeys, this::removeTokenAndAuthzCodeEntriesFromCache);
+            if (log.isDebugEnabled()) {
+                log.debug("Submitted job: " + jobStatus.getJobId() + " to clear the cache entries of the tokens and " +
+                        "authorization codes of " + consumerKeys.size() + " consumer keys.");
             }
-
-            if (isNotEmpty(authzCodeDOSet)) {
-                clearCacheEntriesAgainstAuthzCode(authzCodeDOSet);
+            if (waitForCompletion) {
+                jobStatus.awaitCompletion();
+                if (jobStatus.getFailedKeyCount() > 0) {
+                    throw new IdentityOAuth2Exception("Error while clearing the cache entries of the tokens and " +
+                            "authorization codes of " + jobStatus.getFailedKeyCount() + " consumer keys.");
+                }
             }
         }
     }
 
+    private void removeTokenAndAuthzCodeEntriesFromCache(String consumerKey) throws IdentityOAuth2Exception {
+
+        Set<AccessTokenDO> accessTokenDOSet = OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO()
+                .getActiveTokenSetWithTokenIdByConsumerKeyForOpenidScope(consumerKey);
+        if (isNotEmpty(accessTokenDOSet)) {
+            clearCacheEntriesAgainstToken(accessTokenDOSet);
+        }
+
+        Set<AuthzCodeDO> authzCodeDOSet = OAuthTokenPersistenceFactory.getInstance().getAuthorizationCodeDAO()
+                .getAuthorizationCodeDOSetByConsumerKeyForOpenidScope(consumerKey);
+        if (isNotEmpty(authzCodeDOSet)) {
+            clearCacheEntriesAgainstAuthzCode(authzCodeDOSet);
+        }
+    }
+
     private void removeEntriesFromCache(ServiceProvider serviceProvider,
                                         String tenantDomain) throws IdentityApplicationManagementException {
 
         Set<String> consumerKeys = getOAuthAppsAssociatedWithApplication(serviceProvider);
         try {
-            removeEntriesFromCache(consumerKeys);
+            removeEntriesFromCache(consumerKeys, false);
         } catch (IdentityOAuth2Exception e) {
             String applicationName = serviceProvider.getApplicationName();
             throw new IdentityApplicationManagementException("Error while clearing cache for oauth application data " +
@@ -588,24 +612,23 @@ public class OAuthApplicationMgtListener extends AbstractApplicationMgtListener
                 }
                 final int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
 
-                new Thread(() -> {
-                    InboundAuthenticationRequestConfig[] configs = serviceProvider.getInboundAuthenticationConfig()
-                            .getInboundAuthenticationRequestConfigs();
-                    for (InboundAuthenticationRequestConfig config : configs) {
-                        if (IdentityApplicationConstants.OAuth2.NAME
-                                .equalsIgnoreCase(config.getInboundAuthType()) &&
-                                config.getInboundAuthKey() != null) {
-                            String oauthKey = config.getInboundAuthKey();
-                            try {
-                                OAuthTokenPersistenceFactory.getInstance().getTokenManagementDAO()
-                                        .revokeSaaSTokensOfOtherTenants(oauthKey, tenantId);
-                            } catch (IdentityOAuth2Exception e) {
-                                log.error("Error occurred while revoking access tokens for client ID: "
-                                        + config.getInboundAuthKey() + " and tenant domain: " + tenantDomain, e);
-                            }
-                        }
+                Set<String> oauthKeys = new HashSet<>();
+                InboundAuthenticationRequestConfig[] configs = serviceProvider.getInboundAuthenticationConfig()
+                        .getInboundAuthenticationRequestConfigs();
+                for (InboundAuthenticationRequestConfig config : configs) {
+                    if (IdentityApplicationConstants.OAuth2.NAME.equalsIgnoreCase(config.getInboundAuthType()) &&
+                            config.getInboundAuthKey() != null) {
+                        oauthKeys.add(config.getInboundAuthKey());
                     }
-                }).start();
+                }
+                JobStatus jobStatus = OAuthBackgroundJobExecutor.getInstance().submit("SaaS token revocation of " +
+                        "other tenants for tenant domain: " + tenantDomain, oauthKeys, oauthKey ->
+                        OAuthTokenPersistenceFactory.getInstance().getTokenManagementDAO()
+                                .revokeSaaSTokensOfOtherTenants(oauthKey, tenantId));
+                if (log.isDebugEnabled()) {
+                    log.debug("Submitted job: " + jobStatus.getJobId() + " to revoke the tokens of other tenants " +
+                            "for application: " + serviceProvider.getApplicationName());
+                }
             }
         } finally {
             IdentityUtil.threadLocalProperties.get().remove(SAAS_PROPERTY);
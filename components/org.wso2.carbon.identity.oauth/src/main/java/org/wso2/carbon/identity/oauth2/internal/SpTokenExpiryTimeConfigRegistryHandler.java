@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.internal;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.registry.core.RegistryConstants;
+import org.wso2.carbon.registry.core.exceptions.RegistryException;
+import org.wso2.carbon.registry.core.jdbc.handlers.Handler;
+import org.wso2.carbon.registry.core.jdbc.handlers.HandlerLifecycleManager;
+import org.wso2.carbon.registry.core.jdbc.handlers.HandlerManager;
+import org.wso2.carbon.registry.core.jdbc.handlers.RequestContext;
+import org.wso2.carbon.registry.core.jdbc.handlers.filters.Filter;
+import org.wso2.carbon.registry.core.jdbc.handlers.filters.URLMatcher;
+import org.wso2.carbon.registry.core.session.CurrentSession;
+
+import java.util.regex.Pattern;
+
+/**
+ * Clears the cached SP-token expiry time configurations of a tenant when the
+ * {@link OAuthConstants#TOKEN_EXPIRE_TIME_RESOURCE_PATH} resource of the config registry of the tenant is updated or
+ * deleted. The handler runs in the commit phase, so the configurations are not reloaded before the update is
+ * committed.
+ */
+public class SpTokenExpiryTimeConfigRegistryHandler extends Handler {
+
+    private static final Log log = LogFactory.getLog(SpTokenExpiryTimeConfigRegistryHandler.class);
+
+    static final String RESOURCE_PATH = RegistryConstants.CONFIG_REGISTRY_BASE_PATH +
+            OAuthConstants.TOKEN_EXPIRE_TIME_RESOURCE_PATH;
+
+    /**
+     * Register the handler for the updates and the deletions of the SP-token expiry time configurations.
+     *
+     * @param handlerManager Handler manager of the registry.
+     */
+    public static void register(HandlerManager handlerManager) {
+
+        URLMatcher urlMatcher = new URLMatcher();
+        String pattern = Pattern.quote(RESOURCE_PATH);
+        urlMatcher.setPutPattern(pattern);
+        urlMatcher.setDeletePattern(pattern);
+        handlerManager.addHandler(new String[]{Filter.PUT, Filter.DELETE}, urlMatcher,
+                new SpTokenExpiryTimeConfigRegistryHandler(), HandlerLifecycleManager.COMMIT_HANDLER_PHASE);
+        if (log.isDebugEnabled()) {
+            log.debug("Registered the registry handler of the SP-token expiry time configurations at: " +
+                    RESOURCE_PATH);
+        }
+    }
+
+    @Override
+    public void put(RequestContext requestContext) throws RegistryException {
+
+        OAuth2Util.clearSpTokenExpiryTimeConfigs(CurrentSession.getTenantId());
+    }
+
+    @Override
+    public void delete(RequestContext requestContext) throws RegistryException {
+
+        OAuth2Util.clearSpTokenExpiryTimeConfigs(CurrentSession.getTenantId());
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.oltu.oauth2.common.exception.OAuthSystemException;
+import org.wso2.carbon.identity.base.IdentityConstants;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable index of the configured token issuers, used to resolve the issuer of a presented access token.
+ *
+ * The index is rebuilt only when the token issuer map of {@link OAuthServerConfiguration} changes. The issuers are
+ * tried in the same order and with the same alias resolution as before the index was introduced: the default JWT
+ * issuer, the default issuer and then the rest. The only issuers skipped are the ones using the alias of
+ * {@link JWTTokenIssuer} for tokens without a dot, as the jti of such a token can never be parsed. Issuers which
+ * produce the same alias for a token share a single lookup.
+ */
+public class OAuthTokenIssuerIndex {
+
+    private static final Log log = LogFactory.getLog(OAuthTokenIssuerIndex.class);
+    private static final OAuthTokenIssuerIndex instance = new OAuthTokenIssuerIndex();
+
+    private volatile Snapshot snapshot;
+
+    private OAuthTokenIssuerIndex() {
+
+    }
+
+    public static OAuthTokenIssuerIndex getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Find the access token issued by one of the configured token issuers.
+     *
+     * @param tokenIdentifier Presented access token.
+     * @param includeExpired  Whether to include expired tokens.
+     * @return Matching access token DO, or null if none of the issuers could resolve the token.
+     * @throws IdentityOAuth2Exception If an error occurred while retrieving the token.
+     */
+    public AccessTokenDO findAccessToken(String tokenIdentifier, boolean includeExpired)
+            throws IdentityOAuth2Exception {
+
+        Snapshot current = getSnapshot();
+        List<IssuerEntry> candidates = isDotless(tokenIdentifier) ? current.dotlessRoute : current.route;
+        Set<String> triedAliases = null;
+        for (IssuerEntry entry : candidates) {
+            String tokenAlias;
+            try {
+                // An issuer which can not parse the token is skipped, even if it does not use the alias.
+                tokenAlias = entry.issuer.getAccessTokenHash(tokenIdentifier);
+            } catch (OAuthSystemException e) {
+                entry.misses.incrementAndGet();
+                if (log.isDebugEnabled()) {
+                    if (IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.ACCESS_TOKEN)) {
+                        log.debug("Token issuer: " + entry.name + " was tried and failed to parse the received " +
+                                "token: " + tokenIdentifier);
+                    } else {
+                        log.debug("Token issuer: " + entry.name + " was tried and failed to parse the received " +
+                                "token.");
+                    }
+                }
+                continue;
+            }
+            if (!entry.issuer.usePersistedAccessTokenAlias()) {
+                tokenAlias = tokenIdentifier;
+            }
+
+            // Another issuer already looked up the same alias, which can not give a different result.
+            if (triedAliases == null) {
+                triedAliases = new HashSet<>();
+            }
+            if (!triedAliases.add(tokenAlias)) {
+                continue;
+            }
+
+            try {
+                AccessTokenDO accessTokenDO = OAuth2Util.getAccessTokenDOFromTokenIdentifier(tokenAlias,
+                        includeExpired);
+                if (accessTokenDO != null) {
+                    entry.hits.incrementAndGet();
+                    return accessTokenDO;
+                }
+                entry.misses.incrementAndGet();
+            } catch (IllegalArgumentException e) {
+                entry.misses.incrementAndGet();
+                if (log.isDebugEnabled()) {
+                    if (IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.ACCESS_TOKEN)) {
+                        log.debug("Token issuer: " + entry.name + " was tried and failed to get the token from " +
+                                "database: " + tokenIdentifier);
+                    } else {
+                        log.debug("Token issuer: " + entry.name + " was tried and failed to get the token from " +
+                                "database.");
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the number of tokens resolved through the given token issuer.
+     *
+     * @param tokenType Token type of the issuer.
+     * @return Number of hits.
+     */
+    public long getHitCount(String tokenType) {
+
+        IssuerEntry entry = getSnapshot().entries.get(tokenType);
+        return entry == null ? 0 : entry.hits.get();
+    }
+
+    /**
+     * Get the number of times the given token issuer was tried and could not resolve the token.
+     *
+     * @param tokenType Token type of the issuer.
+     * @return Number of misses.
+     */
+    public long getMissCount(String tokenType) {
+
+        IssuerEntry entry = getSnapshot().entries.get(tokenType);
+        return entry == null ? 0 : entry.misses.get();
+    }
+
+    private Snapshot getSnapshot() {
+
+        OAuthServerConfiguration config = OAuthServerConfiguration.getInstance();
+        Map<String, OauthTokenIssuer> issuers = config.getOauthTokenIssuerMap();
+        int version = config.getOauthTokenIssuerMapVersion();
+        Snapshot current = snapshot;
+        if (current == null || !current.isBuiltFrom(issuers, version)) {
+            current = new Snapshot(issuers, version, current);
+            snapshot = current;
+            if (log.isDebugEnabled()) {
+                log.debug("Token issuer index is rebuilt with the issuers: " + current.entries.keySet());
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Neither a JWS nor a JWE compact serialization can be without a dot.
+     */
+    private static boolean isDotless(String token) {
+
+        return token != null && token.indexOf('.') < 0;
+    }
+
+    /**
+     * Check whether the issuer uses the alias of {@link JWTTokenIssuer}, which fails for every token without a dot.
+     */
+    private static boolean usesJWTIDAlias(OauthTokenIssuer issuer) {
+
+        try {
+            return issuer.getClass().getMethod("getAccessTokenHash", String.class).getDeclaringClass() ==
+                    JWTTokenIssuer.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static class IssuerEntry {
+
+        private final String name;
+        private final OauthTokenIssuer issuer;
+        private final AtomicLong hits;
+        private final AtomicLong misses;
+
+        IssuerEntry(String name, OauthTokenIssuer issuer, IssuerEntry previous) {
+
+            this.name = name;
+            this.issuer = issuer;
+            // Keep the counters of an issuer across rebuilds.
+            this.hits = previous != null ? previous.hits : new AtomicLong();
+            this.misses = previous != null ? previous.misses : new AtomicLong();
+        }
+    }
+
+    private static class Snapshot {
+
+        private final Map<String, OauthTokenIssuer> source;
+        private final int version;
+        private final int size;
+        private final Map<String, IssuerEntry> entries;
+        private final List<IssuerEntry> route;
+        private final List<IssuerEntry> dotlessRoute;
+
+        Snapshot(Map<String, OauthTokenIssuer> issuers, int version, Snapshot previous) {
+
+            this.source = issuers;
+            this.version = version;
+            Map<String, OauthTokenIssuer> copy = issuers == null ? Collections.emptyMap() : new HashMap<>(issuers);
+            this.size = copy.size();
+
+            Map<String, IssuerEntry> entryMap = new HashMap<>();
+            for (Map.Entry<String, OauthTokenIssuer> issuer : copy.entrySet()) {
+                if (issuer.getValue() != null) {
+                    IssuerEntry previousEntry = previous != null ? previous.entries.get(issuer.getKey()) : null;
+                    entryMap.put(issuer.getKey(), new IssuerEntry(issuer.getKey(), issuer.getValue(),
+                            previousEntry));
+                }
+            }
+            this.entries = Collections.unmodifiableMap(entryMap);
+
+            IssuerEntry defaultJWTIssuer = entryMap.get(OAuthServerConfiguration.JWT_TOKEN_TYPE);
+            IssuerEntry defaultIssuer = entryMap.get(OAuthServerConfiguration.DEFAULT_TOKEN_TYPE);
+            List<IssuerEntry> route = new ArrayList<>();
+            addIfPresent(route, defaultJWTIssuer);
+            addIfPresent(route, defaultIssuer);
+            for (IssuerEntry entry : entryMap.values()) {
+                if (entry != defaultJWTIssuer && entry != defaultIssuer) {
+                    route.add(entry);
+                }
+            }
+            this.route = Collections.unmodifiableList(route);
+
+            List<IssuerEntry> dotlessRoute = new ArrayList<>();
+            for (IssuerEntry entry : route) {
+                if (!usesJWTIDAlias(entry.issuer)) {
+                    dotlessRoute.add(entry);
+                }
+            }
+            this.dotlessRoute = Collections.unmodifiableList(dotlessRoute);
+        }
+
+        boolean isBuiltFrom(Map<String, OauthTokenIssuer> issuers, int version) {
+
+            return source == issuers && this.version == version && size == (issuers == null ? 0 : issuers.size());
+        }
+
+        private static void addIfPresent(List<IssuerEntry> route, IssuerEntry entry) {
+
+            if (entry != null) {
+                route.add(entry);
+            }
+        }
+    }
+}
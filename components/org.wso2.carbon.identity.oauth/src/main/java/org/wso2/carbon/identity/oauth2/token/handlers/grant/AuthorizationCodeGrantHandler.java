@@ -37,6 +37,8 @@ import org.wso2.carbon.identity.oauth.dao.OAuthAppDO;
 import org.wso2.carbon.identity.oauth.event.OAuthEventInterceptor;
 import org.wso2.carbon.identity.oauth.internal.OAuthComponentServiceHolder;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.dao.AuthContextTokenDO;
+import org.wso2.carbon.identity.oauth2.dao.AuthPersistencePipeline;
 import org.wso2.carbon.identity.oauth2.dao.AuthorizationCodeValidationResult;
 import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2AccessTokenReqDTO;
@@ -503,9 +505,16 @@ public class AuthorizationCodeGrantHandler extends AbstractAuthorizationGrantHan
 
     private void markAsExpired(AuthzCodeDO authzCodeBean) throws IdentityOAuth2Exception {
 
-        OAuthTokenPersistenceFactory.getInstance().getAuthorizationCodeDAO()
-                .updateAuthorizationCodeState(authzCodeBean.getAuthorizationCode(),
-                        OAuthConstants.AuthorizationCodeState.EXPIRED);
+        AuthPersistencePipeline authPersistencePipeline =
+                OAuthTokenPersistenceFactory.getInstance().getAuthPersistencePipeline();
+        if (authPersistencePipeline.isEnabled()) {
+            // An expired code can not be used anymore, hence updating its state can be deferred.
+            authPersistencePipeline.enqueue(new AuthContextTokenDO(authzCodeBean.getAuthorizationCode()));
+        } else {
+            OAuthTokenPersistenceFactory.getInstance().getAuthorizationCodeDAO()
+                    .updateAuthorizationCodeState(authzCodeBean.getAuthorizationCode(),
+                            OAuthConstants.AuthorizationCodeState.EXPIRED);
+        }
         if (log.isDebugEnabled()) {
             log.debug("Changed state of authorization code : " + authzCodeBean.getAuthorizationCode() + " to expired");
         }
@@ -55,6 +55,7 @@ import org.wso2.carbon.identity.openidconnect.OIDCClaimUtil;
 import java.sql.Timestamp;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -85,7 +86,14 @@ public class RefreshGrantHandler extends AbstractAuthorizationGrantHandler {
                 .getTokenManagementDAO().validateRefreshToken(tokenReq.getClientId(), tokenReq.getRefreshToken());
 
         validatePersistedAccessToken(validationBean, tokenReq.getClientId());
-        validateRefreshTokenInRequest(tokenReq, validationBean);
+        if (isRotatedWithinGracePeriod(tokenReq, validationBean)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Refresh token of the client: " + tokenReq.getClientId() + " is being rotated by a " +
+                        "concurrent request.");
+            }
+        } else {
+            validateRefreshTokenInRequest(tokenReq, validationBean);
+        }
         validateTokenBindingReference(tokenReq, validationBean);
 
         if (log.isDebugEnabled()) {
@@ -112,8 +120,21 @@ public class RefreshGrantHandler extends AbstractAuthorizationGrantHandler {
             return handleError(OAuth2ErrorCodes.INVALID_GRANT, "Refresh token is expired.", tokenReq);
         }
 
-        AccessTokenDO accessTokenBean = createAccessTokenBean(tokReqMsgCtx, tokenReq, validationBean);
-        persistNewToken(tokReqMsgCtx, accessTokenBean, tokenReq.getClientId());
+        RefreshTokenRotationManager.Rotation rotation = RefreshTokenRotationManager.getInstance()
+                .startRotation(tokenReq.getClientId(), tokenReq.getRefreshToken());
+        if (!rotation.isOwner()) {
+            return issueRotatedToken(tokReqMsgCtx, rotation.getRotatedToken());
+        }
+        AccessTokenDO accessTokenBean;
+        try {
+            accessTokenBean = createAccessTokenBean(tokReqMsgCtx, tokenReq, validationBean);
+            if (!persistNewToken(tokReqMsgCtx, accessTokenBean, tokenReq.getClientId())) {
+                return handleError(OAuth2ErrorCodes.INVALID_GRANT, "Refresh token is already used.", tokenReq);
+            }
+            rotation.complete(accessTokenBean);
+        } finally {
+            rotation.fail();
+        }
         if (log.isDebugEnabled()) {
             log.debug("Persisted an access token for the refresh token, " +
                     "Client ID : " + tokenReq.getClientId() +
@@ -203,18 +224,10 @@ public class RefreshGrantHandler extends AbstractAuthorizationGrantHandler {
             log.debug("Evaluating refresh token. Token value: " + tokenReq.getRefreshToken() + ", Token state: " +
                     validationBean.getRefreshTokenState());
         }
-        if (!OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE.equals(validationBean.getRefreshTokenState())) {
-            // if refresh token is not in active state, check whether there is an access token
-            // issued with the same refresh token
-            List<AccessTokenDO> accessTokenBeans = getAccessTokenBeans(tokenReq, validationBean,
-                    getUserStoreDomain(validationBean.getAuthorizedUser()));
-            for (AccessTokenDO token : accessTokenBeans) {
-                if (tokenReq.getRefreshToken().equals(token.getRefreshToken())
-                        && (OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE.equals(token.getTokenState())
-                        || OAuthConstants.TokenStates.TOKEN_STATE_EXPIRED.equals(token.getTokenState()))) {
-                    return true;
-                }
-            }
+        // The validation data is of the latest token issued with the refresh token, hence the refresh token is the
+        // latest one of its user, client and scope if that token is still active or expired.
+        if (!OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE.equals(validationBean.getRefreshTokenState()) &&
+                !OAuthConstants.TokenStates.TOKEN_STATE_EXPIRED.equals(validationBean.getRefreshTokenState())) {
             if (log.isDebugEnabled()) {
                 log.debug("Refresh token: " + tokenReq.getRefreshToken() + " is not the latest");
             }
@@ -224,6 +237,37 @@ public class RefreshGrantHandler extends AbstractAuthorizationGrantHandler {
         return true;
     }
 
+    private boolean isRotatedWithinGracePeriod(OAuth2AccessTokenReqDTO tokenReq,
+                                               RefreshTokenValidationDataDO validationBean) {
+
+        return OAuthConstants.TokenStates.TOKEN_STATE_INACTIVE.equals(validationBean.getRefreshTokenState()) &&
+                RefreshTokenRotationManager.getInstance().isRotating(tokenReq.getClientId(),
+                        tokenReq.getRefreshToken());
+    }
+
+    /**
+     * Build the response of a duplicate request of a refresh token with the access token issued for the first request.
+     */
+    private OAuth2AccessTokenRespDTO issueRotatedToken(OAuthTokenReqMessageContext tokReqMsgCtx,
+                                                       AccessTokenDO rotatedToken) {
+
+        OAuth2AccessTokenReqDTO tokenReq = tokReqMsgCtx.getOauth2AccessTokenReqDTO();
+        if (rotatedToken == null) {
+            return handleError(OAuth2ErrorCodes.INVALID_GRANT, "Refresh token is already used.", tokenReq);
+        }
+        if (!new HashSet<>(Arrays.asList(ArrayUtils.nullToEmpty(rotatedToken.getScope()))).equals(
+                new HashSet<>(Arrays.asList(ArrayUtils.nullToEmpty(tokReqMsgCtx.getScope()))))) {
+            return handleError(OAuth2ErrorCodes.INVALID_GRANT, "Refresh token is already used for a different " +
+                    "scope.", tokenReq);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Returning the access token issued for a concurrent request of the refresh token of the " +
+                    "client: " + tokenReq.getClientId());
+        }
+        setTokenDataToMessageContext(tokReqMsgCtx, rotatedToken);
+        return buildTokenResponse(tokReqMsgCtx, rotatedToken);
+    }
+
     private void removeIfCached(OAuth2AccessTokenReqDTO tokenReq, RefreshTokenValidationDataDO validationBean)
             throws IdentityOAuth2Exception {
 
@@ -242,25 +286,6 @@ public class RefreshGrantHandler extends AbstractAuthorizationGrantHandler {
         }
     }
 
-    private List<AccessTokenDO> getAccessTokenBeans(OAuth2AccessTokenReqDTO tokenReq,
-                                                    RefreshTokenValidationDataDO validationBean,
-                                                    String userStoreDomain) throws IdentityOAuth2Exception {
-
-        List<AccessTokenDO> accessTokenBeans = OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO()
-                .getLatestAccessTokens(tokenReq.getClientId(), validationBean.getAuthorizedUser(), userStoreDomain,
-                        OAuth2Util.buildScopeString(validationBean.getScope()),
-                        validationBean.getTokenBindingReference(), true, LAST_ACCESS_TOKEN_RETRIEVAL_LIMIT);
-        if (accessTokenBeans == null || accessTokenBeans.isEmpty()) {
-            if (log.isDebugEnabled()) {
-                log.debug("No previous access tokens found. User: " + validationBean.getAuthorizedUser() +
-                        ", client: " + tokenReq.getClientId() + ", scope: " +
-                        OAuth2Util.buildScopeString(validationBean.getScope()));
-            }
-            throw new IdentityOAuth2Exception("No previous access tokens found");
-        }
-        return accessTokenBeans;
-    }
-
     private boolean validateRefreshTokenStatus(RefreshTokenValidationDataDO validationBean, String clientId)
             throws IdentityOAuth2Exception {
 
@@ -309,8 +334,8 @@ public class RefreshGrantHandler extends AbstractAuthorizationGrantHandler {
         return tokenResp;
     }
 
-    private void persistNewToken(OAuthTokenReqMessageContext tokReqMsgCtx, AccessTokenDO accessTokenBean,
-                                 String clientId) throws IdentityOAuth2Exception {
+    private boolean persistNewToken(OAuthTokenReqMessageContext tokReqMsgCtx, AccessTokenDO accessTokenBean,
+                                    String clientId) throws IdentityOAuth2Exception {
 
         String userStoreDomain = getUserStoreDomain(tokReqMsgCtx.getAuthorizedUser());
         RefreshTokenValidationDataDO oldAccessToken =
@@ -320,12 +345,21 @@ public class RefreshGrantHandler extends AbstractAuthorizationGrantHandler {
                 log.debug("Previous access token (hashed): " + DigestUtils.sha256Hex(oldAccessToken.getAccessToken()));
             }
         }
-        // set the previous access token state to "INACTIVE" and store new access token in single db connection
-        OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO()
-                .invalidateAndCreateNewAccessToken(oldAccessToken.getTokenId(),
+        // set the previous access token state to "INACTIVE" and store new access token in single db transaction,
+        // only if the previous access token is not invalidated by a concurrent request
+        boolean rotated = OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO()
+                .rotateAccessToken(oldAccessToken.getTokenId(),
                         OAuthConstants.TokenStates.TOKEN_STATE_INACTIVE, clientId,
                         UUID.randomUUID().toString(), accessTokenBean, userStoreDomain, oldAccessToken.getGrantType());
+        if (!rotated) {
+            if (log.isDebugEnabled()) {
+                log.debug("Previous access token of the client: " + clientId + " was invalidated by a concurrent " +
+                        "request.");
+            }
+            return false;
+        }
         updateCacheIfEnabled(tokReqMsgCtx, accessTokenBean, clientId, oldAccessToken);
+        return true;
     }
 
     private void updateCacheIfEnabled(OAuthTokenReqMessageContext tokReqMsgCtx, AccessTokenDO accessTokenBean,
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handlers.grant;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Keeps the refresh token rotations in progress and the ones completed within a short grace period, so that the
+ * duplicate requests made with the same refresh token, such as the concurrent refreshes of a mobile app, get the
+ * access token issued for the first request instead of an error.
+ *
+ * The first request of a refresh token owns its rotation. A duplicate request waits, for at most the grace period, for
+ * the rotation to complete and gets the same access token. A rotation which fails is dropped, so that it does not
+ * answer the later requests. The rotations are kept on each node, and the duplicate requests served by another node
+ * are rejected by the conditional update of the token state. A grace period of 0 disables the reuse of the rotations.
+ *
+ * The number of rotations kept is bounded. Rotations are kept in the order they were started in, and the rotations
+ * at the head which are past their grace period, and the oldest rotations when the capacity is reached, are evicted
+ * in constant time. The duplicate requests of an evicted rotation are rejected by the token state update as well.
+ */
+public class RefreshTokenRotationManager {
+
+    private static final Log log = LogFactory.getLog(RefreshTokenRotationManager.class);
+
+    private static final String GRACE_PERIOD = "OAuth.RefreshTokenRotation.GracePeriod";
+    private static final String CAPACITY = "OAuth.RefreshTokenRotation.Capacity";
+    private static final int DEFAULT_GRACE_PERIOD_MILLIS = 5000;
+    private static final int DEFAULT_CAPACITY = 10000;
+
+    private static volatile RefreshTokenRotationManager instance;
+
+    private final long gracePeriodMillis;
+    private final int capacity;
+    private final Map<String, RotatedToken> rotatedTokens = new LinkedHashMap<>();
+
+    RefreshTokenRotationManager(long gracePeriodMillis, int capacity) {
+
+        this.gracePeriodMillis = Math.max(gracePeriodMillis, 0);
+        this.capacity = Math.max(capacity, 0);
+    }
+
+    public static RefreshTokenRotationManager getInstance() {
+
+        if (instance == null) {
+            synchronized (RefreshTokenRotationManager.class) {
+                if (instance == null) {
+                    instance = new RefreshTokenRotationManager(
+                            OAuth2ConfigUtil.getIntProperty(GRACE_PERIOD, DEFAULT_GRACE_PERIOD_MILLIS),
+                            OAuth2ConfigUtil.getIntProperty(CAPACITY, DEFAULT_CAPACITY));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Start the rotation of a refresh token, or join the rotation of it which is in progress or completed within the
+     * grace period.
+     *
+     * @param clientId     Client id.
+     * @param refreshToken Refresh token in the request.
+     * @return Rotation of the refresh token, which is owned by the caller if no other request rotates the token.
+     */
+    public Rotation startRotation(String clientId, String refreshToken) {
+
+        RotatedToken rotatedToken = new RotatedToken();
+        if (gracePeriodMillis == 0 || capacity == 0) {
+            // The rotation is not shared, hence duplicate requests are rejected by the token state update.
+            return new Rotation(this, null, rotatedToken, true);
+        }
+        String key = getKey(clientId, refreshToken);
+        long currentTimeMillis = System.currentTimeMillis();
+        synchronized (rotatedTokens) {
+            RotatedToken existing = rotatedTokens.get(key);
+            if (existing != null && !isTimedOut(existing, currentTimeMillis)) {
+                return new Rotation(this, key, existing, false);
+            }
+            if (existing != null) {
+                rotatedTokens.remove(key);
+            }
+            evict(currentTimeMillis);
+            rotatedTokens.put(key, rotatedToken);
+        }
+        return new Rotation(this, key, rotatedToken, true);
+    }
+
+    /**
+     * Check whether a refresh token is being rotated, or was rotated within the grace period, by another request.
+     *
+     * @param clientId     Client id.
+     * @param refreshToken Refresh token in the request.
+     * @return true if a duplicate request of the refresh token would get the rotated access token.
+     */
+    public boolean isRotating(String clientId, String refreshToken) {
+
+        if (gracePeriodMillis == 0) {
+            return false;
+        }
+        RotatedToken rotatedToken;
+        synchronized (rotatedTokens) {
+            rotatedToken = rotatedTokens.get(getKey(clientId, refreshToken));
+        }
+        return rotatedToken != null && !isTimedOut(rotatedToken, System.currentTimeMillis());
+    }
+
+    public long getGracePeriodMillis() {
+
+        return gracePeriodMillis;
+    }
+
+    /**
+     * Get the number of rotations kept.
+     *
+     * @return Number of rotations.
+     */
+    public int size() {
+
+        synchronized (rotatedTokens) {
+            return rotatedTokens.size();
+        }
+    }
+
+    private void remove(String key, RotatedToken rotatedToken) {
+
+        if (key != null) {
+            synchronized (rotatedTokens) {
+                rotatedTokens.remove(key, rotatedToken);
+            }
+        }
+    }
+
+    /**
+     * Evict the rotations past their grace period, and the oldest rotations while the capacity is reached, from the
+     * head. Called while holding the monitor of the rotations.
+     *
+     * @param currentTimeMillis Current time.
+     */
+    private void evict(long currentTimeMillis) {
+
+        int evicted = 0;
+        for (Iterator<RotatedToken> iterator = rotatedTokens.values().iterator(); iterator.hasNext(); ) {
+            RotatedToken rotatedToken = iterator.next();
+            if (!isTimedOut(rotatedToken, currentTimeMillis) && rotatedTokens.size() < capacity) {
+                break;
+            }
+            iterator.remove();
+            evicted++;
+        }
+        if (evicted > 0 && log.isDebugEnabled()) {
+            log.debug("Evicted " + evicted + " refresh token rotations.");
+        }
+    }
+
+    private boolean isTimedOut(RotatedToken rotatedToken, long currentTimeMillis) {
+
+        long completedTime = rotatedToken.completedTime;
+        return completedTime > 0 && currentTimeMillis - completedTime >= gracePeriodMillis;
+    }
+
+    private static String getKey(String clientId, String refreshToken) {
+
+        // The refresh token is kept hashed, as the key outlives the request.
+        return clientId + ":" + DigestUtils.sha256Hex(refreshToken);
+    }
+
+    /**
+     * Rotation of a refresh token as seen by a request, which either owns the rotation or waits for its result.
+     */
+    public static final class Rotation {
+
+        private final RefreshTokenRotationManager manager;
+        private final String key;
+        private final RotatedToken rotatedToken;
+        private final boolean owner;
+
+        private Rotation(RefreshTokenRotationManager manager, String key, RotatedToken rotatedToken, boolean owner) {
+
+            this.manager = manager;
+            this.key = key;
+            this.rotatedToken = rotatedToken;
+            this.owner = owner;
+        }
+
+        public boolean isOwner() {
+
+            return owner;
+        }
+
+        /**
+         * Complete the rotation with the access token issued for the refresh token. Called by the owner.
+         *
+         * @param accessTokenDO Issued access token.
+         */
+        public void complete(AccessTokenDO accessTokenDO) {
+
+            if (owner && rotatedToken.token.complete(accessTokenDO)) {
+                rotatedToken.completedTime = System.currentTimeMillis();
+            }
+        }
+
+        /**
+         * Drop the rotation, as no access token was issued for the refresh token. Called by the owner. Does nothing
+         * if the rotation is already completed.
+         */
+        public void fail() {
+
+            if (owner && rotatedToken.token.complete(null)) {
+                manager.remove(key, rotatedToken);
+            }
+        }
+
+        /**
+         * Get the access token issued by the owner of the rotation, waiting for at most the grace period.
+         *
+         * @return Issued access token, or null if the rotation failed or did not complete within the grace period.
+         */
+        public AccessTokenDO getRotatedToken() {
+
+            try {
+                return rotatedToken.token.get(manager.gracePeriodMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | TimeoutException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Refresh token rotation did not complete within the grace period.", e);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Access token issued by a rotation, which is completed with null if the rotation fails.
+     */
+    private static class RotatedToken {
+
+        private final CompletableFuture<AccessTokenDO> token = new CompletableFuture<>();
+        private volatile long completedTime;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds the active access tokens which were retrieved ahead of their validation, for the current thread.
+ *
+ * Bulk token introspection retrieves the access tokens of a batch with a single query and sets them here, so that
+ * {@link OAuth2Util#getAccessTokenDOFromTokenIdentifier(String, boolean)} does not query the database again for
+ * each token. A prefetched identifier without an access token is known to not be active. The caller must
+ * {@link #clear()} the context once the batch is validated.
+ */
+public class AccessTokenPrefetchContext {
+
+    private static final ThreadLocal<Map<String, AccessTokenDO>> prefetchedAccessTokens = new ThreadLocal<>();
+
+    private AccessTokenPrefetchContext() {
+
+    }
+
+    /**
+     * Set the prefetched access tokens of the current thread.
+     *
+     * @param accessTokenIdentifiers Identifiers which were looked up.
+     * @param accessTokenDOs         Active access tokens found, by identifier.
+     */
+    public static void set(Collection<String> accessTokenIdentifiers, Map<String, AccessTokenDO> accessTokenDOs) {
+
+        Map<String, AccessTokenDO> prefetched = new HashMap<>();
+        for (String accessTokenIdentifier : accessTokenIdentifiers) {
+            prefetched.put(accessTokenIdentifier, accessTokenDOs.get(accessTokenIdentifier));
+        }
+        prefetchedAccessTokens.set(prefetched);
+    }
+
+    /**
+     * Check whether the access token identifier was looked up ahead.
+     *
+     * @param accessTokenIdentifier Access token identifier.
+     * @return True if the identifier was prefetched.
+     */
+    public static boolean isPrefetched(String accessTokenIdentifier) {
+
+        Map<String, AccessTokenDO> prefetched = prefetchedAccessTokens.get();
+        return prefetched != null && prefetched.containsKey(accessTokenIdentifier);
+    }
+
+    /**
+     * Take a prefetched access token. The identifier is removed from the context, so that a later lookup of the same
+     * identifier gets a fresh access token from the usual lookup.
+     *
+     * @param accessTokenIdentifier Access token identifier.
+     * @return Active access token, or null if the token is not active or was not prefetched.
+     */
+    public static AccessTokenDO take(String accessTokenIdentifier) {
+
+        Map<String, AccessTokenDO> prefetched = prefetchedAccessTokens.get();
+        return prefetched == null ? null : prefetched.remove(accessTokenIdentifier);
+    }
+
+    /**
+     * Remove the prefetched access tokens of the current thread.
+     */
+    public static void clear() {
+
+        prefetchedAccessTokens.remove();
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.oauth.OAuthUtil;
+import org.wso2.carbon.identity.oauth.cache.OAuthCache;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.dao.AccessTokenDAO;
+import org.wso2.carbon.identity.oauth2.dao.AuthorizationCodeDAO;
+import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.model.AuthzCodeDO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.wso2.carbon.identity.oauth.common.OAuthConstants.TokenBindings.NONE;
+
+/**
+ * Revokes the tokens of a tenant, or of a user for a client, in fixed size batches, without loading all the tokens
+ * to the memory.
+ *
+ * The ACTIVE and EXPIRED access tokens of the tenant are read page by page in the order of the token id, and each page
+ * is revoked as a single JDBC batch, after which the OAuth cache of the tenant is cleared. As a revoked token is no
+ * longer read, the revocation resumes from the tokens which are yet to be revoked when it is run again, such as after
+ * a node restart in the middle of the revocation.
+ */
+public class BulkTokenRevoker {
+
+    private static final Log log = LogFactory.getLog(BulkTokenRevoker.class);
+
+    private static final String BATCH_SIZE = "OAuth.TokenRevocation.BatchSize";
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static volatile BulkTokenRevoker instance;
+
+    private final int batchSize;
+
+    BulkTokenRevoker(int batchSize) {
+
+        this.batchSize = Math.max(batchSize, 1);
+    }
+
+    public static BulkTokenRevoker getInstance() {
+
+        if (instance == null) {
+            synchronized (BulkTokenRevoker.class) {
+                if (instance == null) {
+                    instance = new BulkTokenRevoker(OAuth2ConfigUtil.getIntProperty(BATCH_SIZE, DEFAULT_BATCH_SIZE));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Get the maximum number of tokens revoked by a single JDBC batch.
+     *
+     * @return Batch size.
+     */
+    public int getBatchSize() {
+
+        return batchSize;
+    }
+
+    /**
+     * Revoke the ACTIVE and EXPIRED access tokens of a tenant, and deactivate its latest authorization codes.
+     *
+     * @param tenantId Tenant id.
+     * @return Number of revoked access tokens.
+     * @throws IdentityOAuth2Exception If an error occurred while revoking the tokens.
+     */
+    public long revokeTokensOfTenant(int tenantId) throws IdentityOAuth2Exception {
+
+        return revokeTokensOfTenant(tenantId, OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO(),
+                OAuthTokenPersistenceFactory.getInstance().getAuthorizationCodeDAO());
+    }
+
+    long revokeTokensOfTenant(int tenantId, AccessTokenDAO accessTokenDAO, AuthorizationCodeDAO authorizationCodeDAO)
+            throws IdentityOAuth2Exception {
+
+        long revokedTokenCount = 0;
+        String lastTokenId = null;
+        List<AccessTokenDO> accessTokenDOs;
+        do {
+            accessTokenDOs = accessTokenDAO.getAccessTokensByTenant(tenantId, lastTokenId, batchSize);
+            if (accessTokenDOs.isEmpty()) {
+                break;
+            }
+            accessTokenDAO.revokeAccessTokens(accessTokenDOs.stream().map(AccessTokenDO::getAccessToken)
+                    .toArray(String[]::new), OAuth2Util.isHashEnabled());
+
+            revokedTokenCount += accessTokenDOs.size();
+            lastTokenId = accessTokenDOs.get(accessTokenDOs.size() - 1).getTokenId();
+            if (log.isDebugEnabled()) {
+                log.debug("Revoked " + revokedTokenCount + " access tokens of tenant id: " + tenantId +
+                        " up to token id: " + lastTokenId);
+            }
+        } while (accessTokenDOs.size() == batchSize);
+
+        List<AuthzCodeDO> latestAuthzCodes = authorizationCodeDAO.getLatestAuthorizationCodesByTenant(tenantId);
+        for (int from = 0; from < latestAuthzCodes.size(); from += batchSize) {
+            authorizationCodeDAO.deactivateAuthorizationCodes(latestAuthzCodes.subList(from,
+                    Math.min(from + batchSize, latestAuthzCodes.size())));
+        }
+        if (revokedTokenCount > 0 || !latestAuthzCodes.isEmpty()) {
+            // The token and authorization code entries of the tenant are cleared at once, instead of an entry per
+            // token or per code.
+            OAuthCache.getInstance().clear(tenantId);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Revoked " + revokedTokenCount + " access tokens and deactivated " + latestAuthzCodes.size() +
+                    " authorization codes of tenant id: " + tenantId);
+        }
+        return revokedTokenCount;
+    }
+
+    /**
+     * Revoke the ACTIVE and EXPIRED access tokens which a user has authorized for a client. The tokens are read page
+     * by page in the order of the token id, and the tokens of a page are revoked as a single JDBC batch. The OAuth
+     * cache entries of each token are cleared, as the cache of the tenant is shared with the other users.
+     *
+     * When hashing of the tokens is disabled, a token without a binding is the only token of its scope which can be
+     * active, so only the latest token of each such scope is revoked once all the pages are read.
+     *
+     * @param clientId             Client id.
+     * @param authenticatedUser    Authorized user.
+     * @param userStoreDomain      User store domain of the token partition, or null if the tokens are not partitioned.
+     * @param retainedBindingValue Binding value of a token which is not revoked, such as the token of the current
+     *                             session, or an empty string.
+     * @return Number of revoked access tokens.
+     * @throws IdentityOAuth2Exception If an error occurred while revoking the tokens.
+     */
+    public long revokeTokensOfUser(String clientId, AuthenticatedUser authenticatedUser, String userStoreDomain,
+                                   String retainedBindingValue) throws IdentityOAuth2Exception {
+
+        return revokeTokensOfUser(clientId, authenticatedUser, userStoreDomain, retainedBindingValue,
+                OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO());
+    }
+
+    long revokeTokensOfUser(String clientId, AuthenticatedUser authenticatedUser, String userStoreDomain,
+                            String retainedBindingValue, AccessTokenDAO accessTokenDAO)
+            throws IdentityOAuth2Exception {
+
+        boolean isHashDisabled = OAuth2Util.isHashDisabled();
+        Set<String> scopesOfUnboundTokens = new HashSet<>();
+        long revokedTokenCount = 0;
+        String lastTokenId = null;
+        List<AccessTokenDO> accessTokenDOs;
+        do {
+            accessTokenDOs = accessTokenDAO.getAccessTokens(clientId, authenticatedUser, userStoreDomain,
+                    lastTokenId, batchSize);
+            if (accessTokenDOs.isEmpty()) {
+                break;
+            }
+            List<AccessTokenDO> tokensToRevoke = new ArrayList<>();
+            for (AccessTokenDO accessTokenDO : accessTokenDOs) {
+                String tokenBindingReference = NONE;
+                boolean isBound = accessTokenDO.getTokenBinding() != null &&
+                        StringUtils.isNotBlank(accessTokenDO.getTokenBinding().getBindingReference());
+                if (isBound) {
+                    if (StringUtils.equals(accessTokenDO.getTokenBinding().getBindingValue(), retainedBindingValue)) {
+                        continue;
+                    }
+                    tokenBindingReference = accessTokenDO.getTokenBinding().getBindingReference();
+                }
+                String scope = OAuth2Util.buildScopeString(accessTokenDO.getScope());
+                OAuthUtil.clearOAuthCache(accessTokenDO.getConsumerKey(), accessTokenDO.getAuthzUser(), scope,
+                        tokenBindingReference);
+                OAuthUtil.clearOAuthCache(accessTokenDO.getConsumerKey(), accessTokenDO.getAuthzUser(), scope);
+                OAuthUtil.clearOAuthCache(accessTokenDO.getConsumerKey(), accessTokenDO.getAuthzUser());
+                OAuthUtil.clearOAuthCache(accessTokenDO);
+                if (isHashDisabled && !isBound) {
+                    scopesOfUnboundTokens.add(scope);
+                } else {
+                    tokensToRevoke.add(accessTokenDO);
+                }
+            }
+            revokeAccessTokens(tokensToRevoke, accessTokenDAO);
+            revokedTokenCount += tokensToRevoke.size();
+            lastTokenId = accessTokenDOs.get(accessTokenDOs.size() - 1).getTokenId();
+        } while (accessTokenDOs.size() == batchSize);
+
+        for (String scope : scopesOfUnboundTokens) {
+            AccessTokenDO latestAccessTokenDO = accessTokenDAO.getLatestAccessToken(clientId, authenticatedUser,
+                    authenticatedUser.getUserStoreDomain(), scope, true);
+            if (latestAccessTokenDO != null) {
+                revokeAccessTokens(Collections.singletonList(latestAccessTokenDO), accessTokenDAO);
+                revokedTokenCount++;
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Revoked " + revokedTokenCount + " access tokens of client: " + clientId + " authorized by " +
+                    "user: " + authenticatedUser.getLoggableUserId());
+        }
+        return revokedTokenCount;
+    }
+
+    private void revokeAccessTokens(List<AccessTokenDO> accessTokenDOs, AccessTokenDAO accessTokenDAO)
+            throws IdentityOAuth2Exception {
+
+        if (accessTokenDOs.isEmpty()) {
+            return;
+        }
+        for (AccessTokenDO accessTokenDO : accessTokenDOs) {
+            OAuthUtil.invokePreRevocationBySystemListeners(accessTokenDO, Collections.emptyMap());
+        }
+        accessTokenDAO.revokeAccessTokens(accessTokenDOs.stream().map(AccessTokenDO::getAccessToken)
+                .toArray(String[]::new), OAuth2Util.isHashEnabled());
+        for (AccessTokenDO accessTokenDO : accessTokenDOs) {
+            OAuthUtil.invokePostRevocationBySystemListeners(accessTokenDO, Collections.emptyMap());
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Keeps the client secrets which were verified against the processed secrets of the apps, so that a confidential
+ * client which authenticates repeatedly is not verified through the token persistence processor on every request.
+ *
+ * A verified secret is kept per client ID as an HMAC with a key generated on each node, hence the plain secret is
+ * not kept in memory, and is compared in constant time. An entry is only valid for the processed secret of the app it
+ * was verified against, so a secret rotated on any node takes effect once the app is read again, and is otherwise
+ * bounded by the configured timeout. The number of entries is bounded by the configured capacity. Entries are kept
+ * in the order they were verified in, which is also the order they time out in, so the timed out entries and the
+ * oldest entries of a full cache are evicted from the head in constant time.
+ */
+public class ClientSecretVerificationCache {
+
+    private static final Log log = LogFactory.getLog(ClientSecretVerificationCache.class);
+
+    private static final String ENABLE = "OAuth.ClientSecretVerificationCache.Enable";
+    private static final String TIMEOUT = "OAuth.ClientSecretVerificationCache.Timeout";
+    private static final String CAPACITY = "OAuth.ClientSecretVerificationCache.Capacity";
+    private static final int DEFAULT_TIMEOUT_SECONDS = 300;
+    private static final int DEFAULT_CAPACITY = 10000;
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int HMAC_KEY_LENGTH = 32;
+
+    private static volatile ClientSecretVerificationCache instance;
+
+    private final boolean enabled;
+    private final long timeoutMillis;
+    private final int capacity;
+    private final SecretKeySpec hmacKey;
+    private final ThreadLocal<Mac> macs;
+    private final Map<String, VerifiedSecret> verifiedSecrets = new LinkedHashMap<>();
+
+    ClientSecretVerificationCache(boolean enabled, long timeoutMillis, int capacity) {
+
+        this.enabled = enabled && capacity > 0;
+        this.timeoutMillis = Math.max(timeoutMillis, 0);
+        this.capacity = capacity;
+        byte[] key = new byte[HMAC_KEY_LENGTH];
+        new SecureRandom().nextBytes(key);
+        this.hmacKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::createMac);
+    }
+
+    public static ClientSecretVerificationCache getInstance() {
+
+        if (instance == null) {
+            synchronized (ClientSecretVerificationCache.class) {
+                if (instance == null) {
+                    String enable = IdentityUtil.getProperty(ENABLE);
+                    instance = new ClientSecretVerificationCache(StringUtils.isBlank(enable) ||
+                            Boolean.parseBoolean(enable.trim()),
+                            TimeUnit.SECONDS.toMillis(
+                                    OAuth2ConfigUtil.getIntProperty(TIMEOUT, DEFAULT_TIMEOUT_SECONDS)),
+                            OAuth2ConfigUtil.getIntProperty(CAPACITY, DEFAULT_CAPACITY));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Check whether a client secret was verified for a client against the current processed secret of the app.
+     *
+     * @param clientId        Client ID.
+     * @param clientSecret    Client secret presented by the client.
+     * @param processedSecret Processed secret of the app, as it is stored.
+     * @return true if the client secret was verified.
+     */
+    public boolean isVerified(String clientId, String clientSecret, String processedSecret) {
+
+        if (!enabled || clientId == null || clientSecret == null || processedSecret == null) {
+            return false;
+        }
+        VerifiedSecret verifiedSecret;
+        synchronized (verifiedSecrets) {
+            verifiedSecret = verifiedSecrets.get(clientId);
+            if (verifiedSecret == null) {
+                return false;
+            }
+            if (isTimedOut(verifiedSecret, System.currentTimeMillis()) ||
+                    !processedSecret.equals(verifiedSecret.processedSecret)) {
+                verifiedSecrets.remove(clientId);
+                return false;
+            }
+        }
+        return MessageDigest.isEqual(mac(clientSecret), verifiedSecret.mac);
+    }
+
+    /**
+     * Keep a client secret which was verified against the processed secret of the app.
+     *
+     * @param clientId        Client ID.
+     * @param clientSecret    Client secret presented by the client.
+     * @param processedSecret Processed secret of the app, as it is stored.
+     */
+    public void addVerified(String clientId, String clientSecret, String processedSecret) {
+
+        if (!enabled || clientId == null || clientSecret == null || processedSecret == null) {
+            return;
+        }
+        VerifiedSecret verifiedSecret = new VerifiedSecret(mac(clientSecret), processedSecret);
+        synchronized (verifiedSecrets) {
+            // The entry is added again so that it moves to the tail along with its new verified time.
+            verifiedSecrets.remove(clientId);
+            evict(verifiedSecret.verifiedTime);
+            verifiedSecrets.put(clientId, verifiedSecret);
+        }
+    }
+
+    /**
+     * Clear the verified secret of a client, such as when the secret of the app is regenerated.
+     *
+     * @param clientId Client ID.
+     */
+    public void clear(String clientId) {
+
+        if (clientId != null) {
+            synchronized (verifiedSecrets) {
+                verifiedSecrets.remove(clientId);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    /**
+     * Get the number of verified secrets kept.
+     *
+     * @return Number of verified secrets.
+     */
+    public int size() {
+
+        synchronized (verifiedSecrets) {
+            return verifiedSecrets.size();
+        }
+    }
+
+    private byte[] mac(String clientSecret) {
+
+        return macs.get().doFinal(clientSecret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac createMac() {
+
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(hmacKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            // HmacSHA256 is available in every Java platform.
+            throw new IllegalStateException("Error while initializing " + HMAC_ALGORITHM + ".", e);
+        }
+    }
+
+    /**
+     * Evict the timed out entries, and the oldest entries while the cache is full, from the head. Called while
+     * holding the monitor of the verified secrets.
+     *
+     * @param currentTimeMillis Current time.
+     */
+    private void evict(long currentTimeMillis) {
+
+        int evicted = 0;
+        for (Iterator<VerifiedSecret> iterator = verifiedSecrets.values().iterator(); iterator.hasNext(); ) {
+            VerifiedSecret verifiedSecret = iterator.next();
+            if (!isTimedOut(verifiedSecret, currentTimeMillis) && verifiedSecrets.size() < capacity) {
+                break;
+            }
+            iterator.remove();
+            evicted++;
+        }
+        if (evicted > 0 && log.isDebugEnabled()) {
+            log.debug("Evicted " + evicted + " entries from the client secret verification cache.");
+        }
+    }
+
+    private boolean isTimedOut(VerifiedSecret verifiedSecret, long currentTimeMillis) {
+
+        return currentTimeMillis - verifiedSecret.verifiedTime >= timeoutMillis;
+    }
+
+    /**
+     * HMAC of a verified client secret, with the processed secret of the app it was verified against.
+     */
+    private static class VerifiedSecret {
+
+        private final byte[] mac;
+        private final String processedSecret;
+        private final long verifiedTime = System.currentTimeMillis();
+
+        private VerifiedSecret(byte[] mac, String processedSecret) {
+
+            this.mac = mac;
+            this.processedSecret = processedSecret;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.util.Base64URL;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
+import org.wso2.carbon.identity.oauth2.keyidprovider.KeyIDProvider;
+
+import java.security.Key;
+import java.security.cert.Certificate;
+import java.security.interfaces.RSAPrivateKey;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local cache of the material used to sign JWTs with the key of a tenant.
+ *
+ * For each tenant, signature algorithm and "typ" header value, the cache holds a ready {@link JWSSigner}, the key
+ * id, the certificate thumbprint and the {@link JWSHeader} built from them. An entry is only used while the private
+ * key, the certificate and the {@link KeyIDProvider} it was built from are still the ones in effect.
+ *
+ * The keys and certificates are kept by {@link OAuth2Util} until they are cleared, and there is no notification of a
+ * key store change to clear them on. Hence the entries of a tenant expire after OAuth.JWTSigningKeyCacheTimeout
+ * seconds (default 900, 0 disables the expiry), when the keys and certificates of the tenant are cleared as well and
+ * read again from the key store. {@link #invalidate(int)} drops the entries of a tenant.
+ */
+public class JWSSigningMaterialCache {
+
+    private static final Log log = LogFactory.getLog(JWSSigningMaterialCache.class);
+
+    private static final String TIMEOUT = "OAuth.JWTSigningKeyCacheTimeout";
+    private static final int DEFAULT_TIMEOUT_SECONDS = 900;
+
+    private static volatile JWSSigningMaterialCache instance;
+
+    private final long timeoutMillis;
+    private final Map<Integer, TenantSigningMaterial> tenantSigningMaterial = new ConcurrentHashMap<>();
+
+    JWSSigningMaterialCache(long timeoutMillis) {
+
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public static JWSSigningMaterialCache getInstance() {
+
+        if (instance == null) {
+            synchronized (JWSSigningMaterialCache.class) {
+                if (instance == null) {
+                    int timeoutSeconds = OAuth2ConfigUtil.getIntProperty(TIMEOUT, DEFAULT_TIMEOUT_SECONDS);
+                    instance = new JWSSigningMaterialCache(TimeUnit.SECONDS.toMillis(Math.max(timeoutSeconds, 0)));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Get the signing material of the tenant for the given algorithm, building it if it is not cached or stale.
+     *
+     * @param tenantDomain       Tenant domain of the signing key.
+     * @param tenantId           Tenant id of the signing key.
+     * @param signatureAlgorithm JWS algorithm.
+     * @param type               Value of the "typ" header, or null if the header should not be set.
+     * @return Signing material.
+     * @throws IdentityOAuth2Exception If an error occurred while obtaining the key or the certificate.
+     */
+    public SigningMaterial getSigningMaterial(String tenantDomain, int tenantId, JWSAlgorithm signatureAlgorithm,
+                                              JOSEObjectType type) throws IdentityOAuth2Exception {
+
+        TenantSigningMaterial materialOfTenant = tenantSigningMaterial.get(tenantId);
+        if (materialOfTenant != null && materialOfTenant.isExpired(timeoutMillis)) {
+            if (log.isDebugEnabled()) {
+                log.debug("JWT signing material of the tenant: " + tenantDomain + " is expired. Reloading the " +
+                        "signing key and the certificate of the tenant.");
+            }
+            tenantSigningMaterial.remove(tenantId, materialOfTenant);
+            OAuth2Util.clearSigningKeyCache(tenantId);
+        }
+
+        Key privateKey = OAuth2Util.getPrivateKey(tenantDomain, tenantId);
+        Certificate certificate = OAuth2Util.getCertificate(tenantDomain, tenantId);
+        KeyIDProvider keyIDProvider = OAuth2ServiceComponentHolder.getKeyIDProvider();
+
+        materialOfTenant = tenantSigningMaterial.computeIfAbsent(tenantId, id -> new TenantSigningMaterial());
+        String key = type == null ? signatureAlgorithm.getName() : signatureAlgorithm.getName() + ":" + type;
+        SigningMaterial material = materialOfTenant.materials.get(key);
+        if (material == null || !material.isBuiltFrom(privateKey, certificate, keyIDProvider)) {
+            material = buildSigningMaterial(tenantDomain, tenantId, signatureAlgorithm, type, privateKey,
+                    certificate, keyIDProvider);
+            materialOfTenant.materials.put(key, material);
+        }
+        return material;
+    }
+
+    /**
+     * Remove the cached signing material of the tenant.
+     *
+     * @param tenantId Tenant id.
+     */
+    public void invalidate(int tenantId) {
+
+        if (tenantSigningMaterial.remove(tenantId) != null && log.isDebugEnabled()) {
+            log.debug("Cleared the JWT signing material of the tenant: " + tenantId);
+        }
+    }
+
+    private SigningMaterial buildSigningMaterial(String tenantDomain, int tenantId, JWSAlgorithm signatureAlgorithm,
+                                                 JOSEObjectType type, Key privateKey, Certificate certificate,
+                                                 KeyIDProvider keyIDProvider) throws IdentityOAuth2Exception {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Building the JWT signing material for the algorithm: " + signatureAlgorithm +
+                    " of the tenant: " + tenantDomain);
+        }
+        JWSSigner signer = OAuth2Util.createJWSSigner((RSAPrivateKey) privateKey);
+        String keyId = OAuth2Util.getKID(certificate, signatureAlgorithm, tenantDomain);
+        Base64URL thumbprint = new Base64URL(OAuth2Util.getThumbPrint(tenantDomain, tenantId));
+
+        JWSHeader.Builder headerBuilder = new JWSHeader.Builder(signatureAlgorithm);
+        headerBuilder.keyID(keyId);
+        if (type != null) {
+            headerBuilder.type(type);
+        }
+        headerBuilder.x509CertThumbprint(thumbprint);
+        return new SigningMaterial(privateKey, certificate, keyIDProvider, signer, keyId, thumbprint,
+                headerBuilder.build());
+    }
+
+    /**
+     * Signing material of a tenant, with the time its key and certificate were first used.
+     */
+    private static class TenantSigningMaterial {
+
+        private final long createdTime = System.currentTimeMillis();
+        private final Map<String, SigningMaterial> materials = new ConcurrentHashMap<>();
+
+        boolean isExpired(long timeoutMillis) {
+
+            return timeoutMillis > 0 && System.currentTimeMillis() - createdTime >= timeoutMillis;
+        }
+    }
+
+    /**
+     * Signer, key id, thumbprint and header for signing with the key of a tenant.
+     */
+    public static class SigningMaterial {
+
+        private final Key privateKey;
+        private final Certificate certificate;
+        private final KeyIDProvider keyIDProvider;
+        private final JWSSigner signer;
+        private final String keyId;
+        private final Base64URL thumbprint;
+        private final JWSHeader header;
+
+        SigningMaterial(Key privateKey, Certificate certificate, KeyIDProvider keyIDProvider, JWSSigner signer,
+                        String keyId, Base64URL thumbprint, JWSHeader header) {
+
+            this.privateKey = privateKey;
+            this.certificate = certificate;
+            this.keyIDProvider = keyIDProvider;
+            this.signer = signer;
+            this.keyId = keyId;
+            this.thumbprint = thumbprint;
+            this.header = header;
+        }
+
+        public JWSSigner getSigner() {
+
+            return signer;
+        }
+
+        public String getKeyId() {
+
+            return keyId;
+        }
+
+        public Base64URL getThumbprint() {
+
+            return thumbprint;
+        }
+
+        public JWSHeader getHeader() {
+
+            return header;
+        }
+
+        boolean isBuiltFrom(Key privateKey, Certificate certificate, KeyIDProvider keyIDProvider) {
+
+            return this.privateKey == privateKey && this.certificate == certificate &&
+                    this.keyIDProvider == keyIDProvider;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationManagementUtil;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local, in memory cache of the JWT access tokens whose signature was verified, and of the material used to verify
+ * them.
+ *
+ * A verified token is keyed by the SHA-256 digest of its serialized form and the tenant it was verified in. An entry
+ * lives until the token expires, and no longer than the configured timeout, and the number of entries is bounded.
+ * An entry only records that the signature of the token is valid, which a revocation does not change. The state of
+ * the token is read by the token validation handler on every validation, hence a revoked token is rejected even
+ * when its signature verification is cached. The decoded identity provider certificates and the signature verifiers
+ * of their public keys are kept as well, keyed by the certificate and the key, so that a certificate rotation is
+ * picked up on the next verification.
+ */
+public class JWTVerificationCache {
+
+    private static final Log log = LogFactory.getLog(JWTVerificationCache.class);
+
+    private static final String ENABLE = "OAuth.JWTVerificationCache.Enable";
+    private static final String CAPACITY = "OAuth.JWTVerificationCache.Capacity";
+    private static final String TIMEOUT = "OAuth.JWTVerificationCache.Timeout";
+    private static final int DEFAULT_CAPACITY = 10000;
+    private static final int DEFAULT_TIMEOUT_SECONDS = 300;
+    private static final int MAX_VERIFICATION_MATERIAL = 100;
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static volatile JWTVerificationCache instance;
+
+    private final boolean enabled;
+    private final int capacity;
+    private final long timeoutMillis;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, X509Certificate> certificates = new ConcurrentHashMap<>();
+    private final Map<RSAPublicKey, JWSVerifier> verifiers = new ConcurrentHashMap<>();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    JWTVerificationCache(boolean enabled, int capacity, long timeoutMillis) {
+
+        this.enabled = enabled && capacity > 0 && timeoutMillis > 0;
+        this.capacity = capacity;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public static JWTVerificationCache getInstance() {
+
+        if (instance == null) {
+            synchronized (JWTVerificationCache.class) {
+                if (instance == null) {
+                    String enable = IdentityUtil.getProperty(ENABLE);
+                    instance = new JWTVerificationCache(StringUtils.isBlank(enable) || Boolean.parseBoolean(enable),
+                            OAuth2ConfigUtil.getIntProperty(CAPACITY, DEFAULT_CAPACITY),
+                            OAuth2ConfigUtil.getIntProperty(TIMEOUT, DEFAULT_TIMEOUT_SECONDS) * 1000L);
+                }
+            }
+        }
+        return instance;
+    }
+
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    /**
+     * Get the claims of a JWT whose signature was verified in the given tenant.
+     *
+     * @param jwt          Serialized JWT.
+     * @param tenantDomain Tenant domain the JWT is validated in.
+     * @return Claims of the verified JWT, or null if the JWT is not cached.
+     */
+    public JWTClaimsSet getVerifiedClaims(String jwt, String tenantDomain) {
+
+        if (!enabled || jwt == null) {
+            return null;
+        }
+        String key = getKey(jwt);
+        Entry entry = key == null ? null : entries.get(key);
+        if (entry != null) {
+            if (entry.expiryTime < System.currentTimeMillis()) {
+                entries.remove(key, entry);
+            } else if (StringUtils.equals(entry.tenantDomain, tenantDomain)) {
+                hitCount.incrementAndGet();
+                return entry.claimsSet;
+            }
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Record that the signature of a JWT was verified in the given tenant.
+     *
+     * @param jwt          Serialized JWT.
+     * @param tenantDomain Tenant domain the JWT was validated in.
+     * @param claimsSet    Claims of the JWT.
+     */
+    public void addVerified(String jwt, String tenantDomain, JWTClaimsSet claimsSet) {
+
+        if (!enabled || jwt == null || claimsSet == null || claimsSet.getExpirationTime() == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long expiryTime = Math.min(claimsSet.getExpirationTime().getTime(), now + timeoutMillis);
+        String key = getKey(jwt);
+        if (key == null || expiryTime <= now) {
+            return;
+        }
+        if (entries.size() >= capacity) {
+            evict();
+        }
+        entries.put(key, new Entry(tenantDomain, claimsSet, expiryTime));
+    }
+
+    /**
+     * Get the decoded form of an identity provider certificate.
+     *
+     * @param encodedCertificate Certificate of the identity provider.
+     * @return Decoded certificate.
+     * @throws CertificateException If the certificate could not be decoded.
+     */
+    public X509Certificate getDecodedCertificate(String encodedCertificate) throws CertificateException {
+
+        X509Certificate certificate = certificates.get(encodedCertificate);
+        if (certificate == null) {
+            certificate = (X509Certificate) IdentityApplicationManagementUtil.decodeCertificate(encodedCertificate);
+            if (certificates.size() >= MAX_VERIFICATION_MATERIAL) {
+                certificates.clear();
+            }
+            certificates.put(encodedCertificate, certificate);
+        }
+        return certificate;
+    }
+
+    /**
+     * Get the signature verifier of an RSA public key.
+     *
+     * @param publicKey RSA public key.
+     * @return Signature verifier.
+     */
+    public JWSVerifier getRSAVerifier(RSAPublicKey publicKey) {
+
+        JWSVerifier verifier = verifiers.get(publicKey);
+        if (verifier == null) {
+            verifier = new RSASSAVerifier(publicKey);
+            if (verifiers.size() >= MAX_VERIFICATION_MATERIAL) {
+                verifiers.clear();
+            }
+            verifiers.put(publicKey, verifier);
+        }
+        return verifier;
+    }
+
+    /**
+     * Remove all entries from the cache.
+     */
+    public void clear() {
+
+        entries.clear();
+        certificates.clear();
+        verifiers.clear();
+    }
+
+    public long getHitCount() {
+
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+
+        return missCount.get();
+    }
+
+    public int getSize() {
+
+        return entries.size();
+    }
+
+    /**
+     * Remove the expired entries, and if the cache is still full, a tenth of the remaining entries.
+     */
+    private void evict() {
+
+        long now = System.currentTimeMillis();
+        int toEvict = Math.max(1, capacity / 10);
+        int evicted = 0;
+        for (Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<String, Entry> entry = iterator.next();
+            if (entry.getValue().expiryTime < now || entries.size() >= capacity && evicted < toEvict) {
+                iterator.remove();
+                evicted++;
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Evicted " + evicted + " entries from the JWT verification cache.");
+        }
+    }
+
+    private static String getKey(String jwt) {
+
+        try {
+            byte[] digest = MessageDigest.getInstance(DIGEST_ALGORITHM).digest(jwt.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            log.error("Error while computing the digest of a JWT. The JWT verification is not cached.", e);
+            return null;
+        }
+    }
+
+    private static class Entry {
+
+        private final String tenantDomain;
+        private final JWTClaimsSet claimsSet;
+        private final long expiryTime;
+
+        Entry(String tenantDomain, JWTClaimsSet claimsSet, long expiryTime) {
+
+            this.tenantDomain = tenantDomain;
+            this.claimsSet = claimsSet;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
@@ -26,7 +26,6 @@ import com.nimbusds.jose.JWEEncrypter;
 import com.nimbusds.jose.JWEHeader;
 import com.nimbusds.jose.JWEObject;
 import com.nimbusds.jose.JWSAlgorithm;
-import com.nimbusds.jose.JWSHeader;
 import com.nimbusds.jose.JWSSigner;
 import com.nimbusds.jose.JWSVerifier;
 import com.nimbusds.jose.Payload;
@@ -86,10 +85,13 @@ import org.wso2.carbon.identity.core.util.IdentityCoreConstants;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.oauth.IdentityOAuthAdminException;
+import org.wso2.carbon.identity.oauth.cache.AccessTokenNegativeCache;
 import org.wso2.carbon.identity.oauth.cache.AppInfoCache;
 import org.wso2.carbon.identity.oauth.cache.CacheEntry;
 import org.wso2.carbon.identity.oauth.cache.OAuthCache;
 import org.wso2.carbon.identity.oauth.cache.OAuthCacheKey;
+import org.wso2.carbon.identity.oauth.cache.SpTokenExpiryTimeConfigCache;
+import org.wso2.carbon.identity.oauth.cache.SpTokenExpiryTimeConfigCacheEntry;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth.common.exception.InvalidOAuthClientException;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
@@ -120,6 +122,7 @@ import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 import org.wso2.carbon.identity.oauth2.model.ClientCredentialDO;
 import org.wso2.carbon.identity.oauth2.token.JWTTokenIssuer;
+import org.wso2.carbon.identity.oauth2.token.OAuthTokenIssuerIndex;
 import org.wso2.carbon.identity.oauth2.token.OAuthTokenReqMessageContext;
 import org.wso2.carbon.identity.oauth2.token.OauthTokenIssuer;
 import org.wso2.carbon.identity.oauth2.token.bindings.TokenBinder;
@@ -496,7 +499,7 @@ public class OAuth2Util {
         boolean isHashDisabled = isHashDisabled();
         String appClientSecret = appDO.getOauthConsumerSecret();
         if (isHashDisabled) {
-            if (!StringUtils.equals(appClientSecret, clientSecretProvided)) {
+            if (!isEqualInConstantTime(appClientSecret, clientSecretProvided)) {
                 if (log.isDebugEnabled()) {
                     log.debug("Provided the Client ID : " + clientId +
                             " and Client Secret do not match with the issued credentials.");
@@ -504,16 +507,21 @@ public class OAuth2Util {
                 return false;
             }
         } else {
-            TokenPersistenceProcessor persistenceProcessor = getPersistenceProcessor();
-            // We convert the provided client_secret to the processed form stored in the DB.
-            String processedProvidedClientSecret = persistenceProcessor.getProcessedClientSecret(clientSecretProvided);
-
-            if (!StringUtils.equals(appClientSecret, processedProvidedClientSecret)) {
-                if (log.isDebugEnabled()) {
-                    log.debug("Provided the Client ID : " + clientId +
-                            " and Client Secret do not match with the issued credentials.");
+            ClientSecretVerificationCache verificationCache = ClientSecretVerificationCache.getInstance();
+            if (!verificationCache.isVerified(clientId, clientSecretProvided, appClientSecret)) {
+                TokenPersistenceProcessor persistenceProcessor = getPersistenceProcessor();
+                // We convert the provided client_secret to the processed form stored in the DB.
+                String processedProvidedClientSecret =
+                        persistenceProcessor.getProcessedClientSecret(clientSecretProvided);
+
+                if (!isEqualInConstantTime(appClientSecret, processedProvidedClientSecret)) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Provided the Client ID : " + clientId +
+                                " and Client Secret do not match with the issued credentials.");
+                    }
+                    return false;
                 }
-                return false;
+                verificationCache.addVerified(clientId, clientSecretProvided, appClientSecret);
             }
         }
 
@@ -524,6 +532,22 @@ public class OAuth2Util {
         return true;
     }
 
+    /**
+     * Compare two secrets in a time which does not depend on the position of the first difference.
+     *
+     * @param secret      Secret.
+     * @param otherSecret Secret to compare with.
+     * @return true if both secrets are equal, or both are null.
+     */
+    private static boolean isEqualInConstantTime(String secret, String otherSecret) {
+
+        if (secret == null || otherSecret == null) {
+            return secret == null && otherSecret == null;
+        }
+        return MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8),
+                otherSecret.getBytes(StandardCharsets.UTF_8));
+    }
+
     public static TokenPersistenceProcessor getPersistenceProcessor() {
 
         TokenPersistenceProcessor persistenceProcessor;
@@ -1801,8 +1825,22 @@ public class OAuth2Util {
 
         // cache miss, load the access token info from the database.
         if (accessTokenDO == null) {
-            accessTokenDO = OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO()
-                    .getAccessToken(accessTokenIdentifier, includeExpired);
+            AccessTokenNegativeCache negativeCache = AccessTokenNegativeCache.getInstance();
+            if (!includeExpired && AccessTokenPrefetchContext.isPrefetched(accessTokenIdentifier)) {
+                accessTokenDO = AccessTokenPrefetchContext.take(accessTokenIdentifier);
+            } else {
+                if (negativeCache.isNotFound(accessTokenIdentifier, includeExpired)) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Hit AccessTokenNegativeCache for the access token identifier.");
+                    }
+                    throw new IllegalArgumentException(ACCESS_TOKEN_IS_NOT_ACTIVE_ERROR_MESSAGE);
+                }
+                accessTokenDO = OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO()
+                        .getAccessToken(accessTokenIdentifier, includeExpired);
+            }
+            if (accessTokenDO == null) {
+                negativeCache.addNotFound(accessTokenIdentifier, includeExpired);
+            }
         } else {
             if (log.isDebugEnabled()) {
                 log.debug("Retrieved active access token from OAuthCache for token Identifier: " +
@@ -1863,100 +1901,178 @@ public class OAuth2Util {
     @Deprecated
     public static SpOAuth2ExpiryTimeConfiguration getSpTokenExpiryTimeConfig(String consumerKey, int tenantId) {
 
-        SpOAuth2ExpiryTimeConfiguration spTokenTimeObject = new SpOAuth2ExpiryTimeConfiguration();
-        try {
-            if (log.isDebugEnabled()) {
-                log.debug("SP wise token expiry time feature is applied for tenant id : " + tenantId
-                        + "and consumer key : " + consumerKey);
+        if (log.isDebugEnabled()) {
+            log.debug("SP wise token expiry time feature is applied for tenant id : " + tenantId
+                    + "and consumer key : " + consumerKey);
+        }
+        // The configurations of the tenant are read from the registry once, and are kept in the
+        // SpTokenExpiryTimeConfigCache, which is cleared by SpTokenExpiryTimeConfigRegistryHandler when the registry
+        // resource is updated or deleted.
+        SpTokenExpiryTimeConfigCacheEntry expiryTimeConfigs =
+                SpTokenExpiryTimeConfigCache.getInstance().getExpiryTimeConfigs(tenantId);
+        if (expiryTimeConfigs == null) {
+            expiryTimeConfigs = loadSpTokenExpiryTimeConfigs(tenantId);
+            if (expiryTimeConfigs == null) {
+                return new SpOAuth2ExpiryTimeConfiguration();
             }
+            SpTokenExpiryTimeConfigCache.getInstance().addExpiryTimeConfigs(tenantId, expiryTimeConfigs);
+        }
+        return expiryTimeConfigs.getExpiryTimeConfig(consumerKey);
+    }
+
+    /**
+     * Clear the cached SP-token expiry time configurations of a tenant, in all the nodes of the cluster.
+     *
+     * This is called by the registry handler of the {@link OAuthConstants#TOKEN_EXPIRE_TIME_RESOURCE_PATH} resource
+     * when the resource of the tenant is updated or deleted.
+     *
+     * @param tenantId Tenant id.
+     */
+    public static void clearSpTokenExpiryTimeConfigs(int tenantId) {
+
+        SpTokenExpiryTimeConfigCache.getInstance().clearExpiryTimeConfigs(tenantId);
+        if (log.isDebugEnabled()) {
+            log.debug("SP wise token expiry time configurations are cleared for tenant id : " + tenantId);
+        }
+    }
+
+    /**
+     * Read the SP-token expiry time configurations of all the service providers of a tenant from the registry.
+     *
+     * @param tenantId Tenant id.
+     * @return Configurations of the tenant, or null if they could not be read.
+     */
+    private static SpTokenExpiryTimeConfigCacheEntry loadSpTokenExpiryTimeConfigs(int tenantId) {
+
+        Map<String, SpOAuth2ExpiryTimeConfiguration> expiryTimeConfigs = new HashMap<>();
+        try {
             IdentityTenantUtil.initializeRegistry(tenantId, getTenantDomain(tenantId));
             Registry registry = IdentityTenantUtil.getConfigRegistry(tenantId);
             if (registry.resourceExists(OAuthConstants.TOKEN_EXPIRE_TIME_RESOURCE_PATH)) {
                 Resource resource = registry.get(OAuthConstants.TOKEN_EXPIRE_TIME_RESOURCE_PATH);
-                String jsonString = "{}";
-                Object consumerKeyObject = resource.getProperties().get(consumerKey);
-                if (consumerKeyObject instanceof List) {
-                    if (!((List) consumerKeyObject).isEmpty()) {
-                        jsonString = ((List) consumerKeyObject).get(0).toString();
-                    }
-                }
-                JSONObject spTimeObject = new JSONObject(jsonString);
-                if (spTimeObject.length() > 0) {
-                    if (spTimeObject.has(USER_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS) &&
-                            !spTimeObject.isNull(USER_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS)) {
-                        try {
-                            spTokenTimeObject.setUserAccessTokenExpiryTime(Long.parseLong(spTimeObject
-                                    .get(USER_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString()));
-                            if (log.isDebugEnabled()) {
-                                log.debug("The user access token expiry time :" + spTimeObject
-                                        .get(USER_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString() +
-                                        "  for application id : " + consumerKey);
-                            }
-                        } catch (NumberFormatException e) {
-                            String errorMsg = String.format(
-                                    "Invalid value provided as user access token expiry time for consumer " +
-                                            "key %s, tenant id : %d. Given value: %s, Expected a long value",
-                                    consumerKey, tenantId,
-                                    spTimeObject.get(USER_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString());
-                            log.error(errorMsg, e);
-                        }
-                    } else {
-                        spTokenTimeObject.setUserAccessTokenExpiryTime(OAuthServerConfiguration.getInstance()
-                                .getUserAccessTokenValidityPeriodInSeconds() * 1000);
-                    }
-
-                    if (spTimeObject.has(APPLICATION_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS) &&
-                            !spTimeObject.isNull(APPLICATION_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS)) {
-                        try {
-                            spTokenTimeObject.setApplicationAccessTokenExpiryTime(Long.parseLong(spTimeObject
-                                    .get(APPLICATION_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString()));
-                            if (log.isDebugEnabled()) {
-                                log.debug("The application access token expiry time :" + spTimeObject
-                                        .get(APPLICATION_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString() +
-                                        "  for application id : " + consumerKey);
-                            }
-                        } catch (NumberFormatException e) {
-                            String errorMsg = String.format(
-                                    "Invalid value provided as application access token expiry time for consumer " +
-                                            "key %s, tenant id : %d. Given value: %s, Expected a long value ",
-                                    consumerKey, tenantId,
-                                    spTimeObject.get(APPLICATION_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString());
-                            log.error(errorMsg, e);
-                        }
-                    } else {
-                        spTokenTimeObject.setApplicationAccessTokenExpiryTime(OAuthServerConfiguration.getInstance()
-                                .getApplicationAccessTokenValidityPeriodInSeconds() * 1000);
-                    }
-
-                    if (spTimeObject.has(REFRESH_TOKEN_EXP_TIME_IN_MILLISECONDS) &&
-                            !spTimeObject.isNull(REFRESH_TOKEN_EXP_TIME_IN_MILLISECONDS)) {
-                        try {
-                            spTokenTimeObject.setRefreshTokenExpiryTime(Long.parseLong(spTimeObject
-                                    .get(REFRESH_TOKEN_EXP_TIME_IN_MILLISECONDS).toString()));
-                            if (log.isDebugEnabled()) {
-                                log.debug("The refresh token expiry time :" + spTimeObject
-                                        .get(REFRESH_TOKEN_EXP_TIME_IN_MILLISECONDS).toString() +
-                                        " for application id : " + consumerKey);
-                            }
-
-                        } catch (NumberFormatException e) {
-                            String errorMsg = String.format(
-                                    "Invalid value provided as refresh token expiry time for consumer key %s, tenant " +
-                                            "id : %d. Given value: %s, Expected a long value",
-                                    consumerKey, tenantId,
-                                    spTimeObject.get(REFRESH_TOKEN_EXP_TIME_IN_MILLISECONDS).toString());
-                            log.error(errorMsg, e);
-                        }
-                    } else {
-                        spTokenTimeObject.setRefreshTokenExpiryTime(OAuthServerConfiguration.getInstance()
-                                .getRefreshTokenValidityPeriodInSeconds() * 1000);
+                for (Map.Entry<Object, Object> property : resource.getProperties().entrySet()) {
+                    String consumerKey = property.getKey().toString();
+                    SpOAuth2ExpiryTimeConfiguration expiryTimeConfig =
+                            parseSpTokenExpiryTimeConfig(consumerKey, property.getValue(), tenantId);
+                    if (expiryTimeConfig != null) {
+                        expiryTimeConfigs.put(consumerKey, expiryTimeConfig);
                     }
                 }
             }
         } catch (RegistryException e) {
             log.error("Error while getting data from the registry.", e);
+            return null;
         } catch (IdentityException e) {
             log.error("Error while getting the tenant domain from tenant id : " + tenantId, e);
+            return null;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("SP wise token expiry time configurations of " + expiryTimeConfigs.size() +
+                    " applications are loaded for tenant id : " + tenantId);
+        }
+        return new SpTokenExpiryTimeConfigCacheEntry(expiryTimeConfigs);
+    }
+
+    /**
+     * Parse the SP-token expiry time configuration of a service provider from the value of its registry resource
+     * property.
+     *
+     * @param consumerKey   Consumer key of the service provider.
+     * @param propertyValue Value of the registry resource property.
+     * @param tenantId      Tenant id.
+     * @return Configuration of the service provider, or null if there is no valid configuration.
+     */
+    static SpOAuth2ExpiryTimeConfiguration parseSpTokenExpiryTimeConfig(String consumerKey, Object propertyValue,
+                                                                        int tenantId) {
+
+        String jsonString = "{}";
+        if (propertyValue instanceof List && !((List) propertyValue).isEmpty()) {
+            jsonString = ((List) propertyValue).get(0).toString();
+        }
+        try {
+            JSONObject spTimeObject = new JSONObject(jsonString);
+            if (spTimeObject.length() > 0) {
+                return buildSpTokenExpiryTimeConfig(spTimeObject, consumerKey, tenantId);
+            }
+        } catch (JSONException e) {
+            log.error("Invalid SP wise token expiry time configuration for consumer key : " + consumerKey +
+                    ", tenant id : " + tenantId, e);
+        }
+        return null;
+    }
+
+    private static SpOAuth2ExpiryTimeConfiguration buildSpTokenExpiryTimeConfig(JSONObject spTimeObject,
+                                                                                String consumerKey, int tenantId) {
+
+        SpOAuth2ExpiryTimeConfiguration spTokenTimeObject = new SpOAuth2ExpiryTimeConfiguration();
+        if (spTimeObject.has(USER_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS) &&
+                !spTimeObject.isNull(USER_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS)) {
+            try {
+                spTokenTimeObject.setUserAccessTokenExpiryTime(Long.parseLong(spTimeObject
+                        .get(USER_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString()));
+                if (log.isDebugEnabled()) {
+                    log.debug("The user access token expiry time :" + spTimeObject
+                            .get(USER_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString() +
+                            "  for application id : " + consumerKey);
+                }
+            } catch (NumberFormatException e) {
+                String errorMsg = String.format(
+                        "Invalid value provided as user access token expiry time for consumer " +
+                                "key %s, tenant id : %d. Given value: %s, Expected a long value",
+                        consumerKey, tenantId,
+                        spTimeObject.get(USER_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString());
+                log.error(errorMsg, e);
+            }
+        } else {
+            spTokenTimeObject.setUserAccessTokenExpiryTime(OAuthServerConfiguration.getInstance()
+                    .getUserAccessTokenValidityPeriodInSeconds() * 1000);
+        }
+
+        if (spTimeObject.has(APPLICATION_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS) &&
+                !spTimeObject.isNull(APPLICATION_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS)) {
+            try {
+                spTokenTimeObject.setApplicationAccessTokenExpiryTime(Long.parseLong(spTimeObject
+                        .get(APPLICATION_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString()));
+                if (log.isDebugEnabled()) {
+                    log.debug("The application access token expiry time :" + spTimeObject
+                            .get(APPLICATION_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString() +
+                            "  for application id : " + consumerKey);
+                }
+            } catch (NumberFormatException e) {
+                String errorMsg = String.format(
+                        "Invalid value provided as application access token expiry time for consumer " +
+                                "key %s, tenant id : %d. Given value: %s, Expected a long value ",
+                        consumerKey, tenantId,
+                        spTimeObject.get(APPLICATION_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString());
+                log.error(errorMsg, e);
+            }
+        } else {
+            spTokenTimeObject.setApplicationAccessTokenExpiryTime(OAuthServerConfiguration.getInstance()
+                    .getApplicationAccessTokenValidityPeriodInSeconds() * 1000);
+        }
+
+        if (spTimeObject.has(REFRESH_TOKEN_EXP_TIME_IN_MILLISECONDS) &&
+                !spTimeObject.isNull(REFRESH_TOKEN_EXP_TIME_IN_MILLISECONDS)) {
+            try {
+                spTokenTimeObject.setRefreshTokenExpiryTime(Long.parseLong(spTimeObject
+                        .get(REFRESH_TOKEN_EXP_TIME_IN_MILLISECONDS).toString()));
+                if (log.isDebugEnabled()) {
+                    log.debug("The refresh token expiry time :" + spTimeObject
+                            .get(REFRESH_TOKEN_EXP_TIME_IN_MILLISECONDS).toString() +
+                            " for application id : " + consumerKey);
+                }
+
+            } catch (NumberFormatException e) {
+                String errorMsg = String.format(
+                        "Invalid value provided as refresh token expiry time for consumer key %s, tenant " +
+                                "id : %d. Given value: %s, Expected a long value",
+                        consumerKey, tenantId,
+                        spTimeObject.get(REFRESH_TOKEN_EXP_TIME_IN_MILLISECONDS).toString());
+                log.error(errorMsg, e);
+            }
+        } else {
+            spTokenTimeObject.setRefreshTokenExpiryTime(OAuthServerConfiguration.getInstance()
+                    .getRefreshTokenValidityPeriodInSeconds() * 1000);
         }
         return spTokenTimeObject;
     }
@@ -2846,19 +2962,28 @@ public class OAuth2Util {
             }
 
             int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
-            Key privateKey = getPrivateKey(tenantDomain, tenantId);
-            JWSSigner signer = OAuth2Util.createJWSSigner((RSAPrivateKey) privateKey);
-            JWSHeader.Builder headerBuilder = new JWSHeader.Builder((JWSAlgorithm) signatureAlgorithm);
-            headerBuilder.keyID(getKID(getCertificate(tenantDomain, tenantId), signatureAlgorithm, tenantDomain));
-            headerBuilder.x509CertThumbprint(new Base64URL(getThumbPrint(tenantDomain, tenantId)));
-            SignedJWT signedJWT = new SignedJWT(headerBuilder.build(), jwtClaimsSet);
-            signedJWT.sign(signer);
+            JWSSigningMaterialCache.SigningMaterial signingMaterial = JWSSigningMaterialCache.getInstance()
+                    .getSigningMaterial(tenantDomain, tenantId, signatureAlgorithm, null);
+            SignedJWT signedJWT = new SignedJWT(signingMaterial.getHeader(), jwtClaimsSet);
+            signedJWT.sign(signingMaterial.getSigner());
             return signedJWT;
         } catch (JOSEException e) {
             throw new IdentityOAuth2Exception("Error occurred while signing JWT", e);
         }
     }
 
+    /**
+     * Clear the signing keys and certificates cached for the tenant.
+     *
+     * @param tenantId Tenant id.
+     */
+    public static void clearSigningKeyCache(int tenantId) {
+
+        privateKeys.remove(tenantId);
+        publicCerts.remove(tenantId);
+        JWSSigningMaterialCache.getInstance().invalidate(tenantId);
+    }
+
     public static Key getPrivateKey(String tenantDomain, int tenantId) throws IdentityOAuth2Exception {
 
         Key privateKey;
@@ -3791,25 +3916,8 @@ public class OAuth2Util {
     public static AccessTokenDO findAccessToken(String tokenIdentifier, boolean includeExpired)
             throws IdentityOAuth2Exception {
 
-        AccessTokenDO accessTokenDO;
-
-        // Get a copy of the list of token issuers .
-        Map<String, OauthTokenIssuer> allOAuthTokenIssuerMap = new HashMap<>(
-                OAuthServerConfiguration.getInstance().getOauthTokenIssuerMap());
-
-        // Differentiate default token issuers and other issuers for better performance.
-        Map<String, OauthTokenIssuer> defaultOAuthTokenIssuerMap = new HashMap<>();
-        extractDefaultOauthTokenIssuers(allOAuthTokenIssuerMap, defaultOAuthTokenIssuerMap);
-
-        // First try default token issuers.
-        accessTokenDO = getAccessTokenDOFromMatchingTokenIssuer(tokenIdentifier, defaultOAuthTokenIssuerMap,
-                includeExpired);
-        if (accessTokenDO != null) {
-            return accessTokenDO;
-        }
-
-        // Loop through other issuer and try to get the hash.
-        accessTokenDO = getAccessTokenDOFromMatchingTokenIssuer(tokenIdentifier, allOAuthTokenIssuerMap,
+        // The token issuer index routes the token to the matching issuers and skips duplicate lookups.
+        AccessTokenDO accessTokenDO = OAuthTokenIssuerIndex.getInstance().findAccessToken(tokenIdentifier,
                 includeExpired);
 
         // If the lookup is only for tokens in 'ACTIVE' state, APIs calling this method expect an
@@ -3820,79 +3928,6 @@ public class OAuth2Util {
         return accessTokenDO;
     }
 
-    /**
-     * Loop through provided token issuer list and tries to get the access token DO.
-     *
-     * @param tokenIdentifier Provided token identifier.
-     * @param tokenIssuerMap  List of token issuers.
-     * @return Obtained matching access token DO if possible.
-     * @throws IdentityOAuth2Exception
-     */
-    private static AccessTokenDO getAccessTokenDOFromMatchingTokenIssuer(String tokenIdentifier,
-                                                                         Map<String, OauthTokenIssuer> tokenIssuerMap,
-                                                                         boolean includeExpired)
-            throws IdentityOAuth2Exception {
-
-        AccessTokenDO accessTokenDO;
-        if (tokenIssuerMap != null) {
-            for (Map.Entry<String, OauthTokenIssuer> oauthTokenIssuerEntry: tokenIssuerMap.entrySet()) {
-                try {
-                    OauthTokenIssuer oauthTokenIssuer = oauthTokenIssuerEntry.getValue();
-                    String tokenAlias = oauthTokenIssuer.getAccessTokenHash(tokenIdentifier);
-                    if (oauthTokenIssuer.usePersistedAccessTokenAlias()) {
-                        accessTokenDO = OAuth2Util.getAccessTokenDOFromTokenIdentifier(tokenAlias, includeExpired);
-                    } else {
-                        accessTokenDO = OAuth2Util.getAccessTokenDOFromTokenIdentifier(tokenIdentifier, includeExpired);
-                    }
-                    if (accessTokenDO != null) {
-                        return accessTokenDO;
-                    }
-                } catch (OAuthSystemException e) {
-                    if (log.isDebugEnabled()) {
-                        if (IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.ACCESS_TOKEN)) {
-                            log.debug("Token issuer: " + oauthTokenIssuerEntry.getKey() + " was tried and" +
-                                    " failed to parse the received token: " + tokenIdentifier);
-                        } else {
-                            log.debug("Token issuer: " + oauthTokenIssuerEntry.getKey() + " was tried and" +
-                                    " failed to parse the received token.");
-                        }
-                    }
-                } catch (IllegalArgumentException e) {
-                    if (log.isDebugEnabled()) {
-                        if (IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.ACCESS_TOKEN)) {
-                            log.debug("Token issuer: " + oauthTokenIssuerEntry.getKey() + " was tried and"
-                                    + " failed to get the token from database: " + tokenIdentifier);
-                        } else {
-                            log.debug("Token issuer: " + oauthTokenIssuerEntry.getKey() + " was tried and"
-                                    + " failed  to get the token from database.");
-                        }
-                    }
-                }
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Differentiate default token issuers from all available token issuers map.
-     *
-     * @param allOAuthTokenIssuerMap Map of all available token issuers.
-     * @param defaultOAuthTokenIssuerMap default token issuers
-     */
-    private static void extractDefaultOauthTokenIssuers(Map<String, OauthTokenIssuer> allOAuthTokenIssuerMap,
-                                                        Map<String, OauthTokenIssuer> defaultOAuthTokenIssuerMap) {
-
-        // TODO: 4/9/19 Implement logic to read default issuer from config.
-        // TODO: 4/9/19 add sorting mechanism to use JWT issuer first.
-        defaultOAuthTokenIssuerMap.put(OAuthServerConfiguration.JWT_TOKEN_TYPE,
-                allOAuthTokenIssuerMap.get(OAuthServerConfiguration.JWT_TOKEN_TYPE));
-        allOAuthTokenIssuerMap.remove(OAuthServerConfiguration.JWT_TOKEN_TYPE);
-
-        defaultOAuthTokenIssuerMap.put(OAuthServerConfiguration.DEFAULT_TOKEN_TYPE,
-                allOAuthTokenIssuerMap.get(OAuthServerConfiguration.DEFAULT_TOKEN_TYPE));
-        allOAuthTokenIssuerMap.remove(OAuthServerConfiguration.DEFAULT_TOKEN_TYPE);
-    }
-
     /**
      * Return access token identifier from OAuth2TokenValidationResponseDTO. This method validated the token against
      * the cache and the DB.
@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded executor of the bulk OAuth jobs which run over the consumer keys of an application, such as revoking
+ * tokens and clearing the cache entries of the tokens and authorization codes.
+ *
+ * The keys of a job are split into chunks of the configured size, and the chunks run in parallel on a fixed number
+ * of daemon threads, in the tenant of the thread which submitted the job. When the queue of the executor is full, a
+ * chunk runs on the submitting thread instead, which slows down the submitters rather than dropping work. The status
+ * of a job can be queried by its ID until it is evicted by newer completed jobs, and the pool and queue usage are
+ * exposed for monitoring.
+ */
+public class OAuthBackgroundJobExecutor {
+
+    private static final Log log = LogFactory.getLog(OAuthBackgroundJobExecutor.class);
+
+    private static final String POOL_SIZE = "OAuth.BackgroundJobExecutor.PoolSize";
+    private static final String QUEUE_SIZE = "OAuth.BackgroundJobExecutor.QueueSize";
+    private static final String CHUNK_SIZE = "OAuth.BackgroundJobExecutor.ChunkSize";
+    private static final int DEFAULT_POOL_SIZE = 4;
+    private static final int DEFAULT_QUEUE_SIZE = 1000;
+    private static final int DEFAULT_CHUNK_SIZE = 1;
+    private static final int MAX_COMPLETED_JOBS = 100;
+
+    private static volatile OAuthBackgroundJobExecutor instance;
+
+    private final ThreadPoolExecutor executor;
+    private final int chunkSize;
+    private final Map<String, JobStatus> jobs = new ConcurrentHashMap<>();
+    private final Queue<String> completedJobIds = new ConcurrentLinkedQueue<>();
+    private final LongAdder callerRuns = new LongAdder();
+
+    OAuthBackgroundJobExecutor(int poolSize, int queueSize, int chunkSize) {
+
+        int threads = Math.max(poolSize, 1);
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "OAuth-BackgroundJob-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueSize, 1)), threadFactory, (runnable, pool) -> {
+                    // Run the chunk on the submitting thread, so that the job completes even when the queue is full
+                    // or the executor is shut down.
+                    callerRuns.increment();
+                    runnable.run();
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.chunkSize = Math.max(chunkSize, 1);
+    }
+
+    public static OAuthBackgroundJobExecutor getInstance() {
+
+        if (instance == null) {
+            synchronized (OAuthBackgroundJobExecutor.class) {
+                if (instance == null) {
+                    instance = new OAuthBackgroundJobExecutor(
+                            OAuth2ConfigUtil.getIntProperty(POOL_SIZE, DEFAULT_POOL_SIZE),
+                            OAuth2ConfigUtil.getIntProperty(QUEUE_SIZE, DEFAULT_QUEUE_SIZE),
+                            OAuth2ConfigUtil.getIntProperty(CHUNK_SIZE, DEFAULT_CHUNK_SIZE));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Submit a job which runs the given task for each of the given keys. A failure of the task for a key is logged
+     * and counted in the status of the job, and does not stop the job.
+     *
+     * @param jobName Name of the job, which is used in the logs.
+     * @param keys    Keys to run the task for, such as consumer keys.
+     * @param task    Task to run for each key.
+     * @return Status of the job, which has the ID of the job.
+     */
+    public JobStatus submit(String jobName, Collection<String> keys, KeyTask task) {
+
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> chunk = new ArrayList<>(chunkSize);
+        for (String key : keys) {
+            chunk.add(key);
+            if (chunk.size() == chunkSize) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+
+        JobStatus jobStatus = new JobStatus(UUID.randomUUID().toString(), jobName, keys.size(), chunks.size());
+        jobs.put(jobStatus.getJobId(), jobStatus);
+        if (log.isDebugEnabled()) {
+            log.debug("Submitting job: " + jobStatus.getJobId() + " of " + jobName + " for " + keys.size() +
+                    " keys in " + chunks.size() + " chunks.");
+        }
+        if (chunks.isEmpty()) {
+            complete(jobStatus);
+            return jobStatus;
+        }
+
+        String tenantDomain = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain();
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        for (List<String> keysOfChunk : chunks) {
+            executor.execute(() -> runChunk(jobStatus, keysOfChunk, task, tenantDomain, tenantId));
+        }
+        return jobStatus;
+    }
+
+    /**
+     * Get the status of a job.
+     *
+     * @param jobId ID of the job.
+     * @return Status of the job, or null if there is no such job, or it was evicted after completion.
+     */
+    public JobStatus getJobStatus(String jobId) {
+
+        return jobId == null ? null : jobs.get(jobId);
+    }
+
+    public int getPoolSize() {
+
+        return executor.getMaximumPoolSize();
+    }
+
+    public int getActiveThreadCount() {
+
+        return executor.getActiveCount();
+    }
+
+    public int getQueueDepth() {
+
+        return executor.getQueue().size();
+    }
+
+    public int getQueueCapacity() {
+
+        return executor.getQueue().size() + executor.getQueue().remainingCapacity();
+    }
+
+    public long getCompletedChunkCount() {
+
+        return executor.getCompletedTaskCount();
+    }
+
+    /**
+     * Get the number of chunks which ran on the submitting thread, as the queue was full.
+     *
+     * @return Number of chunks run by the submitters.
+     */
+    public long getCallerRunsCount() {
+
+        return callerRuns.sum();
+    }
+
+    /**
+     * Stop accepting chunks to the pool. The queued chunks still run.
+     */
+    public void shutdown() {
+
+        executor.shutdown();
+    }
+
+    private void runChunk(JobStatus jobStatus, List<String> keys, KeyTask task, String tenantDomain, int tenantId) {
+
+        boolean tenantFlowStarted = false;
+        try {
+            if (tenantDomain != null) {
+                PrivilegedCarbonContext.startTenantFlow();
+                tenantFlowStarted = true;
+                PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain);
+                PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(tenantId);
+            }
+            for (String key : keys) {
+                try {
+                    task.run(key);
+                    jobStatus.processedKeys.incrementAndGet();
+                } catch (IdentityOAuth2Exception | RuntimeException e) {
+                    jobStatus.failedKeys.incrementAndGet();
+                    log.error("Error occurred while running the job: " + jobStatus.getJobId() + " of " +
+                            jobStatus.getJobName() + " for the key: " + key, e);
+                }
+            }
+        } finally {
+            if (tenantFlowStarted) {
+                PrivilegedCarbonContext.endTenantFlow();
+            }
+            if (jobStatus.remainingChunks.decrementAndGet() == 0) {
+                complete(jobStatus);
+            }
+            jobStatus.pendingChunks.countDown();
+        }
+    }
+
+    private void complete(JobStatus jobStatus) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Completed job: " + jobStatus.getJobId() + " of " + jobStatus.getJobName() + ". Processed " +
+                    "keys: " + jobStatus.getProcessedKeyCount() + ", failed keys: " + jobStatus.getFailedKeyCount());
+        }
+        completedJobIds.add(jobStatus.getJobId());
+        while (completedJobIds.size() > MAX_COMPLETED_JOBS) {
+            String evictedJobId = completedJobIds.poll();
+            if (evictedJobId != null) {
+                jobs.remove(evictedJobId);
+            }
+        }
+    }
+
+    /**
+     * Task of a job, which runs for a single key.
+     */
+    @FunctionalInterface
+    public interface KeyTask {
+
+        void run(String key) throws IdentityOAuth2Exception;
+    }
+
+    /**
+     * Progress of a job.
+     */
+    public static class JobStatus {
+
+        private final String jobId;
+        private final String jobName;
+        private final int keyCount;
+        private final AtomicInteger processedKeys = new AtomicInteger();
+        private final AtomicInteger failedKeys = new AtomicInteger();
+        private final AtomicInteger remainingChunks;
+        private final CountDownLatch pendingChunks;
+
+        private JobStatus(String jobId, String jobName, int keyCount, int chunkCount) {
+
+            this.jobId = jobId;
+            this.jobName = jobName;
+            this.keyCount = keyCount;
+            this.remainingChunks = new AtomicInteger(chunkCount);
+            this.pendingChunks = new CountDownLatch(chunkCount);
+        }
+
+        public String getJobId() {
+
+            return jobId;
+        }
+
+        public String getJobName() {
+
+            return jobName;
+        }
+
+        public int getKeyCount() {
+
+            return keyCount;
+        }
+
+        public int getProcessedKeyCount() {
+
+            return processedKeys.get();
+        }
+
+        public int getFailedKeyCount() {
+
+            return failedKeys.get();
+        }
+
+        public boolean isCompleted() {
+
+            return pendingChunks.getCount() == 0;
+        }
+
+        /**
+         * Wait until all the keys of the job are processed.
+         *
+         * @throws IdentityOAuth2Exception If the thread was interrupted while waiting.
+         */
+        public void awaitCompletion() throws IdentityOAuth2Exception {
+
+            try {
+                pendingChunks.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IdentityOAuth2Exception("Interrupted while waiting for the job: " + jobId + " of " +
+                        jobName, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.cache.OAuthScopeBindingCache;
+import org.wso2.carbon.identity.oauth.cache.OAuthScopeBindingCacheKey;
+import org.wso2.carbon.identity.oauth.cache.OAuthScopeCache;
+import org.wso2.carbon.identity.oauth.cache.OAuthScopeCacheKey;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2ScopeServerException;
+import org.wso2.carbon.identity.oauth2.bean.Scope;
+import org.wso2.carbon.identity.oauth2.bean.ScopeBinding;
+import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.wso2.carbon.identity.oauth2.Oauth2ScopeConstants.DEFAULT_SCOPE_BINDING;
+
+/**
+ * Preloads the OAuth2 scope, scope binding and OIDC scope claim caches of a tenant, so that the first requests after
+ * a restart or a tenant load do not fill them one scope at a time.
+ *
+ * The OAuth2 scopes of a tenant and all their bindings are read with a single query, and are added to the
+ * {@link OAuthScopeCache} by name and to the {@link OAuthScopeBindingCache} by binding type. The OIDC scopes and
+ * their claims are read with a single query through the cache backed scope claim mapping DAO. The tenants are
+ * preloaded in parallel on a fixed number of daemon threads, and the preload durations are kept for monitoring.
+ */
+public class OAuthScopeCachePreloader {
+
+    private static final Log log = LogFactory.getLog(OAuthScopeCachePreloader.class);
+
+    private static final String ENABLE = "OAuth.ScopeCachePreload.Enable";
+    private static final String CONCURRENCY = "OAuth.ScopeCachePreload.Concurrency";
+    private static final int DEFAULT_CONCURRENCY = 2;
+    private static final long IDLE_THREAD_TIMEOUT_SECONDS = 60;
+
+    private static volatile OAuthScopeCachePreloader instance;
+
+    private final boolean enabled;
+    private final ThreadPoolExecutor executor;
+    private final Set<Integer> preloadingTenants = ConcurrentHashMap.newKeySet();
+    private final LongAdder preloadedTenantCount = new LongAdder();
+    private final LongAdder failedTenantCount = new LongAdder();
+    private final LongAdder totalDurationMillis = new LongAdder();
+    private final AtomicLong maxDurationMillis = new AtomicLong();
+    private volatile long lastDurationMillis;
+
+    OAuthScopeCachePreloader(boolean enabled, int concurrency) {
+
+        this.enabled = enabled;
+        int threads = Math.max(concurrency, 1);
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "OAuth-ScopeCachePreload-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = new ThreadPoolExecutor(threads, threads, IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        // The preload runs at startup and at tenant loads only, hence the threads are not kept while idle.
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static OAuthScopeCachePreloader getInstance() {
+
+        if (instance == null) {
+            synchronized (OAuthScopeCachePreloader.class) {
+                if (instance == null) {
+                    String enable = IdentityUtil.getProperty(ENABLE);
+                    instance = new OAuthScopeCachePreloader(StringUtils.isBlank(enable) ||
+                            Boolean.parseBoolean(enable.trim()),
+                            OAuth2ConfigUtil.getIntProperty(CONCURRENCY, DEFAULT_CONCURRENCY));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Preload the scope caches of a tenant in the background.
+     *
+     * @param tenantId Tenant id.
+     * @return Future which completes when the tenant is preloaded.
+     */
+    public CompletableFuture<Void> preloadAsync(int tenantId) {
+
+        return preloadAsync(Collections.singleton(tenantId));
+    }
+
+    /**
+     * Preload the scope caches of the tenants in the background, in parallel up to the configured concurrency. A
+     * tenant which is already being preloaded is skipped.
+     *
+     * @param tenantIds Tenant ids.
+     * @return Future which completes when all the tenants are preloaded.
+     */
+    public CompletableFuture<Void> preloadAsync(Collection<Integer> tenantIds) {
+
+        if (!enabled) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int tenantId : tenantIds) {
+            if (!preloadingTenants.add(tenantId)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Scope caches of the tenant: " + tenantId + " are already being preloaded.");
+                }
+                continue;
+            }
+            try {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        preload(tenantId);
+                    } finally {
+                        preloadingTenants.remove(tenantId);
+                    }
+                }, executor));
+            } catch (RuntimeException e) {
+                preloadingTenants.remove(tenantId);
+                log.warn("Could not schedule the preload of the scope caches of the tenant: " + tenantId, e);
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Preload the scope caches of a tenant.
+     *
+     * @param tenantId Tenant id.
+     * @return true if the caches of the tenant are preloaded.
+     */
+    public boolean preload(int tenantId) {
+
+        long startTime = System.currentTimeMillis();
+        try {
+            load(tenantId);
+        } catch (IdentityOAuth2Exception | IdentityOAuth2ScopeServerException e) {
+            failedTenantCount.increment();
+            log.error("Error while preloading the scope caches of the tenant: " + tenantId, e);
+            return false;
+        }
+        long duration = System.currentTimeMillis() - startTime;
+        preloadedTenantCount.increment();
+        totalDurationMillis.add(duration);
+        maxDurationMillis.accumulateAndGet(duration, Math::max);
+        lastDurationMillis = duration;
+        if (log.isDebugEnabled()) {
+            log.debug("Preloaded the scope caches of the tenant: " + tenantId + " in " + duration + " ms.");
+        }
+        return true;
+    }
+
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    public long getPreloadedTenantCount() {
+
+        return preloadedTenantCount.sum();
+    }
+
+    public long getFailedTenantCount() {
+
+        return failedTenantCount.sum();
+    }
+
+    public long getTotalDurationMillis() {
+
+        return totalDurationMillis.sum();
+    }
+
+    public long getMaxDurationMillis() {
+
+        return maxDurationMillis.get();
+    }
+
+    public long getLastDurationMillis() {
+
+        return lastDurationMillis;
+    }
+
+    /**
+     * Stop the threads of the preloader. Preloads which have not started are dropped.
+     */
+    public void shutdown() {
+
+        executor.shutdownNow();
+    }
+
+    void load(int tenantId) throws IdentityOAuth2Exception, IdentityOAuth2ScopeServerException {
+
+        Set<Scope> scopes = OAuthTokenPersistenceFactory.getInstance().getOAuthScopeDAO().getAllScopes(tenantId);
+        // The scopes are added first, as adding a scope clears the binding cache entries of its binding types.
+        Map<String, Scope[]> scopesOfBindingTypes = getScopesOfBindingTypes(scopes);
+        for (Scope scope : scopes) {
+            if (scope.getScopeBindings().isEmpty()) {
+                // Keep the scope as it is read by name, which has an empty default binding.
+                scope.addScopeBinding(DEFAULT_SCOPE_BINDING, null);
+            }
+            OAuthScopeCache.getInstance().addToCache(new OAuthScopeCacheKey(scope.getName()), scope, tenantId);
+        }
+        for (Map.Entry<String, Scope[]> entry : scopesOfBindingTypes.entrySet()) {
+            OAuthScopeBindingCache.getInstance().addToCache(new OAuthScopeBindingCacheKey(entry.getKey()),
+                    entry.getValue(), tenantId);
+        }
+
+        // Loads the OIDC scope claim cache entry of the tenant along with its index.
+        OAuthTokenPersistenceFactory.getInstance().getScopeClaimMappingDAO().getScopeClaimIndex(tenantId);
+    }
+
+    /**
+     * Get the scopes of each binding type, with the bindings of that type only, as they are read by binding type.
+     *
+     * @param scopes Scopes with all their bindings.
+     * @return Scopes of the binding types.
+     */
+    static Map<String, Scope[]> getScopesOfBindingTypes(Collection<Scope> scopes) {
+
+        Map<String, List<Scope>> scopesOfBindingTypes = new HashMap<>();
+        for (Scope scope : scopes) {
+            for (ScopeBinding scopeBinding : scope.getScopeBindings()) {
+                List<ScopeBinding> bindingsOfType = new ArrayList<>();
+                bindingsOfType.add(new ScopeBinding(scopeBinding.getBindingType(),
+                        new ArrayList<>(scopeBinding.getBindings())));
+                scopesOfBindingTypes.computeIfAbsent(scopeBinding.getBindingType(), type -> new ArrayList<>())
+                        .add(new Scope(scope.getName(), scope.getDisplayName(), bindingsOfType,
+                                scope.getDescription()));
+            }
+        }
+        Map<String, Scope[]> scopeArraysOfBindingTypes = new HashMap<>();
+        for (Map.Entry<String, List<Scope>> entry : scopesOfBindingTypes.entrySet()) {
+            scopeArraysOfBindingTypes.put(entry.getKey(), entry.getValue().toArray(new Scope[0]));
+        }
+        return scopeArraysOfBindingTypes;
+    }
+}
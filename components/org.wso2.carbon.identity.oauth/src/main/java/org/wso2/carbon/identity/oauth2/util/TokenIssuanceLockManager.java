@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializes the issuance and revocation of the access tokens of the same client, user, scope and token binding
+ * within this node.
+ *
+ * A key is mapped to one of a fixed number of {@link ReentrantLock} stripes by its hash, hence the same key always
+ * gets the same lock, and unrelated keys rarely contend. Unlike synchronizing on an interned string, no key is kept
+ * once it is released. A lock may be acquired again by the thread holding it, but another key must not be locked
+ * while holding one, as the two keys may map to stripes acquired in the opposite order by another thread.
+ *
+ * The time spent waiting for the locks is recorded. When a timeout is configured, a request which could not get the
+ * lock in time fails instead of waiting indefinitely.
+ */
+public class TokenIssuanceLockManager {
+
+    private static final Log log = LogFactory.getLog(TokenIssuanceLockManager.class);
+
+    private static final String STRIPES = "OAuth.TokenIssuanceLock.Stripes";
+    private static final String TIMEOUT = "OAuth.TokenIssuanceLock.Timeout";
+    private static final int DEFAULT_STRIPES = 1024;
+    private static final int DEFAULT_TIMEOUT_MILLIS = 0;
+    private static final int MAX_STRIPES = 1 << 16;
+
+    private static volatile TokenIssuanceLockManager instance;
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+    private final long timeoutMillis;
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contentions = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    TokenIssuanceLockManager(int stripes, long timeoutMillis) {
+
+        // Round the number of stripes up to a power of two, so that a stripe is selected by masking the hash.
+        int size = 1;
+        while (size < Math.min(Math.max(stripes, 1), MAX_STRIPES)) {
+            size <<= 1;
+        }
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.timeoutMillis = Math.max(timeoutMillis, 0);
+    }
+
+    public static TokenIssuanceLockManager getInstance() {
+
+        if (instance == null) {
+            synchronized (TokenIssuanceLockManager.class) {
+                if (instance == null) {
+                    instance = new TokenIssuanceLockManager(OAuth2ConfigUtil.getIntProperty(STRIPES, DEFAULT_STRIPES),
+                            OAuth2ConfigUtil.getIntProperty(TIMEOUT, DEFAULT_TIMEOUT_MILLIS));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Acquire the lock of a key. The lock must be released by closing the returned handle, preferably with a
+     * try-with-resources statement.
+     *
+     * @param key Key of the client, user, scope and token binding.
+     * @return Handle of the acquired lock.
+     * @throws IdentityOAuth2Exception If the lock could not be acquired within the configured timeout, or the thread
+     *                                 was interrupted while waiting.
+     */
+    public TokenIssuanceLock lock(String key) throws IdentityOAuth2Exception {
+
+        ReentrantLock lock = locks[stripe(key)];
+        if (!lock.tryLock()) {
+            contentions.increment();
+            long start = System.nanoTime();
+            try {
+                if (timeoutMillis > 0) {
+                    if (!lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                        timeouts.increment();
+                        recordWait(System.nanoTime() - start);
+                        throw new IdentityOAuth2Exception("Timed out after " + timeoutMillis + "ms while waiting " +
+                                "for a concurrent token request of the same client, user and scope.");
+                    }
+                } else {
+                    lock.lockInterruptibly();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IdentityOAuth2Exception("Interrupted while waiting for a concurrent token request of the " +
+                        "same client, user and scope.", e);
+            }
+            recordWait(System.nanoTime() - start);
+        }
+        acquisitions.increment();
+        return lock::unlock;
+    }
+
+    public long getAcquisitionCount() {
+
+        return acquisitions.sum();
+    }
+
+    /**
+     * Get the number of acquisitions which had to wait for another thread to release the lock.
+     *
+     * @return Number of contended acquisitions.
+     */
+    public long getContentionCount() {
+
+        return contentions.sum();
+    }
+
+    public long getTimeoutCount() {
+
+        return timeouts.sum();
+    }
+
+    public long getTotalWaitTimeNanos() {
+
+        return totalWaitNanos.sum();
+    }
+
+    public long getMaxWaitTimeNanos() {
+
+        return maxWaitNanos.get();
+    }
+
+    public int getStripeCount() {
+
+        return locks.length;
+    }
+
+    int stripe(String key) {
+
+        int hash = key == null ? 0 : key.hashCode();
+        // Spread the higher bits of the hash to the lower bits which select the stripe.
+        hash ^= (hash >>> 16);
+        return hash & mask;
+    }
+
+    private void recordWait(long waitNanos) {
+
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        if (log.isDebugEnabled()) {
+            log.debug("Waited " + TimeUnit.NANOSECONDS.toMillis(waitNanos) + "ms for the token issuance lock.");
+        }
+    }
+
+    /**
+     * Handle of an acquired token issuance lock, which releases the lock when closed.
+     */
+    public interface TokenIssuanceLock extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -57,13 +57,14 @@ import org.wso2.carbon.user.core.util.UserCoreUtil;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 import static java.util.Objects.nonNull;
 import static org.wso2.carbon.identity.oauth2.Oauth2ScopeConstants.SYSTEM_SCOPE;
@@ -82,6 +83,7 @@ public class JDBCPermissionBasedInternalScopeValidator {
     private static final String ADMIN_PERMISSION_ROOT = "/permission/admin";
     private static final String EVERYONE_PERMISSION = "everyone_permission";
     private static final String ATTRIBUTE_SEPARATOR = FrameworkUtils.getMultiAttributeSeparator();
+    private static final Map<Integer, ScopePermissionIndex> scopePermissionIndexes = new ConcurrentHashMap<>();
 
     /**
      * Execute Internal scope Validation.
@@ -212,7 +214,8 @@ public class JDBCPermissionBasedInternalScopeValidator {
                 }
             }
 
-            Set<Scope> allScopes = getScopesOfPermissionType(tenantId);
+            ScopePermissionIndex scopePermissionIndex = getScopePermissionIndex(tenantId);
+            Set<Scope> allScopes = scopePermissionIndex.getAllScopes();
             if (ArrayUtils.contains(allowedUIResourcesForUser, ROOT) || ArrayUtils.contains(allowedUIResourcesForUser,
                     PERMISSION_ROOT)) {
                 return new ArrayList<>(allScopes);
@@ -220,34 +223,8 @@ public class JDBCPermissionBasedInternalScopeValidator {
                 return new ArrayList<>(getAdminAllowedScopes(allScopes, requestedScopes));
             }
 
-            for (Scope scope : allScopes) {
-                if (!isSystemScope && !ArrayUtils.contains(requestedScopes, scope.getName())) {
-                    continue;
-                }
-                List<ScopeBinding> bindings = scope.getScopeBindings();
-                boolean isScopeAllowed = true;
-                for (ScopeBinding scopeBinding : bindings) {
-                    if (PERMISSION_BINDING_TYPE.equalsIgnoreCase(scopeBinding.getBindingType())) {
-                        for (String binding : scopeBinding.getBindings()) {
-                            boolean isAllowed = false;
-                            for (String allowedScope : allowedUIResourcesForUser) {
-                                if ((binding + "/").startsWith(allowedScope + "/")) {
-                                    isAllowed = true;
-                                    break;
-                                }
-                            }
-                            if (!isAllowed) {
-                                isScopeAllowed = false;
-                                break;
-                            }
-                        }
-                    }
-                }
-
-                if (isScopeAllowed) {
-                    userAllowedScopes.add(scope);
-                }
-            }
+            userAllowedScopes = scopePermissionIndex.getAllowedScopes(allowedUIResourcesForUser,
+                    isSystemScope ? null : new HashSet<>(Arrays.asList(requestedScopes)));
         } catch (UserStoreException e) {
             log.error("Error while accessing Authorization Manager.", e);
         } catch (IdentityOAuth2Exception e) {
@@ -396,26 +373,51 @@ public class JDBCPermissionBasedInternalScopeValidator {
         return (String[]) ArrayUtils.add(allowedUIResourcesForUser, EVERYONE_PERMISSION);
     }
 
-    private Set<Scope> getScopesOfPermissionType(int tenantId) throws IdentityOAuth2ScopeServerException {
+    /**
+     * Get the permission index of the scopes of the tenant. The index is rebuilt when the scopes are read from a
+     * different source instance, which happens when the scope binding cache entry of the tenant is cleared on a scope
+     * change.
+     *
+     * @param tenantId Tenant id.
+     * @return Permission index of the scopes.
+     * @throws IdentityOAuth2ScopeServerException If the scopes could not be retrieved.
+     */
+    private ScopePermissionIndex getScopePermissionIndex(int tenantId) throws IdentityOAuth2ScopeServerException {
 
+        Object source;
+        Collection<Scope> allScopes;
         if (Oauth2ScopeUtils.isSystemLevelInternalSystemScopeManagementEnabled()) {
             List<Scope> oauthScopeBinding = OAuth2ServiceComponentHolder.getInstance().getOauthScopeBinding();
-            return new HashSet<>(oauthScopeBinding);
-        }
-        Scope[] scopesFromCache = OAuthScopeBindingCache.getInstance()
-                .getValueFromCache(new OAuthScopeBindingCacheKey(PERMISSION_BINDING_TYPE), tenantId);
-        Set<Scope> allScopes;
-        if (scopesFromCache != null) {
-            allScopes = Arrays.stream(scopesFromCache).collect(Collectors.toSet());
+            source = oauthScopeBinding;
+            allScopes = oauthScopeBinding;
         } else {
-            allScopes = OAuthTokenPersistenceFactory.getInstance().getOAuthScopeDAO().getScopes(tenantId,
-                    PERMISSION_BINDING_TYPE);
-            if (CollectionUtils.isNotEmpty(allScopes)) {
-                OAuthScopeBindingCache.getInstance().addToCache(new OAuthScopeBindingCacheKey(PERMISSION_BINDING_TYPE
-                ), allScopes.toArray(new Scope[0]), tenantId);
+            Scope[] scopesFromCache = OAuthScopeBindingCache.getInstance()
+                    .getValueFromCache(new OAuthScopeBindingCacheKey(PERMISSION_BINDING_TYPE), tenantId);
+            if (scopesFromCache != null) {
+                source = scopesFromCache;
+                allScopes = Arrays.asList(scopesFromCache);
+            } else {
+                Set<Scope> scopes = OAuthTokenPersistenceFactory.getInstance().getOAuthScopeDAO().getScopes(tenantId,
+                        PERMISSION_BINDING_TYPE);
+                Scope[] scopesToCache = scopes.toArray(new Scope[0]);
+                if (CollectionUtils.isNotEmpty(scopes)) {
+                    OAuthScopeBindingCache.getInstance().addToCache(new OAuthScopeBindingCacheKey(
+                            PERMISSION_BINDING_TYPE), scopesToCache, tenantId);
+                }
+                source = scopesToCache;
+                allScopes = scopes;
+            }
+        }
+
+        ScopePermissionIndex scopePermissionIndex = scopePermissionIndexes.get(tenantId);
+        if (scopePermissionIndex == null || !scopePermissionIndex.isBuiltFrom(source)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Building the scope permission index of the tenant: " + tenantId);
             }
+            scopePermissionIndex = new ScopePermissionIndex(source, allScopes);
+            scopePermissionIndexes.put(tenantId, scopePermissionIndex);
         }
-        return allScopes;
+        return scopePermissionIndex;
     }
 
     private void startTenantFlow(String tenantDomain, int tenantId) {
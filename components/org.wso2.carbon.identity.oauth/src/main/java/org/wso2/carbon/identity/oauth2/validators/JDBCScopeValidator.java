@@ -44,12 +44,15 @@ import org.wso2.carbon.identity.oauth.IdentityOAuthAdminException;
 import org.wso2.carbon.identity.oauth.cache.CacheEntry;
 import org.wso2.carbon.identity.oauth.cache.OAuthCache;
 import org.wso2.carbon.identity.oauth.cache.OAuthCacheKey;
+import org.wso2.carbon.identity.oauth.cache.OAuthScopeCache;
+import org.wso2.carbon.identity.oauth.cache.OAuthScopeCacheKey;
 import org.wso2.carbon.identity.oauth.internal.OAuthComponentServiceHolder;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2ScopeServerException;
 import org.wso2.carbon.identity.oauth2.OAuth2Constants;
 import org.wso2.carbon.identity.oauth2.authz.OAuthAuthzReqMessageContext;
 import org.wso2.carbon.identity.oauth2.bean.Scope;
+import org.wso2.carbon.identity.oauth2.bean.ScopeBinding;
 import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
 import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
@@ -370,7 +373,7 @@ public class JDBCScopeValidator extends OAuth2ScopeValidator {
         Scope scope = null;
 
         try {
-            scope = OAuthTokenPersistenceFactory.getInstance().getOAuthScopeDAO().getScopeByName(scopeName, tenantId);
+            scope = getScope(scopeName, tenantId);
         } catch (IdentityOAuth2ScopeServerException e) {
             log.error("Error while retrieving scope with name :" + scopeName);
         }
@@ -378,11 +381,58 @@ public class JDBCScopeValidator extends OAuth2ScopeValidator {
         return scope != null;
     }
 
+    /**
+     * Get an OAuth2 scope from the scope cache, which is preloaded for the tenant, or from the database.
+     *
+     * @param scopeName Name of the scope.
+     * @param tenantId  Tenant id.
+     * @return Scope, or null if there is no OAuth2 scope with the name.
+     * @throws IdentityOAuth2ScopeServerException If the scope could not be retrieved.
+     */
+    private Scope getScope(String scopeName, int tenantId) throws IdentityOAuth2ScopeServerException {
+
+        OAuthScopeCacheKey cacheKey = new OAuthScopeCacheKey(scopeName);
+        Scope scope = OAuthScopeCache.getInstance().getValueFromCache(cacheKey, tenantId);
+        if (scope == null) {
+            scope = OAuthTokenPersistenceFactory.getInstance().getOAuthScopeDAO().getScopeByName(scopeName, tenantId);
+            if (scope != null) {
+                OAuthScopeCache.getInstance().addToCache(cacheKey, scope, tenantId);
+            }
+        }
+        return scope;
+    }
+
+    /**
+     * Get the bindings of all the binding types of a scope. The bindings of an OAuth2 scope are taken from the scope
+     * cache, and the bindings of other scopes are read from the database.
+     *
+     * @param scopeName Name of the scope.
+     * @param tenantId  Tenant id.
+     * @return Bindings of the scope.
+     * @throws IdentityOAuth2Exception If the bindings could not be retrieved.
+     */
+    private Set<String> getBindingsOfScope(String scopeName, int tenantId) throws IdentityOAuth2Exception {
+
+        Scope scope = OAuthScopeCache.getInstance().getValueFromCache(new OAuthScopeCacheKey(scopeName), tenantId);
+        if (scope == null) {
+            return OAuthTokenPersistenceFactory.getInstance().getOAuthScopeDAO().
+                    getBindingsOfScopeByScopeName(scopeName, tenantId);
+        }
+        Set<String> bindings = new HashSet<>();
+        for (ScopeBinding scopeBinding : scope.getScopeBindings()) {
+            for (String binding : scopeBinding.getBindings()) {
+                if (StringUtils.isNotEmpty(binding)) {
+                    bindings.add(binding);
+                }
+            }
+        }
+        return bindings;
+    }
+
     private boolean isUserAuthorizedForScope(String scopeName, String[] userRoles, int tenantId)
             throws IdentityOAuth2Exception {
 
-        Set<String> rolesOfScope = OAuthTokenPersistenceFactory.getInstance().getOAuthScopeDAO().
-                getBindingsOfScopeByScopeName(scopeName, tenantId);
+        Set<String> rolesOfScope = getBindingsOfScope(scopeName, tenantId);
 
         if (CollectionUtils.isEmpty(rolesOfScope)) {
             if (log.isDebugEnabled()) {
@@ -21,7 +21,6 @@ package org.wso2.carbon.identity.oauth2.validators;
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSHeader;
 import com.nimbusds.jose.JWSVerifier;
-import com.nimbusds.jose.crypto.RSASSAVerifier;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
 import org.apache.commons.collections.MapUtils;
@@ -38,6 +37,7 @@ import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.util.JWTVerificationCache;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
 import org.wso2.carbon.idp.mgt.IdentityProviderManager;
@@ -65,6 +65,12 @@ public class OAuth2JWTTokenValidator extends DefaultOAuth2TokenValidator {
     private static final String DOT_SEPARATOR = ".";
     private static final String TRUE = "true";
 
+    @Override
+    public boolean isApplicable(OAuth2TokenValidationMessageContext messageContext) {
+
+        return isJWT(messageContext.getRequestDTO().getAccessToken().getIdentifier());
+    }
+
     @Override
     public boolean validateAccessToken(OAuth2TokenValidationMessageContext validationReqDTO)
             throws IdentityOAuth2Exception {
@@ -73,6 +79,27 @@ public class OAuth2JWTTokenValidator extends DefaultOAuth2TokenValidator {
             return false;
         }
 
+        String jwt = validationReqDTO.getRequestDTO().getAccessToken().getIdentifier();
+        JWTVerificationCache verificationCache = JWTVerificationCache.getInstance();
+        JWTClaimsSet verifiedClaimsSet = verificationCache.getVerifiedClaims(jwt, getTenantDomain());
+        if (verifiedClaimsSet != null) {
+            // The signature of the token was verified before. Only the time based checks can change the outcome.
+            if (log.isDebugEnabled()) {
+                log.debug("Signature of the token was verified before. Skipping the signature validation.");
+            }
+            if (!checkExpirationTime(verifiedClaimsSet.getExpirationTime())) {
+                LoggerUtils.triggerDiagnosticLogEvent(OAuthConstants.LogConstants.OAUTH_INBOUND_SERVICE, null,
+                        OAuthConstants.LogConstants.FAILED, "Token is expired.", "validate-jwt-access-token", null);
+                return false;
+            }
+            checkNotBeforeTime(verifiedClaimsSet.getNotBeforeTime());
+            setJWTMessageContext(validationReqDTO, verifiedClaimsSet);
+            LoggerUtils.triggerDiagnosticLogEvent(OAuthConstants.LogConstants.OAUTH_INBOUND_SERVICE, null,
+                    OAuthConstants.LogConstants.SUCCESS, "Token validation is successful.",
+                    "validate-jwt-access-token", null);
+            return true;
+        }
+
         try {
             SignedJWT signedJWT = getSignedJWT(validationReqDTO);
             JWTClaimsSet claimsSet = signedJWT.getJWTClaimsSet();
@@ -102,6 +129,7 @@ public class OAuth2JWTTokenValidator extends DefaultOAuth2TokenValidator {
             }
             checkNotBeforeTime(claimsSet.getNotBeforeTime());
             setJWTMessageContext(validationReqDTO, claimsSet);
+            verificationCache.addVerified(jwt, getTenantDomain(), claimsSet);
         } catch (JOSEException | ParseException e) {
             LoggerUtils.triggerDiagnosticLogEvent(OAuthConstants.LogConstants.OAUTH_INBOUND_SERVICE, null,
                     OAuthConstants.LogConstants.FAILED, "System error occurred.", "validate-jwt-access-token", null);
@@ -134,8 +162,7 @@ public class OAuth2JWTTokenValidator extends DefaultOAuth2TokenValidator {
         X509Certificate x509Certificate;
         String tenantDomain = getTenantDomain();
         try {
-            x509Certificate = (X509Certificate) IdentityApplicationManagementUtil
-                    .decodeCertificate(idp.getCertificate());
+            x509Certificate = JWTVerificationCache.getInstance().getDecodedCertificate(idp.getCertificate());
         } catch (CertificateException e) {
             throw new IdentityOAuth2Exception("Error occurred while decoding public certificate of Identity Provider "
                     + idp.getIdentityProviderName() + " for tenant domain " + tenantDomain, e);
@@ -222,7 +249,7 @@ public class OAuth2JWTTokenValidator extends DefaultOAuth2TokenValidator {
                 // At this point 'x509Certificate' will never be null.
                 PublicKey publicKey = x509Certificate.getPublicKey();
                 if (publicKey instanceof RSAPublicKey) {
-                    verifier = new RSASSAVerifier((RSAPublicKey) publicKey);
+                    verifier = JWTVerificationCache.getInstance().getRSAVerifier((RSAPublicKey) publicKey);
                 } else {
                     throw new IdentityOAuth2Exception("Public key is not an RSA public key.");
                 }
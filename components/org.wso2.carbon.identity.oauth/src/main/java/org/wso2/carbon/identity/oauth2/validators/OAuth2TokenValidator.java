@@ -38,6 +38,18 @@ public interface OAuth2TokenValidator {
     boolean validateAccessToken(OAuth2TokenValidationMessageContext validationReqDTO)
             throws IdentityOAuth2Exception;
 
+    /**
+     * Check whether the validator can validate a token of the shape of the token in the request. A validator which can
+     * not, is skipped without being invoked, so it need not fail the validation of such a token.
+     *
+     * @param messageContext Token validation message context.
+     * @return True if the validator can validate the token of the request.
+     */
+    default boolean isApplicable(OAuth2TokenValidationMessageContext messageContext) {
+
+        return true;
+    }
+
     default String getTokenType() {
 
         return "Bearer";
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.validators;
+
+import org.wso2.carbon.identity.oauth2.bean.Scope;
+import org.wso2.carbon.identity.oauth2.bean.ScopeBinding;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the permission bound scopes of a tenant, which resolves the scopes allowed by a set of permissions with a
+ * single walk over the permissions.
+ *
+ * The permission bindings of the scopes are kept in a prefix trie of their path segments. A permission allows a
+ * binding when the binding is the permission itself or a resource under it, hence a permission covers every binding
+ * of the subtree at its node. The nodes are also indexed by their path, so that the node of a permission is found
+ * with a single lookup, and the bindings of each subtree are computed when the index is built. A scope is allowed
+ * when all of its permission bindings are covered. The index is immutable, and is rebuilt when the scopes it was
+ * built from change.
+ */
+public class ScopePermissionIndex {
+
+    private static final String PERMISSION_BINDING_TYPE = "PERMISSION";
+    private static final String PATH_SEPARATOR = "/";
+
+    private final Object source;
+    private final Set<Scope> allScopes;
+    private final Scope[] scopes;
+    private final int[] requiredBindingCounts;
+    private final int[][] scopesOfBindings;
+    private final Node root = new Node();
+    private final Map<String, Node> nodesByPath = new HashMap<>();
+
+    /**
+     * Build the index of the given scopes.
+     *
+     * @param source Source the scopes were read from, which identifies the version of the scopes.
+     * @param scopes Scopes of the permission binding type.
+     */
+    public ScopePermissionIndex(Object source, Collection<Scope> scopes) {
+
+        this.source = source;
+        this.allScopes = Collections.unmodifiableSet(new LinkedHashSet<>(scopes));
+        this.scopes = allScopes.toArray(new Scope[0]);
+        this.requiredBindingCounts = new int[this.scopes.length];
+
+        Map<String, Integer> bindingIds = new HashMap<>();
+        List<List<Integer>> scopeIndexesOfBindings = new ArrayList<>();
+        for (int i = 0; i < this.scopes.length; i++) {
+            Set<String> bindings = getPermissionBindings(this.scopes[i]);
+            requiredBindingCounts[i] = bindings.size();
+            for (String binding : bindings) {
+                Integer bindingId = bindingIds.get(binding);
+                if (bindingId == null) {
+                    bindingId = bindingIds.size();
+                    bindingIds.put(binding, bindingId);
+                    scopeIndexesOfBindings.add(new ArrayList<>());
+                    insert(binding).bindingId = bindingId;
+                }
+                scopeIndexesOfBindings.get(bindingId).add(i);
+            }
+        }
+        this.scopesOfBindings = new int[scopeIndexesOfBindings.size()][];
+        for (int i = 0; i < scopesOfBindings.length; i++) {
+            scopesOfBindings[i] = scopeIndexesOfBindings.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        root.computeSubtreeBindings();
+    }
+
+    /**
+     * Check whether the index was built from the given source.
+     *
+     * @param source Source the scopes are read from.
+     * @return True if the index was built from the same source instance.
+     */
+    public boolean isBuiltFrom(Object source) {
+
+        return this.source == source;
+    }
+
+    public Set<Scope> getAllScopes() {
+
+        return allScopes;
+    }
+
+    /**
+     * Get the scopes allowed by the given permissions.
+     *
+     * @param permissions     Permissions of the user.
+     * @param requestedScopes Names of the scopes to consider, or null to consider all the scopes.
+     * @return Allowed scopes.
+     */
+    public List<Scope> getAllowedScopes(String[] permissions, Set<String> requestedScopes) {
+
+        BitSet coveredBindings = new BitSet(scopesOfBindings.length);
+        if (permissions != null) {
+            for (String permission : permissions) {
+                Node node = permission == null ? null : nodesByPath.get(permission);
+                if (node != null) {
+                    coveredBindings.or(node.subtreeBindings);
+                }
+            }
+        }
+        int[] coveredBindingCounts = new int[scopes.length];
+        for (int bindingId = coveredBindings.nextSetBit(0); bindingId >= 0;
+             bindingId = coveredBindings.nextSetBit(bindingId + 1)) {
+            for (int scopeIndex : scopesOfBindings[bindingId]) {
+                coveredBindingCounts[scopeIndex]++;
+            }
+        }
+
+        List<Scope> allowedScopes = new ArrayList<>();
+        for (int i = 0; i < scopes.length; i++) {
+            if (requestedScopes != null && !requestedScopes.contains(scopes[i].getName())) {
+                continue;
+            }
+            if (coveredBindingCounts[i] == requiredBindingCounts[i]) {
+                allowedScopes.add(scopes[i]);
+            }
+        }
+        return allowedScopes;
+    }
+
+    private static Set<String> getPermissionBindings(Scope scope) {
+
+        Set<String> bindings = new LinkedHashSet<>();
+        if (scope.getScopeBindings() != null) {
+            for (ScopeBinding scopeBinding : scope.getScopeBindings()) {
+                if (PERMISSION_BINDING_TYPE.equalsIgnoreCase(scopeBinding.getBindingType())
+                        && scopeBinding.getBindings() != null) {
+                    bindings.addAll(scopeBinding.getBindings());
+                }
+            }
+        }
+        return bindings;
+    }
+
+    private Node insert(String path) {
+
+        Node node = root;
+        int start = 0;
+        while (true) {
+            int end = path.indexOf(PATH_SEPARATOR, start);
+            String segment = end < 0 ? path.substring(start) : path.substring(start, end);
+            node = node.children.computeIfAbsent(segment, key -> new Node());
+            nodesByPath.putIfAbsent(end < 0 ? path : path.substring(0, end), node);
+            if (end < 0) {
+                return node;
+            }
+            start = end + 1;
+        }
+    }
+
+    private static class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+        private int bindingId = -1;
+        private BitSet subtreeBindings;
+
+        private BitSet computeSubtreeBindings() {
+
+            subtreeBindings = new BitSet();
+            if (bindingId >= 0) {
+                subtreeBindings.set(bindingId);
+            }
+            for (Node child : children.values()) {
+                subtreeBindings.or(child.computeSubtreeBindings());
+            }
+            return subtreeBindings;
+        }
+    }
+}
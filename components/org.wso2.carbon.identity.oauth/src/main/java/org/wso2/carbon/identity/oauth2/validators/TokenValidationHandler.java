@@ -22,11 +22,14 @@ import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
 import org.wso2.carbon.identity.application.common.IdentityApplicationManagementException;
 import org.wso2.carbon.identity.application.common.model.ServiceProvider;
 import org.wso2.carbon.identity.central.log.mgt.utils.LoggerUtils;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.cache.OAuthCache;
+import org.wso2.carbon.identity.oauth.cache.OAuthCacheKey;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth.common.exception.InvalidOAuthClientException;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
@@ -39,12 +42,26 @@ import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationRequestDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationResponseDTO;
 import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.util.AccessTokenPrefetchContext;
+import org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.wso2.carbon.identity.oauth2.util.OAuth2Util.isParsableJWT;
 
@@ -62,6 +79,15 @@ public class TokenValidationHandler {
     private static final String BEARER_TOKEN_TYPE_JWT = "jwt";
     private static final String BUILD_FQU_FROM_SP_CONFIG = "OAuth.BuildSubjectIdentifierFromSPConfig";
     private static final String ENABLE_JWT_TOKEN_VALIDATION = "OAuth.EnableJWTTokenValidationDuringIntrospection";
+    private static final String BULK_INTROSPECTION_POOL_SIZE = "OAuth.BulkIntrospection.PoolSize";
+    private static final String BULK_INTROSPECTION_MAX_TOKENS = "OAuth.BulkIntrospection.MaxTokens";
+    private static final int DEFAULT_BULK_INTROSPECTION_POOL_SIZE = 4;
+    private static final int DEFAULT_BULK_INTROSPECTION_MAX_TOKENS = 100;
+    private static final String INTROSPECTION_SERVER_ERROR =
+            "Server error occurred while building the introspection response";
+    private volatile ExecutorService bulkIntrospectionExecutor;
+    private volatile ValidatorChains validatorChains;
+    private final TokenValidatorMetrics validatorMetrics = new TokenValidatorMetrics();
 
     private TokenValidationHandler() {
 
@@ -85,6 +111,7 @@ public class TokenValidationHandler {
                 log.error("Class access error " + className, e);
             }
         }
+        validatorChains = new ValidatorChains(tokenValidators);
 
         // setting up the JWT if required
         if (OAuthServerConfiguration.getInstance().isAuthContextTokGenEnabled()) {
@@ -128,8 +155,20 @@ public class TokenValidationHandler {
         return instance;
     }
 
-    public void addTokenValidator(String type, OAuth2TokenValidator handler) {
+    public synchronized void addTokenValidator(String type, OAuth2TokenValidator handler) {
+
         tokenValidators.put(type, handler);
+        validatorChains = new ValidatorChains(tokenValidators);
+    }
+
+    /**
+     * Get the timing metrics of the token validators tried during token introspection.
+     *
+     * @return Token validator metrics.
+     */
+    public TokenValidatorMetrics getValidatorMetrics() {
+
+        return validatorMetrics;
     }
 
     /**
@@ -144,6 +183,83 @@ public class TokenValidationHandler {
         return appToken.getAccessTokenValidationResponse();
     }
 
+    /**
+     * Returns back the introspection responses of a batch of tokens, in the order of the validation requests.
+     *
+     * The opaque access tokens of the batch which are not cached are retrieved with a single lookup before they are
+     * introspected, and the self-contained JWT access tokens are introspected in parallel. A request which could not
+     * be introspected gets an error response, without failing the rest of the batch.
+     *
+     * @param validationRequests Validation requests.
+     * @return Introspection responses.
+     */
+    public List<OAuth2IntrospectionResponseDTO> buildIntrospectionResponses(
+            List<OAuth2TokenValidationRequestDTO> validationRequests) {
+
+        OAuth2IntrospectionResponseDTO[] responses = new OAuth2IntrospectionResponseDTO[validationRequests.size()];
+        List<Integer> opaqueTokenRequests = new ArrayList<>();
+        List<Integer> jwtTokenRequests = new ArrayList<>();
+        for (int i = 0; i < validationRequests.size(); i++) {
+            OAuth2TokenValidationRequestDTO.OAuth2AccessToken accessToken = validationRequests.get(i).getAccessToken();
+            if (accessToken == null || accessToken.getIdentifier() == null) {
+                responses[i] = buildIntrospectionErrorResponse("Access token is not present in the validation request");
+            } else if (isJWTTokenValidation(accessToken.getIdentifier())) {
+                jwtTokenRequests.add(i);
+            } else {
+                opaqueTokenRequests.add(i);
+            }
+        }
+
+        // JWT access tokens are validated by their signature, so they are introspected on the pool while the opaque
+        // tokens are retrieved from the database.
+        Map<Integer, Future<OAuth2IntrospectionResponseDTO>> jwtResponses = new LinkedHashMap<>();
+        List<Integer> callerJwtTokenRequests = jwtTokenRequests;
+        ExecutorService executor = jwtTokenRequests.size() > 1 ? getBulkIntrospectionExecutor() : null;
+        if (executor != null) {
+            String tenantDomain = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain();
+            callerJwtTokenRequests = new ArrayList<>();
+            for (int index : jwtTokenRequests) {
+                OAuth2TokenValidationRequestDTO validationRequest = validationRequests.get(index);
+                try {
+                    jwtResponses.put(index, executor.submit(() -> introspectInTenantFlow(validationRequest,
+                            tenantDomain)));
+                } catch (RejectedExecutionException e) {
+                    // The pool is shut down while the component is deactivated.
+                    callerJwtTokenRequests.add(index);
+                }
+            }
+        }
+
+        introspectOpaqueTokens(validationRequests, opaqueTokenRequests, responses);
+
+        for (int index : callerJwtTokenRequests) {
+            responses[index] = introspect(validationRequests.get(index));
+        }
+        for (Map.Entry<Integer, Future<OAuth2IntrospectionResponseDTO>> jwtResponse : jwtResponses.entrySet()) {
+            try {
+                responses[jwtResponse.getKey()] = jwtResponse.getValue().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Interrupted while introspecting a JWT access token.", e);
+                responses[jwtResponse.getKey()] = buildIntrospectionErrorResponse(INTROSPECTION_SERVER_ERROR);
+            } catch (ExecutionException e) {
+                log.error("Error occurred while building the introspection response", e.getCause());
+                responses[jwtResponse.getKey()] = buildIntrospectionErrorResponse(INTROSPECTION_SERVER_ERROR);
+            }
+        }
+        return Arrays.asList(responses);
+    }
+
+    /**
+     * Returns the maximum number of tokens accepted in a bulk introspection request.
+     *
+     * @return Maximum number of tokens.
+     */
+    public int getMaxBulkIntrospectionTokens() {
+
+        return OAuth2ConfigUtil.getIntProperty(BULK_INTROSPECTION_MAX_TOKENS, DEFAULT_BULK_INTROSPECTION_MAX_TOKENS);
+    }
+
     /**
      * this is method is deprecated now. any new implementations use buildIntrospectionResponse.
      *
@@ -234,41 +350,23 @@ public class TokenValidationHandler {
 
         OAuth2TokenValidationRequestDTO.OAuth2AccessToken oAuth2Token = validationRequest.getAccessToken();
 
-        // To hold the applicable validators list from all the available validators. This list will be prioritized if we
-        // have a token_type_hint.
-        List<OAuth2TokenValidator> applicableValidators = new ArrayList<>();
+        // The applicable validators from all the available validators, prioritized by the token type hint.
         boolean isJWTTokenValidation = isJWTTokenValidation(oAuth2Token.getIdentifier());
+        List<OAuth2TokenValidator> applicableValidators = validatorChains.getValidators(oAuth2Token.getTokenType(),
+                isJWTTokenValidation);
 
-        // If we have a token type hint, we have to prioritize our list.
-        if (oAuth2Token.getTokenType() != null) {
-            if (tokenValidators.get(oAuth2Token.getTokenType()) != null) {
-                // Ignore bearer token validators if the token is JWT.
-                if (!isSkipValidatorForJWT(tokenValidators.get(oAuth2Token.getTokenType()), isJWTTokenValidation)) {
-                    applicableValidators.add(tokenValidators.get(oAuth2Token.getTokenType()));
+        // Catch the latest error and throw it if there aren't any active tokens.
+        Exception exception = null;
+        for (OAuth2TokenValidator tokenValidator : applicableValidators) {
+            if (!tokenValidator.isApplicable(messageContext)) {
+                // The token is not of a shape the validator accepts, e.g. an opaque token for the JWT validator.
+                if (log.isDebugEnabled()) {
+                    log.debug("Token validator " + tokenValidator.getClass().getName() + " is not applicable for the "
+                            + "introspected token. Skipping the validator.");
                 }
-            }
-        }
-
-        // Add the rest of the validators.
-        for (Map.Entry<String, OAuth2TokenValidator> oAuth2TokenValidator : tokenValidators.entrySet()) {
-            // Ignore if we added this already.
-            if (StringUtils.equals(oAuth2TokenValidator.getKey(), oAuth2Token.getTokenType())) {
-                continue;
-            }
-
-            // Ignore bearer token validators if the token is JWT.
-            if (isSkipValidatorForJWT(oAuth2TokenValidator.getValue(), isJWTTokenValidation)) {
                 continue;
             }
-
-            if (oAuth2TokenValidator.getValue() != null) {
-                applicableValidators.add(oAuth2TokenValidator.getValue());
-            }
-        }
-
-        // Catch the latest exception and throw it if there aren't any active tokens.
-        Exception exception = null;
-        for (OAuth2TokenValidator tokenValidator : applicableValidators) {
+            long startTime = System.nanoTime();
             try {
                 if (tokenValidator.validateAccessToken(messageContext)) {
                     // We have to specially handle the access token and refresh token for further validations.
@@ -292,6 +390,8 @@ public class TokenValidationHandler {
                 }
             } catch (Exception ex) {
                 exception = ex;
+            } finally {
+                recordValidatorTime(tokenValidator, System.nanoTime() - startTime, introResp.isActive());
             }
         }
 
@@ -441,19 +541,6 @@ public class TokenValidationHandler {
         } else {
             try {
                 accessTokenDO = OAuth2Util.findAccessToken(validationRequest.getAccessToken().getIdentifier(), false);
-                List<String> allowedScopes = OAuthServerConfiguration.getInstance().getAllowedScopes();
-                String[] requestedScopes = accessTokenDO.getScope();
-                List<String> scopesToBeValidated = new ArrayList<>();
-                if (requestedScopes != null) {
-                    for (String scope : requestedScopes) {
-                        if (OAuth2Util.isAllowedScope(allowedScopes, scope)) {
-                            requestedAllowedScopes.add(scope);
-                        } else {
-                            scopesToBeValidated.add(scope);
-                        }
-                    }
-                    accessTokenDO.setScope(scopesToBeValidated.toArray(new String[0]));
-                }
             } catch (IllegalArgumentException e) {
                 // access token not found in the system.
                 LoggerUtils.triggerDiagnosticLogEvent(OAuthConstants.LogConstants.OAUTH_INBOUND_SERVICE, null,
@@ -461,6 +548,20 @@ public class TokenValidationHandler {
                         "validate-access-token", null);
                 return buildIntrospectionErrorResponse(e.getMessage());
             }
+            List<String> allowedScopes = OAuthServerConfiguration.getInstance().getAllowedScopes();
+            String[] requestedScopes = accessTokenDO.getScope();
+            List<String> scopesToBeValidated = new ArrayList<>();
+            if (requestedScopes != null) {
+                for (String scope : requestedScopes) {
+                    if (OAuth2Util.isAllowedScope(allowedScopes, scope)) {
+                        requestedAllowedScopes.add(scope);
+                    } else {
+                        scopesToBeValidated.add(scope);
+                    }
+                }
+                accessTokenDO.setScope(scopesToBeValidated.toArray(new String[0]));
+            }
+
 
             if (hasAccessTokenExpired(accessTokenDO)) {
                 LoggerUtils.triggerDiagnosticLogEvent(OAuthConstants.LogConstants.OAUTH_INBOUND_SERVICE, null,
@@ -600,6 +701,99 @@ public class TokenValidationHandler {
                 OAuthConstants.Scope.OAUTH2, spTenantDomain);
     }
 
+    /**
+     * Introspect the opaque tokens of a batch, with the access tokens which are not cached retrieved ahead in a
+     * single lookup.
+     */
+    private void introspectOpaqueTokens(List<OAuth2TokenValidationRequestDTO> validationRequests,
+                                        List<Integer> requestIndexes, OAuth2IntrospectionResponseDTO[] responses) {
+
+        if (requestIndexes.isEmpty()) {
+            return;
+        }
+        Set<String> accessTokenIdentifiers = new LinkedHashSet<>();
+        for (int index : requestIndexes) {
+            String accessTokenIdentifier = validationRequests.get(index).getAccessToken().getIdentifier();
+            if (!(OAuthCache.getInstance().getValueFromCache(new OAuthCacheKey(accessTokenIdentifier))
+                    instanceof AccessTokenDO)) {
+                accessTokenIdentifiers.add(accessTokenIdentifier);
+            }
+        }
+        if (accessTokenIdentifiers.size() > 1) {
+            try {
+                Map<String, AccessTokenDO> accessTokenDOs = OAuthTokenPersistenceFactory.getInstance()
+                        .getAccessTokenDAO().getAccessTokens(accessTokenIdentifiers);
+                AccessTokenPrefetchContext.set(accessTokenIdentifiers, accessTokenDOs);
+            } catch (IdentityOAuth2Exception e) {
+                log.error("Error while retrieving the access tokens of the batch. The tokens will be retrieved " +
+                        "one by one.", e);
+            }
+        }
+        try {
+            for (int index : requestIndexes) {
+                responses[index] = introspect(validationRequests.get(index));
+            }
+        } finally {
+            AccessTokenPrefetchContext.clear();
+        }
+    }
+
+    private OAuth2IntrospectionResponseDTO introspectInTenantFlow(OAuth2TokenValidationRequestDTO validationRequest,
+                                                                  String tenantDomain) {
+
+        try {
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain, true);
+            return introspect(validationRequest);
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    private OAuth2IntrospectionResponseDTO introspect(OAuth2TokenValidationRequestDTO validationRequest) {
+
+        try {
+            return buildIntrospectionResponse(validationRequest);
+        } catch (IdentityOAuth2Exception e) {
+            log.error("Error occurred while building the introspection response", e);
+            return buildIntrospectionErrorResponse(INTROSPECTION_SERVER_ERROR);
+        }
+    }
+
+    private ExecutorService getBulkIntrospectionExecutor() {
+
+        if (bulkIntrospectionExecutor == null) {
+            int poolSize = OAuth2ConfigUtil.getIntProperty(BULK_INTROSPECTION_POOL_SIZE,
+                    DEFAULT_BULK_INTROSPECTION_POOL_SIZE);
+            if (poolSize <= 1) {
+                return null;
+            }
+            synchronized (this) {
+                if (bulkIntrospectionExecutor == null) {
+                    bulkIntrospectionExecutor = Executors.newFixedThreadPool(poolSize,
+                            new BulkIntrospectionThreadFactory());
+                }
+            }
+        }
+        return bulkIntrospectionExecutor;
+    }
+
+    /**
+     * Stop the threads which introspect the JWT access tokens of bulk introspection requests. The JWT access tokens
+     * of the requests which are already submitted are introspected before the threads are stopped.
+     */
+    public void shutdown() {
+
+        ExecutorService executor;
+        synchronized (this) {
+            executor = bulkIntrospectionExecutor;
+            bulkIntrospectionExecutor = null;
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
     /**
      * @param errorMessage
      * @return
@@ -735,13 +929,23 @@ public class TokenValidationHandler {
         return OAuthTokenPersistenceFactory.getInstance().getTokenManagementDAO().getRefreshToken(refreshToken);
     }
 
+    private void recordValidatorTime(OAuth2TokenValidator tokenValidator, long elapsedNanos, boolean active) {
+
+        String validatorName = tokenValidator.getClass().getName();
+        validatorMetrics.record(validatorName, elapsedNanos, active);
+        if (log.isDebugEnabled()) {
+            log.debug("Token validator: " + validatorName + " took " + elapsedNanos / 1000 + " microseconds. " +
+                    "Token active: " + active);
+        }
+    }
+
     private boolean isJWTTokenValidation(String tokenIdentifier) {
 
         return Boolean.parseBoolean(IdentityUtil.getProperty(ENABLE_JWT_TOKEN_VALIDATION)) && isParsableJWT(
                 tokenIdentifier);
     }
 
-    private boolean isSkipValidatorForJWT(OAuth2TokenValidator tokenValidator, boolean isJWTTokenValidation) {
+    private static boolean isSkipValidatorForJWT(OAuth2TokenValidator tokenValidator, boolean isJWTTokenValidation) {
 
         return isJWTTokenValidation && BEARER_TOKEN_TYPE.equals(tokenValidator.getTokenType());
     }
@@ -753,4 +957,77 @@ public class TokenValidationHandler {
         String[] scopesToReturn = (String[]) ArrayUtils.addAll(scopes, allowedScopes);
         oAuth2TokenValidationMessageContext.getResponseDTO().setScope(scopesToReturn);
     }
+
+    /**
+     * Immutable chains of the token validators to try for a token, by token type hint and by whether the token is
+     * validated as a JWT. The validator of the hinted token type is tried first. Bearer token validators are left out
+     * of the chains of JWT tokens.
+     */
+    static final class ValidatorChains {
+
+        private final Map<String, List<OAuth2TokenValidator>> opaqueTokenChains =
+                new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        private final Map<String, List<OAuth2TokenValidator>> jwtTokenChains =
+                new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        private final List<OAuth2TokenValidator> opaqueTokenChain;
+        private final List<OAuth2TokenValidator> jwtTokenChain;
+
+        ValidatorChains(Map<String, OAuth2TokenValidator> tokenValidators) {
+
+            opaqueTokenChain = buildChain(tokenValidators, null, false);
+            jwtTokenChain = buildChain(tokenValidators, null, true);
+            for (String tokenType : tokenValidators.keySet()) {
+                opaqueTokenChains.put(tokenType, buildChain(tokenValidators, tokenType, false));
+                jwtTokenChains.put(tokenType, buildChain(tokenValidators, tokenType, true));
+            }
+        }
+
+        List<OAuth2TokenValidator> getValidators(String tokenTypeHint, boolean isJWTTokenValidation) {
+
+            Map<String, List<OAuth2TokenValidator>> chains = isJWTTokenValidation ? jwtTokenChains :
+                    opaqueTokenChains;
+            List<OAuth2TokenValidator> chain = tokenTypeHint == null ? null : chains.get(tokenTypeHint);
+            if (chain == null) {
+                chain = isJWTTokenValidation ? jwtTokenChain : opaqueTokenChain;
+            }
+            return chain;
+        }
+
+        private static List<OAuth2TokenValidator> buildChain(Map<String, OAuth2TokenValidator> tokenValidators,
+                                                             String tokenTypeHint, boolean isJWTTokenValidation) {
+
+            List<OAuth2TokenValidator> chain = new ArrayList<>();
+            if (tokenTypeHint != null) {
+                addToChain(chain, tokenValidators.get(tokenTypeHint), isJWTTokenValidation);
+            }
+            for (Map.Entry<String, OAuth2TokenValidator> tokenValidator : tokenValidators.entrySet()) {
+                if (!StringUtils.equalsIgnoreCase(tokenValidator.getKey(), tokenTypeHint)) {
+                    addToChain(chain, tokenValidator.getValue(), isJWTTokenValidation);
+                }
+            }
+            return Collections.unmodifiableList(chain);
+        }
+
+        private static void addToChain(List<OAuth2TokenValidator> chain, OAuth2TokenValidator tokenValidator,
+                                       boolean isJWTTokenValidation) {
+
+            // Ignore bearer token validators if the token is JWT.
+            if (tokenValidator != null && !isSkipValidatorForJWT(tokenValidator, isJWTTokenValidation)) {
+                chain.add(tokenValidator);
+            }
+        }
+    }
+
+    private static class BulkIntrospectionThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+
+            Thread thread = new Thread(runnable, "BulkTokenIntrospection-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.validators;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timing metrics of the token validators tried during token introspection, by validator class name.
+ */
+public class TokenValidatorMetrics {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Record an attempt of a token validator.
+     *
+     * @param validatorName Class name of the token validator.
+     * @param elapsedNanos  Time taken by the attempt, in nanoseconds.
+     * @param active        Whether the validator found the token to be active.
+     */
+    void record(String validatorName, long elapsedNanos, boolean active) {
+
+        Entry entry = entries.computeIfAbsent(validatorName, name -> new Entry());
+        entry.invocations.increment();
+        entry.totalTimeNanos.add(elapsedNanos);
+        entry.maxTimeNanos.accumulateAndGet(elapsedNanos, Math::max);
+        if (active) {
+            entry.activeTokens.increment();
+        }
+    }
+
+    /**
+     * Get the class names of the token validators which were tried.
+     *
+     * @return Token validator class names.
+     */
+    public Set<String> getValidatorNames() {
+
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    public long getInvocationCount(String validatorName) {
+
+        Entry entry = entries.get(validatorName);
+        return entry == null ? 0 : entry.invocations.sum();
+    }
+
+    public long getActiveTokenCount(String validatorName) {
+
+        Entry entry = entries.get(validatorName);
+        return entry == null ? 0 : entry.activeTokens.sum();
+    }
+
+    public long getTotalTimeNanos(String validatorName) {
+
+        Entry entry = entries.get(validatorName);
+        return entry == null ? 0 : entry.totalTimeNanos.sum();
+    }
+
+    public long getMaxTimeNanos(String validatorName) {
+
+        Entry entry = entries.get(validatorName);
+        return entry == null ? 0 : entry.maxTimeNanos.get();
+    }
+
+    /**
+     * Get the average time taken by an attempt of the token validator.
+     *
+     * @param validatorName Class name of the token validator.
+     * @return Average time in nanoseconds, or 0 if the validator was not tried.
+     */
+    public long getAverageTimeNanos(String validatorName) {
+
+        long invocations = getInvocationCount(validatorName);
+        return invocations == 0 ? 0 : getTotalTimeNanos(validatorName) / invocations;
+    }
+
+    /**
+     * Remove all the recorded metrics.
+     */
+    public void reset() {
+
+        entries.clear();
+    }
+
+    private static class Entry {
+
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder activeTokens = new LongAdder();
+        private final LongAdder totalTimeNanos = new LongAdder();
+        private final AtomicLong maxTimeNanos = new AtomicLong();
+    }
+}
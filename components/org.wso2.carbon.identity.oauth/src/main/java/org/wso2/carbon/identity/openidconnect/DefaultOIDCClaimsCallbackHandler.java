@@ -50,6 +50,7 @@ import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
 import org.wso2.carbon.identity.oauth2.model.RefreshTokenValidationDataDO;
 import org.wso2.carbon.identity.oauth2.token.OAuthTokenReqMessageContext;
 import org.wso2.carbon.identity.oauth2.token.handlers.grant.RefreshGrantHandler;
+import org.wso2.carbon.identity.openidconnect.UserClaimsResolutionContext.Section;
 import org.wso2.carbon.identity.openidconnect.internal.OpenIDConnectServiceComponentHolder;
 import org.wso2.carbon.identity.openidconnect.model.RequestedClaim;
 import org.wso2.carbon.identity.organization.management.service.exception.OrganizationManagementException;
@@ -325,8 +326,14 @@ public class DefaultOIDCClaimsCallbackHandler implements CustomClaimsCallbackHan
             String spTenantDomain = getServiceProviderTenantDomain(requestMsgCtx);
             String clientId = requestMsgCtx.getOauth2AccessTokenReqDTO().getClientId();
             AuthenticatedUser authenticatedUser = requestMsgCtx.getAuthorizedUser();
+            UserClaimsResolutionContext resolutionContext =
+                    UserClaimsResolutionContextManager.getInstance().getContext(requestMsgCtx);
 
-            return getUserClaimsInOIDCDialect(spTenantDomain, clientId, authenticatedUser);
+            Map<String, Object> userClaimsInOIDCDialect =
+                    getUserClaimsInOIDCDialect(spTenantDomain, clientId, authenticatedUser, resolutionContext);
+            UserClaimsResolutionContextManager.getInstance().bindToToken(getAccessToken(requestMsgCtx),
+                    resolutionContext);
+            return userClaimsInOIDCDialect;
         } catch (UserStoreException | IdentityApplicationManagementException | IdentityException |
                  OrganizationManagementException e) {
             if (FrameworkUtils.isContinueOnClaimHandlingErrorAllowed()) {
@@ -437,8 +444,14 @@ public class DefaultOIDCClaimsCallbackHandler implements CustomClaimsCallbackHan
             String spTenantDomain = getServiceProviderTenantDomain(authzReqMessageContext);
             String clientId = authzReqMessageContext.getAuthorizationReqDTO().getConsumerKey();
             AuthenticatedUser authenticatedUser = authzReqMessageContext.getAuthorizationReqDTO().getUser();
+            UserClaimsResolutionContext resolutionContext =
+                    UserClaimsResolutionContextManager.getInstance().getContext(authzReqMessageContext);
 
-            return getUserClaimsInOIDCDialect(spTenantDomain, clientId, authenticatedUser);
+            Map<String, Object> userClaimsInOIDCDialect =
+                    getUserClaimsInOIDCDialect(spTenantDomain, clientId, authenticatedUser, resolutionContext);
+            UserClaimsResolutionContextManager.getInstance().bindToToken(getAccessToken(authzReqMessageContext),
+                    resolutionContext);
+            return userClaimsInOIDCDialect;
         } catch (UserStoreException | IdentityApplicationManagementException | IdentityException |
                  OrganizationManagementException e) {
             if (FrameworkUtils.isContinueOnClaimHandlingErrorAllowed()) {
@@ -471,12 +484,18 @@ public class DefaultOIDCClaimsCallbackHandler implements CustomClaimsCallbackHan
 
     private Map<String, Object> getUserClaimsInOIDCDialect(String spTenantDomain,
                                                            String clientId,
-                                                           AuthenticatedUser authenticatedUser)
+                                                           AuthenticatedUser authenticatedUser,
+                                                           UserClaimsResolutionContext resolutionContext)
             throws IdentityApplicationManagementException, IdentityException, UserStoreException,
             OrganizationManagementException {
 
         Map<String, Object> userClaimsMappedToOIDCDialect = new HashMap<>();
-        ServiceProvider serviceProvider = getServiceProvider(spTenantDomain, clientId);
+        String serviceProviderKey = UserClaimsResolutionContext.getServiceProviderKey(clientId, spTenantDomain);
+        ServiceProvider serviceProvider = resolutionContext.get(Section.SERVICE_PROVIDER, serviceProviderKey);
+        if (serviceProvider == null) {
+            serviceProvider = getServiceProvider(spTenantDomain, clientId);
+            resolutionContext.put(Section.SERVICE_PROVIDER, serviceProviderKey, serviceProvider);
+        }
         if (serviceProvider == null) {
             log.warn("Unable to find a service provider associated with client_id: " + clientId + " in tenantDomain: " +
                     spTenantDomain + ". Returning empty claim map for user.");
@@ -492,39 +511,38 @@ public class DefaultOIDCClaimsCallbackHandler implements CustomClaimsCallbackHan
             }
             return userClaimsMappedToOIDCDialect;
         }
-        String userTenantDomain;
-        String fullQualifiedUsername;
-        if (StringUtils.isNotBlank(authenticatedUser.getUserId())) {
-            String userId = authenticatedUser.getUserId();
-            userTenantDomain = authenticatedUser.getTenantDomain();
-            int tenantId = IdentityTenantUtil.getTenantId(userTenantDomain);
-            Tenant tenant =
-                    OAuthComponentServiceHolder.getInstance().getRealmService().getTenantManager().getTenant(tenantId);
-            if (tenant != null && StringUtils.isNotBlank(tenant.getAssociatedOrganizationUUID())) {
-                Optional<User> user = OAuth2ServiceComponentHolder.getOrganizationUserResidentResolverService()
-                        .resolveUserFromResidentOrganization(null, userId, tenant.getAssociatedOrganizationUUID());
-                if (!user.isPresent()) {
-                    return userClaimsMappedToOIDCDialect;
-                }
-                userTenantDomain = user.get().getTenantDomain();
-                fullQualifiedUsername = user.get().getFullQualifiedUsername();
-            } else {
-                userTenantDomain = authenticatedUser.getTenantDomain();
-                fullQualifiedUsername = authenticatedUser.toFullQualifiedUsername();
+        String authenticatedUserKey = authenticatedUser.getTenantDomain() + "/" +
+                authenticatedUser.toFullQualifiedUsername();
+        ResolvedUser resolvedUser = resolutionContext.get(Section.RESOLVED_USER, authenticatedUserKey);
+        if (resolvedUser == null) {
+            resolvedUser = resolveUser(authenticatedUser);
+            if (resolvedUser == null) {
+                return userClaimsMappedToOIDCDialect;
             }
-        } else {
-            userTenantDomain = authenticatedUser.getTenantDomain();
-            fullQualifiedUsername = authenticatedUser.toFullQualifiedUsername();
+            resolutionContext.put(Section.RESOLVED_USER, authenticatedUserKey, resolvedUser);
         }
-        UserRealm realm = IdentityTenantUtil.getRealm(userTenantDomain, fullQualifiedUsername);
+        String userTenantDomain = resolvedUser.tenantDomain;
+        String fullQualifiedUsername = resolvedUser.fullQualifiedUsername;
+
+        UserRealm realm = resolutionContext.get(Section.USER_REALM, userTenantDomain);
         if (realm == null) {
-            log.warn("Invalid tenant domain: " + userTenantDomain + " provided. Cannot get claims for user: "
-                    + fullQualifiedUsername);
-            return userClaimsMappedToOIDCDialect;
+            realm = IdentityTenantUtil.getRealm(userTenantDomain, fullQualifiedUsername);
+            if (realm == null) {
+                log.warn("Invalid tenant domain: " + userTenantDomain + " provided. Cannot get claims for user: "
+                        + fullQualifiedUsername);
+                return userClaimsMappedToOIDCDialect;
+            }
+            resolutionContext.put(Section.USER_REALM, userTenantDomain, realm);
         }
 
         List<String> requestedClaimUris = getRequestedClaimUris(requestClaimMappings);
-        Map<String, String> userClaims = getUserClaimsInLocalDialect(fullQualifiedUsername, realm, requestedClaimUris);
+        String userKey = UserClaimsResolutionContext.getUserKey(userTenantDomain, resolvedUser.userId,
+                fullQualifiedUsername);
+        Map<String, String> userClaims = resolutionContext.getUserClaims(userKey, requestedClaimUris);
+        if (userClaims == null) {
+            userClaims = getUserClaimsInLocalDialect(fullQualifiedUsername, realm, requestedClaimUris);
+            resolutionContext.putUserClaims(userKey, requestedClaimUris, userClaims);
+        }
 
         if (isEmpty(userClaims)) {
             // User claims can be empty if user does not exist in user stores. Probably a federated user.
@@ -541,7 +559,8 @@ public class DefaultOIDCClaimsCallbackHandler implements CustomClaimsCallbackHan
             handleServiceProviderRoleMappings(serviceProvider, ATTRIBUTE_SEPARATOR, userClaims);
 
             // Get the user claims in oidc dialect to be returned in the id_token.
-            Map<String, Object> userClaimsInOIDCDialect = getUserClaimsInOIDCDialect(spTenantDomain, userClaims);
+            Map<String, Object> userClaimsInOIDCDialect =
+                    getUserClaimsInOIDCDialect(spTenantDomain, userClaims, resolutionContext);
             userClaimsMappedToOIDCDialect.putAll(userClaimsInOIDCDialect);
         }
 
@@ -555,12 +574,50 @@ public class DefaultOIDCClaimsCallbackHandler implements CustomClaimsCallbackHan
         return serviceProvider.getClaimConfig().getClaimMappings();
     }
 
+    /**
+     * Resolve the user whose claims are read from the user store, which is the user of the resident organization of
+     * the tenant of the authenticated user, if the tenant is associated with an organization.
+     *
+     * @param authenticatedUser Authenticated user.
+     * @return Resolved user, or null if the user is not found in the resident organization.
+     */
+    private ResolvedUser resolveUser(AuthenticatedUser authenticatedUser) throws IdentityException,
+            UserStoreException, OrganizationManagementException {
+
+        if (StringUtils.isNotBlank(authenticatedUser.getUserId())) {
+            String userId = authenticatedUser.getUserId();
+            int tenantId = IdentityTenantUtil.getTenantId(authenticatedUser.getTenantDomain());
+            Tenant tenant =
+                    OAuthComponentServiceHolder.getInstance().getRealmService().getTenantManager().getTenant(tenantId);
+            if (tenant != null && StringUtils.isNotBlank(tenant.getAssociatedOrganizationUUID())) {
+                Optional<User> user = OAuth2ServiceComponentHolder.getOrganizationUserResidentResolverService()
+                        .resolveUserFromResidentOrganization(null, userId, tenant.getAssociatedOrganizationUUID());
+                if (!user.isPresent()) {
+                    return null;
+                }
+                return new ResolvedUser(user.get().getTenantDomain(), user.get().getFullQualifiedUsername(),
+                        user.get().getUserID());
+            }
+            return new ResolvedUser(authenticatedUser.getTenantDomain(), authenticatedUser.toFullQualifiedUsername(),
+                    userId);
+        }
+        return new ResolvedUser(authenticatedUser.getTenantDomain(), authenticatedUser.toFullQualifiedUsername(),
+                null);
+    }
+
     private Map<String, Object> getUserClaimsInOIDCDialect(String spTenantDomain,
-                                                           Map<String, String> userClaims)
+                                                           Map<String, String> userClaims,
+                                                           UserClaimsResolutionContext resolutionContext)
             throws ClaimMetadataException {
         // Retrieve OIDC to Local Claim Mappings.
-        Map<String, String> oidcToLocalClaimMappings = ClaimMetadataHandler.getInstance()
-                .getMappingsMapFromOtherDialectToCarbon(OIDC_DIALECT, null, spTenantDomain, false);
+        String claimMappingsKey = OIDC_DIALECT + "/" + spTenantDomain;
+        Map<String, String> oidcToLocalClaimMappings =
+                resolutionContext.get(Section.CLAIM_MAPPINGS, claimMappingsKey);
+        if (oidcToLocalClaimMappings == null) {
+            oidcToLocalClaimMappings = ClaimMetadataHandler.getInstance()
+                    .getMappingsMapFromOtherDialectToCarbon(OIDC_DIALECT, null, spTenantDomain, false);
+            resolutionContext.put(Section.CLAIM_MAPPINGS, claimMappingsKey, oidcToLocalClaimMappings);
+        }
         // Get user claims in OIDC dialect.
         return getUserClaimsInOidcDialect(oidcToLocalClaimMappings, userClaims);
     }
@@ -789,4 +846,21 @@ public class DefaultOIDCClaimsCallbackHandler implements CustomClaimsCallbackHan
         }
         return StringUtils.contains(claimValue, ATTRIBUTE_SEPARATOR);
     }
+
+    /**
+     * User whose claims are read from the user store.
+     */
+    private static class ResolvedUser {
+
+        private final String tenantDomain;
+        private final String fullQualifiedUsername;
+        private final String userId;
+
+        private ResolvedUser(String tenantDomain, String fullQualifiedUsername, String userId) {
+
+            this.tenantDomain = tenantDomain;
+            this.fullQualifiedUsername = fullQualifiedUsername;
+            this.userId = userId;
+        }
+    }
 }
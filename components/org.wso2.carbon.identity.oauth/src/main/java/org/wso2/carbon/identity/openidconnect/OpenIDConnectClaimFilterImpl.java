@@ -22,7 +22,6 @@ import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.application.authentication.framework.handler.request.impl.consent.ClaimMetaData;
 import org.wso2.carbon.identity.application.authentication.framework.handler.request.impl.consent.exception.SSOConsentServiceException;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
@@ -33,16 +32,12 @@ import org.wso2.carbon.identity.claim.metadata.mgt.model.Claim;
 import org.wso2.carbon.identity.claim.metadata.mgt.model.ExternalClaim;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
-import org.wso2.carbon.identity.oauth.dto.ScopeDTO;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
-import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.openidconnect.internal.OpenIDConnectServiceComponentHolder;
+import org.wso2.carbon.identity.openidconnect.model.OIDCScopeClaimIndex;
 import org.wso2.carbon.identity.openidconnect.model.RequestedClaim;
-import org.wso2.carbon.registry.api.RegistryException;
-import org.wso2.carbon.registry.api.Resource;
-import org.wso2.carbon.registry.core.service.RegistryService;
 import org.wso2.carbon.user.core.UserCoreConstants;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
 
@@ -54,7 +49,6 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Properties;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -64,7 +58,6 @@ import static org.wso2.carbon.identity.oauth.common.OAuthConstants.OIDCClaims.EM
 import static org.wso2.carbon.identity.oauth.common.OAuthConstants.OIDCClaims.PHONE_NUMBER_VERIFIED;
 import static org.wso2.carbon.identity.oauth.common.OAuthConstants.OIDCClaims.ROLES;
 import static org.wso2.carbon.identity.oauth.common.OAuthConstants.OIDCClaims.UPDATED_AT;
-import static org.wso2.carbon.identity.oauth.common.OAuthConstants.SCOPE_RESOURCE_PATH;
 
 /**
  * Default implementation of {@link OpenIDConnectClaimFilter}
@@ -79,7 +72,6 @@ import static org.wso2.carbon.identity.oauth.common.OAuthConstants.SCOPE_RESOURC
 public class OpenIDConnectClaimFilterImpl implements OpenIDConnectClaimFilter {
 
     private static final String ADDRESS_PREFIX = "address.";
-    private static final String ADDRESS_SCOPE = "address";
     private static final String OIDC_DIALECT = "http://wso2.org/oidc/claim";
 
     private static final Log log = LogFactory.getLog(OpenIDConnectClaimFilterImpl.class);
@@ -100,23 +92,21 @@ public class OpenIDConnectClaimFilterImpl implements OpenIDConnectClaimFilter {
         Map<String, Object> claimsToBeReturned = new HashMap<>();
         Map<String, Object> addressScopeClaims = new HashMap<>();
 
-        Map<String, List<String>> scopeClaimsMap = getOIDCScopeClaimMap(spTenantDomain);
+        OIDCScopeClaimIndex scopeClaimIndex = getOIDCScopeClaimIndex(spTenantDomain);
 
-        if (MapUtils.isNotEmpty(scopeClaimsMap)) {
-            List<String> addressScopeClaimUris = getAddressScopeClaimUris(scopeClaimsMap);
+        if (!scopeClaimIndex.isEmpty()) {
             // Iterate through scopes requested in the OAuth2/OIDC request to filter claims
             for (String requestedScope : requestedScopes) {
                 // Check if requested scope is a supported OIDC scope value
 
-                if (scopeClaimsMap.containsKey(requestedScope)) {
+                if (scopeClaimIndex.hasScope(requestedScope)) {
                     if (log.isDebugEnabled()) {
                         log.debug("Requested scope: " + requestedScope + " is a defined OIDC Scope in tenantDomain: " +
                                 spTenantDomain + ". Filtering claims based on the permitted claims in the scope.");
                     }
                     // Requested scope is an registered OIDC scope. Filter and return the claims belonging to the scope.
                     Map<String, Object> filteredClaims =
-                            handleRequestedOIDCScope(userClaims, addressScopeClaims, scopeClaimsMap,
-                                    addressScopeClaimUris, requestedScope);
+                            handleRequestedOIDCScope(userClaims, addressScopeClaims, scopeClaimIndex, requestedScope);
                     claimsToBeReturned.putAll(filteredClaims);
                 } else {
                     if (log.isDebugEnabled()) {
@@ -148,19 +138,19 @@ public class OpenIDConnectClaimFilterImpl implements OpenIDConnectClaimFilter {
     public List<String> getClaimsFilteredByOIDCScopes(Set<String> requestedScopes, String spTenantDomain) {
 
         List<String> filteredClaims = new ArrayList<>();
-        Map<String, List<String>> scopeClaimsMap = getOIDCScopeClaimMap(spTenantDomain);
+        OIDCScopeClaimIndex scopeClaimIndex = getOIDCScopeClaimIndex(spTenantDomain);
 
-        if (MapUtils.isNotEmpty(scopeClaimsMap)) {
+        if (!scopeClaimIndex.isEmpty()) {
             // Iterate through scopes requested in the OAuth2/OIDC request to filter claims
             for (String requestedScope : requestedScopes) {
                 // Check if requested scope is a supported OIDC scope value
-                if (scopeClaimsMap.containsKey(requestedScope)) {
+                if (scopeClaimIndex.hasScope(requestedScope)) {
                     if (log.isDebugEnabled()) {
                         log.debug("Requested scope: " + requestedScope + " is a defined OIDC Scope in tenantDomain: " +
                                 spTenantDomain + ". Filtering claims based on the permitted claims in the scope.");
                     }
                     // Requested scope is an registered OIDC scope. Filter and return the claims belonging to the scope.
-                    filteredClaims.addAll(getClaimUrisInSupportedOIDCScope(scopeClaimsMap, requestedScope));
+                    filteredClaims.addAll(scopeClaimIndex.getClaimUris(requestedScope));
                 } else {
                     if (log.isDebugEnabled()) {
                         log.debug("Requested scope: " + requestedScope + " is not a defined OIDC Scope in " +
@@ -233,10 +223,10 @@ public class OpenIDConnectClaimFilterImpl implements OpenIDConnectClaimFilter {
 
         boolean hasAddressClaims = false;
         JSONObject consentedAddressClaims = new JSONObject();
-        Map<String, List<String>> scopeClaimsMap = getOIDCScopeClaimMap(spTenantDomain);
+        OIDCScopeClaimIndex scopeClaimIndex = getOIDCScopeClaimIndex(spTenantDomain);
 
-        if (userClaims.containsKey(ADDRESS) && MapUtils.isNotEmpty(scopeClaimsMap)) {
-            List<String> addressScopeClaimUris = getAddressScopeClaimUris(scopeClaimsMap);
+        if (userClaims.containsKey(ADDRESS) && !scopeClaimIndex.isEmpty()) {
+            List<String> addressScopeClaimUris = scopeClaimIndex.getAddressClaimUris();
             consentedAddressClaims = (JSONObject) userClaims.get(ADDRESS);
             for (String addressScopeClaimEntry : addressScopeClaimUris) {
                 if (userConsentClaimUrisInOIDCDialect.contains(addressScopeClaimEntry)) {
@@ -264,23 +254,21 @@ public class OpenIDConnectClaimFilterImpl implements OpenIDConnectClaimFilter {
     }
 
     /**
-     * Retrieve the OIDC scope claim map for the given SP tenant domain.
+     * Retrieve the index of the OIDC scopes and their claims for the given SP tenant domain. The index is kept with
+     * the cached scope claim mapping of the tenant, hence it is built once per update of the mapping.
      *
      * @param spTenantDomain Tenant domain of the SP.
-     * @return OIDC scope claim map for the tenant.
+     * @return OIDC scope claim index of the tenant.
      */
-    private Map<String, List<String>> getOIDCScopeClaimMap(String spTenantDomain) {
+    private OIDCScopeClaimIndex getOIDCScopeClaimIndex(String spTenantDomain) {
 
-        // Map<"openid", "first_name,last_name,username">
-        Map<String, List<String>> scopeClaimsMap = new HashMap<>();
         int tenantId = IdentityTenantUtil.getTenantId(spTenantDomain);
-
-        // Load OIDC scopes and mapped claims from the cache or db.
-        List<ScopeDTO> oidcScopesList = getOIDCScopes(tenantId);
-        for (ScopeDTO scope : oidcScopesList) {
-            scopeClaimsMap.put(scope.getName(), Arrays.asList(scope.getClaim()));
+        try {
+            return OAuthTokenPersistenceFactory.getInstance().getScopeClaimMappingDAO().getScopeClaimIndex(tenantId);
+        } catch (IdentityOAuth2Exception e) {
+            log.error("Error while loading oidc scopes and claims for the tenant: " + tenantId);
         }
-        return scopeClaimsMap;
+        return new OIDCScopeClaimIndex(Collections.emptyList());
     }
 
     private boolean isConsentManagementServiceDisabled(ServiceProvider serviceProvider) {
@@ -337,62 +325,16 @@ public class OpenIDConnectClaimFilterImpl implements OpenIDConnectClaimFilter {
         return essentialClaims;
     }
 
-    private Properties getOIDCScopeProperties(String spTenantDomain) {
-
-        Resource oidcScopesResource = null;
-        try {
-            int tenantId = IdentityTenantUtil.getTenantId(spTenantDomain);
-            startTenantFlow(spTenantDomain, tenantId);
-
-            RegistryService registryService = OAuth2ServiceComponentHolder.getRegistryService();
-            if (registryService == null) {
-                throw new RegistryException("Registry Service not set in OAuth2 Component. Component may not have " +
-                        "initialized correctly.");
-            }
-
-            oidcScopesResource = registryService.getConfigSystemRegistry(tenantId).get(SCOPE_RESOURCE_PATH);
-        } catch (RegistryException e) {
-            log.error("Error while obtaining registry collection from registry path:" + SCOPE_RESOURCE_PATH, e);
-        } finally {
-            PrivilegedCarbonContext.endTenantFlow();
-        }
-
-        Properties propertiesToReturn = new Properties();
-        if (oidcScopesResource != null) {
-            for (Object scopeProperty : oidcScopesResource.getProperties().keySet()) {
-                String propertyKey = (String) scopeProperty;
-                propertiesToReturn.setProperty(propertyKey, oidcScopesResource.getProperty(propertyKey));
-            }
-        } else {
-            log.error("OIDC scope resource cannot be found at " + SCOPE_RESOURCE_PATH + " for tenantDomain: "
-                    + spTenantDomain);
-        }
-        return propertiesToReturn;
-    }
-
-    private List<ScopeDTO> getOIDCScopes(int tenantId) {
-
-        List<ScopeDTO> oidcScopesList = new ArrayList<>();
-        try {
-            oidcScopesList = OAuthTokenPersistenceFactory.getInstance().getScopeClaimMappingDAO().getScopes(tenantId);
-        } catch (IdentityOAuth2Exception e) {
-            log.error("Error while loading oidc scopes and claims for the tenant: " + tenantId);
-        }
-        return oidcScopesList;
-    }
-
     private Map<String, Object> handleRequestedOIDCScope(Map<String, Object> userClaimsInOIDCDialect,
                                                          Map<String, Object> addressScopeClaims,
-                                                         Map<String, List<String>> scopeClaimsMap,
-                                                         List<String> addressScopeClaimUris,
+                                                         OIDCScopeClaimIndex scopeClaimIndex,
                                                          String oidcScope) {
 
         Map<String, Object> filteredClaims = new HashMap<>();
-        List<String> claimUrisInRequestedScope = getClaimUrisInSupportedOIDCScope(scopeClaimsMap, oidcScope);
-        for (String scopeClaim : claimUrisInRequestedScope) {
+        for (String scopeClaim : scopeClaimIndex.getClaimUris(oidcScope)) {
             String oidcClaimUri = scopeClaim;
             boolean isAddressClaim = false;
-            if (isAddressClaim(scopeClaim, addressScopeClaimUris)) {
+            if (scopeClaimIndex.isAddressClaim(scopeClaim)) {
                 if (log.isDebugEnabled()) {
                     log.debug("Identified an address claim: " + scopeClaim + ". Removing \"address.\" prefix from " +
                             "the claimUri");
@@ -448,26 +390,6 @@ public class OpenIDConnectClaimFilterImpl implements OpenIDConnectClaimFilter {
         }
     }
 
-    private List<String> getAddressScopeClaimUris(Map<String, List<String>> scopeClaimsMap) {
-
-        return getClaimUrisInSupportedOIDCScope(scopeClaimsMap, ADDRESS_SCOPE);
-    }
-
-    private boolean isAddressClaim(String scopeClaim, List<String> addressScopeClaims) {
-
-        return StringUtils.startsWith(scopeClaim, ADDRESS_PREFIX) || addressScopeClaims.contains(scopeClaim);
-    }
-
-    private List<String> getClaimUrisInSupportedOIDCScope(Map<String, List<String>> scopeClaimsMap,
-                                                          String requestedScope) {
-
-        List<String> requestedScopeClaimsList = new ArrayList<>();
-        if (scopeClaimsMap.containsKey(requestedScope)) {
-            requestedScopeClaimsList = scopeClaimsMap.get(requestedScope);
-        }
-        return requestedScopeClaimsList;
-    }
-
     private void handleUpdateAtClaim(Map<String, Object> returnClaims) {
 
         if (returnClaims.containsKey(UPDATED_AT) && returnClaims.get(UPDATED_AT) != null &&
@@ -525,24 +447,11 @@ public class OpenIDConnectClaimFilterImpl implements OpenIDConnectClaimFilter {
         }
     }
 
-    private void startTenantFlow(String tenantDomain, int tenantId) {
-
-        PrivilegedCarbonContext.startTenantFlow();
-        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
-        carbonContext.setTenantId(tenantId);
-        carbonContext.setTenantDomain(tenantDomain);
-    }
-
     private boolean isNotEmpty(Map<String, Object> claimsToBeReturned) {
 
         return claimsToBeReturned != null && !claimsToBeReturned.isEmpty();
     }
 
-    private boolean isNotEmpty(Properties properties) {
-
-        return properties != null && !properties.isEmpty();
-    }
-
     /**
      * Return a Date object if the given string is a valid date string.
      *
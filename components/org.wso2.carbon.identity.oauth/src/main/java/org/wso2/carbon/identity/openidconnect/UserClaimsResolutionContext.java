@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.openidconnect;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memoized results of the steps which resolve the claims of a user for an application, such as the service provider
+ * lookup, the resolution of the user and the user realm, the claim dialect mappings and the claims read from the user
+ * store, so that building the ID token, the JWT access token and the userinfo response of the same user does not
+ * repeat them.
+ *
+ * A context lives for a token request, or until a short timeout after the token is issued, as configured in
+ * {@link UserClaimsResolutionContextManager}. The user claims are kept by the user and the claim URIs they were read
+ * for, and a request for a subset of those claim URIs is served from the context.
+ */
+public class UserClaimsResolutionContext {
+
+    private final UserClaimsResolutionContextManager manager;
+    private final long createdTime = System.currentTimeMillis();
+    private final Map<String, Object> values = new ConcurrentHashMap<>();
+    private final Map<String, UserClaims> userClaims = new ConcurrentHashMap<>();
+
+    UserClaimsResolutionContext(UserClaimsResolutionContextManager manager) {
+
+        this.manager = manager;
+    }
+
+    /**
+     * Get a memoized value.
+     *
+     * @param section Resolution step of the value.
+     * @param key     Key of the value in the resolution step.
+     * @return Memoized value, or null if the value was not resolved in this context.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Section section, String key) {
+
+        T value = (T) values.get(section.name() + ":" + key);
+        manager.record(section, value != null);
+        return value;
+    }
+
+    /**
+     * Memoize a resolved value. Null values are not memoized.
+     *
+     * @param section Resolution step of the value.
+     * @param key     Key of the value in the resolution step.
+     * @param value   Resolved value.
+     */
+    public void put(Section section, String key, Object value) {
+
+        if (value != null) {
+            values.put(section.name() + ":" + key, value);
+        }
+    }
+
+    /**
+     * Get the memoized user store claims of a user.
+     *
+     * @param userKey   Key of the user, which identifies the user across tenants.
+     * @param claimUris Local claim URIs to get.
+     * @return A copy of the claim values of the claim URIs, or null if any of the claim URIs was not read for the
+     * user in this context.
+     */
+    public Map<String, String> getUserClaims(String userKey, Collection<String> claimUris) {
+
+        UserClaims claimsOfUser = userClaims.get(userKey);
+        Map<String, String> claimValues = claimsOfUser == null ? null : claimsOfUser.getValues(claimUris);
+        manager.record(Section.USER_CLAIMS, claimValues != null);
+        return claimValues;
+    }
+
+    /**
+     * Memoize the claims read from the user store for a user.
+     *
+     * @param userKey     Key of the user, which identifies the user across tenants.
+     * @param claimUris   Local claim URIs which were read.
+     * @param claimValues Claim values read for the claim URIs. A claim URI without a value has no value for the user.
+     */
+    public void putUserClaims(String userKey, Collection<String> claimUris, Map<String, String> claimValues) {
+
+        if (claimValues != null) {
+            userClaims.computeIfAbsent(userKey, key -> new UserClaims()).add(claimUris, claimValues);
+        }
+    }
+
+    /**
+     * Get the key of the service provider of a client in the contexts.
+     *
+     * @param clientId       Client id.
+     * @param spTenantDomain Tenant domain of the service provider.
+     * @return Key of the service provider.
+     */
+    public static String getServiceProviderKey(String clientId, String spTenantDomain) {
+
+        return spTenantDomain + "/" + clientId;
+    }
+
+    /**
+     * Get the key of a user in the contexts, which is the user id if it is known, so that the claims read by the user
+     * name and by the user id are shared.
+     *
+     * @param userTenantDomain      Tenant domain of the user.
+     * @param userId                User id, if known.
+     * @param fullQualifiedUsername Full qualified user name.
+     * @return Key of the user.
+     */
+    public static String getUserKey(String userTenantDomain, String userId, String fullQualifiedUsername) {
+
+        return StringUtils.isNotBlank(userId) ? userTenantDomain + "/id:" + userId :
+                userTenantDomain + "/name:" + fullQualifiedUsername;
+    }
+
+    long getCreatedTime() {
+
+        return createdTime;
+    }
+
+    /**
+     * Resolution steps of the claims of a user.
+     */
+    public enum Section {
+        SERVICE_PROVIDER, RESOLVED_USER, USER_REALM, CLAIM_MAPPINGS, USER_CLAIMS
+    }
+
+    /**
+     * Claims read for a user, guarded by its own monitor.
+     */
+    private static class UserClaims {
+
+        private final Set<String> claimUris = new HashSet<>();
+        private final Map<String, String> claimValues = new HashMap<>();
+
+        private synchronized void add(Collection<String> claimUris, Map<String, String> claimValues) {
+
+            this.claimUris.addAll(claimUris);
+            this.claimValues.putAll(claimValues);
+        }
+
+        private synchronized Map<String, String> getValues(Collection<String> claimUris) {
+
+            if (!this.claimUris.containsAll(claimUris)) {
+                return null;
+            }
+            Map<String, String> values = new HashMap<>();
+            for (String claimUri : claimUris) {
+                String claimValue = claimValues.get(claimUri);
+                if (claimValue != null) {
+                    values.put(claimUri, claimValue);
+                }
+            }
+            return values;
+        }
+    }
+}
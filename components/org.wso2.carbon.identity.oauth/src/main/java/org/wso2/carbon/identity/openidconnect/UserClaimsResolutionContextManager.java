@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.openidconnect;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth2.authz.OAuthAuthzReqMessageContext;
+import org.wso2.carbon.identity.oauth2.token.OAuthTokenReqMessageContext;
+import org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil;
+import org.wso2.carbon.identity.openidconnect.UserClaimsResolutionContext.Section;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Manages the lifetime of the {@link UserClaimsResolutionContext}s, and keeps the hit and miss counts of their
+ * resolution steps, which are used to size the contexts.
+ *
+ * With the REQUEST lifetime, which is the default, a context is kept in the message context of a token or an
+ * authorization request, and is shared by the ID token and the JWT access token issued by the request. With the
+ * TOKEN lifetime, the context is also kept against the issued access token until the configured timeout, so that a
+ * userinfo request made with the token shortly after it is issued is served from the context. Claims changed within
+ * the timeout are not reflected in such a userinfo response, hence the timeout should be kept short. With the NONE
+ * lifetime, every resolution reads the claims as before.
+ */
+public class UserClaimsResolutionContextManager {
+
+    private static final Log log = LogFactory.getLog(UserClaimsResolutionContextManager.class);
+
+    private static final String LIFETIME = "OAuth.OpenIDConnect.ClaimResolutionContext.Lifetime";
+    private static final String TOKEN_TIMEOUT = "OAuth.OpenIDConnect.ClaimResolutionContext.TokenTimeout";
+    private static final String CAPACITY = "OAuth.OpenIDConnect.ClaimResolutionContext.Capacity";
+    private static final int DEFAULT_TOKEN_TIMEOUT_MILLIS = 30000;
+    private static final int DEFAULT_CAPACITY = 10000;
+    private static final String CONTEXT_PROPERTY = "UserClaimsResolutionContext";
+
+    private static volatile UserClaimsResolutionContextManager instance;
+
+    private final Lifetime lifetime;
+    private final long tokenTimeoutMillis;
+    private final int capacity;
+    private final Map<String, UserClaimsResolutionContext> contextsOfTokens = new ConcurrentHashMap<>();
+    private final Map<Section, LongAdder> hits = new EnumMap<>(Section.class);
+    private final Map<Section, LongAdder> misses = new EnumMap<>(Section.class);
+
+    UserClaimsResolutionContextManager(Lifetime lifetime, long tokenTimeoutMillis, int capacity) {
+
+        this.lifetime = lifetime;
+        this.tokenTimeoutMillis = Math.max(tokenTimeoutMillis, 0);
+        this.capacity = Math.max(capacity, 0);
+        for (Section section : Section.values()) {
+            hits.put(section, new LongAdder());
+            misses.put(section, new LongAdder());
+        }
+    }
+
+    public static UserClaimsResolutionContextManager getInstance() {
+
+        if (instance == null) {
+            synchronized (UserClaimsResolutionContextManager.class) {
+                if (instance == null) {
+                    instance = new UserClaimsResolutionContextManager(readLifetime(),
+                            OAuth2ConfigUtil.getIntProperty(TOKEN_TIMEOUT, DEFAULT_TOKEN_TIMEOUT_MILLIS),
+                            OAuth2ConfigUtil.getIntProperty(CAPACITY, DEFAULT_CAPACITY));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Get the context of a token request, which is created on the first call.
+     *
+     * @param tokenReqMessageContext Token request message context.
+     * @return Claims resolution context.
+     */
+    public UserClaimsResolutionContext getContext(OAuthTokenReqMessageContext tokenReqMessageContext) {
+
+        if (lifetime == Lifetime.NONE) {
+            return new UserClaimsResolutionContext(this);
+        }
+        Object context = tokenReqMessageContext.getProperty(CONTEXT_PROPERTY);
+        if (context instanceof UserClaimsResolutionContext) {
+            return (UserClaimsResolutionContext) context;
+        }
+        UserClaimsResolutionContext newContext = new UserClaimsResolutionContext(this);
+        tokenReqMessageContext.addProperty(CONTEXT_PROPERTY, newContext);
+        return newContext;
+    }
+
+    /**
+     * Get the context of an authorization request, which is created on the first call.
+     *
+     * @param authzReqMessageContext Authorization request message context.
+     * @return Claims resolution context.
+     */
+    public UserClaimsResolutionContext getContext(OAuthAuthzReqMessageContext authzReqMessageContext) {
+
+        if (lifetime == Lifetime.NONE) {
+            return new UserClaimsResolutionContext(this);
+        }
+        Object context = authzReqMessageContext.getProperty(CONTEXT_PROPERTY);
+        if (context instanceof UserClaimsResolutionContext) {
+            return (UserClaimsResolutionContext) context;
+        }
+        UserClaimsResolutionContext newContext = new UserClaimsResolutionContext(this);
+        authzReqMessageContext.addProperty(CONTEXT_PROPERTY, newContext);
+        return newContext;
+    }
+
+    /**
+     * Keep a context against an issued access token, if the contexts live until the token timeout.
+     *
+     * @param accessToken Identifier of the access token, as it is stored.
+     * @param context     Claims resolution context of the token request.
+     */
+    public void bindToToken(String accessToken, UserClaimsResolutionContext context) {
+
+        if (lifetime != Lifetime.TOKEN || accessToken == null || context == null) {
+            return;
+        }
+        if (contextsOfTokens.containsKey(accessToken) || hasCapacity()) {
+            contextsOfTokens.put(accessToken, context);
+        }
+    }
+
+    /**
+     * Get the context kept against an access token.
+     *
+     * @param accessToken Identifier of the access token, as it is stored.
+     * @return Claims resolution context, or null if there is no context for the token, or it has timed out.
+     */
+    public UserClaimsResolutionContext getContextOfToken(String accessToken) {
+
+        UserClaimsResolutionContext context = accessToken == null ? null : contextsOfTokens.get(accessToken);
+        if (context != null && isTimedOut(context, System.currentTimeMillis())) {
+            contextsOfTokens.remove(accessToken, context);
+            return null;
+        }
+        return context;
+    }
+
+    public Lifetime getLifetime() {
+
+        return lifetime;
+    }
+
+    public long getHitCount(Section section) {
+
+        return hits.get(section).sum();
+    }
+
+    public long getMissCount(Section section) {
+
+        return misses.get(section).sum();
+    }
+
+    /**
+     * Get the number of contexts kept against access tokens.
+     *
+     * @return Number of contexts of tokens.
+     */
+    public int size() {
+
+        return contextsOfTokens.size();
+    }
+
+    void record(Section section, boolean hit) {
+
+        (hit ? hits : misses).get(section).increment();
+    }
+
+    private boolean hasCapacity() {
+
+        if (contextsOfTokens.size() < capacity) {
+            return true;
+        }
+        long currentTimeMillis = System.currentTimeMillis();
+        contextsOfTokens.entrySet().removeIf(entry -> isTimedOut(entry.getValue(), currentTimeMillis));
+        if (contextsOfTokens.size() < capacity) {
+            return true;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("User claims resolution contexts of tokens are full. The context is not kept for the token.");
+        }
+        return false;
+    }
+
+    private boolean isTimedOut(UserClaimsResolutionContext context, long currentTimeMillis) {
+
+        return currentTimeMillis - context.getCreatedTime() >= tokenTimeoutMillis;
+    }
+
+    private static Lifetime readLifetime() {
+
+        String value = IdentityUtil.getProperty(LIFETIME);
+        if (StringUtils.isNotBlank(value)) {
+            try {
+                return Lifetime.valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+            } catch (IllegalArgumentException e) {
+                log.warn("Invalid value: " + value + " for the property: " + LIFETIME + ". Using the default " +
+                        "value: " + Lifetime.REQUEST);
+            }
+        }
+        return Lifetime.REQUEST;
+    }
+
+    /**
+     * Lifetime of the claims resolution contexts.
+     */
+    public enum Lifetime {
+        NONE, REQUEST, TOKEN
+    }
+}
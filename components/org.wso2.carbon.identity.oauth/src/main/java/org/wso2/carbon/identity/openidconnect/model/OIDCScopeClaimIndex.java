@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.openidconnect.model;
+
+import org.apache.commons.lang.StringUtils;
+import org.wso2.carbon.identity.oauth.dto.ScopeDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable index of the OIDC scopes of a tenant, which maps the scopes to the claim URIs they allow, the claim URIs
+ * to the scopes allowing them, and knows the claim URIs which are part of the address claim.
+ *
+ * The index is built once from the scope claim mappings of the tenant, and is dropped with them when a mapping is
+ * updated, so that filtering the claims of an ID token or a userinfo response does not read the mappings again.
+ */
+public class OIDCScopeClaimIndex {
+
+    private static final String ADDRESS_SCOPE = "address";
+    private static final String ADDRESS_PREFIX = "address.";
+
+    private final Map<String, List<String>> claimsOfScopes;
+    private final Map<String, Set<String>> scopesOfClaims;
+    private final List<String> addressClaimUris;
+    private final Set<String> addressClaimUriSet;
+
+    /**
+     * Build the index of the given scopes.
+     *
+     * @param scopes OIDC scopes of the tenant with their claims.
+     */
+    public OIDCScopeClaimIndex(Collection<ScopeDTO> scopes) {
+
+        Map<String, List<String>> claimsOfScopes = new LinkedHashMap<>();
+        Map<String, Set<String>> scopesOfClaims = new HashMap<>();
+        if (scopes != null) {
+            for (ScopeDTO scope : scopes) {
+                if (scope == null || scope.getName() == null) {
+                    continue;
+                }
+                List<String> claimUris = scope.getClaim() == null ? Collections.emptyList() :
+                        Collections.unmodifiableList(new ArrayList<>(Arrays.asList(scope.getClaim())));
+                claimsOfScopes.put(scope.getName(), claimUris);
+                for (String claimUri : claimUris) {
+                    scopesOfClaims.computeIfAbsent(claimUri, key -> new LinkedHashSet<>()).add(scope.getName());
+                }
+            }
+        }
+        scopesOfClaims.replaceAll((claimUri, scopeNames) -> Collections.unmodifiableSet(scopeNames));
+
+        this.claimsOfScopes = Collections.unmodifiableMap(claimsOfScopes);
+        this.scopesOfClaims = Collections.unmodifiableMap(scopesOfClaims);
+        this.addressClaimUris = claimsOfScopes.getOrDefault(ADDRESS_SCOPE, Collections.emptyList());
+        this.addressClaimUriSet = Collections.unmodifiableSet(new HashSet<>(addressClaimUris));
+    }
+
+    /**
+     * Get the claim URIs allowed by each scope.
+     *
+     * @return Unmodifiable map of the scope names to their claim URIs.
+     */
+    public Map<String, List<String>> getScopeClaimMap() {
+
+        return claimsOfScopes;
+    }
+
+    public boolean isEmpty() {
+
+        return claimsOfScopes.isEmpty();
+    }
+
+    public boolean hasScope(String scope) {
+
+        return claimsOfScopes.containsKey(scope);
+    }
+
+    /**
+     * Get the claim URIs allowed by a scope.
+     *
+     * @param scope Scope name.
+     * @return Unmodifiable list of the claim URIs, which is empty if the scope is not an OIDC scope.
+     */
+    public List<String> getClaimUris(String scope) {
+
+        return claimsOfScopes.getOrDefault(scope, Collections.emptyList());
+    }
+
+    /**
+     * Get the claim URIs allowed by any of the given scopes.
+     *
+     * @param scopes Scope names.
+     * @return Claim URIs of the OIDC scopes among the given scopes, in the order of the scopes.
+     */
+    public List<String> getClaimUris(Collection<String> scopes) {
+
+        List<String> claimUris = new ArrayList<>();
+        for (String scope : scopes) {
+            claimUris.addAll(getClaimUris(scope));
+        }
+        return claimUris;
+    }
+
+    /**
+     * Get the scopes allowing a claim URI.
+     *
+     * @param claimUri Claim URI.
+     * @return Unmodifiable set of the scope names, which is empty if no scope allows the claim.
+     */
+    public Set<String> getScopes(String claimUri) {
+
+        return scopesOfClaims.getOrDefault(claimUri, Collections.emptySet());
+    }
+
+    /**
+     * Get the claim URIs of the address scope, which are returned under the address claim.
+     *
+     * @return Unmodifiable list of the claim URIs of the address scope.
+     */
+    public List<String> getAddressClaimUris() {
+
+        return addressClaimUris;
+    }
+
+    /**
+     * Check whether a claim URI of a scope is a sub-claim of the address claim, which is the case if it is prefixed
+     * with "address." or is a claim of the address scope.
+     *
+     * @param claimUri Claim URI of a scope.
+     * @return True if the claim is a sub-claim of the address claim.
+     */
+    public boolean isAddressClaim(String claimUri) {
+
+        return StringUtils.startsWith(claimUri, ADDRESS_PREFIX) || addressClaimUriSet.contains(claimUri);
+    }
+}
@@ -740,6 +740,12 @@ public class OAuthAdminServiceImplTest extends PowerMockIdentityBaseTest {
         invokeMethod(oAuthAdminService, "validateAudiences", appDTO);
     }
 
+    @Test(expectedExceptions = IdentityOAuthAdminException.class)
+    public void testGetPaginatedAppsAuthorizedByUserWithNegativeLimit() throws Exception {
+
+        new OAuthAdminServiceImpl().getPaginatedAppsAuthorizedByUser(0, -1);
+    }
+
     private void mockUserstore() throws Exception {
 
         mockOAuthComponentServiceHolder();
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for AccessTokenNegativeCache.
+ */
+public class AccessTokenNegativeCacheTest {
+
+    private static final String TOKEN = "token";
+
+    @Test
+    public void testDisabledCache() {
+
+        AccessTokenNegativeCache cache = new AccessTokenNegativeCache(false, 10, 60000);
+        cache.addNotFound(TOKEN, true);
+
+        assertFalse(cache.isEnabled());
+        assertFalse(cache.isNotFound(TOKEN, true));
+        assertEquals(cache.getSize(), 0);
+        assertEquals(cache.getHitCount(), 0);
+    }
+
+    @Test
+    public void testNotFoundLookupIsCached() {
+
+        AccessTokenNegativeCache cache = new AccessTokenNegativeCache(true, 10, 60000);
+        assertFalse(cache.isNotFound(TOKEN, false));
+        cache.addNotFound(TOKEN, false);
+
+        assertTrue(cache.isNotFound(TOKEN, false));
+        assertEquals(cache.getHitCount(), 1);
+        assertEquals(cache.getMissCount(), 1);
+    }
+
+    @Test
+    public void testActiveOnlyEntryDoesNotCoverExpiredLookup() {
+
+        AccessTokenNegativeCache cache = new AccessTokenNegativeCache(true, 10, 60000);
+        cache.addNotFound(TOKEN, false);
+        assertFalse(cache.isNotFound(TOKEN, true));
+
+        cache.addNotFound(TOKEN, true);
+        assertTrue(cache.isNotFound(TOKEN, true));
+        assertTrue(cache.isNotFound(TOKEN, false));
+    }
+
+    @Test
+    public void testEntryExpires() throws Exception {
+
+        AccessTokenNegativeCache cache = new AccessTokenNegativeCache(true, 10, 50);
+        cache.addNotFound(TOKEN, true);
+        Thread.sleep(100);
+
+        assertFalse(cache.isNotFound(TOKEN, true));
+        assertEquals(cache.getSize(), 0);
+    }
+
+    @Test
+    public void testClear() {
+
+        AccessTokenNegativeCache cache = new AccessTokenNegativeCache(true, 10, 60000);
+        cache.addNotFound(TOKEN, true);
+        cache.addNotFound("other", true);
+        cache.clear(TOKEN);
+
+        assertFalse(cache.isNotFound(TOKEN, true));
+        assertTrue(cache.isNotFound("other", true));
+
+        cache.clear();
+        assertEquals(cache.getSize(), 0);
+    }
+
+    @Test
+    public void testCapacityIsBounded() {
+
+        AccessTokenNegativeCache cache = new AccessTokenNegativeCache(true, 20, 60000);
+        for (int i = 0; i < 100; i++) {
+            cache.addNotFound(TOKEN + i, true);
+        }
+
+        assertEquals(cache.getSize(), 20);
+        assertEquals(cache.getEvictionCount(), 80);
+        assertTrue(cache.isNotFound(TOKEN + 99, true));
+        assertFalse(cache.isNotFound(TOKEN + 79, true));
+    }
+
+    @Test
+    public void testOldestEntryIsEvicted() {
+
+        AccessTokenNegativeCache cache = new AccessTokenNegativeCache(true, 3, 60000);
+        cache.addNotFound("token1", true);
+        cache.addNotFound("token2", true);
+        cache.addNotFound("token3", true);
+        // Adding an entry again renews it, so the next oldest entry is evicted.
+        cache.addNotFound("token1", false);
+        cache.addNotFound("token4", true);
+
+        assertEquals(cache.getSize(), 3);
+        assertTrue(cache.isNotFound("token1", true));
+        assertFalse(cache.isNotFound("token2", true));
+        assertTrue(cache.isNotFound("token3", true));
+        assertTrue(cache.isNotFound("token4", true));
+    }
+
+    @Test
+    public void testExpiredEntriesAreEvictedOnAdd() throws Exception {
+
+        AccessTokenNegativeCache cache = new AccessTokenNegativeCache(true, 10, 50);
+        cache.addNotFound("token1", true);
+        cache.addNotFound("token2", true);
+        Thread.sleep(100);
+        cache.addNotFound("token3", true);
+
+        assertEquals(cache.getSize(), 1);
+        assertEquals(cache.getEvictionCount(), 2);
+    }
+}
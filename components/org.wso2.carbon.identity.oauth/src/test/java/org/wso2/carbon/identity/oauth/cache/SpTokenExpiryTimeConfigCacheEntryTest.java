@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth2.config.SpOAuth2ExpiryTimeConfiguration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Unit tests for SpTokenExpiryTimeConfigCacheEntry.
+ */
+public class SpTokenExpiryTimeConfigCacheEntryTest {
+
+    @Test
+    public void testExpiryTimeConfig() {
+
+        SpOAuth2ExpiryTimeConfiguration expiryTimeConfig = new SpOAuth2ExpiryTimeConfiguration();
+        expiryTimeConfig.setUserAccessTokenExpiryTime(1000L);
+        expiryTimeConfig.setApplicationAccessTokenExpiryTime(2000L);
+        expiryTimeConfig.setRefreshTokenExpiryTime(3000L);
+        Map<String, SpOAuth2ExpiryTimeConfiguration> expiryTimeConfigs = new HashMap<>();
+        expiryTimeConfigs.put("consumerKey", expiryTimeConfig);
+        SpTokenExpiryTimeConfigCacheEntry cacheEntry = new SpTokenExpiryTimeConfigCacheEntry(expiryTimeConfigs);
+        // The entry is not changed when the map it is built from is changed.
+        expiryTimeConfigs.clear();
+
+        SpOAuth2ExpiryTimeConfiguration config = cacheEntry.getExpiryTimeConfig("consumerKey");
+        assertEquals(cacheEntry.size(), 1);
+        assertEquals(config.getUserAccessTokenExpiryTime(), Long.valueOf(1000L));
+        assertEquals(config.getApplicationAccessTokenExpiryTime(), Long.valueOf(2000L));
+        assertEquals(config.getRefreshTokenExpiryTime(), Long.valueOf(3000L));
+
+        // The callers get a copy, hence changing it does not change the entry.
+        assertNotSame(cacheEntry.getExpiryTimeConfig("consumerKey"), config);
+        config.setUserAccessTokenExpiryTime(5000L);
+        assertEquals(cacheEntry.getExpiryTimeConfig("consumerKey").getUserAccessTokenExpiryTime(),
+                Long.valueOf(1000L));
+    }
+
+    @Test
+    public void testExpiryTimeConfigOfUnknownConsumerKey() {
+
+        SpOAuth2ExpiryTimeConfiguration config =
+                new SpTokenExpiryTimeConfigCacheEntry(new HashMap<>()).getExpiryTimeConfig("unknown");
+        assertNull(config.getUserAccessTokenExpiryTime());
+        assertNull(config.getApplicationAccessTokenExpiryTime());
+        assertNull(config.getRefreshTokenExpiryTime());
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.tokenprocessor;
+
+import org.apache.commons.lang.StringUtils;
+import org.json.JSONObject;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Unit tests for TokenHashingEngine.
+ */
+public class TokenHashingEngineTest {
+
+    @DataProvider(name = "hashingData")
+    public Object[][] hashingData() {
+
+        return new Object[][]{
+                {"SHA-256", "c6a0d1b8-8f0a-3d5c-9a3e-a1f9b2c1d0e7"},
+                {"SHA-256", "a"},
+                {"SHA-256", "v\u00e4lue-with-\u00fcnicode-\u00e7haracters"},
+                {"SHA-256", StringUtils.repeat("eyJhbGciOiJSUzI1NiJ9.", 600)},
+                {"SHA-512", "c6a0d1b8-8f0a-3d5c-9a3e-a1f9b2c1d0e7"},
+                {"SHA-1", "c6a0d1b8-8f0a-3d5c-9a3e-a1f9b2c1d0e7"},
+                {"MD5", "c6a0d1b8-8f0a-3d5c-9a3e-a1f9b2c1d0e7"},
+        };
+    }
+
+    @Test(dataProvider = "hashingData")
+    public void testHashMatchesJSONObjectEnvelope(String algorithm, String plainText) throws Exception {
+
+        assertEquals(TokenHashingEngine.hash(plainText, algorithm), legacyHash(plainText, algorithm));
+    }
+
+    @Test
+    public void testHashWithChangingAlgorithmsOnSameThread() throws Exception {
+
+        String plainText = "8f14e45f-ceea-367a-9a36-dedd4bea2543";
+        for (int i = 0; i < 3; i++) {
+            assertEquals(TokenHashingEngine.hash(plainText, "SHA-256"), legacyHash(plainText, "SHA-256"));
+            assertEquals(TokenHashingEngine.hash(plainText, "SHA-512"), legacyHash(plainText, "SHA-512"));
+        }
+    }
+
+    @Test(expectedExceptions = IdentityOAuth2Exception.class)
+    public void testHashWithUnsupportedAlgorithm() throws Exception {
+
+        TokenHashingEngine.hash("plainText", "TestAlgo");
+    }
+
+    /**
+     * The persisted format produced before the hashing engine was introduced.
+     */
+    static String legacyHash(String plainText, String algorithm) throws Exception {
+
+        MessageDigest messageDigest = MessageDigest.getInstance(algorithm);
+        messageDigest.update(plainText.getBytes(StandardCharsets.UTF_8));
+        byte[] hash = messageDigest.digest();
+        StringBuilder hex = new StringBuilder();
+        for (byte byt : hash) {
+            hex.append(Integer.toString((byt & 0xff) + 0x100, 16).substring(1));
+        }
+        JSONObject object = new JSONObject();
+        object.put(HashingPersistenceProcessor.ALGORITHM, algorithm);
+        object.put(HashingPersistenceProcessor.HASH, hex.toString());
+        return object.toString();
+    }
+}
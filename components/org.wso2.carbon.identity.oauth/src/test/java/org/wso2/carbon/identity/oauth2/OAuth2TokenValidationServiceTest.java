@@ -31,15 +31,23 @@ import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationResponseDTO;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.oauth2.validators.TokenValidationHandler;
 
+import java.util.Arrays;
+import java.util.List;
+
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.powermock.api.mockito.PowerMockito.doNothing;
 import static org.powermock.api.mockito.PowerMockito.doThrow;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
 
 @PrepareForTest({OAuth2Util.class, TokenValidationHandler.class, OAuthComponentServiceHolder.class,
         OAuthServerConfiguration.class})
@@ -223,4 +231,47 @@ public class OAuth2TokenValidationServiceTest extends PowerMockTestCase {
         assertNotNull(tokenValidationService.buildIntrospectionResponse(mockedOAuth2TokenValidationRequestDTO),
                 "Expected to be not null");
     }
+
+    @Test
+    public void testBuildIntrospectionResponses() throws Exception {
+
+        OAuth2TokenValidationRequestDTO request1 = new OAuth2TokenValidationRequestDTO();
+        OAuth2TokenValidationRequestDTO request2 = new OAuth2TokenValidationRequestDTO();
+        OAuth2TokenValidationRequestDTO request3 = new OAuth2TokenValidationRequestDTO();
+        OAuth2IntrospectionResponseDTO response1 = new OAuth2IntrospectionResponseDTO();
+        response1.setActive(true);
+        OAuth2IntrospectionResponseDTO response3 = new OAuth2IntrospectionResponseDTO();
+        response3.getProperties().put(OAuth2Util.OAUTH2_VALIDATION_MESSAGE_CONTEXT, new Object());
+
+        when(mockedOAuthEventInterceptor.isEnabled()).thenReturn(true);
+        doThrow(new IdentityOAuth2Exception("dummyException")).when(mockedOAuthEventInterceptor)
+                .onPreTokenValidation(eq(request2), anyMap());
+        mockStatic(OAuth2Util.class);
+        doNothing().when(OAuth2Util.class, "triggerOnIntrospectionExceptionListeners", anyObject(), anyObject());
+        when(mockedValidationHandler.getMaxBulkIntrospectionTokens()).thenReturn(3);
+        when(mockedValidationHandler.buildIntrospectionResponses(Arrays.asList(request1, request3)))
+                .thenReturn(Arrays.asList(response1, response3));
+
+        List<OAuth2IntrospectionResponseDTO> responses = tokenValidationService.buildIntrospectionResponses(
+                Arrays.asList(request1, request2, request3));
+
+        // The request rejected by a pre validation listener is answered in place, without being introspected.
+        assertEquals(responses.size(), 3);
+        assertSame(responses.get(0), response1);
+        assertFalse(responses.get(1).isActive());
+        assertEquals(responses.get(1).getError(), "dummyException");
+        assertSame(responses.get(2), response3);
+        assertFalse(response3.getProperties().containsKey(OAuth2Util.OAUTH2_VALIDATION_MESSAGE_CONTEXT));
+        verify(mockedOAuthEventInterceptor, times(2)).onPostTokenValidation(
+                any(OAuth2TokenValidationRequestDTO.class), any(OAuth2IntrospectionResponseDTO.class), anyMap());
+    }
+
+    @Test(expectedExceptions = IdentityOAuth2ClientException.class)
+    public void testBuildIntrospectionResponsesWithTooManyTokens() throws Exception {
+
+        when(mockedValidationHandler.getMaxBulkIntrospectionTokens()).thenReturn(1);
+
+        tokenValidationService.buildIntrospectionResponses(Arrays.asList(new OAuth2TokenValidationRequestDTO(),
+                new OAuth2TokenValidationRequestDTO()));
+    }
 }
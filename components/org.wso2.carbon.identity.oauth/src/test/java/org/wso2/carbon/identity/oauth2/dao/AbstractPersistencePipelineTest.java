@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.testutil.IdentityBaseTest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Unit tests for AbstractPersistencePipeline.
+ */
+public class AbstractPersistencePipelineTest extends IdentityBaseTest {
+
+    @Test
+    public void testDisabledPipelinePersistsOnCallerThread() throws Exception {
+
+        RecordingPipeline pipeline = new RecordingPipeline(0, 10, 10, 10, 10);
+        pipeline.start();
+        pipeline.enqueue(1);
+
+        assertFalse(pipeline.isEnabled());
+        assertEquals(pipeline.individuallyPersisted, Collections.singletonList(1));
+        assertEquals(pipeline.getCallerPersistedEntryCount(), 1);
+    }
+
+    @Test
+    public void testEntriesArePersistedInBatches() throws Exception {
+
+        RecordingPipeline pipeline = new RecordingPipeline(1, 5, 1000, 100, 100);
+        // Block the worker on its first batch so that the rest of the entries pile up in the queue.
+        pipeline.blockFirstBatch = new CountDownLatch(1);
+        pipeline.start();
+        for (int i = 0; i < 11; i++) {
+            pipeline.enqueue(i);
+        }
+        pipeline.blockFirstBatch.countDown();
+        pipeline.shutdown(5000);
+
+        assertEquals(pipeline.getPersistedEntryCount(), 11);
+        assertEquals(pipeline.getQueueDepth(), 0);
+        for (List<Integer> batch : pipeline.batches) {
+            assertTrue(batch.size() <= 5, "Batch size exceeds the configured maximum.");
+        }
+        assertTrue(pipeline.batches.size() < 11, "Entries were not batched.");
+    }
+
+    @Test
+    public void testFullQueuePersistsOnCallerThread() throws Exception {
+
+        RecordingPipeline pipeline = new RecordingPipeline(1, 1, 10, 1, 1);
+        pipeline.blockFirstBatch = new CountDownLatch(1);
+        pipeline.start();
+        pipeline.enqueue(1);
+        // Wait until the worker picks the first entry, then fill the only slot of the queue.
+        assertTrue(pipeline.firstBatchStarted.await(5, TimeUnit.SECONDS));
+        pipeline.enqueue(2);
+        pipeline.enqueue(3);
+        pipeline.blockFirstBatch.countDown();
+        pipeline.shutdown(5000);
+
+        assertEquals(pipeline.getCallerPersistedEntryCount(), 1);
+        assertEquals(pipeline.individuallyPersisted, Collections.singletonList(3));
+        assertEquals(pipeline.getPersistedEntryCount(), 2);
+    }
+
+    @Test
+    public void testFailedBatchIsPersistedIndividually() throws Exception {
+
+        RecordingPipeline pipeline = new RecordingPipeline(1, 10, 10, 100, 100);
+        pipeline.failBatches = true;
+        pipeline.failingEntry = 2;
+        pipeline.start();
+        pipeline.enqueue(1);
+        pipeline.enqueue(2);
+        pipeline.enqueue(3);
+        pipeline.shutdown(5000);
+
+        assertEquals(pipeline.getPersistedEntryCount(), 2);
+        assertEquals(pipeline.getFailedEntryCount(), 1);
+        assertTrue(pipeline.individuallyPersisted.contains(1));
+        assertTrue(pipeline.individuallyPersisted.contains(3));
+    }
+
+    @Test
+    public void testPersistAndWaitReturnsAfterBatchIsPersisted() throws Exception {
+
+        RecordingPipeline pipeline = new RecordingPipeline(1, 10, 10, 100, 100);
+        pipeline.start();
+        try {
+            pipeline.persistAndWait(1);
+            assertEquals(pipeline.batches, Collections.singletonList(Collections.singletonList(1)));
+
+            CompletableFuture<Void> persisted = pipeline.enqueue(2);
+            persisted.get(5, TimeUnit.SECONDS);
+            assertEquals(pipeline.getPersistedEntryCount(), 2);
+        } finally {
+            pipeline.shutdown(5000);
+        }
+    }
+
+    @Test
+    public void testPersistAndWaitFailsWhenEntryIsNotPersisted() throws Exception {
+
+        RecordingPipeline pipeline = new RecordingPipeline(1, 10, 10, 100, 100);
+        pipeline.failBatches = true;
+        pipeline.failingEntry = 2;
+        pipeline.start();
+        try {
+            pipeline.persistAndWait(1);
+            try {
+                pipeline.persistAndWait(2);
+                fail("The entry which could not be persisted was reported as persisted.");
+            } catch (IdentityOAuth2Exception e) {
+                assertEquals(e.getMessage(), "Entry failed.");
+            }
+        } finally {
+            pipeline.shutdown(5000);
+        }
+        assertEquals(pipeline.getFailedEntryCount(), 1);
+    }
+
+    private static class RecordingPipeline extends AbstractPersistencePipeline<Integer> {
+
+        private final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+        private final List<Integer> individuallyPersisted = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        private CountDownLatch blockFirstBatch;
+        private boolean failBatches;
+        private Integer failingEntry;
+
+        RecordingPipeline(int poolSize, int batchSize, long flushIntervalMillis, int queueCapacity,
+                          long enqueueTimeoutMillis) {
+
+            super("TestPipeline", poolSize, batchSize, flushIntervalMillis, queueCapacity, enqueueTimeoutMillis);
+        }
+
+        @Override
+        protected void persistBatch(List<Integer> batch) throws IdentityOAuth2Exception {
+
+            firstBatchStarted.countDown();
+            if (blockFirstBatch != null) {
+                try {
+                    blockFirstBatch.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failBatches) {
+                throw new IdentityOAuth2Exception("Batch failed.");
+            }
+            batches.add(new ArrayList<>(batch));
+        }
+
+        @Override
+        protected void persist(Integer entry) throws IdentityOAuth2Exception {
+
+            if (entry.equals(failingEntry)) {
+                throw new IdentityOAuth2Exception("Entry failed.");
+            }
+            individuallyPersisted.add(entry);
+        }
+    }
+}
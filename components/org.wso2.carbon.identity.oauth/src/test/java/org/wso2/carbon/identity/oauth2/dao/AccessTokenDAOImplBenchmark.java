@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.apache.commons.lang.ArrayUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the database path of token introspection, comparing the previous access token read with
+ * {@link AccessTokenDAOImpl#getAccessTokenQuery} and {@link AccessTokenDAOImpl#readAccessTokenRecord}.
+ *
+ * Each invocation runs the access token query against an embedded H2 database holding a token with the configured
+ * number of scopes and maps the result. Run the main method from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccessTokenDAOImplBenchmark {
+
+    private static final String TOKEN_ID = "benchmark-token-id";
+    private static final String TOKEN_HASH = "benchmark-token-hash";
+    private static final int TENANT_ID = 1234;
+
+    @Param({"1", "10"})
+    private int scopeCount;
+
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        connection = DriverManager.getConnection("jdbc:h2:mem:accessTokenBenchmark" + scopeCount, "username",
+                "password");
+        String script = Paths.get(System.getProperty("user.dir"), "src", "test", "resources", "dbScripts",
+                "h2_with_application_and_token.sql").toString();
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("RUNSCRIPT FROM '" + script + "'");
+            statement.executeUpdate("INSERT INTO IDN_OAUTH2_ACCESS_TOKEN (TOKEN_ID, ACCESS_TOKEN, REFRESH_TOKEN, " +
+                    "CONSUMER_KEY_ID, AUTHZ_USER, TENANT_ID, USER_DOMAIN, USER_TYPE, GRANT_TYPE, TIME_CREATED, " +
+                    "REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD, REFRESH_TOKEN_VALIDITY_PERIOD, TOKEN_SCOPE_HASH, " +
+                    "TOKEN_STATE, TOKEN_STATE_ID, SUBJECT_IDENTIFIER, ACCESS_TOKEN_HASH, REFRESH_TOKEN_HASH, IDP_ID) " +
+                    "VALUES ('" + TOKEN_ID + "', 'access', 'refresh', 1, 'user1', " + TENANT_ID + ", 'PRIMARY', " +
+                    "'APPLICATION_USER', 'password', NOW(), NOW(), 3600, 14400, 'benchmark', 'ACTIVE', 'NONE', " +
+                    "'user1', '" + TOKEN_HASH + "', NULL, 1)");
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO IDN_OAUTH2_ACCESS_TOKEN_SCOPE (TOKEN_ID, TOKEN_SCOPE, TENANT_ID) VALUES (?, ?, ?)")) {
+            for (int i = 0; i < scopeCount; i++) {
+                statement.setString(1, TOKEN_ID);
+                statement.setString(2, "scope" + i);
+                statement.setInt(3, TENANT_ID);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public String[] previousRead() throws SQLException {
+
+        String sql = selectQuery(false, true, false, false);
+        try (PreparedStatement prepStmt = connection.prepareStatement(sql)) {
+            prepStmt.setString(1, TOKEN_HASH);
+            prepStmt.setInt(2, TENANT_ID);
+            try (ResultSet resultSet = prepStmt.executeQuery()) {
+                return readRows(resultSet);
+            }
+        }
+    }
+
+    @Benchmark
+    public AccessTokenDAOImpl.AccessTokenRecord streamlinedRead() throws SQLException {
+
+        AccessTokenDAOImpl.AccessTokenQuery query = AccessTokenDAOImpl.getAccessTokenQuery(false, true, false, false);
+        try (PreparedStatement prepStmt = connection.prepareStatement(query.getSql())) {
+            prepStmt.setString(1, TOKEN_HASH);
+            prepStmt.setInt(2, TENANT_ID);
+            try (ResultSet resultSet = prepStmt.executeQuery()) {
+                return AccessTokenDAOImpl.readAccessTokenRecord(resultSet, query);
+            }
+        }
+    }
+
+    /**
+     * Query selection of the previous implementation.
+     */
+    private static String selectQuery(boolean includeExpired, boolean idpIdColumnEnabled,
+                                      boolean consentedTokenColumnEnabled, boolean crossTenant) {
+
+        if (includeExpired) {
+            if (idpIdColumnEnabled) {
+                if (!crossTenant) {
+                    return SQLQueries.RETRIEVE_ACTIVE_EXPIRED_TENANT_ACCESS_TOKEN_IDP_NAME;
+                }
+                return SQLQueries.RETRIEVE_ACTIVE_EXPIRED_ACCESS_TOKEN_IDP_NAME;
+            }
+            if (!crossTenant) {
+                return SQLQueries.RETRIEVE_ACTIVE_EXPIRED_TENANT_ACCESS_TOKEN;
+            }
+            return SQLQueries.RETRIEVE_ACTIVE_EXPIRED_ACCESS_TOKEN;
+        }
+        if (idpIdColumnEnabled) {
+            if (!crossTenant) {
+                if (consentedTokenColumnEnabled) {
+                    return SQLQueries.RETRIEVE_ACTIVE_TENANT_ACCESS_TOKEN_IDP_NAME_WITH_CONSENTED_TOKEN;
+                }
+                return SQLQueries.RETRIEVE_ACTIVE_TENANT_ACCESS_TOKEN_IDP_NAME;
+            }
+            if (consentedTokenColumnEnabled) {
+                return SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKEN_IDP_NAME_WITH_CONSENTED_TOKEN;
+            }
+            return SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKEN_IDP_NAME;
+        }
+        if (!crossTenant) {
+            if (consentedTokenColumnEnabled) {
+                return SQLQueries.RETRIEVE_ACTIVE_TENANT_ACCESS_TOKEN_WITH_CONSENTED_TOKEN;
+            }
+            return SQLQueries.RETRIEVE_ACTIVE_TENANT_ACCESS_TOKEN;
+        }
+        if (consentedTokenColumnEnabled) {
+            return SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKEN_WITH_CONSENTED_TOKEN;
+        }
+        return SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKEN;
+    }
+
+    /**
+     * Row mapping of the previous implementation, without the user and application resolution.
+     */
+    private static String[] readRows(ResultSet resultSet) throws SQLException {
+
+        int iterateId = 0;
+        String[] scope = null;
+        List<String> scopes = new ArrayList<>();
+        while (resultSet.next()) {
+            if (iterateId == 0) {
+                resultSet.getString(1);
+                resultSet.getString(2);
+                resultSet.getInt(3);
+                resultSet.getString(4);
+                scope = OAuth2Util.buildScopeArray(resultSet.getString(5));
+                Timestamp issuedTime = resultSet.getTimestamp(6, Calendar.getInstance(TimeZone.getTimeZone("UTC")));
+                Timestamp refreshTokenIssuedTime = resultSet.getTimestamp(7,
+                        Calendar.getInstance(TimeZone.getTimeZone("UTC")));
+                resultSet.getLong(8);
+                resultSet.getLong(9);
+                for (int i = 10; i <= 16; i++) {
+                    resultSet.getString(i);
+                }
+            } else {
+                scopes.add(resultSet.getString(5));
+            }
+            iterateId++;
+        }
+        if (scopes.size() > 0 && scope != null) {
+            scope = (String[]) ArrayUtils.addAll(scope, scopes.toArray(new String[scopes.size()]));
+        }
+        return scope;
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        Options options = new OptionsBuilder()
+                .include(AccessTokenDAOImplBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
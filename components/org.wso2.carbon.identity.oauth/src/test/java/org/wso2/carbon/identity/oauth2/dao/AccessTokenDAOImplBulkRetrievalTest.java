@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.application.mgt.ApplicationManagementService;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.oauth.dao.SQLQueries;
+import org.wso2.carbon.identity.oauth.tokenprocessor.HashingPersistenceProcessor;
+import org.wso2.carbon.identity.oauth2.dao.util.DAOUtils;
+import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.testutil.Whitebox;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+import org.wso2.carbon.user.core.UserCoreConstants;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.wso2.carbon.identity.oauth.common.OAuthConstants.OAuthVersions.VERSION_2;
+
+/**
+ * Unit tests for the retrieval of the access tokens of a batch in AccessTokenDAOImpl.
+ */
+@WithCarbonHome
+@PrepareForTest({IdentityDatabaseUtil.class, IdentityTenantUtil.class, OAuth2Util.class})
+public class AccessTokenDAOImplBulkRetrievalTest extends PowerMockIdentityBaseTest {
+
+    private static final String DB_NAME = "testAccessTokenBulkRetrievalDB";
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final int TENANT_ID = 1234;
+    private static final int OTHER_TENANT_ID = 5678;
+    private static final String CONSUMER_KEY = "bulkRetrievalConsumerKey";
+    private static final String USER_NAME = "user1";
+    private static final String ACTIVE_TOKEN_1 = "activeAccessToken1";
+    private static final String ACTIVE_TOKEN_2 = "activeAccessToken2";
+    private static final String EXPIRED_STATE_TOKEN = "expiredAccessToken";
+    private static final String OTHER_TENANT_TOKEN = "otherTenantAccessToken";
+    private static final String UNKNOWN_TOKEN = "unknownAccessToken";
+
+    @BeforeClass
+    public void initTest() throws Exception {
+
+        DAOUtils.initializeDataSource(DB_NAME, DAOUtils.getFilePath("identity.sql"));
+        try (Connection connection = DAOUtils.getConnection(DB_NAME)) {
+            try (PreparedStatement prepStmt = connection.prepareStatement(
+                    "INSERT INTO IDP (TENANT_ID, NAME, UUID) VALUES (1234, 'LOCAL', 5678)")) {
+                prepStmt.execute();
+            }
+            createApplication(connection);
+            insertToken(connection, ACTIVE_TOKEN_1, TENANT_ID, "ACTIVE");
+            insertToken(connection, ACTIVE_TOKEN_2, TENANT_ID, "ACTIVE");
+            insertToken(connection, EXPIRED_STATE_TOKEN, TENANT_ID, "EXPIRED");
+            insertToken(connection, OTHER_TENANT_TOKEN, OTHER_TENANT_ID, "ACTIVE");
+        }
+    }
+
+    @BeforeMethod
+    public void setup() throws Exception {
+
+        mockStatic(IdentityDatabaseUtil.class);
+        when(IdentityDatabaseUtil.getDBConnection(false)).thenAnswer(invocation -> DAOUtils.getConnection(DB_NAME));
+
+        mockStatic(IdentityTenantUtil.class);
+        when(IdentityTenantUtil.getTenantId(TENANT_DOMAIN)).thenReturn(TENANT_ID);
+
+        mockStatic(OAuth2Util.class);
+        when(OAuth2Util.getTenantDomain(anyInt())).thenReturn(TENANT_DOMAIN);
+        when(OAuth2Util.createAuthenticatedUser(anyString(), anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> {
+                    AuthenticatedUser user = new AuthenticatedUser();
+                    user.setUserName((String) invocation.getArguments()[0]);
+                    user.setUserStoreDomain((String) invocation.getArguments()[1]);
+                    user.setTenantDomain((String) invocation.getArguments()[2]);
+                    return user;
+                });
+
+        OAuth2ServiceComponentHolder.setApplicationMgtService(mock(ApplicationManagementService.class));
+        OAuth2ServiceComponentHolder.setIDPIdColumnEnabled(true);
+        OAuth2ServiceComponentHolder.setConsentedTokenColumnEnabled(false);
+    }
+
+    @AfterClass
+    public void tearDown() throws Exception {
+
+        OAuth2ServiceComponentHolder.setApplicationMgtService(null);
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+    }
+
+    @Test
+    public void testGetAccessTokens() throws Exception {
+
+        AccessTokenDAOImpl accessTokenDAO = new AccessTokenDAOImpl();
+        Whitebox.setInternalState(accessTokenDAO, "isCrossTenantTokenIntrospectionAllowed", false);
+
+        Map<String, AccessTokenDO> accessTokenDOs = getAccessTokens(accessTokenDAO);
+
+        // Only the active tokens of the tenant of the request are returned, by their identifiers.
+        assertEquals(accessTokenDOs.size(), 2);
+        assertEquals(accessTokenDOs.get(ACTIVE_TOKEN_1).getAccessToken(), ACTIVE_TOKEN_1);
+        assertEquals(accessTokenDOs.get(ACTIVE_TOKEN_1).getTokenId(), getTokenId(ACTIVE_TOKEN_1));
+        assertEquals(accessTokenDOs.get(ACTIVE_TOKEN_1).getConsumerKey(), CONSUMER_KEY);
+        assertEquals(accessTokenDOs.get(ACTIVE_TOKEN_1).getAuthzUser().getUserName(), USER_NAME);
+        assertEquals(accessTokenDOs.get(ACTIVE_TOKEN_2).getTokenId(), getTokenId(ACTIVE_TOKEN_2));
+        assertFalse(accessTokenDOs.containsKey(EXPIRED_STATE_TOKEN));
+        assertFalse(accessTokenDOs.containsKey(OTHER_TENANT_TOKEN));
+        assertFalse(accessTokenDOs.containsKey(UNKNOWN_TOKEN));
+    }
+
+    @Test
+    public void testGetAccessTokensWithCrossTenantIntrospection() throws Exception {
+
+        AccessTokenDAOImpl accessTokenDAO = new AccessTokenDAOImpl();
+        Whitebox.setInternalState(accessTokenDAO, "isCrossTenantTokenIntrospectionAllowed", true);
+
+        Map<String, AccessTokenDO> accessTokenDOs = getAccessTokens(accessTokenDAO);
+
+        assertEquals(accessTokenDOs.size(), 3);
+        assertEquals(accessTokenDOs.get(OTHER_TENANT_TOKEN).getTenantID(), OTHER_TENANT_ID);
+    }
+
+    private Map<String, AccessTokenDO> getAccessTokens(AccessTokenDAOImpl accessTokenDAO) throws Exception {
+
+        try {
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(TENANT_DOMAIN);
+            return accessTokenDAO.getAccessTokens(Arrays.asList(ACTIVE_TOKEN_1, ACTIVE_TOKEN_2, EXPIRED_STATE_TOKEN,
+                    OTHER_TENANT_TOKEN, UNKNOWN_TOKEN));
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    private static String getTokenId(String accessToken) {
+
+        return "id-" + accessToken;
+    }
+
+    private void insertToken(Connection connection, String accessToken, int tenantId, String tokenState)
+            throws Exception {
+
+        String sql = "INSERT INTO IDN_OAUTH2_ACCESS_TOKEN (TOKEN_ID, ACCESS_TOKEN, REFRESH_TOKEN, CONSUMER_KEY_ID, " +
+                "AUTHZ_USER, TENANT_ID, USER_DOMAIN, USER_TYPE, GRANT_TYPE, TIME_CREATED, " +
+                "REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD, REFRESH_TOKEN_VALIDITY_PERIOD, TOKEN_SCOPE_HASH, " +
+                "TOKEN_STATE, TOKEN_STATE_ID, SUBJECT_IDENTIFIER, ACCESS_TOKEN_HASH, IDP_ID) SELECT ?, ?, ?, ID, ?, " +
+                "?, ?, 'APPLICATION_USER', 'password', NOW(), NOW(), 3600000, 14400000, 'scopeHash', ?, ?, ?, ?, " +
+                "(SELECT ID FROM IDP WHERE NAME = 'LOCAL' AND TENANT_ID = 1234) FROM IDN_OAUTH_CONSUMER_APPS " +
+                "WHERE CONSUMER_KEY = ?";
+        try (PreparedStatement prepStmt = connection.prepareStatement(sql)) {
+            prepStmt.setString(1, getTokenId(accessToken));
+            prepStmt.setString(2, accessToken);
+            prepStmt.setString(3, UUID.randomUUID().toString());
+            prepStmt.setString(4, USER_NAME);
+            prepStmt.setInt(5, tenantId);
+            prepStmt.setString(6, UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+            prepStmt.setString(7, tokenState);
+            prepStmt.setString(8, getTokenId(accessToken));
+            prepStmt.setString(9, USER_NAME);
+            prepStmt.setString(10, new HashingPersistenceProcessor().getProcessedAccessTokenIdentifier(accessToken));
+            prepStmt.setString(11, CONSUMER_KEY);
+            assertEquals(prepStmt.executeUpdate(), 1);
+        }
+    }
+
+    private void createApplication(Connection connection) throws Exception {
+
+        try (PreparedStatement prepStmt = connection.prepareStatement(SQLQueries.OAuthAppDAOSQLQueries.ADD_OAUTH_APP)) {
+            prepStmt.setString(1, CONSUMER_KEY);
+            prepStmt.setString(2, UUID.randomUUID().toString());
+            prepStmt.setString(3, USER_NAME);
+            prepStmt.setInt(4, TENANT_ID);
+            prepStmt.setString(5, UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+            prepStmt.setString(6, "bulkRetrievalApp");
+            prepStmt.setString(7, VERSION_2);
+            prepStmt.setString(8, "http://localhost:8080/redirect");
+            prepStmt.setString(9, "refresh_token password");
+            prepStmt.setLong(10, 3600L);
+            prepStmt.setLong(11, 3600L);
+            prepStmt.setLong(12, 84600L);
+            prepStmt.setLong(13, 3600L);
+            prepStmt.execute();
+        }
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
+import org.wso2.carbon.identity.oauth.dao.SQLQueries;
+import org.wso2.carbon.identity.oauth2.dao.util.DAOUtils;
+import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.token.OauthTokenIssuer;
+import org.wso2.carbon.identity.oauth2.util.OAuth2TokenUtil;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.testutil.Whitebox;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+import org.wso2.carbon.user.core.UserCoreConstants;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.powermock.api.mockito.PowerMockito.doAnswer;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.wso2.carbon.identity.oauth.common.OAuthConstants.OAuthVersions.VERSION_2;
+
+/**
+ * Unit tests for the conditional rotation of access tokens in AccessTokenDAOImpl.
+ */
+@WithCarbonHome
+@PrepareForTest({IdentityDatabaseUtil.class, OAuth2Util.class, OAuth2TokenUtil.class, OAuthServerConfiguration.class})
+public class AccessTokenDAOImplRotationTest extends PowerMockIdentityBaseTest {
+
+    private static final String DB_NAME = "testAccessTokenRotationDB";
+    private static final int TENANT_ID = 1234;
+    private static final String CONSUMER_KEY = "rotationConsumerKey";
+    private static final String USER_NAME = "user1";
+    private static final String SCOPE_HASH = "369db21a386ae433e65c0ff34d35708d";
+    private static final int CONCURRENT_REQUESTS = 8;
+
+    private AuthenticatedUser authenticatedUser;
+
+    @BeforeClass
+    public void initTest() throws Exception {
+
+        DAOUtils.initializeDataSource(DB_NAME, DAOUtils.getFilePath("identity.sql"));
+        try (Connection connection = DAOUtils.getConnection(DB_NAME)) {
+            try (PreparedStatement prepStmt = connection.prepareStatement(
+                    "INSERT INTO IDP (TENANT_ID, NAME, UUID) VALUES (1234, 'LOCAL', 5678)")) {
+                prepStmt.execute();
+            }
+            createApplication(connection);
+        }
+        authenticatedUser = new AuthenticatedUser();
+        authenticatedUser.setUserName(USER_NAME);
+        authenticatedUser.setTenantDomain("carbon.super");
+        authenticatedUser.setUserStoreDomain(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+    }
+
+    @BeforeMethod
+    public void setup() throws Exception {
+
+        mockStatic(IdentityDatabaseUtil.class);
+        // Each request gets its own connection, as the requests compete on the row of the previous token.
+        when(IdentityDatabaseUtil.getDBConnection(true)).thenAnswer(invocation -> {
+            Connection connection = DAOUtils.getConnection(DB_NAME);
+            connection.setAutoCommit(false);
+            return connection;
+        });
+        doAnswer(invocation -> {
+            ((Connection) invocation.getArguments()[0]).commit();
+            return null;
+        }).when(IdentityDatabaseUtil.class, "commitTransaction", any(Connection.class));
+        doAnswer(invocation -> {
+            ((Connection) invocation.getArguments()[0]).rollback();
+            return null;
+        }).when(IdentityDatabaseUtil.class, "rollbackTransaction", any(Connection.class));
+        doAnswer(invocation -> {
+            ((Connection) invocation.getArguments()[0]).close();
+            return null;
+        }).when(IdentityDatabaseUtil.class, "closeConnection", any(Connection.class));
+
+        mockStatic(OAuth2Util.class);
+        when(OAuth2Util.getTokenPartitionedSqlByUserStore(anyString(), anyString()))
+                .thenAnswer(invocation -> invocation.getArguments()[0]);
+        when(OAuth2Util.getSanitizedUserStoreDomain(anyString()))
+                .thenAnswer(invocation -> invocation.getArguments()[0]);
+        when(OAuth2Util.getUserStoreDomain(any(AuthenticatedUser.class)))
+                .thenReturn(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+        when(OAuth2Util.getAuthenticatedIDP(any(AuthenticatedUser.class))).thenReturn("LOCAL");
+        when(OAuth2Util.getTenantId(anyString())).thenReturn(TENANT_ID);
+        when(OAuth2Util.hashScopes(any(String[].class))).thenReturn(SCOPE_HASH);
+        OauthTokenIssuer tokenIssuer = mock(OauthTokenIssuer.class);
+        when(OAuth2Util.getOAuthTokenIssuerForOAuthApp(anyString())).thenReturn(tokenIssuer);
+
+        mockStatic(OAuth2TokenUtil.class);
+        OAuth2ServiceComponentHolder.setIDPIdColumnEnabled(true);
+        OAuth2ServiceComponentHolder.setConsentedTokenColumnEnabled(false);
+    }
+
+    @AfterClass
+    public void tearDown() throws Exception {
+
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+    }
+
+    @Test
+    public void testConcurrentRotationsOfSameToken() throws Exception {
+
+        String oldTokenId = UUID.randomUUID().toString();
+        insertActiveToken(oldTokenId);
+
+        AccessTokenDAOImpl accessTokenDAO = new AccessTokenDAOImpl();
+        Whitebox.setInternalState(accessTokenDAO, "isTokenCleanupFeatureEnabled", false);
+        ExecutorService executorService = Executors.newFixedThreadPool(CONCURRENT_REQUESTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<String> newTokenIds = new ArrayList<>();
+        List<Future<Boolean>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+                AccessTokenDO newToken = createAccessToken();
+                newTokenIds.add(newToken.getTokenId());
+                futures.add(executorService.submit(() -> {
+                    start.await();
+                    return accessTokenDAO.rotateAccessToken(oldTokenId,
+                            OAuthConstants.TokenStates.TOKEN_STATE_INACTIVE, CONSUMER_KEY,
+                            UUID.randomUUID().toString(), newToken, UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME,
+                            OAuthConstants.GrantTypes.PASSWORD);
+                }));
+            }
+            start.countDown();
+
+            int rotated = 0;
+            for (Future<Boolean> future : futures) {
+                try {
+                    if (future.get(30, TimeUnit.SECONDS)) {
+                        rotated++;
+                    }
+                } catch (ExecutionException e) {
+                    // A request which fails to change the state of the previous token does not store a new token.
+                }
+            }
+            assertEquals(rotated, 1, "Only one of the concurrent requests should rotate the token.");
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        assertEquals(countTokens(newTokenIds), 1, "Only one new token should be stored.");
+        assertEquals(getTokenState(oldTokenId), OAuthConstants.TokenStates.TOKEN_STATE_INACTIVE);
+    }
+
+    @Test
+    public void testRotationOfInactiveToken() throws Exception {
+
+        String oldTokenId = UUID.randomUUID().toString();
+        insertActiveToken(oldTokenId);
+        AccessTokenDAOImpl accessTokenDAO = new AccessTokenDAOImpl();
+        Whitebox.setInternalState(accessTokenDAO, "isTokenCleanupFeatureEnabled", false);
+
+        AccessTokenDO firstToken = createAccessToken();
+        assertTrue(accessTokenDAO.rotateAccessToken(oldTokenId, OAuthConstants.TokenStates.TOKEN_STATE_INACTIVE,
+                CONSUMER_KEY, UUID.randomUUID().toString(), firstToken, UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME,
+                OAuthConstants.GrantTypes.PASSWORD));
+
+        AccessTokenDO secondToken = createAccessToken();
+        assertEquals(accessTokenDAO.rotateAccessToken(oldTokenId, OAuthConstants.TokenStates.TOKEN_STATE_INACTIVE,
+                CONSUMER_KEY, UUID.randomUUID().toString(), secondToken, UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME,
+                OAuthConstants.GrantTypes.PASSWORD), false, "An inactive token should not be rotated again.");
+        List<String> newTokenIds = new ArrayList<>();
+        newTokenIds.add(firstToken.getTokenId());
+        newTokenIds.add(secondToken.getTokenId());
+        assertEquals(countTokens(newTokenIds), 1);
+    }
+
+    private AccessTokenDO createAccessToken() {
+
+        Timestamp issuedTime = new Timestamp(System.currentTimeMillis());
+        AccessTokenDO accessTokenDO = new AccessTokenDO(CONSUMER_KEY, authenticatedUser, new String[]{"default"},
+                issuedTime, issuedTime, 3600000L, 14400000L, OAuthConstants.UserType.APPLICATION_USER);
+        accessTokenDO.setTokenId(UUID.randomUUID().toString());
+        accessTokenDO.setAccessToken(UUID.randomUUID().toString());
+        accessTokenDO.setRefreshToken(UUID.randomUUID().toString());
+        accessTokenDO.setTokenState(OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+        accessTokenDO.setGrantType(OAuthConstants.GrantTypes.PASSWORD);
+        return accessTokenDO;
+    }
+
+    private void insertActiveToken(String tokenId) throws Exception {
+
+        String sql = "INSERT INTO IDN_OAUTH2_ACCESS_TOKEN (TOKEN_ID, ACCESS_TOKEN, REFRESH_TOKEN, CONSUMER_KEY_ID, " +
+                "AUTHZ_USER, TENANT_ID, USER_DOMAIN, USER_TYPE, GRANT_TYPE, TIME_CREATED, " +
+                "REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD, REFRESH_TOKEN_VALIDITY_PERIOD, TOKEN_SCOPE_HASH, " +
+                "TOKEN_STATE, TOKEN_STATE_ID, SUBJECT_IDENTIFIER, IDP_ID) SELECT ?, ?, ?, ID, ?, ?, ?, " +
+                "'APPLICATION_USER', 'password', NOW(), NOW(), 3600000, 14400000, ?, 'ACTIVE', ?, ?, " +
+                "(SELECT ID FROM IDP WHERE NAME = 'LOCAL' AND TENANT_ID = ?) FROM IDN_OAUTH_CONSUMER_APPS " +
+                "WHERE CONSUMER_KEY = ?";
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement(sql)) {
+            prepStmt.setString(1, tokenId);
+            prepStmt.setString(2, UUID.randomUUID().toString());
+            prepStmt.setString(3, UUID.randomUUID().toString());
+            prepStmt.setString(4, USER_NAME);
+            prepStmt.setInt(5, TENANT_ID);
+            prepStmt.setString(6, UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+            prepStmt.setString(7, SCOPE_HASH);
+            // Each previous token gets its own state id, as the tokens of the tests share the user and the scope.
+            prepStmt.setString(8, tokenId);
+            prepStmt.setString(9, USER_NAME);
+            prepStmt.setInt(10, TENANT_ID);
+            prepStmt.setString(11, CONSUMER_KEY);
+            assertEquals(prepStmt.executeUpdate(), 1);
+        }
+    }
+
+    private int countTokens(List<String> tokenIds) throws Exception {
+
+        int count = 0;
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement(
+                     "SELECT COUNT(*) FROM IDN_OAUTH2_ACCESS_TOKEN WHERE TOKEN_ID = ?")) {
+            for (String tokenId : tokenIds) {
+                prepStmt.setString(1, tokenId);
+                try (ResultSet resultSet = prepStmt.executeQuery()) {
+                    resultSet.next();
+                    count += resultSet.getInt(1);
+                }
+            }
+        }
+        return count;
+    }
+
+    private String getTokenState(String tokenId) throws Exception {
+
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement(
+                     "SELECT TOKEN_STATE FROM IDN_OAUTH2_ACCESS_TOKEN WHERE TOKEN_ID = ?")) {
+            prepStmt.setString(1, tokenId);
+            try (ResultSet resultSet = prepStmt.executeQuery()) {
+                assertTrue(resultSet.next());
+                return resultSet.getString(1);
+            }
+        }
+    }
+
+    private void createApplication(Connection connection) throws Exception {
+
+        try (PreparedStatement prepStmt = connection.prepareStatement(SQLQueries.OAuthAppDAOSQLQueries.ADD_OAUTH_APP)) {
+            prepStmt.setString(1, CONSUMER_KEY);
+            prepStmt.setString(2, UUID.randomUUID().toString());
+            prepStmt.setString(3, USER_NAME);
+            prepStmt.setInt(4, TENANT_ID);
+            prepStmt.setString(5, UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+            prepStmt.setString(6, "rotationApp");
+            prepStmt.setString(7, VERSION_2);
+            prepStmt.setString(8, "http://localhost:8080/redirect");
+            prepStmt.setString(9, "refresh_token password");
+            prepStmt.setLong(10, 3600L);
+            prepStmt.setLong(11, 3600L);
+            prepStmt.setLong(12, 84600L);
+            prepStmt.setLong(13, 3600L);
+            prepStmt.execute();
+        }
+    }
+}
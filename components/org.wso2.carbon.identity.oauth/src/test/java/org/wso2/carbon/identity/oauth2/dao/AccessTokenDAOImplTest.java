@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.testutil.IdentityBaseTest;
+
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for the access token read path of AccessTokenDAOImpl.
+ */
+public class AccessTokenDAOImplTest extends IdentityBaseTest {
+
+    private static final int TENANT_ID = 1234;
+    private static final int PAGED_TENANT_ID = 5678;
+    private static final int PAGED_TOKEN_COUNT = 25;
+    private static final int PARTITIONED_TENANT_ID = 9012;
+    private static final int PARTITIONED_TOKEN_COUNT = 14;
+
+    private Connection connection;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+
+        connection = DriverManager.getConnection("jdbc:h2:mem:testAccessTokenDAOImpl", "username", "password");
+        String script = Paths.get(System.getProperty("user.dir"), "src", "test", "resources", "dbScripts",
+                "h2_with_application_and_token.sql").toString();
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("RUNSCRIPT FROM '" + script + "'");
+            insertToken(statement, "token1", "hash1");
+            insertToken(statement, "token2", "hash2");
+            statement.executeUpdate("INSERT INTO IDN_OAUTH2_ACCESS_TOKEN_SCOPE (TOKEN_ID, TOKEN_SCOPE, TENANT_ID) " +
+                    "VALUES ('token1', 'openid', 1234), ('token1', 'profile', 1234), ('token1', 'email', 1234)");
+            for (int i = 0; i < PAGED_TOKEN_COUNT; i++) {
+                // Every fifth token is EXPIRED, and every seventh token is REVOKED.
+                String state = i % 7 == 0 ? "REVOKED" : (i % 5 == 0 ? "EXPIRED" : "ACTIVE");
+                insertToken(statement, getPagedTokenId(i), "paged-hash-" + i, PAGED_TENANT_ID, state);
+            }
+            statement.executeUpdate("INSERT INTO IDN_OAUTH2_ACCESS_TOKEN_SCOPE (TOKEN_ID, TOKEN_SCOPE, TENANT_ID) " +
+                    "VALUES ('" + getPagedTokenId(3) + "', 'openid', 5678), ('" + getPagedTokenId(3) +
+                    "', 'profile', 5678)");
+        }
+    }
+
+    @AfterClass
+    public void tearDown() throws Exception {
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @DataProvider(name = "accessTokenQueryProvider")
+    public Object[][] accessTokenQueryProvider() {
+
+        return new Object[][]{
+                {false, false, false, false, SQLQueries.RETRIEVE_ACTIVE_TENANT_ACCESS_TOKEN, false},
+                {false, false, false, true, SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKEN, false},
+                {false, false, true, false, SQLQueries.RETRIEVE_ACTIVE_TENANT_ACCESS_TOKEN_WITH_CONSENTED_TOKEN, true},
+                {false, false, true, true, SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKEN_WITH_CONSENTED_TOKEN, true},
+                {false, true, false, false, SQLQueries.RETRIEVE_ACTIVE_TENANT_ACCESS_TOKEN_IDP_NAME, false},
+                {false, true, false, true, SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKEN_IDP_NAME, false},
+                {false, true, true, false,
+                        SQLQueries.RETRIEVE_ACTIVE_TENANT_ACCESS_TOKEN_IDP_NAME_WITH_CONSENTED_TOKEN, true},
+                {false, true, true, true, SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKEN_IDP_NAME_WITH_CONSENTED_TOKEN, true},
+                {true, false, false, false, SQLQueries.RETRIEVE_ACTIVE_EXPIRED_TENANT_ACCESS_TOKEN, false},
+                {true, false, true, true, SQLQueries.RETRIEVE_ACTIVE_EXPIRED_ACCESS_TOKEN, false},
+                {true, true, false, false, SQLQueries.RETRIEVE_ACTIVE_EXPIRED_TENANT_ACCESS_TOKEN_IDP_NAME, false},
+                {true, true, true, true, SQLQueries.RETRIEVE_ACTIVE_EXPIRED_ACCESS_TOKEN_IDP_NAME, false}
+        };
+    }
+
+    @Test(dataProvider = "accessTokenQueryProvider")
+    public void testGetAccessTokenQuery(boolean includeExpired, boolean idpIdColumnEnabled,
+                                        boolean consentedTokenColumnEnabled, boolean crossTenant, String expectedSql,
+                                        boolean consentedColumnFetched) {
+
+        AccessTokenDAOImpl.AccessTokenQuery query = AccessTokenDAOImpl.getAccessTokenQuery(includeExpired,
+                idpIdColumnEnabled, consentedTokenColumnEnabled, crossTenant);
+
+        assertEquals(query.getSql(), expectedSql);
+        assertEquals(query.isIdpColumnFetched(), idpIdColumnEnabled);
+        assertEquals(query.isConsentedColumnFetched(), consentedColumnFetched);
+    }
+
+    @Test
+    public void testReadAccessTokenRecordAggregatesScopes() throws Exception {
+
+        AccessTokenDAOImpl.AccessTokenRecord record = readRecord("hash1");
+
+        assertNotNull(record);
+        assertEquals(record.tokenId, "token1");
+        assertEquals(record.authorizedUser, "user1");
+        assertEquals(record.tenantId, TENANT_ID);
+        assertEquals(record.authenticatedIDP, "LOCAL");
+        assertEquals(record.validityPeriodInMillis, 3600);
+        assertNotNull(record.issuedTime);
+        assertFalse(record.isConsentedToken);
+        String[] scopes = record.scopes.clone();
+        Arrays.sort(scopes);
+        assertEquals(scopes, new String[]{"email", "openid", "profile"});
+    }
+
+    @Test
+    public void testReadAccessTokenRecordWithoutScopes() throws Exception {
+
+        AccessTokenDAOImpl.AccessTokenRecord record = readRecord("hash2");
+
+        assertNotNull(record);
+        assertEquals(record.tokenId, "token2");
+        assertTrue(record.scopes.length == 0);
+    }
+
+    @Test
+    public void testReadAccessTokenRecordOfUnknownToken() throws Exception {
+
+        assertNull(readRecord("unknown"));
+    }
+
+    @Test
+    public void testReadAccessTokenRecordsOfBatch() throws Exception {
+
+        String sql = SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKENS_IDP_NAME.replace(
+                SQLQueries.ACCESS_TOKEN_HASH_LIST_PLACEHOLDER, "?, ?, ?");
+        Map<String, AccessTokenDAOImpl.AccessTokenRecord> records;
+        try (PreparedStatement prepStmt = connection.prepareStatement(sql)) {
+            prepStmt.setString(1, "hash1");
+            prepStmt.setString(2, "hash2");
+            prepStmt.setString(3, "unknown");
+            try (ResultSet resultSet = prepStmt.executeQuery()) {
+                records = AccessTokenDAOImpl.readAccessTokenRecords(resultSet, false);
+            }
+        }
+
+        assertEquals(records.size(), 2);
+        assertEquals(records.get("hash1").tokenId, "token1");
+        assertEquals(records.get("hash1").scopes.length, 3);
+        assertEquals(records.get("hash1").authenticatedIDP, "LOCAL");
+        assertEquals(records.get("hash2").tokenId, "token2");
+        assertTrue(records.get("hash2").scopes.length == 0);
+        assertNull(records.get("unknown"));
+    }
+
+    @Test
+    public void testReadAccessTokenPagesOfTenant() throws Exception {
+
+        List<String> expectedTokenIds = new ArrayList<>();
+        for (int i = 0; i < PAGED_TOKEN_COUNT; i++) {
+            if (i % 7 != 0) {
+                expectedTokenIds.add(getPagedTokenId(i));
+            }
+        }
+
+        List<String> tokenIds = new ArrayList<>();
+        String lastTokenId = null;
+        List<AccessTokenDAOImpl.AccessTokenRecord> page;
+        do {
+            page = AccessTokenDAOImpl.readAccessTokenPage(connection, SQLQueries.LIST_TOKENS_IN_TENANT_PAGE_IDP_NAME,
+                    SQLQueries.LIST_SCOPES_OF_TOKENS, true, PAGED_TENANT_ID, lastTokenId, 5);
+            // A page never holds more tokens than the limit, whatever the number of tokens of the tenant.
+            assertTrue(page.size() <= 5);
+            for (AccessTokenDAOImpl.AccessTokenRecord record : page) {
+                tokenIds.add(record.tokenId);
+                assertEquals(record.tenantId, PAGED_TENANT_ID);
+                assertEquals(record.authenticatedIDP, "LOCAL");
+                assertEquals(record.accessToken, record.tokenId);
+                if (record.tokenId.equals(getPagedTokenId(3))) {
+                    String[] scopes = record.scopes.clone();
+                    Arrays.sort(scopes);
+                    assertEquals(scopes, new String[]{"openid", "profile"});
+                } else {
+                    assertEquals(record.scopes.length, 0);
+                }
+            }
+            if (!page.isEmpty()) {
+                lastTokenId = page.get(page.size() - 1).tokenId;
+            }
+        } while (page.size() == 5);
+
+        assertEquals(tokenIds, expectedTokenIds);
+    }
+
+    @Test
+    public void testReadAccessTokenPageResumesAfterRevocation() throws Exception {
+
+        List<AccessTokenDAOImpl.AccessTokenRecord> firstPage = AccessTokenDAOImpl.readAccessTokenPage(connection,
+                SQLQueries.LIST_TOKENS_IN_TENANT_PAGE, SQLQueries.LIST_SCOPES_OF_TOKENS, false, PAGED_TENANT_ID, null,
+                3);
+        assertEquals(firstPage.size(), 3);
+        assertNull(firstPage.get(0).authenticatedIDP);
+
+        try (PreparedStatement prepStmt = connection.prepareStatement("UPDATE IDN_OAUTH2_ACCESS_TOKEN SET " +
+                "TOKEN_STATE='REVOKED', TOKEN_STATE_ID=? WHERE TOKEN_ID=?")) {
+            for (AccessTokenDAOImpl.AccessTokenRecord record : firstPage) {
+                prepStmt.setString(1, record.tokenId);
+                prepStmt.setString(2, record.tokenId);
+                prepStmt.executeUpdate();
+            }
+        }
+        try {
+            // Reading again from the start continues with the tokens which are not revoked yet.
+            List<AccessTokenDAOImpl.AccessTokenRecord> resumedPage = AccessTokenDAOImpl.readAccessTokenPage(
+                    connection, SQLQueries.LIST_TOKENS_IN_TENANT_PAGE, SQLQueries.LIST_SCOPES_OF_TOKENS, false,
+                    PAGED_TENANT_ID, null, 3);
+            assertEquals(resumedPage.size(), 3);
+            assertTrue(resumedPage.get(0).tokenId.compareTo(firstPage.get(2).tokenId) > 0);
+        } finally {
+            try (PreparedStatement prepStmt = connection.prepareStatement("UPDATE IDN_OAUTH2_ACCESS_TOKEN SET " +
+                    "TOKEN_STATE='ACTIVE', TOKEN_STATE_ID='NONE' WHERE TOKEN_ID=?")) {
+                for (AccessTokenDAOImpl.AccessTokenRecord record : firstPage) {
+                    prepStmt.setString(1, record.tokenId);
+                    prepStmt.executeUpdate();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReadPartitionedAccessTokenPage() throws Exception {
+
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IDN_OAUTH2_ACCESS_TOKEN_A AS SELECT * FROM " +
+                    "IDN_OAUTH2_ACCESS_TOKEN WHERE 1 = 0");
+            statement.executeUpdate("CREATE TABLE IDN_OAUTH2_ACCESS_TOKEN_SCOPE_A AS SELECT * FROM " +
+                    "IDN_OAUTH2_ACCESS_TOKEN_SCOPE WHERE 1 = 0");
+            // The tokens of the tenant are spread over the primary partition and the partition 'A'.
+            for (int i = 0; i < PARTITIONED_TOKEN_COUNT; i++) {
+                String tokenId = getPartitionedTokenId(i);
+                insertToken(statement, tokenId, "partitioned-hash-" + i, PARTITIONED_TENANT_ID, "ACTIVE");
+                if (i % 3 != 0) {
+                    statement.executeUpdate("INSERT INTO IDN_OAUTH2_ACCESS_TOKEN_A SELECT * FROM " +
+                            "IDN_OAUTH2_ACCESS_TOKEN WHERE TOKEN_ID = '" + tokenId + "'");
+                    statement.executeUpdate("DELETE FROM IDN_OAUTH2_ACCESS_TOKEN WHERE TOKEN_ID = '" + tokenId +
+                            "'");
+                }
+            }
+            statement.executeUpdate("INSERT INTO IDN_OAUTH2_ACCESS_TOKEN_SCOPE_A (TOKEN_ID, TOKEN_SCOPE, " +
+                    "TENANT_ID) VALUES ('" + getPartitionedTokenId(4) + "', 'openid', 9012)");
+        }
+
+        Map<String, String> partitionedSqls = new LinkedHashMap<>();
+        partitionedSqls.put(SQLQueries.LIST_TOKENS_IN_TENANT_PAGE, SQLQueries.LIST_SCOPES_OF_TOKENS);
+        partitionedSqls.put(SQLQueries.LIST_TOKENS_IN_TENANT_PAGE.replaceAll("\\bIDN_OAUTH2_ACCESS_TOKEN\\b",
+                "IDN_OAUTH2_ACCESS_TOKEN_A"), SQLQueries.LIST_SCOPES_OF_TOKENS.replaceAll(
+                "\\bIDN_OAUTH2_ACCESS_TOKEN_SCOPE\\b", "IDN_OAUTH2_ACCESS_TOKEN_SCOPE_A"));
+
+        List<String> tokenIds = new ArrayList<>();
+        String lastTokenId = null;
+        List<AccessTokenDAOImpl.AccessTokenRecord> page;
+        do {
+            page = AccessTokenDAOImpl.readPartitionedAccessTokenPage(connection, partitionedSqls, false,
+                    PARTITIONED_TENANT_ID, lastTokenId, 4);
+            assertTrue(page.size() <= 4);
+            for (AccessTokenDAOImpl.AccessTokenRecord record : page) {
+                tokenIds.add(record.tokenId);
+                if (record.tokenId.equals(getPartitionedTokenId(4))) {
+                    assertEquals(record.scopes, new String[]{"openid"});
+                } else {
+                    assertEquals(record.scopes.length, 0);
+                }
+            }
+            if (!page.isEmpty()) {
+                lastTokenId = page.get(page.size() - 1).tokenId;
+            }
+        } while (page.size() == 4);
+
+        // The pages of the partitions are merged in the order of the token id, without gaps or duplicates.
+        List<String> expectedTokenIds = new ArrayList<>();
+        for (int i = 0; i < PARTITIONED_TOKEN_COUNT; i++) {
+            expectedTokenIds.add(getPartitionedTokenId(i));
+        }
+        assertEquals(tokenIds, expectedTokenIds);
+    }
+
+    private AccessTokenDAOImpl.AccessTokenRecord readRecord(String tokenHash) throws Exception {
+
+        AccessTokenDAOImpl.AccessTokenQuery query = AccessTokenDAOImpl.getAccessTokenQuery(false, true, false, false);
+        try (PreparedStatement prepStmt = connection.prepareStatement(query.getSql())) {
+            prepStmt.setString(1, tokenHash);
+            prepStmt.setInt(2, TENANT_ID);
+            try (ResultSet resultSet = prepStmt.executeQuery()) {
+                return AccessTokenDAOImpl.readAccessTokenRecord(resultSet, query);
+            }
+        }
+    }
+
+    private static void insertToken(Statement statement, String tokenId, String tokenHash) throws Exception {
+
+        insertToken(statement, tokenId, tokenHash, TENANT_ID, "ACTIVE");
+    }
+
+    private static void insertToken(Statement statement, String tokenId, String tokenHash, int tenantId,
+                                    String tokenState) throws Exception {
+
+        statement.executeUpdate("INSERT INTO IDN_OAUTH2_ACCESS_TOKEN (TOKEN_ID, ACCESS_TOKEN, REFRESH_TOKEN, " +
+                "CONSUMER_KEY_ID, AUTHZ_USER, TENANT_ID, USER_DOMAIN, USER_TYPE, GRANT_TYPE, TIME_CREATED, " +
+                "REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD, REFRESH_TOKEN_VALIDITY_PERIOD, TOKEN_SCOPE_HASH, " +
+                "TOKEN_STATE, TOKEN_STATE_ID, SUBJECT_IDENTIFIER, ACCESS_TOKEN_HASH, REFRESH_TOKEN_HASH, IDP_ID) " +
+                "VALUES ('" + tokenId + "', '" + tokenId + "', 'refresh-" + tokenId + "', 1, 'user1', " + tenantId +
+                ", 'PRIMARY', 'APPLICATION_USER', 'password', NOW(), NOW(), 3600, 14400, '" + tokenId +
+                "', '" + tokenState + "', 'NONE', 'user1', '" + tokenHash + "', NULL, 1)");
+    }
+
+    private static String getPagedTokenId(int index) {
+
+        return String.format("paged-token-%02d", index);
+    }
+
+    private static String getPartitionedTokenId(int index) {
+
+        return String.format("partitioned-token-%02d", index);
+    }
+}
@@ -387,6 +387,39 @@ public class AuthorizationCodeDAOImplTest extends PowerMockIdentityBaseTest {
                 (authzCodeDO2.getConsumerKey()).isEmpty());
     }
 
+    @Test
+    public void testPersistAuthorizationCodes() throws Exception {
+
+        String consumerKey1 = UUID.randomUUID().toString();
+        String authzCode1 = UUID.randomUUID().toString();
+        String consumerKey2 = UUID.randomUUID().toString();
+        String authzCode2 = UUID.randomUUID().toString();
+        String consumerKey3 = UUID.randomUUID().toString();
+        String authzCode3 = UUID.randomUUID().toString();
+        persistAuthorizationCode(consumerKey1, UUID.randomUUID().toString(), authzCode1,
+                OAuthConstants.AuthorizationCodeState.ACTIVE);
+        persistAuthorizationCode(consumerKey2, UUID.randomUUID().toString(), authzCode2,
+                OAuthConstants.AuthorizationCodeState.ACTIVE);
+        createApplication(consumerKey3, UUID.randomUUID().toString(), DEFAULT_TENANT_ID);
+        AuthzCodeDO authzCodeDO3 = new AuthzCodeDO(authenticatedUser, scopes,
+                new Timestamp(System.currentTimeMillis()), 3600000L, CALLBACK, consumerKey3, authzCode3,
+                UUID.randomUUID().toString(), OAuthConstants.AuthorizationCodeState.ACTIVE, null, null);
+        mockStatic(OAuth2TokenUtil.class);
+
+        List<AuthContextTokenDO> batch = new ArrayList<>();
+        batch.add(new AuthContextTokenDO(authzCode1, UUID.randomUUID().toString()));
+        batch.add(new AuthContextTokenDO(authzCode2));
+        batch.add(new AuthContextTokenDO(authzCode3, consumerKey3, CALLBACK, authzCodeDO3));
+        authorizationCodeDAO.persistAuthorizationCodes(batch);
+
+        Assert.assertTrue(authorizationCodeDAO.getActiveAuthorizationCodesByConsumerKey(consumerKey1).isEmpty());
+        Assert.assertTrue(authorizationCodeDAO.getActiveAuthorizationCodesByConsumerKey(consumerKey2).isEmpty());
+        Assert.assertTrue(authorizationCodeDAO.getActiveAuthorizationCodesByConsumerKey(consumerKey3)
+                .contains(authzCode3));
+        Assert.assertEquals(authorizationCodeDAO.getCodeIdByAuthorizationCode(authzCode3),
+                authzCodeDO3.getAuthzCodeId());
+    }
+
     @Test
     public void testGetLatestAuthorizationCodesByTenant() throws Exception {
 
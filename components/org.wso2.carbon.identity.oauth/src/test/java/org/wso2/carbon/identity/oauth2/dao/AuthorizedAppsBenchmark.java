@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the database path of listing the apps authorized by a user, comparing the previous per client
+ * and per token queries of OAuthAdminServiceImpl.getAppsAuthorizedByUser with the single query of
+ * {@link TokenManagementDAOImpl#getAuthorizedClientIds}.
+ *
+ * Each invocation runs the queries against an embedded H2 database in which the user holds the configured number of
+ * tokens in each of the configured number of apps. Run the main method from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthorizedAppsBenchmark {
+
+    private static final String USER = "user1";
+    private static final int TENANT_ID = 1234;
+    private static final String USER_DOMAIN = "PRIMARY";
+
+    @Param({"50"})
+    private int appCount;
+
+    @Param({"20", "100"})
+    private int tokensPerApp;
+
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        connection = DriverManager.getConnection("jdbc:h2:mem:authorizedAppsBenchmark" + tokensPerApp, "username",
+                "password");
+        String script = Paths.get(System.getProperty("user.dir"), "src", "test", "resources", "dbScripts",
+                "h2_with_application_and_token.sql").toString();
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("RUNSCRIPT FROM '" + script + "'");
+        }
+        try (PreparedStatement appStatement = connection.prepareStatement("INSERT INTO IDN_OAUTH_CONSUMER_APPS " +
+                "(CONSUMER_KEY, CONSUMER_SECRET, USERNAME, TENANT_ID, USER_DOMAIN, APP_NAME, OAUTH_VERSION, " +
+                "CALLBACK_URL, GRANT_TYPES, APP_STATE) VALUES (?, 'secret', 'admin', ?, 'PRIMARY', ?, 'OAuth-2.0', " +
+                "'http://localhost:8080/redirect', 'authorization_code refresh_token', 'ACTIVE')")) {
+            for (int app = 0; app < appCount; app++) {
+                appStatement.setString(1, "benchmarkClient" + app);
+                appStatement.setInt(2, TENANT_ID);
+                appStatement.setString(3, "benchmarkApp" + app);
+                appStatement.addBatch();
+            }
+            appStatement.executeBatch();
+        }
+        try (PreparedStatement tokenStatement = connection.prepareStatement("INSERT INTO IDN_OAUTH2_ACCESS_TOKEN " +
+                "(TOKEN_ID, ACCESS_TOKEN, REFRESH_TOKEN, CONSUMER_KEY_ID, AUTHZ_USER, TENANT_ID, USER_DOMAIN, " +
+                "USER_TYPE, GRANT_TYPE, TIME_CREATED, REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD, " +
+                "REFRESH_TOKEN_VALIDITY_PERIOD, TOKEN_SCOPE_HASH, TOKEN_STATE, TOKEN_STATE_ID, SUBJECT_IDENTIFIER, " +
+                "ACCESS_TOKEN_HASH, REFRESH_TOKEN_HASH, IDP_ID) VALUES (?, ?, ?, (SELECT ID FROM " +
+                "IDN_OAUTH_CONSUMER_APPS WHERE CONSUMER_KEY = ?), ?, ?, ?, 'APPLICATION_USER', " +
+                "'authorization_code', NOW(), NOW(), 3600, 14400, ?, ?, 'NONE', ?, ?, NULL, 1)");
+             PreparedStatement scopeStatement = connection.prepareStatement("INSERT INTO " +
+                     "IDN_OAUTH2_ACCESS_TOKEN_SCOPE (TOKEN_ID, TOKEN_SCOPE, TENANT_ID) VALUES (?, ?, ?)")) {
+            for (int app = 0; app < appCount; app++) {
+                for (int token = 0; token < tokensPerApp; token++) {
+                    String tokenId = "token" + app + "-" + token;
+                    String scope = "scope" + token;
+                    tokenStatement.setString(1, tokenId);
+                    tokenStatement.setString(2, "access" + tokenId);
+                    tokenStatement.setString(3, "refresh" + tokenId);
+                    tokenStatement.setString(4, "benchmarkClient" + app);
+                    tokenStatement.setString(5, USER);
+                    tokenStatement.setInt(6, TENANT_ID);
+                    tokenStatement.setString(7, USER_DOMAIN);
+                    tokenStatement.setString(8, DigestUtils.md5Hex(scope));
+                    tokenStatement.setString(9, token % 2 == 0 ? "ACTIVE" : "EXPIRED");
+                    tokenStatement.setString(10, USER);
+                    tokenStatement.setString(11, "hash" + tokenId);
+                    tokenStatement.addBatch();
+                    scopeStatement.setString(1, tokenId);
+                    scopeStatement.setString(2, scope);
+                    scopeStatement.setInt(3, TENANT_ID);
+                    scopeStatement.addBatch();
+                }
+            }
+            tokenStatement.executeBatch();
+            scopeStatement.executeBatch();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public Set<String> perTokenQueries() throws SQLException {
+
+        Set<String> authorizedClientIds = new HashSet<>();
+        for (String clientId : queryClientIds(SQLQueries.GET_DISTINCT_APPS_AUTHORIZED_BY_USER_ALL_TIME)) {
+            List<String> scopes = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement(
+                    SQLQueries.RETRIEVE_ACTIVE_EXPIRED_ACCESS_TOKEN_BY_CLIENT_ID_USER)) {
+                statement.setString(1, clientId);
+                statement.setString(2, USER);
+                statement.setInt(3, TENANT_ID);
+                statement.setString(4, USER_DOMAIN);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        scopes.add(resultSet.getString(8));
+                    }
+                }
+            }
+            for (String scope : scopes) {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        SQLQueries.RETRIEVE_LATEST_ACCESS_TOKEN_BY_CLIENT_ID_USER_SCOPE_MYSQL)) {
+                    statement.setString(1, clientId);
+                    statement.setString(2, USER);
+                    statement.setInt(3, TENANT_ID);
+                    statement.setString(4, USER_DOMAIN);
+                    statement.setString(5, DigestUtils.md5Hex(scope));
+                    statement.setString(6, "NONE");
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        if (resultSet.next()) {
+                            authorizedClientIds.add(clientId);
+                        }
+                    }
+                }
+            }
+        }
+        return authorizedClientIds;
+    }
+
+    @Benchmark
+    public Set<String> setBasedQuery() throws SQLException {
+
+        return queryClientIds(SQLQueries.GET_DISTINCT_APPS_AUTHORIZED_BY_USER_ALL_TIME);
+    }
+
+    private Set<String> queryClientIds(String sql) throws SQLException {
+
+        Set<String> clientIds = new HashSet<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, USER);
+            statement.setInt(2, TENANT_ID);
+            statement.setString(3, USER_DOMAIN);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    clientIds.add(resultSet.getString(1));
+                }
+            }
+        }
+        return clientIds;
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        Options options = new OptionsBuilder()
+                .include(AuthorizedAppsBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
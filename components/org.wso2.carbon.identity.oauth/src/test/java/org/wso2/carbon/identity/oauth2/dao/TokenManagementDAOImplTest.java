@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.dao.SQLQueries;
+import org.wso2.carbon.identity.oauth2.dao.util.DAOUtils;
+import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+import org.wso2.carbon.user.core.UserCoreConstants;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.wso2.carbon.identity.oauth.common.OAuthConstants.OAuthVersions.VERSION_2;
+
+/**
+ * Unit tests for the retrieval of the clients authorized by a user in TokenManagementDAOImpl.
+ */
+@WithCarbonHome
+@PrepareForTest({IdentityDatabaseUtil.class, IdentityUtil.class, OAuth2Util.class})
+public class TokenManagementDAOImplTest extends PowerMockIdentityBaseTest {
+
+    private static final String DB_NAME = "testTokenManagementDB";
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final int TENANT_ID = 1234;
+    private static final int OTHER_TENANT_ID = 5678;
+    private static final String USER_NAME = "user1";
+    private static final String LOCAL_IDP = "LOCAL";
+    private static final String FEDERATED_IDP = "federatedIdP";
+    private static final String ACTIVE_APP = "activeAppConsumerKey";
+    private static final String EXPIRED_APP = "expiredAppConsumerKey";
+    private static final String REVOKED_APP = "revokedAppConsumerKey";
+    private static final String OTHER_USER_APP = "otherUserAppConsumerKey";
+    private static final String OTHER_TENANT_APP = "otherTenantAppConsumerKey";
+    private static final String UPPER_CASE_USER_APP = "upperCaseUserAppConsumerKey";
+    private static final String FEDERATED_APP = "federatedAppConsumerKey";
+
+    private TokenManagementDAOImpl tokenManagementDAO;
+
+    @BeforeClass
+    public void initTest() throws Exception {
+
+        DAOUtils.initializeDataSource(DB_NAME, DAOUtils.getFilePath("identity.sql"));
+        try (Connection connection = DAOUtils.getConnection(DB_NAME)) {
+            insertIdP(connection, LOCAL_IDP);
+            insertIdP(connection, FEDERATED_IDP);
+            for (String consumerKey : Arrays.asList(ACTIVE_APP, EXPIRED_APP, REVOKED_APP, OTHER_USER_APP,
+                    OTHER_TENANT_APP, UPPER_CASE_USER_APP, FEDERATED_APP)) {
+                createApplication(connection, consumerKey);
+            }
+            // The active app has two tokens of the user, and is listed once.
+            insertToken(connection, ACTIVE_APP, USER_NAME, TENANT_ID, "ACTIVE", LOCAL_IDP);
+            insertToken(connection, ACTIVE_APP, USER_NAME, TENANT_ID, "ACTIVE", LOCAL_IDP);
+            insertToken(connection, EXPIRED_APP, USER_NAME, TENANT_ID, "EXPIRED", LOCAL_IDP);
+            insertToken(connection, REVOKED_APP, USER_NAME, TENANT_ID, "REVOKED", LOCAL_IDP);
+            insertToken(connection, OTHER_USER_APP, "user2", TENANT_ID, "ACTIVE", LOCAL_IDP);
+            insertToken(connection, OTHER_TENANT_APP, USER_NAME, OTHER_TENANT_ID, "ACTIVE", LOCAL_IDP);
+            insertToken(connection, UPPER_CASE_USER_APP, USER_NAME.toUpperCase(), TENANT_ID, "ACTIVE", LOCAL_IDP);
+            insertToken(connection, FEDERATED_APP, USER_NAME, TENANT_ID, "ACTIVE", FEDERATED_IDP);
+        }
+        // The persistence processor is read from the identity.xml before the static mocks are set up.
+        tokenManagementDAO = new TokenManagementDAOImpl();
+    }
+
+    @BeforeMethod
+    public void setup() throws Exception {
+
+        mockStatic(IdentityDatabaseUtil.class);
+        when(IdentityDatabaseUtil.getDBConnection(false)).thenAnswer(invocation -> DAOUtils.getConnection(DB_NAME));
+
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.isUserStoreCaseSensitive(anyString(), anyInt())).thenReturn(true);
+
+        mockStatic(OAuth2Util.class);
+        when(OAuth2Util.getTenantId(TENANT_DOMAIN)).thenReturn(TENANT_ID);
+        when(OAuth2Util.getUserStoreDomain(any(AuthenticatedUser.class)))
+                .thenReturn(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+        when(OAuth2Util.getAuthenticatedIDP(any(AuthenticatedUser.class))).thenReturn(LOCAL_IDP);
+        when(OAuth2Util.getTokenPartitionedSqlByUserStore(anyString(), anyString()))
+                .thenAnswer(invocation -> invocation.getArguments()[0]);
+
+        OAuth2ServiceComponentHolder.setIDPIdColumnEnabled(true);
+    }
+
+    @AfterMethod
+    public void resetIDPIdColumn() {
+
+        OAuth2ServiceComponentHolder.setIDPIdColumnEnabled(false);
+    }
+
+    @AfterClass
+    public void tearDown() throws Exception {
+
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+    }
+
+    @Test
+    public void testGetAuthorizedClientIds() throws Exception {
+
+        // Only the apps with ACTIVE or EXPIRED tokens of the user, in the tenant and IdP of the user, are returned.
+        assertEquals(tokenManagementDAO.getAuthorizedClientIds(buildUser(), null, 0, Integer.MAX_VALUE),
+                Arrays.asList(ACTIVE_APP, EXPIRED_APP));
+    }
+
+    @Test
+    public void testGetPageOfAuthorizedClientIds() throws Exception {
+
+        OAuth2ServiceComponentHolder.setIDPIdColumnEnabled(false);
+
+        // The client IDs are ordered, and the page is applied by the query.
+        assertEquals(tokenManagementDAO.getAuthorizedClientIds(buildUser(), null, 1, 1),
+                Collections.singletonList(EXPIRED_APP));
+        assertEquals(tokenManagementDAO.getAuthorizedClientIds(buildUser(), null, 2, 5),
+                Collections.singletonList(FEDERATED_APP));
+        assertEquals(tokenManagementDAO.getAuthorizedClientIds(buildUser(), null, 3, 5),
+                Collections.emptyList());
+    }
+
+    @Test
+    public void testGetAuthorizedClientIdsOfCaseInsensitiveUser() throws Exception {
+
+        when(IdentityUtil.isUserStoreCaseSensitive(anyString(), anyInt())).thenReturn(false);
+
+        assertEquals(tokenManagementDAO.getAuthorizedClientIds(buildUser(), null, 0, Integer.MAX_VALUE),
+                Arrays.asList(ACTIVE_APP, EXPIRED_APP, UPPER_CASE_USER_APP));
+    }
+
+    @Test
+    public void testGetAuthorizedClientIdsWithoutIDPIdColumn() throws Exception {
+
+        OAuth2ServiceComponentHolder.setIDPIdColumnEnabled(false);
+
+        assertEquals(tokenManagementDAO.getAuthorizedClientIds(buildUser(), null, 0, Integer.MAX_VALUE),
+                Arrays.asList(ACTIVE_APP, EXPIRED_APP, FEDERATED_APP));
+    }
+
+    private static AuthenticatedUser buildUser() {
+
+        AuthenticatedUser user = new AuthenticatedUser();
+        user.setUserName(USER_NAME);
+        user.setUserStoreDomain(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+        user.setTenantDomain(TENANT_DOMAIN);
+        return user;
+    }
+
+    private void insertIdP(Connection connection, String idpName) throws Exception {
+
+        try (PreparedStatement prepStmt = connection.prepareStatement(
+                "INSERT INTO IDP (TENANT_ID, NAME, UUID) VALUES (?, ?, ?)")) {
+            prepStmt.setInt(1, TENANT_ID);
+            prepStmt.setString(2, idpName);
+            prepStmt.setString(3, UUID.randomUUID().toString());
+            prepStmt.execute();
+        }
+    }
+
+    private void insertToken(Connection connection, String consumerKey, String userName, int tenantId,
+                             String tokenState, String idpName) throws Exception {
+
+        String tokenId = UUID.randomUUID().toString();
+        String sql = "INSERT INTO IDN_OAUTH2_ACCESS_TOKEN (TOKEN_ID, ACCESS_TOKEN, REFRESH_TOKEN, CONSUMER_KEY_ID, " +
+                "AUTHZ_USER, TENANT_ID, USER_DOMAIN, USER_TYPE, GRANT_TYPE, TIME_CREATED, " +
+                "REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD, REFRESH_TOKEN_VALIDITY_PERIOD, TOKEN_SCOPE_HASH, " +
+                "TOKEN_STATE, TOKEN_STATE_ID, SUBJECT_IDENTIFIER, ACCESS_TOKEN_HASH, IDP_ID) SELECT ?, ?, ?, ID, ?, " +
+                "?, ?, 'APPLICATION_USER', 'password', NOW(), NOW(), 3600000, 14400000, 'scopeHash', ?, ?, ?, ?, " +
+                "(SELECT ID FROM IDP WHERE NAME = ? AND TENANT_ID = 1234) FROM IDN_OAUTH_CONSUMER_APPS " +
+                "WHERE CONSUMER_KEY = ?";
+        try (PreparedStatement prepStmt = connection.prepareStatement(sql)) {
+            prepStmt.setString(1, tokenId);
+            prepStmt.setString(2, UUID.randomUUID().toString());
+            prepStmt.setString(3, UUID.randomUUID().toString());
+            prepStmt.setString(4, userName);
+            prepStmt.setInt(5, tenantId);
+            prepStmt.setString(6, UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+            prepStmt.setString(7, tokenState);
+            prepStmt.setString(8, tokenId);
+            prepStmt.setString(9, userName);
+            prepStmt.setString(10, tokenId);
+            prepStmt.setString(11, idpName);
+            prepStmt.setString(12, consumerKey);
+            assertEquals(prepStmt.executeUpdate(), 1);
+        }
+    }
+
+    private void createApplication(Connection connection, String consumerKey) throws Exception {
+
+        try (PreparedStatement prepStmt = connection.prepareStatement(SQLQueries.OAuthAppDAOSQLQueries.ADD_OAUTH_APP)) {
+            prepStmt.setString(1, consumerKey);
+            prepStmt.setString(2, UUID.randomUUID().toString());
+            prepStmt.setString(3, USER_NAME);
+            prepStmt.setInt(4, TENANT_ID);
+            prepStmt.setString(5, UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+            prepStmt.setString(6, consumerKey + "App");
+            prepStmt.setString(7, VERSION_2);
+            prepStmt.setString(8, "http://localhost:8080/redirect");
+            prepStmt.setString(9, "refresh_token password");
+            prepStmt.setLong(10, 3600L);
+            prepStmt.setLong(11, 3600L);
+            prepStmt.setLong(12, 84600L);
+            prepStmt.setLong(13, 3600L);
+            prepStmt.execute();
+        }
+    }
+}
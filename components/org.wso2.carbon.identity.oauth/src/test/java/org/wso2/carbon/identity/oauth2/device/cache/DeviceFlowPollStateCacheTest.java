@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.device.cache;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth2.device.constants.Constants;
+import org.wso2.carbon.identity.oauth2.device.model.DeviceFlowDO;
+
+import java.sql.Timestamp;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for DeviceFlowPollStateCache.
+ */
+public class DeviceFlowPollStateCacheTest {
+
+    private static final String DEVICE_CODE = "a5bd4bfd-c8d8-4d2c-b4d7-3e1e1bd2a1c9";
+    private static final String OTHER_DEVICE_CODE = "6c4f3a1e-2b5d-4e8f-9a7c-1d3b5e7f9a2c";
+    private static final String USER_CODE = "BCDFGH";
+    private static final String CLIENT_ID = "clientId";
+
+    @Test
+    public void testPendingStatusIsServedFromCache() {
+
+        DeviceFlowPollStateCache cache = new DeviceFlowPollStateCache(true, 10, 60000);
+        long now = System.currentTimeMillis();
+        assertNull(cache.getStatus(DEVICE_CODE, CLIENT_ID));
+
+        cache.putStatus(DEVICE_CODE, CLIENT_ID, buildDeviceFlowDO(Constants.PENDING, now - 10000));
+        DeviceFlowDO cachedDeviceFlowDO = cache.getStatus(DEVICE_CODE, CLIENT_ID);
+        assertNotNull(cachedDeviceFlowDO);
+        assertEquals(cachedDeviceFlowDO.getStatus(), Constants.PENDING);
+        assertEquals(cachedDeviceFlowDO.getPollTime(), 5000);
+        assertEquals(cachedDeviceFlowDO.getLastPollTime().getTime(), now - 10000);
+
+        // The status is not served to another client.
+        assertNull(cache.getStatus(DEVICE_CODE, "otherClientId"));
+        assertEquals(cache.getStatusHitCount(), 1);
+        assertEquals(cache.getStatusMissCount(), 2);
+    }
+
+    @Test
+    public void testAuthorizedStatusIsNotCached() {
+
+        DeviceFlowPollStateCache cache = new DeviceFlowPollStateCache(true, 10, 60000);
+        cache.putStatus(DEVICE_CODE, CLIENT_ID, buildDeviceFlowDO(Constants.AUTHORIZED, System.currentTimeMillis()));
+
+        assertNull(cache.getStatus(DEVICE_CODE, CLIENT_ID));
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testStatusIsInvalidatedByUserCode() {
+
+        DeviceFlowPollStateCache cache = new DeviceFlowPollStateCache(true, 10, 60000);
+        cache.putStatus(DEVICE_CODE, CLIENT_ID, buildDeviceFlowDO(Constants.PENDING, System.currentTimeMillis()));
+
+        cache.invalidateStatus(USER_CODE);
+        assertNull(cache.getStatus(DEVICE_CODE, CLIENT_ID));
+
+        cache.remove(DEVICE_CODE);
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testStatusTimeout() {
+
+        DeviceFlowPollStateCache cache = new DeviceFlowPollStateCache(true, 10, 0);
+        cache.putStatus(DEVICE_CODE, CLIENT_ID, buildDeviceFlowDO(Constants.PENDING, System.currentTimeMillis()));
+
+        assertNull(cache.getStatus(DEVICE_CODE, CLIENT_ID));
+        assertEquals(cache.size(), 1);
+    }
+
+    @Test
+    public void testRecordPoll() {
+
+        DeviceFlowPollStateCache cache = new DeviceFlowPollStateCache(true, 10, 60000);
+        long now = System.currentTimeMillis();
+        DeviceFlowDO deviceFlowDO = buildDeviceFlowDO(Constants.PENDING, now - 10000);
+        cache.putStatus(DEVICE_CODE, CLIENT_ID, deviceFlowDO);
+        assertTrue(cache.recordPoll(deviceFlowDO, new Timestamp(now)));
+        assertEquals(deviceFlowDO.getLastPollTime().getTime(), now - 10000);
+
+        // A poll read from the database, which does not have the poll time of this node, gets it merged.
+        DeviceFlowDO nextDeviceFlowDO = buildDeviceFlowDO(Constants.PENDING, now - 10000);
+        assertTrue(cache.recordPoll(nextDeviceFlowDO, new Timestamp(now + 1000)));
+        assertEquals(nextDeviceFlowDO.getLastPollTime().getTime(), now);
+        assertEquals(cache.getStatus(DEVICE_CODE, CLIENT_ID).getLastPollTime().getTime(), now + 1000);
+
+        cache.recordSlowDown();
+        assertEquals(cache.getPollCount(), 2);
+        assertEquals(cache.getSlowDownCount(), 1);
+    }
+
+    @Test
+    public void testFallbackWhenFullOrDisabled() {
+
+        long now = System.currentTimeMillis();
+        DeviceFlowPollStateCache cache = new DeviceFlowPollStateCache(true, 1, 60000);
+        cache.putStatus(DEVICE_CODE, CLIENT_ID, buildDeviceFlowDO(Constants.PENDING, now));
+        DeviceFlowDO otherDeviceFlowDO = buildDeviceFlowDO(Constants.PENDING, now);
+        otherDeviceFlowDO.setDeviceCode(OTHER_DEVICE_CODE);
+        cache.putStatus(OTHER_DEVICE_CODE, CLIENT_ID, otherDeviceFlowDO);
+        assertFalse(cache.recordPoll(otherDeviceFlowDO, new Timestamp(now)));
+
+        // Expired device codes make room for new ones.
+        DeviceFlowPollStateCache expiringCache = new DeviceFlowPollStateCache(true, 1, 60000);
+        DeviceFlowDO expiredDeviceFlowDO = buildDeviceFlowDO(Constants.PENDING, now);
+        expiredDeviceFlowDO.setExpiryTime(new Timestamp(now - 1000));
+        expiringCache.putStatus(DEVICE_CODE, CLIENT_ID, expiredDeviceFlowDO);
+        expiringCache.putStatus(OTHER_DEVICE_CODE, CLIENT_ID, otherDeviceFlowDO);
+        assertTrue(expiringCache.recordPoll(otherDeviceFlowDO, new Timestamp(now)));
+        assertEquals(expiringCache.size(), 1);
+
+        DeviceFlowPollStateCache disabledCache = new DeviceFlowPollStateCache(false, 10, 60000);
+        DeviceFlowDO deviceFlowDO = buildDeviceFlowDO(Constants.PENDING, now);
+        disabledCache.putStatus(DEVICE_CODE, CLIENT_ID, deviceFlowDO);
+        assertNull(disabledCache.getStatus(DEVICE_CODE, CLIENT_ID));
+        assertFalse(disabledCache.recordPoll(deviceFlowDO, new Timestamp(now)));
+    }
+
+    private static DeviceFlowDO buildDeviceFlowDO(String status, long lastPollTime) {
+
+        DeviceFlowDO deviceFlowDO = new DeviceFlowDO();
+        deviceFlowDO.setDeviceCode(DEVICE_CODE);
+        deviceFlowDO.setUserCode(USER_CODE);
+        deviceFlowDO.setStatus(status);
+        deviceFlowDO.setLastPollTime(new Timestamp(lastPollTime));
+        deviceFlowDO.setPollTime(5000);
+        deviceFlowDO.setExpiryTime(new Timestamp(System.currentTimeMillis() + 600000));
+        return deviceFlowDO;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.internal;
+
+import org.mockito.ArgumentCaptor;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+import org.wso2.carbon.registry.core.jdbc.handlers.Handler;
+import org.wso2.carbon.registry.core.jdbc.handlers.HandlerLifecycleManager;
+import org.wso2.carbon.registry.core.jdbc.handlers.HandlerManager;
+import org.wso2.carbon.registry.core.jdbc.handlers.RequestContext;
+import org.wso2.carbon.registry.core.jdbc.handlers.filters.Filter;
+import org.wso2.carbon.registry.core.jdbc.handlers.filters.URLMatcher;
+import org.wso2.carbon.registry.core.session.CurrentSession;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.aryEq;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.verifyStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+
+@PrepareForTest({OAuth2Util.class, CurrentSession.class})
+public class SpTokenExpiryTimeConfigRegistryHandlerTest extends PowerMockIdentityBaseTest {
+
+    private static final int TENANT_ID = 5678;
+
+    @BeforeMethod
+    public void setUp() {
+
+        mockStatic(OAuth2Util.class);
+        mockStatic(CurrentSession.class);
+        when(CurrentSession.getTenantId()).thenReturn(TENANT_ID);
+    }
+
+    @Test
+    public void testRegister() {
+
+        HandlerManager handlerManager = mock(HandlerManager.class);
+
+        SpTokenExpiryTimeConfigRegistryHandler.register(handlerManager);
+
+        ArgumentCaptor<Handler> handler = ArgumentCaptor.forClass(Handler.class);
+        verify(handlerManager).addHandler(aryEq(new String[]{Filter.PUT, Filter.DELETE}), any(URLMatcher.class),
+                handler.capture(), eq(HandlerLifecycleManager.COMMIT_HANDLER_PHASE));
+        assertEquals(handler.getValue().getClass(), SpTokenExpiryTimeConfigRegistryHandler.class);
+        assertEquals(SpTokenExpiryTimeConfigRegistryHandler.RESOURCE_PATH,
+                "/_system/config/identity/config/spTokenExpireTime");
+    }
+
+    @Test
+    public void testConfigsAreClearedOnPutAndDelete() throws Exception {
+
+        SpTokenExpiryTimeConfigRegistryHandler handler = new SpTokenExpiryTimeConfigRegistryHandler();
+
+        handler.put(mock(RequestContext.class));
+        handler.delete(mock(RequestContext.class));
+
+        verifyStatic(OAuth2Util.class, times(2));
+        OAuth2Util.clearSpTokenExpiryTimeConfigs(TENANT_ID);
+    }
+}
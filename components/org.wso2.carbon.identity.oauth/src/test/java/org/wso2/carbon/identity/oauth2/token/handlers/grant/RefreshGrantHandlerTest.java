@@ -19,6 +19,7 @@
 package org.wso2.carbon.identity.oauth2.token.handlers.grant;
 
 import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
@@ -30,11 +31,13 @@ import org.wso2.carbon.identity.application.mgt.internal.ApplicationManagementSe
 import org.wso2.carbon.identity.common.testng.WithCarbonHome;
 import org.wso2.carbon.identity.common.testng.WithH2Database;
 import org.wso2.carbon.identity.common.testng.WithRealmService;
+import org.wso2.carbon.identity.oauth.common.OAuth2ErrorCodes;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth.dao.OAuthAppDAO;
 import org.wso2.carbon.identity.oauth.dao.OAuthAppDO;
 import org.wso2.carbon.identity.oauth.internal.OAuthComponentServiceHolder;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2AccessTokenReqDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2AccessTokenRespDTO;
 import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
@@ -44,9 +47,11 @@ import org.wso2.carbon.identity.oauth2.token.OAuthTokenReqMessageContext;
 import org.wso2.carbon.identity.test.common.testng.utils.MockAuthenticatedUser;
 import org.wso2.carbon.identity.testutil.Whitebox;
 
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.UUID;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
@@ -89,6 +94,13 @@ public class RefreshGrantHandlerTest {
         Whitebox.invokeMethod(applicationManagementServiceComponent, "buildFileBasedSPList", null);
     }
 
+    @AfterMethod
+    protected void tearDownMethod() {
+
+        // Let the next test use the rotation manager built from the configuration.
+        setRotationManager(null);
+    }
+
     @DataProvider(name = "GetValidateGrantData")
     public Object[][] validateGrantData() {
 
@@ -167,34 +179,16 @@ public class RefreshGrantHandlerTest {
     public void testIssue(Long userAccessTokenExpiryTime, Long validityPeriod, String renewRefreshToken,
                           String clientId) throws Exception {
 
-        OAuthAppDAO oAuthAppDAO = new OAuthAppDAO();
-        oAuthAppDAO.removeConsumerApplication(clientId);
-        OAuthAppDO oAuthAppDO = new OAuthAppDO();
-        oAuthAppDO.setUserAccessTokenExpiryTime(userAccessTokenExpiryTime);
-        oAuthAppDO.setRefreshTokenExpiryTime(userAccessTokenExpiryTime);
-        oAuthAppDO.setUser(authenticatedUser);
-        oAuthAppDO.setOauthConsumerKey(clientId);
-        oAuthAppDO.setOauthVersion(OAuthConstants.OAuthVersions.VERSION_2);
-        oAuthAppDO.setRenewRefreshTokenEnabled(renewRefreshToken);
-        oAuthAppDAO.addOAuthApplication(oAuthAppDO);
+        addApplication(clientId, userAccessTokenExpiryTime, renewRefreshToken);
 
         refreshGrantHandler = new RefreshGrantHandler();
         refreshGrantHandler.init();
 
-        OAuth2AccessTokenReqDTO tokenReqDTO = new OAuth2AccessTokenReqDTO();
-        tokenReqDTO.setClientId(clientId);
-        tokenReqDTO.setRefreshToken("refreshToken1");
-        tokenReqDTO.setScope(scopes);
-
-        RefreshTokenValidationDataDO oldAccessToken = new RefreshTokenValidationDataDO();
-        oldAccessToken.setTokenId("tokenId");
-        oldAccessToken.setAccessToken("oldAccessToken");
-
-        OAuthTokenReqMessageContext tokenReqMessageContext = new OAuthTokenReqMessageContext(tokenReqDTO);
-        tokenReqMessageContext.addProperty("previousAccessToken", oldAccessToken);
-        tokenReqMessageContext.setAuthorizedUser(authenticatedUser);
+        // The previous token is stored, as the refresh rotates it only if it is still active or expired.
+        RefreshTokenValidationDataDO oldAccessToken = persistAccessToken(clientId, "refreshToken1");
+        OAuthTokenReqMessageContext tokenReqMessageContext = getTokenReqMessageContext(clientId, "refreshToken1",
+                oldAccessToken, scopes);
         tokenReqMessageContext.setValidityPeriod(validityPeriod);
-        tokenReqMessageContext.setScope(scopes);
 
         OAuth2AccessTokenRespDTO actual = refreshGrantHandler.issue(tokenReqMessageContext);
         assertFalse(actual.isError());
@@ -206,6 +200,65 @@ public class RefreshGrantHandlerTest {
         }
     }
 
+    @Test
+    public void testIssueDuplicateRefreshWithinGracePeriod() throws Exception {
+
+        String clientId = "clientId8";
+        addApplication(clientId, 20L, "true");
+        setRotationManager(new RefreshTokenRotationManager(60000, 100));
+        refreshGrantHandler = new RefreshGrantHandler();
+        refreshGrantHandler.init();
+
+        RefreshTokenValidationDataDO oldAccessToken = persistAccessToken(clientId, "refreshToken8");
+        OAuth2AccessTokenRespDTO first = refreshGrantHandler.issue(getTokenReqMessageContext(clientId,
+                "refreshToken8", oldAccessToken, scopes));
+        assertFalse(first.isError());
+
+        // The duplicate request reads the previous token after the first request made it inactive.
+        oldAccessToken.setRefreshTokenState(TOKEN_STATE_INACTIVE);
+        OAuthTokenReqMessageContext duplicateReqMessageContext = getTokenReqMessageContext(clientId,
+                "refreshToken8", oldAccessToken, scopes);
+        assertTrue((Boolean) Whitebox.invokeMethod(refreshGrantHandler, "isRotatedWithinGracePeriod",
+                duplicateReqMessageContext.getOauth2AccessTokenReqDTO(), oldAccessToken));
+
+        OAuth2AccessTokenRespDTO duplicate = refreshGrantHandler.issue(duplicateReqMessageContext);
+        assertFalse(duplicate.isError());
+        assertEquals(duplicate.getAccessToken(), first.getAccessToken());
+        assertEquals(duplicate.getRefreshToken(), first.getRefreshToken());
+
+        OAuth2AccessTokenRespDTO otherScope = refreshGrantHandler.issue(getTokenReqMessageContext(clientId,
+                "refreshToken8", oldAccessToken, new String[]{"scope1"}));
+        assertTrue(otherScope.isError());
+        assertEquals(otherScope.getErrorCode(), OAuth2ErrorCodes.INVALID_GRANT);
+    }
+
+    @Test
+    public void testIssueDuplicateRefreshAfterGracePeriod() throws Exception {
+
+        String clientId = "clientId9";
+        addApplication(clientId, 20L, "true");
+        setRotationManager(new RefreshTokenRotationManager(1, 100));
+        refreshGrantHandler = new RefreshGrantHandler();
+        refreshGrantHandler.init();
+
+        RefreshTokenValidationDataDO oldAccessToken = persistAccessToken(clientId, "refreshToken9");
+        OAuth2AccessTokenRespDTO first = refreshGrantHandler.issue(getTokenReqMessageContext(clientId,
+                "refreshToken9", oldAccessToken, scopes));
+        assertFalse(first.isError());
+        Thread.sleep(10);
+
+        oldAccessToken.setRefreshTokenState(TOKEN_STATE_INACTIVE);
+        OAuthTokenReqMessageContext duplicateReqMessageContext = getTokenReqMessageContext(clientId,
+                "refreshToken9", oldAccessToken, scopes);
+        assertFalse((Boolean) Whitebox.invokeMethod(refreshGrantHandler, "isRotatedWithinGracePeriod",
+                duplicateReqMessageContext.getOauth2AccessTokenReqDTO(), oldAccessToken));
+
+        // The rotation is no longer shared, hence the duplicate request fails to rotate the inactive token.
+        OAuth2AccessTokenRespDTO duplicate = refreshGrantHandler.issue(duplicateReqMessageContext);
+        assertTrue(duplicate.isError());
+        assertEquals(duplicate.getErrorCode(), OAuth2ErrorCodes.INVALID_GRANT);
+    }
+
     @Test(dataProvider = "GetValidateScopeData")
     public void validateScope(String[] requestedScopes, String[] grantedScopes, boolean expected, String message)
             throws Exception {
@@ -256,4 +309,65 @@ public class RefreshGrantHandlerTest {
                 { requestedScopes, new String[0], false, "scope validation should fail." },
                 { new String[] { "scope_not_granted" }, grantedScopes, false, "scope validation should fail." }, };
     }
+
+    private void addApplication(String clientId, Long userAccessTokenExpiryTime, String renewRefreshToken)
+            throws Exception {
+
+        OAuthAppDAO oAuthAppDAO = new OAuthAppDAO();
+        oAuthAppDAO.removeConsumerApplication(clientId);
+        OAuthAppDO oAuthAppDO = new OAuthAppDO();
+        oAuthAppDO.setUserAccessTokenExpiryTime(userAccessTokenExpiryTime);
+        oAuthAppDO.setRefreshTokenExpiryTime(userAccessTokenExpiryTime);
+        oAuthAppDO.setUser(authenticatedUser);
+        oAuthAppDO.setOauthConsumerKey(clientId);
+        oAuthAppDO.setOauthVersion(OAuthConstants.OAuthVersions.VERSION_2);
+        oAuthAppDO.setRenewRefreshTokenEnabled(renewRefreshToken);
+        oAuthAppDAO.addOAuthApplication(oAuthAppDO);
+    }
+
+    private RefreshTokenValidationDataDO persistAccessToken(String clientId, String refreshToken) throws Exception {
+
+        Timestamp issuedTime = new Timestamp(System.currentTimeMillis());
+        AccessTokenDO accessTokenDO = new AccessTokenDO(clientId, authenticatedUser, scopes, issuedTime, issuedTime,
+                3600000L, 3600000L, OAuthConstants.UserType.APPLICATION_USER);
+        accessTokenDO.setTokenId(UUID.randomUUID().toString());
+        accessTokenDO.setAccessToken(UUID.randomUUID().toString());
+        accessTokenDO.setRefreshToken(refreshToken);
+        accessTokenDO.setTokenState(TOKEN_STATE_ACTIVE);
+        accessTokenDO.setGrantType(OAuthConstants.GrantTypes.PASSWORD);
+        OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO().insertAccessToken(
+                accessTokenDO.getAccessToken(), clientId, accessTokenDO, TEST_USER_DOMAIN);
+
+        RefreshTokenValidationDataDO validationDataDO = new RefreshTokenValidationDataDO();
+        validationDataDO.setTokenId(accessTokenDO.getTokenId());
+        validationDataDO.setAccessToken(accessTokenDO.getAccessToken());
+        validationDataDO.setAuthorizedUser(authenticatedUser);
+        validationDataDO.setScope(scopes);
+        validationDataDO.setRefreshTokenState(TOKEN_STATE_ACTIVE);
+        validationDataDO.setIssuedTime(issuedTime);
+        validationDataDO.setValidityPeriodInMillis(3600000L);
+        validationDataDO.setGrantType(OAuthConstants.GrantTypes.PASSWORD);
+        return validationDataDO;
+    }
+
+    private OAuthTokenReqMessageContext getTokenReqMessageContext(String clientId, String refreshToken,
+                                                                  RefreshTokenValidationDataDO oldAccessToken,
+                                                                  String[] requestedScopes) {
+
+        OAuth2AccessTokenReqDTO tokenReqDTO = new OAuth2AccessTokenReqDTO();
+        tokenReqDTO.setClientId(clientId);
+        tokenReqDTO.setRefreshToken(refreshToken);
+        tokenReqDTO.setScope(requestedScopes);
+
+        OAuthTokenReqMessageContext tokenReqMessageContext = new OAuthTokenReqMessageContext(tokenReqDTO);
+        tokenReqMessageContext.addProperty("previousAccessToken", oldAccessToken);
+        tokenReqMessageContext.setAuthorizedUser(authenticatedUser);
+        tokenReqMessageContext.setScope(requestedScopes);
+        return tokenReqMessageContext;
+    }
+
+    private void setRotationManager(RefreshTokenRotationManager rotationManager) {
+
+        Whitebox.setInternalState(RefreshTokenRotationManager.class, "instance", rotationManager);
+    }
 }
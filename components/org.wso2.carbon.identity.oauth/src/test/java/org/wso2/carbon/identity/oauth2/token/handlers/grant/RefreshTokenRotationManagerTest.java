@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.handlers.grant;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.token.handlers.grant.RefreshTokenRotationManager.Rotation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for RefreshTokenRotationManager.
+ */
+public class RefreshTokenRotationManagerTest {
+
+    private static final String CLIENT_ID = "clientId";
+    private static final String REFRESH_TOKEN = "refreshToken";
+
+    @Test
+    public void testConcurrentRotationsOfSameRefreshToken() throws Exception {
+
+        RefreshTokenRotationManager manager = new RefreshTokenRotationManager(10000, 100);
+        int threads = 16;
+        int rounds = 50;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < rounds; round++) {
+                String refreshToken = REFRESH_TOKEN + round;
+                AtomicInteger owners = new AtomicInteger();
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<AccessTokenDO>> futures = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    futures.add(executorService.submit(() -> {
+                        start.await();
+                        Rotation rotation = manager.startRotation(CLIENT_ID, refreshToken);
+                        if (!rotation.isOwner()) {
+                            return rotation.getRotatedToken();
+                        }
+                        owners.incrementAndGet();
+                        AccessTokenDO accessTokenDO = new AccessTokenDO();
+                        accessTokenDO.setRefreshToken(refreshToken + "-rotated");
+                        try {
+                            // Keep the rotation in progress while the duplicate requests join it.
+                            Thread.sleep(5);
+                            rotation.complete(accessTokenDO);
+                        } finally {
+                            rotation.fail();
+                        }
+                        return accessTokenDO;
+                    }));
+                }
+                start.countDown();
+
+                AccessTokenDO rotatedToken = futures.get(0).get(30, TimeUnit.SECONDS);
+                for (Future<AccessTokenDO> future : futures) {
+                    assertSame(future.get(30, TimeUnit.SECONDS), rotatedToken);
+                }
+                assertEquals(owners.get(), 1);
+                assertEquals(rotatedToken.getRefreshToken(), refreshToken + "-rotated");
+                assertTrue(manager.isRotating(CLIENT_ID, refreshToken));
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        assertEquals(manager.size(), rounds);
+    }
+
+    @Test
+    public void testFailedRotationIsDropped() {
+
+        RefreshTokenRotationManager manager = new RefreshTokenRotationManager(10000, 100);
+        Rotation rotation = manager.startRotation(CLIENT_ID, REFRESH_TOKEN);
+        Rotation duplicate = manager.startRotation(CLIENT_ID, REFRESH_TOKEN);
+        assertTrue(rotation.isOwner());
+        assertFalse(duplicate.isOwner());
+        // The rotations are kept per client.
+        assertTrue(manager.startRotation("otherClientId", REFRESH_TOKEN).isOwner());
+
+        rotation.fail();
+        assertNull(duplicate.getRotatedToken());
+        assertFalse(manager.isRotating(CLIENT_ID, REFRESH_TOKEN));
+        assertTrue(manager.startRotation(CLIENT_ID, REFRESH_TOKEN).isOwner());
+    }
+
+    @Test
+    public void testRotationAfterGracePeriod() throws Exception {
+
+        RefreshTokenRotationManager manager = new RefreshTokenRotationManager(50, 100);
+        Rotation rotation = manager.startRotation(CLIENT_ID, REFRESH_TOKEN);
+        AccessTokenDO accessTokenDO = new AccessTokenDO();
+        rotation.complete(accessTokenDO);
+        // Failing a completed rotation does not drop it.
+        rotation.fail();
+        assertTrue(manager.isRotating(CLIENT_ID, REFRESH_TOKEN));
+        assertSame(manager.startRotation(CLIENT_ID, REFRESH_TOKEN).getRotatedToken(), accessTokenDO);
+
+        Thread.sleep(60);
+        assertFalse(manager.isRotating(CLIENT_ID, REFRESH_TOKEN));
+        assertTrue(manager.startRotation(CLIENT_ID, REFRESH_TOKEN).isOwner());
+    }
+
+    @Test
+    public void testDuplicateTimesOut() {
+
+        RefreshTokenRotationManager manager = new RefreshTokenRotationManager(20, 100);
+        assertTrue(manager.startRotation(CLIENT_ID, REFRESH_TOKEN).isOwner());
+        // The owner does not complete the rotation within the grace period.
+        assertNull(manager.startRotation(CLIENT_ID, REFRESH_TOKEN).getRotatedToken());
+    }
+
+    @Test
+    public void testCapacityAndDisabledGracePeriod() {
+
+        RefreshTokenRotationManager manager = new RefreshTokenRotationManager(10000, 1);
+        assertTrue(manager.startRotation(CLIENT_ID, REFRESH_TOKEN).isOwner());
+        // The oldest rotation is evicted when the rotations are full.
+        assertTrue(manager.startRotation(CLIENT_ID, "otherRefreshToken").isOwner());
+        assertFalse(manager.startRotation(CLIENT_ID, "otherRefreshToken").isOwner());
+        assertFalse(manager.isRotating(CLIENT_ID, REFRESH_TOKEN));
+        assertEquals(manager.size(), 1);
+
+        RefreshTokenRotationManager noCapacityManager = new RefreshTokenRotationManager(10000, 0);
+        assertTrue(noCapacityManager.startRotation(CLIENT_ID, REFRESH_TOKEN).isOwner());
+        assertTrue(noCapacityManager.startRotation(CLIENT_ID, REFRESH_TOKEN).isOwner());
+        assertEquals(noCapacityManager.size(), 0);
+
+        RefreshTokenRotationManager disabledManager = new RefreshTokenRotationManager(0, 100);
+        assertTrue(disabledManager.startRotation(CLIENT_ID, REFRESH_TOKEN).isOwner());
+        assertTrue(disabledManager.startRotation(CLIENT_ID, REFRESH_TOKEN).isOwner());
+        assertFalse(disabledManager.isRotating(CLIENT_ID, REFRESH_TOKEN));
+        assertEquals(disabledManager.size(), 0);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for AccessTokenPrefetchContext.
+ */
+public class AccessTokenPrefetchContextTest {
+
+    private static final String ACTIVE_TOKEN = "activeToken";
+    private static final String INACTIVE_TOKEN = "inactiveToken";
+
+    @AfterMethod
+    public void tearDown() {
+
+        AccessTokenPrefetchContext.clear();
+    }
+
+    @Test
+    public void testPrefetchedTokens() {
+
+        AccessTokenDO accessTokenDO = new AccessTokenDO();
+        AccessTokenPrefetchContext.set(Arrays.asList(ACTIVE_TOKEN, INACTIVE_TOKEN),
+                Collections.singletonMap(ACTIVE_TOKEN, accessTokenDO));
+
+        assertTrue(AccessTokenPrefetchContext.isPrefetched(ACTIVE_TOKEN));
+        // A token which was looked up without being found is known to not be active.
+        assertTrue(AccessTokenPrefetchContext.isPrefetched(INACTIVE_TOKEN));
+        assertFalse(AccessTokenPrefetchContext.isPrefetched("unknownToken"));
+        assertNull(AccessTokenPrefetchContext.take(INACTIVE_TOKEN));
+        assertSame(AccessTokenPrefetchContext.take(ACTIVE_TOKEN), accessTokenDO);
+
+        // A token is taken only once, so that a later lookup gets a fresh token.
+        assertFalse(AccessTokenPrefetchContext.isPrefetched(ACTIVE_TOKEN));
+        assertNull(AccessTokenPrefetchContext.take(ACTIVE_TOKEN));
+    }
+
+    @Test
+    public void testClear() {
+
+        AccessTokenPrefetchContext.set(Collections.singletonList(ACTIVE_TOKEN),
+                Collections.singletonMap(ACTIVE_TOKEN, new AccessTokenDO()));
+        AccessTokenPrefetchContext.clear();
+
+        assertFalse(AccessTokenPrefetchContext.isPrefetched(ACTIVE_TOKEN));
+        assertNull(AccessTokenPrefetchContext.take(ACTIVE_TOKEN));
+    }
+
+    @Test
+    public void testPrefetchedTokensAreThreadLocal() throws Exception {
+
+        AccessTokenPrefetchContext.set(Collections.singletonList(ACTIVE_TOKEN),
+                Collections.singletonMap(ACTIVE_TOKEN, new AccessTokenDO()));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertFalse(executor.submit(() -> AccessTokenPrefetchContext.isPrefetched(ACTIVE_TOKEN)).get());
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(AccessTokenPrefetchContext.isPrefetched(ACTIVE_TOKEN));
+    }
+}
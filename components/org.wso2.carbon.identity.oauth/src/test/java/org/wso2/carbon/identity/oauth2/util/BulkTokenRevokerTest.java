@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.mockito.ArgumentCaptor;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.oauth.OAuthUtil;
+import org.wso2.carbon.identity.oauth.cache.OAuthCache;
+import org.wso2.carbon.identity.oauth2.dao.AccessTokenDAO;
+import org.wso2.carbon.identity.oauth2.dao.AuthorizationCodeDAO;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.model.AuthzCodeDO;
+import org.wso2.carbon.identity.oauth2.token.bindings.TokenBinding;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+
+@PrepareForTest({OAuth2Util.class, OAuthUtil.class, OAuthCache.class})
+public class BulkTokenRevokerTest extends PowerMockIdentityBaseTest {
+
+    private static final int TENANT_ID = 5678;
+
+    private AccessTokenDAO accessTokenDAO;
+    private AuthorizationCodeDAO authorizationCodeDAO;
+    private OAuthCache oAuthCache;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        accessTokenDAO = mock(AccessTokenDAO.class);
+        authorizationCodeDAO = mock(AuthorizationCodeDAO.class);
+        oAuthCache = mock(OAuthCache.class);
+        mockStatic(OAuth2Util.class);
+        mockStatic(OAuthUtil.class);
+        mockStatic(OAuthCache.class);
+        when(OAuthCache.getInstance()).thenReturn(oAuthCache);
+        when(OAuth2Util.isHashEnabled()).thenReturn(false);
+        when(authorizationCodeDAO.getLatestAuthorizationCodesByTenant(TENANT_ID)).thenReturn(new ArrayList<>());
+    }
+
+    @Test
+    public void testTokensAreRevokedPageByPage() throws Exception {
+
+        when(accessTokenDAO.getAccessTokensByTenant(TENANT_ID, null, 2))
+                .thenReturn(Arrays.asList(buildAccessTokenDO("id1"), buildAccessTokenDO("id2")));
+        when(accessTokenDAO.getAccessTokensByTenant(TENANT_ID, "id2", 2))
+                .thenReturn(Arrays.asList(buildAccessTokenDO("id3"), buildAccessTokenDO("id4")));
+        when(accessTokenDAO.getAccessTokensByTenant(TENANT_ID, "id4", 2))
+                .thenReturn(Collections.singletonList(buildAccessTokenDO("id5")));
+
+        long revokedTokenCount = new BulkTokenRevoker(2).revokeTokensOfTenant(TENANT_ID, accessTokenDAO,
+                authorizationCodeDAO);
+
+        assertEquals(revokedTokenCount, 5);
+        ArgumentCaptor<String[]> tokens = ArgumentCaptor.forClass(String[].class);
+        verify(accessTokenDAO, times(3)).revokeAccessTokens(tokens.capture(), eq(false));
+        assertEquals(tokens.getAllValues().get(0), new String[]{"token-id1", "token-id2"});
+        assertEquals(tokens.getAllValues().get(1), new String[]{"token-id3", "token-id4"});
+        assertEquals(tokens.getAllValues().get(2), new String[]{"token-id5"});
+        verify(oAuthCache, times(1)).clear(TENANT_ID);
+        // The tokens of the tenant are never loaded at once.
+        verify(accessTokenDAO, never()).getAccessTokensByTenant(anyInt());
+    }
+
+    @Test
+    public void testEmptyTenant() throws Exception {
+
+        when(accessTokenDAO.getAccessTokensByTenant(TENANT_ID, null, 2))
+                .thenReturn(Collections.emptyList());
+
+        assertEquals(new BulkTokenRevoker(2).revokeTokensOfTenant(TENANT_ID, accessTokenDAO,
+                authorizationCodeDAO), 0);
+        verify(accessTokenDAO, never()).revokeAccessTokens(any(String[].class), anyBoolean());
+        verify(accessTokenDAO, times(1)).getAccessTokensByTenant(TENANT_ID, null, 2);
+        verify(oAuthCache, never()).clear(anyInt());
+    }
+
+    @Test
+    public void testAuthorizationCodesAreDeactivatedInBatches() throws Exception {
+
+        when(accessTokenDAO.getAccessTokensByTenant(TENANT_ID, null, 2))
+                .thenReturn(Collections.emptyList());
+        List<AuthzCodeDO> authzCodeDOs = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            AuthzCodeDO authzCodeDO = new AuthzCodeDO();
+            authzCodeDO.setConsumerKey("consumerKey");
+            authzCodeDO.setAuthorizationCode("code" + i);
+            authzCodeDOs.add(authzCodeDO);
+        }
+        when(authorizationCodeDAO.getLatestAuthorizationCodesByTenant(TENANT_ID)).thenReturn(authzCodeDOs);
+
+        new BulkTokenRevoker(2).revokeTokensOfTenant(TENANT_ID, accessTokenDAO, authorizationCodeDAO);
+
+        verify(authorizationCodeDAO, times(3)).deactivateAuthorizationCodes(anyListOf(AuthzCodeDO.class));
+        verify(oAuthCache, times(1)).clear(TENANT_ID);
+    }
+
+    @Test
+    public void testTokensOfUserAreRevokedPageByPage() throws Exception {
+
+        AuthenticatedUser authenticatedUser = new AuthenticatedUser();
+        AccessTokenDO retainedAccessTokenDO = buildAccessTokenDO("id2");
+        retainedAccessTokenDO.setTokenBinding(new TokenBinding("cookie", "ref-id2", "current-session"));
+        when(OAuth2Util.isHashDisabled()).thenReturn(false);
+        when(accessTokenDAO.getAccessTokens("consumerKey", authenticatedUser, null, null, 2))
+                .thenReturn(Arrays.asList(buildAccessTokenDO("id1"), retainedAccessTokenDO));
+        when(accessTokenDAO.getAccessTokens("consumerKey", authenticatedUser, null, "id2", 2))
+                .thenReturn(Collections.singletonList(buildAccessTokenDO("id3")));
+
+        long revokedTokenCount = new BulkTokenRevoker(2).revokeTokensOfUser("consumerKey", authenticatedUser, null,
+                "current-session", accessTokenDAO);
+
+        assertEquals(revokedTokenCount, 2);
+        ArgumentCaptor<String[]> tokens = ArgumentCaptor.forClass(String[].class);
+        verify(accessTokenDAO, times(2)).revokeAccessTokens(tokens.capture(), eq(false));
+        assertEquals(tokens.getAllValues().get(0), new String[]{"token-id1"});
+        assertEquals(tokens.getAllValues().get(1), new String[]{"token-id3"});
+        // The tokens of the user are never loaded at once, and the cache entries of the other users are retained.
+        verify(accessTokenDAO, never()).getAccessTokens(anyString(), any(AuthenticatedUser.class), anyString(),
+                anyBoolean());
+        verify(oAuthCache, never()).clear(anyInt());
+    }
+
+    @Test
+    public void testLatestTokensOfUserAreRevokedWhenHashIsDisabled() throws Exception {
+
+        AuthenticatedUser authenticatedUser = new AuthenticatedUser();
+        when(OAuth2Util.isHashDisabled()).thenReturn(true);
+        when(OAuth2Util.buildScopeString(any(String[].class))).thenReturn("openid");
+        when(accessTokenDAO.getAccessTokens("consumerKey", authenticatedUser, null, null, 2))
+                .thenReturn(Arrays.asList(buildAccessTokenDO("id1"), buildAccessTokenDO("id2")));
+        when(accessTokenDAO.getAccessTokens("consumerKey", authenticatedUser, null, "id2", 2))
+                .thenReturn(Collections.emptyList());
+        when(accessTokenDAO.getLatestAccessToken("consumerKey", authenticatedUser, null, "openid", true))
+                .thenReturn(buildAccessTokenDO("id2"));
+
+        long revokedTokenCount = new BulkTokenRevoker(2).revokeTokensOfUser("consumerKey", authenticatedUser, null,
+                "", accessTokenDAO);
+
+        assertEquals(revokedTokenCount, 1);
+        ArgumentCaptor<String[]> tokens = ArgumentCaptor.forClass(String[].class);
+        verify(accessTokenDAO, times(1)).revokeAccessTokens(tokens.capture(), eq(false));
+        assertEquals(tokens.getValue(), new String[]{"token-id2"});
+    }
+
+    private static AccessTokenDO buildAccessTokenDO(String tokenId) {
+
+        AccessTokenDO accessTokenDO = new AccessTokenDO();
+        accessTokenDO.setTokenId(tokenId);
+        accessTokenDO.setAccessToken("token-" + tokenId);
+        accessTokenDO.setConsumerKey("consumerKey");
+        return accessTokenDO;
+    }
+}
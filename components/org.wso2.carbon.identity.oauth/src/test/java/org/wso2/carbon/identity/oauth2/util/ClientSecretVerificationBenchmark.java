@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.wso2.carbon.identity.oauth.tokenprocessor.TokenHashingEngine;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the client secret verification of OAuth2Util.authenticateClient with hashed client secrets,
+ * comparing the hashing of the presented secret on every authentication with the lookup in the
+ * {@link ClientSecretVerificationCache}, for confidential clients which authenticate repeatedly.
+ *
+ * The app lookup, which is the same for both, is not included. Run the main method from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class ClientSecretVerificationBenchmark {
+
+    @Param({"SHA-256"})
+    private String algorithm;
+
+    @Param({"100"})
+    private int clientCount;
+
+    private String[] clientIds;
+    private String[] clientSecrets;
+    private String[] processedSecrets;
+    private ClientSecretVerificationCache verificationCache;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        clientIds = new String[clientCount];
+        clientSecrets = new String[clientCount];
+        processedSecrets = new String[clientCount];
+        verificationCache = new ClientSecretVerificationCache(true, TimeUnit.MINUTES.toMillis(5), clientCount);
+        for (int i = 0; i < clientCount; i++) {
+            clientIds[i] = UUID.randomUUID().toString();
+            clientSecrets[i] = UUID.randomUUID().toString();
+            processedSecrets[i] = TokenHashingEngine.hash(clientSecrets[i], algorithm);
+            verificationCache.addVerified(clientIds[i], clientSecrets[i], processedSecrets[i]);
+        }
+    }
+
+    @Benchmark
+    public boolean hashPerAuthentication() throws Exception {
+
+        int client = ThreadLocalRandom.current().nextInt(clientCount);
+        return StringUtils.equals(processedSecrets[client], TokenHashingEngine.hash(clientSecrets[client], algorithm));
+    }
+
+    @Benchmark
+    public boolean verifiedSecretLookup() {
+
+        int client = ThreadLocalRandom.current().nextInt(clientCount);
+        return verificationCache.isVerified(clientIds[client], clientSecrets[client], processedSecrets[client]);
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        Options options = new OptionsBuilder()
+                .include(ClientSecretVerificationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
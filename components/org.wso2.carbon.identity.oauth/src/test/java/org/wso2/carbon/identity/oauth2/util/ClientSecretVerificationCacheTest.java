@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for ClientSecretVerificationCache.
+ */
+public class ClientSecretVerificationCacheTest {
+
+    private static final String CLIENT_ID = "clientId";
+    private static final String CLIENT_SECRET = "clientSecret";
+    private static final String PROCESSED_SECRET = "{\"algorithm\":\"SHA-256\",\"hash\":\"processedSecret\"}";
+
+    @Test
+    public void testVerifiedSecret() {
+
+        ClientSecretVerificationCache cache = new ClientSecretVerificationCache(true, 60000, 10);
+        assertFalse(cache.isVerified(CLIENT_ID, CLIENT_SECRET, PROCESSED_SECRET));
+
+        cache.addVerified(CLIENT_ID, CLIENT_SECRET, PROCESSED_SECRET);
+        assertTrue(cache.isVerified(CLIENT_ID, CLIENT_SECRET, PROCESSED_SECRET));
+        assertFalse(cache.isVerified(CLIENT_ID, "otherSecret", PROCESSED_SECRET));
+        assertFalse(cache.isVerified("otherClientId", CLIENT_SECRET, PROCESSED_SECRET));
+        assertFalse(cache.isVerified(CLIENT_ID, null, PROCESSED_SECRET));
+        assertEquals(cache.size(), 1);
+
+        cache.clear(CLIENT_ID);
+        assertFalse(cache.isVerified(CLIENT_ID, CLIENT_SECRET, PROCESSED_SECRET));
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testRotatedSecret() {
+
+        ClientSecretVerificationCache cache = new ClientSecretVerificationCache(true, 60000, 10);
+        cache.addVerified(CLIENT_ID, CLIENT_SECRET, PROCESSED_SECRET);
+
+        // The secret is not verified once the processed secret of the app is changed, such as by another node.
+        assertFalse(cache.isVerified(CLIENT_ID, CLIENT_SECRET, "rotatedProcessedSecret"));
+        assertFalse(cache.isVerified(CLIENT_ID, CLIENT_SECRET, PROCESSED_SECRET));
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testTimeoutAndCapacity() {
+
+        ClientSecretVerificationCache timedOutCache = new ClientSecretVerificationCache(true, 0, 10);
+        timedOutCache.addVerified(CLIENT_ID, CLIENT_SECRET, PROCESSED_SECRET);
+        assertFalse(timedOutCache.isVerified(CLIENT_ID, CLIENT_SECRET, PROCESSED_SECRET));
+        assertEquals(timedOutCache.size(), 0);
+
+        ClientSecretVerificationCache fullCache = new ClientSecretVerificationCache(true, 60000, 2);
+        fullCache.addVerified(CLIENT_ID, CLIENT_SECRET, PROCESSED_SECRET);
+        fullCache.addVerified("otherClientId", CLIENT_SECRET, PROCESSED_SECRET);
+        // Verifying the secret of a kept client again moves it to the tail.
+        fullCache.addVerified(CLIENT_ID, "newSecret", "newProcessedSecret");
+        // The oldest verified secret is evicted when the cache is full.
+        fullCache.addVerified("thirdClientId", CLIENT_SECRET, PROCESSED_SECRET);
+        assertFalse(fullCache.isVerified("otherClientId", CLIENT_SECRET, PROCESSED_SECRET));
+        assertTrue(fullCache.isVerified(CLIENT_ID, "newSecret", "newProcessedSecret"));
+        assertTrue(fullCache.isVerified("thirdClientId", CLIENT_SECRET, PROCESSED_SECRET));
+        assertEquals(fullCache.size(), 2);
+
+        ClientSecretVerificationCache noCapacityCache = new ClientSecretVerificationCache(true, 60000, 0);
+        noCapacityCache.addVerified(CLIENT_ID, CLIENT_SECRET, PROCESSED_SECRET);
+        assertFalse(noCapacityCache.isEnabled());
+        assertEquals(noCapacityCache.size(), 0);
+    }
+
+    @Test
+    public void testDisabledCache() {
+
+        ClientSecretVerificationCache cache = new ClientSecretVerificationCache(false, 60000, 10);
+        cache.addVerified(CLIENT_ID, CLIENT_SECRET, PROCESSED_SECRET);
+        assertFalse(cache.isVerified(CLIENT_ID, CLIENT_SECRET, PROCESSED_SECRET));
+        assertEquals(cache.size(), 0);
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.base.CarbonBaseConstants;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+
+import java.nio.file.Paths;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.verifyStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.wso2.carbon.identity.openidconnect.util.TestUtils.getKeyStoreFromFile;
+
+@PrepareForTest({OAuth2Util.class})
+public class JWSSigningMaterialCacheTest extends PowerMockIdentityBaseTest {
+
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final int TENANT_ID = -1234;
+    private static final String KID = "kid";
+    private static final String THUMBPRINT = "thumbprint";
+
+    private Key privateKey;
+    private Certificate certificate;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        System.setProperty(CarbonBaseConstants.CARBON_HOME,
+                Paths.get(System.getProperty("user.dir"), "src", "test", "resources").toString());
+        KeyStore keyStore = getKeyStoreFromFile("wso2carbon.jks", "wso2carbon",
+                System.getProperty(CarbonBaseConstants.CARBON_HOME));
+        privateKey = keyStore.getKey("wso2carbon", "wso2carbon".toCharArray());
+        certificate = keyStore.getCertificate("wso2carbon");
+
+        mockStatic(OAuth2Util.class);
+        when(OAuth2Util.getPrivateKey(TENANT_DOMAIN, TENANT_ID)).thenReturn(privateKey);
+        when(OAuth2Util.getCertificate(TENANT_DOMAIN, TENANT_ID)).thenReturn(certificate);
+        when(OAuth2Util.createJWSSigner(any(RSAPrivateKey.class))).thenCallRealMethod();
+        when(OAuth2Util.getKID(any(Certificate.class), any(JWSAlgorithm.class), anyString())).thenReturn(KID);
+        when(OAuth2Util.getThumbPrint(anyString(), anyInt())).thenReturn(THUMBPRINT);
+        JWSSigningMaterialCache.getInstance().invalidate(TENANT_ID);
+    }
+
+    @Test
+    public void testSigningMaterialIsReused() throws Exception {
+
+        JWSSigningMaterialCache cache = JWSSigningMaterialCache.getInstance();
+        JWSSigningMaterialCache.SigningMaterial material =
+                cache.getSigningMaterial(TENANT_DOMAIN, TENANT_ID, JWSAlgorithm.RS256, null);
+
+        assertEquals(material.getKeyId(), KID);
+        assertEquals(material.getHeader().getKeyID(), KID);
+        assertEquals(material.getHeader().getX509CertThumbprint().toString(), THUMBPRINT);
+        assertNull(material.getHeader().getType());
+        assertSame(cache.getSigningMaterial(TENANT_DOMAIN, TENANT_ID, JWSAlgorithm.RS256, null), material);
+
+        verifyStatic(OAuth2Util.class);
+        OAuth2Util.getKID(any(Certificate.class), eq(JWSAlgorithm.RS256), eq(TENANT_DOMAIN));
+    }
+
+    @Test
+    public void testSigningMaterialIsKeyedByAlgorithmAndType() throws Exception {
+
+        JWSSigningMaterialCache cache = JWSSigningMaterialCache.getInstance();
+        JOSEObjectType type = new JOSEObjectType("at+jwt");
+        JWSSigningMaterialCache.SigningMaterial rs256 =
+                cache.getSigningMaterial(TENANT_DOMAIN, TENANT_ID, JWSAlgorithm.RS256, null);
+        JWSSigningMaterialCache.SigningMaterial rs256Typed =
+                cache.getSigningMaterial(TENANT_DOMAIN, TENANT_ID, JWSAlgorithm.RS256, type);
+        JWSSigningMaterialCache.SigningMaterial ps256 =
+                cache.getSigningMaterial(TENANT_DOMAIN, TENANT_ID, JWSAlgorithm.PS256, null);
+
+        assertNotSame(rs256Typed, rs256);
+        assertEquals(rs256Typed.getHeader().getType(), type);
+        assertEquals(ps256.getHeader().getAlgorithm(), JWSAlgorithm.PS256);
+    }
+
+    @Test
+    public void testSigningMaterialIsRebuiltWhenKeyChanges() throws Exception {
+
+        JWSSigningMaterialCache cache = JWSSigningMaterialCache.getInstance();
+        JWSSigningMaterialCache.SigningMaterial material =
+                cache.getSigningMaterial(TENANT_DOMAIN, TENANT_ID, JWSAlgorithm.RS256, null);
+
+        KeyStore reloadedKeyStore = getKeyStoreFromFile("wso2carbon.jks", "wso2carbon",
+                System.getProperty(CarbonBaseConstants.CARBON_HOME));
+        when(OAuth2Util.getPrivateKey(TENANT_DOMAIN, TENANT_ID))
+                .thenReturn(reloadedKeyStore.getKey("wso2carbon", "wso2carbon".toCharArray()));
+
+        assertNotSame(cache.getSigningMaterial(TENANT_DOMAIN, TENANT_ID, JWSAlgorithm.RS256, null), material);
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+
+        JWSSigningMaterialCache cache = JWSSigningMaterialCache.getInstance();
+        JWSSigningMaterialCache.SigningMaterial material =
+                cache.getSigningMaterial(TENANT_DOMAIN, TENANT_ID, JWSAlgorithm.RS256, null);
+        cache.invalidate(TENANT_ID);
+
+        assertNotSame(cache.getSigningMaterial(TENANT_DOMAIN, TENANT_ID, JWSAlgorithm.RS256, null), material);
+    }
+
+    @Test
+    public void testExpiredSigningMaterialIsReloaded() throws Exception {
+
+        JWSSigningMaterialCache cache = new JWSSigningMaterialCache(1);
+        JWSSigningMaterialCache.SigningMaterial material =
+                cache.getSigningMaterial(TENANT_DOMAIN, TENANT_ID, JWSAlgorithm.RS256, null);
+        Thread.sleep(5);
+
+        assertNotSame(cache.getSigningMaterial(TENANT_DOMAIN, TENANT_ID, JWSAlgorithm.RS256, null), material);
+        verifyStatic(OAuth2Util.class);
+        OAuth2Util.clearSigningKeyCache(TENANT_ID);
+    }
+
+    @Test
+    public void testSigningMaterialDoesNotExpireWithoutTimeout() throws Exception {
+
+        JWSSigningMaterialCache cache = new JWSSigningMaterialCache(0);
+        JWSSigningMaterialCache.SigningMaterial material =
+                cache.getSigningMaterial(TENANT_DOMAIN, TENANT_ID, JWSAlgorithm.RS256, null);
+        Thread.sleep(5);
+
+        assertSame(cache.getSigningMaterial(TENANT_DOMAIN, TENANT_ID, JWSAlgorithm.RS256, null), material);
+        verifyStatic(OAuth2Util.class, never());
+        OAuth2Util.clearSigningKeyCache(anyInt());
+    }
+
+    @Test
+    public void testCachedSignerProducesVerifiableSignature() throws Exception {
+
+        JWSSigningMaterialCache.SigningMaterial material = JWSSigningMaterialCache.getInstance()
+                .getSigningMaterial(TENANT_DOMAIN, TENANT_ID, JWSAlgorithm.RS256, null);
+        JWTClaimsSet claimsSet = new JWTClaimsSet.Builder().subject("admin").build();
+        for (int i = 0; i < 2; i++) {
+            SignedJWT signedJWT = new SignedJWT(material.getHeader(), claimsSet);
+            signedJWT.sign(material.getSigner());
+            SignedJWT parsedJWT = SignedJWT.parse(signedJWT.serialize());
+            assertTrue(parsedJWT.verify(new RSASSAVerifier((RSAPublicKey) certificate.getPublicKey())));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.testng.annotations.Test;
+
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Date;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for JWTVerificationCache.
+ */
+public class JWTVerificationCacheTest {
+
+    private static final String JWT = "header.payload.signature";
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final String JTI = "jti";
+
+    @Test
+    public void testDisabledCache() {
+
+        JWTVerificationCache cache = new JWTVerificationCache(false, 10, 60000);
+        cache.addVerified(JWT, TENANT_DOMAIN, buildClaims(JTI, 60000));
+
+        assertFalse(cache.isEnabled());
+        assertNull(cache.getVerifiedClaims(JWT, TENANT_DOMAIN));
+        assertEquals(cache.getSize(), 0);
+    }
+
+    @Test
+    public void testVerifiedTokenIsCached() {
+
+        JWTVerificationCache cache = new JWTVerificationCache(true, 10, 60000);
+        JWTClaimsSet claimsSet = buildClaims(JTI, 60000);
+        assertNull(cache.getVerifiedClaims(JWT, TENANT_DOMAIN));
+        cache.addVerified(JWT, TENANT_DOMAIN, claimsSet);
+
+        assertSame(cache.getVerifiedClaims(JWT, TENANT_DOMAIN), claimsSet);
+        assertNull(cache.getVerifiedClaims(JWT + "x", TENANT_DOMAIN));
+        assertNull(cache.getVerifiedClaims(JWT, "wso2.com"));
+        assertEquals(cache.getHitCount(), 1);
+        assertEquals(cache.getMissCount(), 3);
+    }
+
+    @Test
+    public void testEntryExpiresWithToken() throws Exception {
+
+        JWTVerificationCache cache = new JWTVerificationCache(true, 10, 60000);
+        cache.addVerified(JWT, TENANT_DOMAIN, buildClaims(JTI, 50));
+        Thread.sleep(100);
+
+        assertNull(cache.getVerifiedClaims(JWT, TENANT_DOMAIN));
+        assertEquals(cache.getSize(), 0);
+    }
+
+    @Test
+    public void testExpiredTokenIsNotCached() {
+
+        JWTVerificationCache cache = new JWTVerificationCache(true, 10, 60000);
+        cache.addVerified(JWT, TENANT_DOMAIN, buildClaims(JTI, -1000));
+
+        assertEquals(cache.getSize(), 0);
+    }
+
+    @Test
+    public void testClear() {
+
+        JWTVerificationCache cache = new JWTVerificationCache(true, 10, 60000);
+        cache.addVerified(JWT, TENANT_DOMAIN, buildClaims(JTI, 60000));
+        cache.addVerified("other.payload.signature", TENANT_DOMAIN, buildClaims("other", 60000));
+        cache.clear();
+
+        assertNull(cache.getVerifiedClaims(JWT, TENANT_DOMAIN));
+        assertEquals(cache.getSize(), 0);
+    }
+
+    @Test
+    public void testCapacityIsBounded() {
+
+        JWTVerificationCache cache = new JWTVerificationCache(true, 20, 60000);
+        for (int i = 0; i < 100; i++) {
+            cache.addVerified(JWT + i, TENANT_DOMAIN, buildClaims(JTI + i, 60000));
+        }
+
+        assertTrue(cache.getSize() <= 20);
+        assertEquals(cache.getVerifiedClaims(JWT + 99, TENANT_DOMAIN).getJWTID(), JTI + 99);
+    }
+
+    @Test
+    public void testVerifierIsReusedForKey() throws Exception {
+
+        JWTVerificationCache cache = new JWTVerificationCache(true, 10, 60000);
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        RSAPublicKey publicKey = (RSAPublicKey) keyPairGenerator.generateKeyPair().getPublic();
+        RSAPublicKey otherPublicKey = (RSAPublicKey) keyPairGenerator.generateKeyPair().getPublic();
+
+        assertSame(cache.getRSAVerifier(publicKey), cache.getRSAVerifier(publicKey));
+        assertNotSame(cache.getRSAVerifier(publicKey), cache.getRSAVerifier(otherPublicKey));
+    }
+
+    private static JWTClaimsSet buildClaims(String jti, long validityMillis) {
+
+        return new JWTClaimsSet.Builder()
+                .jwtID(jti)
+                .issuer("issuer")
+                .subject("subject")
+                .expirationTime(new Date(System.currentTimeMillis() + validityMillis))
+                .build();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.util.OAuthBackgroundJobExecutor.JobStatus;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for OAuthBackgroundJobExecutor.
+ */
+@WithCarbonHome
+public class OAuthBackgroundJobExecutorTest {
+
+    @Test
+    public void testJobRunsForEachKey() throws Exception {
+
+        OAuthBackgroundJobExecutor executor = new OAuthBackgroundJobExecutor(4, 10, 2);
+        Set<String> processedKeys = ConcurrentHashMap.newKeySet();
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+        JobStatus jobStatus = executor.submit("test job", Arrays.asList("key1", "key2", "key3", "key4", "key5"),
+                key -> {
+                    processedKeys.add(key);
+                    threadNames.add(Thread.currentThread().getName());
+                });
+        jobStatus.awaitCompletion();
+
+        assertTrue(jobStatus.isCompleted());
+        assertEquals(jobStatus.getKeyCount(), 5);
+        assertEquals(jobStatus.getProcessedKeyCount(), 5);
+        assertEquals(jobStatus.getFailedKeyCount(), 0);
+        assertEquals(processedKeys.size(), 5);
+        for (String threadName : threadNames) {
+            assertTrue(threadName.startsWith("OAuth-BackgroundJob-"));
+        }
+        assertSame(executor.getJobStatus(jobStatus.getJobId()), jobStatus);
+        assertEquals(executor.getPoolSize(), 4);
+        assertEquals(executor.getQueueCapacity(), 10);
+        executor.shutdown();
+    }
+
+    @Test
+    public void testFailedKeysDoNotStopTheJob() throws Exception {
+
+        OAuthBackgroundJobExecutor executor = new OAuthBackgroundJobExecutor(2, 10, 1);
+        JobStatus jobStatus = executor.submit("test job", Arrays.asList("key1", "failingKey", "key3"), key -> {
+            if ("failingKey".equals(key)) {
+                throw new IdentityOAuth2Exception("Error");
+            }
+        });
+        jobStatus.awaitCompletion();
+
+        assertEquals(jobStatus.getProcessedKeyCount(), 2);
+        assertEquals(jobStatus.getFailedKeyCount(), 1);
+        executor.shutdown();
+    }
+
+    @Test
+    public void testChunksRunOnCallerWhenQueueIsFull() throws Exception {
+
+        OAuthBackgroundJobExecutor executor = new OAuthBackgroundJobExecutor(1, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        String callerThreadName = Thread.currentThread().getName();
+        Set<String> keysRunByCaller = ConcurrentHashMap.newKeySet();
+        JobStatus blockingJobStatus = executor.submit("blocking job", Collections.singletonList("blockingKey"),
+                key -> {
+                    started.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        // The only thread is busy, hence the first chunk is queued and the second runs on the caller.
+        JobStatus jobStatus = executor.submit("test job", Arrays.asList("key1", "key2"), key -> {
+            if (callerThreadName.equals(Thread.currentThread().getName())) {
+                keysRunByCaller.add(key);
+            }
+        });
+        assertEquals(executor.getQueueDepth(), 1);
+        assertEquals(executor.getCallerRunsCount(), 1);
+        assertEquals(keysRunByCaller, Collections.singleton("key2"));
+        assertFalse(jobStatus.isCompleted());
+
+        release.countDown();
+        blockingJobStatus.awaitCompletion();
+        jobStatus.awaitCompletion();
+        assertEquals(jobStatus.getProcessedKeyCount(), 2);
+        executor.shutdown();
+    }
+
+    @Test
+    public void testEmptyJob() throws Exception {
+
+        OAuthBackgroundJobExecutor executor = new OAuthBackgroundJobExecutor(1, 1, 1);
+        JobStatus jobStatus = executor.submit("empty job", Collections.emptySet(), key -> {
+            throw new IdentityOAuth2Exception("Should not run");
+        });
+        jobStatus.awaitCompletion();
+
+        assertTrue(jobStatus.isCompleted());
+        assertEquals(jobStatus.getKeyCount(), 0);
+        assertNull(executor.getJobStatus("unknownJobId"));
+        assertNull(executor.getJobStatus(null));
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.bean.Scope;
+import org.wso2.carbon.identity.oauth2.bean.ScopeBinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for OAuthScopeCachePreloader.
+ */
+public class OAuthScopeCachePreloaderTest {
+
+    @Test
+    public void testScopesOfBindingTypes() {
+
+        Scope scope1 = new Scope("scope1", "Scope 1", new ArrayList<>(), "Scope 1");
+        scope1.addScopeBinding("DEFAULT", "admin");
+        scope1.addScopeBinding("DEFAULT", "manager");
+        scope1.addScopeBinding("PERMISSION", "/permission/admin");
+        Scope scope2 = new Scope("scope2", "Scope 2", new ArrayList<>(), "Scope 2");
+        scope2.addScopeBinding("PERMISSION", "/permission/admin/login");
+        Scope scope3 = new Scope("scope3", "Scope 3", new ArrayList<>(), "Scope 3");
+
+        Map<String, Scope[]> scopesOfBindingTypes =
+                OAuthScopeCachePreloader.getScopesOfBindingTypes(Arrays.asList(scope1, scope2, scope3));
+
+        assertEquals(scopesOfBindingTypes.size(), 2);
+        Scope[] defaultScopes = scopesOfBindingTypes.get("DEFAULT");
+        assertEquals(defaultScopes.length, 1);
+        assertEquals(defaultScopes[0].getName(), "scope1");
+        assertEquals(defaultScopes[0].getScopeBindings().size(), 1);
+        assertEquals(defaultScopes[0].getScopeBindings().get(0).getBindings(), Arrays.asList("admin", "manager"));
+        assertEquals(scopesOfBindingTypes.get("PERMISSION").length, 2);
+        for (Scope scope : scopesOfBindingTypes.get("PERMISSION")) {
+            for (ScopeBinding scopeBinding : scope.getScopeBindings()) {
+                assertEquals(scopeBinding.getBindingType(), "PERMISSION");
+            }
+        }
+        // The scopes of the binding types do not share the bindings of the scopes.
+        assertEquals(scope1.getScopeBindings().size(), 2);
+    }
+
+    @Test
+    public void testTenantsArePreloadedInParallel() throws Exception {
+
+        Set<Integer> preloadedTenants = ConcurrentHashMap.newKeySet();
+        AtomicInteger runningCount = new AtomicInteger();
+        AtomicInteger maxRunningCount = new AtomicInteger();
+        OAuthScopeCachePreloader preloader = new OAuthScopeCachePreloader(true, 2) {
+
+            @Override
+            void load(int tenantId) {
+
+                maxRunningCount.accumulateAndGet(runningCount.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                preloadedTenants.add(tenantId);
+                runningCount.decrementAndGet();
+            }
+        };
+        preloader.preloadAsync(Arrays.asList(1, 2, 3, 4, 5)).get(10, TimeUnit.SECONDS);
+
+        assertEquals(preloadedTenants, new HashSet<>(Arrays.asList(1, 2, 3, 4, 5)));
+        assertTrue(maxRunningCount.get() <= 2);
+        assertEquals(preloader.getPreloadedTenantCount(), 5);
+        assertEquals(preloader.getFailedTenantCount(), 0);
+        assertTrue(preloader.getMaxDurationMillis() > 0);
+        assertTrue(preloader.getTotalDurationMillis() >= preloader.getMaxDurationMillis());
+        preloader.shutdown();
+    }
+
+    @Test
+    public void testFailedPreload() {
+
+        OAuthScopeCachePreloader preloader = new OAuthScopeCachePreloader(true, 1) {
+
+            @Override
+            void load(int tenantId) throws IdentityOAuth2Exception {
+
+                throw new IdentityOAuth2Exception("Error");
+            }
+        };
+
+        assertFalse(preloader.preload(1));
+        assertEquals(preloader.getPreloadedTenantCount(), 0);
+        assertEquals(preloader.getFailedTenantCount(), 1);
+        preloader.shutdown();
+    }
+
+    @Test
+    public void testDisabledPreloader() throws Exception {
+
+        AtomicInteger loadCount = new AtomicInteger();
+        OAuthScopeCachePreloader preloader = new OAuthScopeCachePreloader(false, 1) {
+
+            @Override
+            void load(int tenantId) {
+
+                loadCount.incrementAndGet();
+            }
+        };
+        preloader.preloadAsync(Collections.singleton(1)).get(10, TimeUnit.SECONDS);
+
+        assertFalse(preloader.isEnabled());
+        assertEquals(loadCount.get(), 0);
+        preloader.shutdown();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.wso2.carbon.base.CarbonBaseConstants;
+import org.wso2.carbon.identity.oauth.cache.SpTokenExpiryTimeConfigCacheEntry;
+import org.wso2.carbon.identity.oauth2.config.SpOAuth2ExpiryTimeConfiguration;
+
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.wso2.carbon.identity.oauth2.util.OAuth2Util.APPLICATION_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS;
+import static org.wso2.carbon.identity.oauth2.util.OAuth2Util.REFRESH_TOKEN_EXP_TIME_IN_MILLISECONDS;
+import static org.wso2.carbon.identity.oauth2.util.OAuth2Util.USER_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS;
+
+/**
+ * JMH benchmark of the SP-token expiry time lookup of a client_credentials token issuance with many service
+ * providers configured, comparing the per issuance parsing of the registry resource property with
+ * OAuth2Util.parseSpTokenExpiryTimeConfig, as OAuth2Util.getSpTokenExpiryTimeConfig did before, with the lookup in
+ * the cached configurations of the tenant.
+ *
+ * The registry I/O of the per issuance parsing and the cache access of the lookup are not included. Run the main
+ * method from the module directory, with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class SpTokenExpiryTimeConfigBenchmark {
+
+    private static final int TENANT_ID = -1234;
+
+    @Param({"100", "10000"})
+    private int spCount;
+
+    private Properties resourceProperties;
+    private SpTokenExpiryTimeConfigCacheEntry expiryTimeConfigs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        // OAuth2Util reads the identity.xml of the test resources when it is loaded.
+        String carbonHome = Paths.get(System.getProperty("user.dir"), "src", "test", "resources").toString();
+        System.setProperty(CarbonBaseConstants.CARBON_HOME, carbonHome);
+
+        resourceProperties = new Properties();
+        Map<String, SpOAuth2ExpiryTimeConfiguration> configs = new HashMap<>();
+        for (int i = 0; i < spCount; i++) {
+            String consumerKey = "consumerKey" + i;
+            JSONObject spTimeObject = new JSONObject();
+            spTimeObject.put(USER_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS, 3600000L + i);
+            spTimeObject.put(APPLICATION_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS, 7200000L + i);
+            spTimeObject.put(REFRESH_TOKEN_EXP_TIME_IN_MILLISECONDS, 86400000L + i);
+            Object propertyValue = Collections.singletonList(spTimeObject.toString());
+            resourceProperties.put(consumerKey, propertyValue);
+            configs.put(consumerKey, OAuth2Util.parseSpTokenExpiryTimeConfig(consumerKey, propertyValue, TENANT_ID));
+        }
+        expiryTimeConfigs = new SpTokenExpiryTimeConfigCacheEntry(configs);
+    }
+
+    @Benchmark
+    public SpOAuth2ExpiryTimeConfiguration parsePerIssuance() {
+
+        String consumerKey = nextConsumerKey();
+        return OAuth2Util.parseSpTokenExpiryTimeConfig(consumerKey, resourceProperties.get(consumerKey), TENANT_ID);
+    }
+
+    @Benchmark
+    public SpOAuth2ExpiryTimeConfiguration inMemoryLookup() {
+
+        return expiryTimeConfigs.getExpiryTimeConfig(nextConsumerKey());
+    }
+
+    private String nextConsumerKey() {
+
+        return "consumerKey" + ThreadLocalRandom.current().nextInt(spCount);
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        Options options = new OptionsBuilder()
+                .include(SpTokenExpiryTimeConfigBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
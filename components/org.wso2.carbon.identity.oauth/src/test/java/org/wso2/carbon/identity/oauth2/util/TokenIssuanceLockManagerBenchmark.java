@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.wso2.carbon.identity.oauth2.util.TokenIssuanceLockManager.TokenIssuanceLock;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH contention benchmark comparing synchronization on an interned string, as the token issuance did before, with
+ * {@link TokenIssuanceLockManager}.
+ *
+ * Sixteen threads issue tokens concurrently for the given number of distinct client, user and scope combinations.
+ * A single combination simulates many concurrent requests of the same client, user and scope. Run the main method
+ * from the test classpath. The issued tokens/s of each implementation are reported as ops/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class TokenIssuanceLockManagerBenchmark {
+
+    private static final String CONSUMER_KEY = "consumerKey";
+    private static final String SCOPE = "openid profile";
+    private static final String TOKEN_BINDING_REFERENCE = "NONE";
+    private static final long CRITICAL_SECTION_TOKENS = 100;
+
+    @Param({"1", "64"})
+    private int users;
+
+    private final TokenIssuanceLockManager lockManager = new TokenIssuanceLockManager(1024, 0);
+
+    @Benchmark
+    public void internedString() {
+
+        String authorizedUserId = nextUserId();
+        synchronized ((CONSUMER_KEY + ":" + authorizedUserId + ":" + SCOPE + ":" + TOKEN_BINDING_REFERENCE)
+                .intern()) {
+            Blackhole.consumeCPU(CRITICAL_SECTION_TOKENS);
+        }
+    }
+
+    @Benchmark
+    public void stripedLock() throws Exception {
+
+        String authorizedUserId = nextUserId();
+        try (TokenIssuanceLock lock = lockManager.lock(CONSUMER_KEY + ":" + authorizedUserId + ":" + SCOPE + ":" +
+                TOKEN_BINDING_REFERENCE)) {
+            Blackhole.consumeCPU(CRITICAL_SECTION_TOKENS);
+        }
+    }
+
+    private String nextUserId() {
+
+        return "user" + ThreadLocalRandom.current().nextInt(users);
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        Options options = new OptionsBuilder()
+                .include(TokenIssuanceLockManagerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.util.TokenIssuanceLockManager.TokenIssuanceLock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Unit tests for TokenIssuanceLockManager.
+ */
+public class TokenIssuanceLockManagerTest {
+
+    private static final String KEY = "clientId:userId:openid:NONE";
+
+    @Test
+    public void testStripeCount() {
+
+        assertEquals(new TokenIssuanceLockManager(1000, 0).getStripeCount(), 1024);
+        assertEquals(new TokenIssuanceLockManager(0, 0).getStripeCount(), 1);
+        TokenIssuanceLockManager lockManager = new TokenIssuanceLockManager(16, 0);
+        assertEquals(lockManager.stripe(KEY), lockManager.stripe(new String(KEY.toCharArray())));
+        assertTrue(lockManager.stripe(KEY) < 16);
+    }
+
+    @Test
+    public void testLockIsReentrant() throws Exception {
+
+        TokenIssuanceLockManager lockManager = new TokenIssuanceLockManager(16, 100);
+        try (TokenIssuanceLock lock = lockManager.lock(KEY)) {
+            try (TokenIssuanceLock reentrantLock = lockManager.lock(KEY)) {
+                assertEquals(lockManager.getAcquisitionCount(), 2);
+            }
+        }
+        assertEquals(lockManager.getContentionCount(), 0);
+    }
+
+    @Test
+    public void testMutualExclusion() throws Exception {
+
+        TokenIssuanceLockManager lockManager = new TokenIssuanceLockManager(16, 0);
+        AtomicInteger holders = new AtomicInteger();
+        AtomicInteger maxHolders = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executorService.submit(() -> {
+                    for (int j = 0; j < 200; j++) {
+                        try (TokenIssuanceLock lock = lockManager.lock(KEY)) {
+                            maxHolders.accumulateAndGet(holders.incrementAndGet(), Math::max);
+                            Thread.yield();
+                            holders.decrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        assertEquals(maxHolders.get(), 1);
+        assertEquals(lockManager.getAcquisitionCount(), 1600);
+    }
+
+    @Test
+    public void testLockTimeout() throws Exception {
+
+        TokenIssuanceLockManager lockManager = new TokenIssuanceLockManager(16, 50);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            try (TokenIssuanceLock lock = lockManager.lock(KEY)) {
+                locked.countDown();
+                release.await();
+            } catch (IdentityOAuth2Exception | InterruptedException e) {
+                fail("Unexpected exception: " + e.getMessage());
+            }
+        });
+        holder.start();
+        try {
+            assertTrue(locked.await(10, TimeUnit.SECONDS));
+            try (TokenIssuanceLock lock = lockManager.lock(KEY)) {
+                fail("The lock was acquired while held by another thread.");
+            } catch (IdentityOAuth2Exception e) {
+                assertTrue(e.getMessage().contains("Timed out"));
+            }
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+
+        assertEquals(lockManager.getContentionCount(), 1);
+        assertEquals(lockManager.getTimeoutCount(), 1);
+        assertTrue(lockManager.getMaxWaitTimeNanos() >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.validators;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing the nested loop permission check of JDBCPermissionBasedInternalScopeValidator, as it was
+ * before, with {@link ScopePermissionIndex}, for a SYSTEM scope request.
+ *
+ * The tenant has the given number of permission bound scopes and the user is allowed half of the given number of
+ * permissions, which is in the range of a management console user. Run the main method from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScopePermissionIndexBenchmark {
+
+    @Param({"100", "400"})
+    private int scopeCount;
+
+    @Param({"200", "600"})
+    private int permissionCount;
+
+    private List<org.wso2.carbon.identity.oauth2.bean.Scope> scopes;
+    private String[] userPermissions;
+    private ScopePermissionIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        Random random = new Random(42);
+        scopes = ScopePermissionIndexTest.buildScopes(random, scopeCount, permissionCount);
+        List<String> permissions = ScopePermissionIndexTest.buildPermissions(permissionCount);
+        // The admin root permission is left out, as the validator allows the admin scopes without the index for it.
+        userPermissions = permissions.subList(1, permissions.size() / 2).toArray(new String[0]);
+        index = new ScopePermissionIndex(scopes, scopes);
+    }
+
+    @Benchmark
+    public List<org.wso2.carbon.identity.oauth2.bean.Scope> nestedLoops() {
+
+        return ScopePermissionIndexTest.legacyAllowedScopes(scopes, userPermissions, null);
+    }
+
+    @Benchmark
+    public List<org.wso2.carbon.identity.oauth2.bean.Scope> permissionIndex() {
+
+        return index.getAllowedScopes(userPermissions, null);
+    }
+
+    @Benchmark
+    public ScopePermissionIndex buildIndex() {
+
+        return new ScopePermissionIndex(scopes, scopes);
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        Options options = new OptionsBuilder()
+                .include(ScopePermissionIndexBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
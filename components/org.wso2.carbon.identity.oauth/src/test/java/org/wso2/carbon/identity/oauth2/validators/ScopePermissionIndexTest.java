@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.validators;
+
+import org.apache.commons.lang.ArrayUtils;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth2.bean.Scope;
+import org.wso2.carbon.identity.oauth2.bean.ScopeBinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for ScopePermissionIndex.
+ */
+public class ScopePermissionIndexTest {
+
+    private static final String PERMISSION_BINDING_TYPE = "PERMISSION";
+
+    @DataProvider(name = "permissionData")
+    public Object[][] permissionData() {
+
+        return new Object[][]{
+                // Permissions, expected allowed scopes.
+                {new String[]{"/permission/admin/manage/identity/usermgt"}, new String[]{"users", "no_binding"}},
+                {new String[]{"/permission/admin/manage/identity"}, new String[]{"users", "groups", "no_binding"}},
+                {new String[]{"/permission/admin/manage/identity/usermgt/view"}, new String[]{"no_binding"}},
+                {new String[]{"/permission/admin/manage/identity/user"}, new String[]{"no_binding"}},
+                {new String[]{"/permission/admin/manage/identity/usermgt", "/permission/admin/manage/identity/groupmgt",
+                        "everyone_permission"}, new String[]{"users", "groups", "everyone", "no_binding"}},
+                {new String[]{"/permission/admin/manage/identity/"}, new String[]{"no_binding"}},
+                {new String[0], new String[]{"no_binding"}},
+                {null, new String[]{"no_binding"}},
+        };
+    }
+
+    @Test(dataProvider = "permissionData")
+    public void testGetAllowedScopes(String[] permissions, String[] expectedScopes) {
+
+        List<Scope> scopes = Arrays.asList(
+                buildScope("users", "/permission/admin/manage/identity/usermgt"),
+                buildScope("groups", "/permission/admin/manage/identity/usermgt",
+                        "/permission/admin/manage/identity/groupmgt"),
+                buildScope("everyone", "everyone_permission"),
+                new Scope("no_binding", "no_binding", Collections.singletonList(
+                        new ScopeBinding("DEFAULT", Collections.singletonList("role"))), "description"));
+        ScopePermissionIndex index = new ScopePermissionIndex(scopes, scopes);
+
+        Set<String> allowedScopes = getNames(index.getAllowedScopes(permissions, null));
+        assertEquals(allowedScopes, new HashSet<>(Arrays.asList(expectedScopes)));
+        assertEquals(allowedScopes, getNames(legacyAllowedScopes(scopes, permissions, null)));
+    }
+
+    @Test
+    public void testRequestedScopesAreFiltered() {
+
+        List<Scope> scopes = Arrays.asList(buildScope("users", "/permission/admin/manage/identity/usermgt"),
+                buildScope("groups", "/permission/admin/manage/identity/groupmgt"));
+        ScopePermissionIndex index = new ScopePermissionIndex(scopes, scopes);
+
+        List<Scope> allowedScopes = index.getAllowedScopes(new String[]{"/permission/admin/manage/identity"},
+                Collections.singleton("groups"));
+        assertEquals(getNames(allowedScopes), Collections.singleton("groups"));
+    }
+
+    @Test
+    public void testIsBuiltFrom() {
+
+        List<Scope> scopes = Collections.singletonList(buildScope("users", "/permission/admin"));
+        ScopePermissionIndex index = new ScopePermissionIndex(scopes, scopes);
+
+        assertTrue(index.isBuiltFrom(scopes));
+        assertFalse(index.isBuiltFrom(new ArrayList<>(scopes)));
+        assertEquals(index.getAllScopes().size(), 1);
+    }
+
+    @Test
+    public void testMatchesLegacyValidation() {
+
+        Random random = new Random(42);
+        List<Scope> scopes = buildScopes(random, 200, 300);
+        List<String> permissions = buildPermissions(300);
+        ScopePermissionIndex index = new ScopePermissionIndex(scopes, scopes);
+
+        for (int i = 0; i < 50; i++) {
+            Collections.shuffle(permissions, random);
+            String[] userPermissions = permissions.subList(0, random.nextInt(permissions.size()))
+                    .toArray(new String[0]);
+            assertEquals(getNames(index.getAllowedScopes(userPermissions, null)),
+                    getNames(legacyAllowedScopes(scopes, userPermissions, null)));
+        }
+    }
+
+    /**
+     * Resolve the allowed scopes as JDBCPermissionBasedInternalScopeValidator did before the index.
+     */
+    static List<Scope> legacyAllowedScopes(Collection<Scope> allScopes, String[] permissions,
+                                           String[] requestedScopes) {
+
+        List<Scope> userAllowedScopes = new ArrayList<>();
+        String[] allowedUIResourcesForUser = permissions == null ? new String[0] : permissions;
+        for (Scope scope : allScopes) {
+            if (requestedScopes != null && !ArrayUtils.contains(requestedScopes, scope.getName())) {
+                continue;
+            }
+            boolean isScopeAllowed = true;
+            for (ScopeBinding scopeBinding : scope.getScopeBindings()) {
+                if (PERMISSION_BINDING_TYPE.equalsIgnoreCase(scopeBinding.getBindingType())) {
+                    for (String binding : scopeBinding.getBindings()) {
+                        boolean isAllowed = false;
+                        for (String allowedScope : allowedUIResourcesForUser) {
+                            if ((binding + "/").startsWith(allowedScope + "/")) {
+                                isAllowed = true;
+                                break;
+                            }
+                        }
+                        if (!isAllowed) {
+                            isScopeAllowed = false;
+                            break;
+                        }
+                    }
+                }
+            }
+            if (isScopeAllowed) {
+                userAllowedScopes.add(scope);
+            }
+        }
+        return userAllowedScopes;
+    }
+
+    /**
+     * Build scopes bound to one to three permissions of a permission tree like the one of the management console.
+     */
+    static List<Scope> buildScopes(Random random, int scopeCount, int permissionCount) {
+
+        List<String> permissions = buildPermissions(permissionCount);
+        List<Scope> scopes = new ArrayList<>();
+        for (int i = 0; i < scopeCount; i++) {
+            String[] bindings = new String[1 + random.nextInt(3)];
+            for (int j = 0; j < bindings.length; j++) {
+                bindings[j] = permissions.get(random.nextInt(permissions.size()));
+            }
+            scopes.add(buildScope("internal_scope_" + i, bindings));
+        }
+        return scopes;
+    }
+
+    static List<String> buildPermissions(int permissionCount) {
+
+        List<String> permissions = new ArrayList<>();
+        permissions.add("/permission/admin");
+        for (int i = 0; permissions.size() < permissionCount; i++) {
+            String module = "/permission/admin/manage/module" + i;
+            permissions.add(module);
+            for (int j = 0; j < 5 && permissions.size() < permissionCount; j++) {
+                permissions.add(module + "/resource" + j);
+                permissions.add(module + "/resource" + j + "/view");
+                permissions.add(module + "/resource" + j + "/update");
+            }
+        }
+        return permissions;
+    }
+
+    private static Scope buildScope(String name, String... bindings) {
+
+        return new Scope(name, name, Collections.singletonList(new ScopeBinding(PERMISSION_BINDING_TYPE,
+                Arrays.asList(bindings))), "description");
+    }
+
+    private static Set<String> getNames(List<Scope> scopes) {
+
+        return scopes.stream().map(Scope::getName).collect(Collectors.toSet());
+    }
+}
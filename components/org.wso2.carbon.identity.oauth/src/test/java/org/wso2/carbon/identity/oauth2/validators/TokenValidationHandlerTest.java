@@ -25,6 +25,7 @@ import org.mockito.Mockito;
 import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.testng.PowerMockTestCase;
+import org.powermock.reflect.Whitebox;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -43,7 +44,10 @@ import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
 import org.wso2.carbon.identity.oauth.dao.OAuthAppDO;
 import org.wso2.carbon.identity.oauth.internal.OAuthComponentServiceHolder;
 import org.wso2.carbon.identity.oauth.tokenprocessor.PlainTextPersistenceProcessor;
+import org.wso2.carbon.identity.oauth2.dao.AccessTokenDAO;
+import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2ClientApplicationDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2IntrospectionResponseDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationRequestDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationResponseDTO;
 import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
@@ -51,6 +55,7 @@ import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 import org.wso2.carbon.identity.oauth2.token.JWTTokenIssuer;
 import org.wso2.carbon.identity.oauth2.token.OauthTokenIssuer;
 import org.wso2.carbon.identity.oauth2.token.OauthTokenIssuerImpl;
+import org.wso2.carbon.identity.oauth2.util.AccessTokenPrefetchContext;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.openidconnect.util.TestUtils;
 import org.wso2.carbon.user.api.RealmConfiguration;
@@ -59,13 +64,29 @@ import org.wso2.carbon.user.core.tenant.TenantManager;
 
 import java.sql.Connection;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.doAnswer;
 import static org.powermock.api.mockito.PowerMockito.doReturn;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
 
 @WithCarbonHome
 @WithAxisConfiguration
@@ -87,6 +108,7 @@ public class TokenValidationHandlerTest extends PowerMockTestCase {
     private static final String JWT_TOKEN_TYPE = "JWT";
     private static final String DB_NAME = "jdbc/WSO2IdentityDB";
     private static final String H2_SCRIPT_NAME = "token.sql";
+    private static final String JWT_ACCESS_TOKEN = "eyJhbGciOiJub25lIn0.eyJzdWIiOiJhZG1pbiJ9.";
     private Connection conn = null;
 
     @Mock
@@ -113,6 +135,7 @@ public class TokenValidationHandlerTest extends PowerMockTestCase {
         validityPeriodInMillis = 3600000L;
         refreshTokenValidityPeriodInMillis = 3600000L;
         tokenValidationHandler = TokenValidationHandler.getInstance();
+        when(tokenValidator.isApplicable(Mockito.any(OAuth2TokenValidationMessageContext.class))).thenReturn(true);
         tokenValidationHandler.addTokenValidator("test", tokenValidator);
         mockStatic(LoggerUtils.class);
         when(LoggerUtils.isDiagnosticLogsEnabled()).thenReturn(true);
@@ -207,6 +230,172 @@ public class TokenValidationHandlerTest extends PowerMockTestCase {
         assertNotNull(tokenValidationHandler.buildIntrospectionResponse(oAuth2TokenValidationRequestDTO));
     }
 
+    @Test
+    public void testValidatorChains() {
+
+        OAuth2TokenValidator bearerValidator = new DefaultOAuth2TokenValidator();
+        OAuth2TokenValidator refreshValidator = new RefreshTokenValidator();
+        Map<String, OAuth2TokenValidator> validators = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        validators.put(DefaultOAuth2TokenValidator.TOKEN_TYPE, bearerValidator);
+        validators.put(RefreshTokenValidator.TOKEN_TYPE, refreshValidator);
+        TokenValidationHandler.ValidatorChains chains = new TokenValidationHandler.ValidatorChains(validators);
+
+        List<OAuth2TokenValidator> hinted = chains.getValidators(RefreshTokenValidator.TOKEN_TYPE.toUpperCase(),
+                false);
+        assertEquals(hinted.size(), 2);
+        assertSame(hinted.get(0), refreshValidator);
+        assertSame(hinted.get(1), bearerValidator);
+
+        assertEquals(chains.getValidators(null, false).size(), 2);
+        assertSame(chains.getValidators("unknown", false), chains.getValidators(null, false));
+
+        List<OAuth2TokenValidator> jwtChain = chains.getValidators(DefaultOAuth2TokenValidator.TOKEN_TYPE, true);
+        assertEquals(jwtChain.size(), 1);
+        assertSame(jwtChain.get(0), refreshValidator);
+    }
+
+    @Test
+    public void testInapplicableValidatorIsSkipped() throws Exception {
+
+        OAuth2TokenValidator jwtValidator = new OAuth2JWTTokenValidator();
+        assertFalse(jwtValidator.isApplicable(new OAuth2TokenValidationMessageContext(
+                getValidationRequest("opaqueToken"), new OAuth2TokenValidationResponseDTO())));
+        assertTrue(jwtValidator.isApplicable(new OAuth2TokenValidationMessageContext(
+                getValidationRequest(JWT_ACCESS_TOKEN), new OAuth2TokenValidationResponseDTO())));
+
+        OAuth2TokenValidator inapplicableValidator = Mockito.mock(OAuth2TokenValidator.class);
+        when(inapplicableValidator.isApplicable(Mockito.any(OAuth2TokenValidationMessageContext.class)))
+                .thenReturn(false);
+        Object validatorChains = Whitebox.getInternalState(tokenValidationHandler, "validatorChains");
+        try {
+            Whitebox.setInternalState(tokenValidationHandler, "validatorChains", new TokenValidationHandler
+                    .ValidatorChains(Collections.singletonMap("test", inapplicableValidator)));
+
+            OAuth2IntrospectionResponseDTO response = tokenValidationHandler.buildIntrospectionResponse(
+                    getValidationRequest("opaqueToken"));
+            assertFalse(response.isActive());
+            assertEquals(response.getError(), "Token validation failed");
+            verify(inapplicableValidator, never())
+                    .validateAccessToken(Mockito.any(OAuth2TokenValidationMessageContext.class));
+        } finally {
+            Whitebox.setInternalState(tokenValidationHandler, "validatorChains", validatorChains);
+        }
+    }
+
+    @Test
+    public void testValidatorMetrics() {
+
+        TokenValidatorMetrics metrics = new TokenValidatorMetrics();
+        metrics.record("validator", 100, false);
+        metrics.record("validator", 300, true);
+
+        assertEquals(metrics.getInvocationCount("validator"), 2);
+        assertEquals(metrics.getActiveTokenCount("validator"), 1);
+        assertEquals(metrics.getTotalTimeNanos("validator"), 400);
+        assertEquals(metrics.getMaxTimeNanos("validator"), 300);
+        assertEquals(metrics.getAverageTimeNanos("validator"), 200);
+        assertEquals(metrics.getInvocationCount("unknown"), 0);
+
+        metrics.reset();
+        assertEquals(metrics.getValidatorNames().size(), 0);
+    }
+
+    @Test
+    public void testBuildIntrospectionResponses() throws Exception {
+
+        AccessTokenDAO accessTokenDAO = Mockito.mock(AccessTokenDAO.class);
+        when(accessTokenDAO.getAccessTokens(Mockito.anyCollectionOf(String.class)))
+                .thenReturn(new HashMap<String, AccessTokenDO>());
+        List<Boolean> prefetched = new ArrayList<>();
+        doAnswer(invocation -> {
+            OAuth2TokenValidationMessageContext messageContext =
+                    (OAuth2TokenValidationMessageContext) invocation.getArguments()[0];
+            prefetched.add(AccessTokenPrefetchContext.isPrefetched(
+                    messageContext.getRequestDTO().getAccessToken().getIdentifier()));
+            return false;
+        }).when(tokenValidator).validateAccessToken(Mockito.any(OAuth2TokenValidationMessageContext.class));
+
+        Object tokenDAO = Whitebox.getInternalState(OAuthTokenPersistenceFactory.getInstance(), "tokenDAO");
+        Object validatorChains = Whitebox.getInternalState(tokenValidationHandler, "validatorChains");
+        try {
+            Whitebox.setInternalState(OAuthTokenPersistenceFactory.getInstance(), "tokenDAO", accessTokenDAO);
+            Whitebox.setInternalState(tokenValidationHandler, "validatorChains", new TokenValidationHandler
+                    .ValidatorChains(Collections.singletonMap("test", tokenValidator)));
+
+            List<OAuth2IntrospectionResponseDTO> responses = tokenValidationHandler.buildIntrospectionResponses(
+                    Arrays.asList(new OAuth2TokenValidationRequestDTO(), getValidationRequest("opaqueToken1"),
+                            getValidationRequest("opaqueToken2")));
+
+            assertEquals(responses.size(), 3);
+            assertEquals(responses.get(0).getError(), "Access token is not present in the validation request");
+            assertEquals(responses.get(1).getError(), "Token validation failed");
+            assertEquals(responses.get(2).getError(), "Token validation failed");
+            // The opaque tokens of the batch are retrieved with a single lookup, ahead of their validation.
+            verify(accessTokenDAO, times(1)).getAccessTokens(
+                    new LinkedHashSet<>(Arrays.asList("opaqueToken1", "opaqueToken2")));
+            assertEquals(prefetched, Arrays.asList(true, true));
+            assertFalse(AccessTokenPrefetchContext.isPrefetched("opaqueToken1"));
+        } finally {
+            Whitebox.setInternalState(OAuthTokenPersistenceFactory.getInstance(), "tokenDAO", tokenDAO);
+            Whitebox.setInternalState(tokenValidationHandler, "validatorChains", validatorChains);
+        }
+    }
+
+    @Test
+    public void testBuildIntrospectionResponsesOfJWTTokens() throws Exception {
+
+        Set<String> threadNames = Collections.synchronizedSet(new HashSet<>());
+        doAnswer(invocation -> {
+            threadNames.add(Thread.currentThread().getName());
+            return false;
+        }).when(tokenValidator).validateAccessToken(Mockito.any(OAuth2TokenValidationMessageContext.class));
+        Map<String, Object> configuration = new HashMap<>();
+        configuration.put("OAuth.EnableJWTTokenValidationDuringIntrospection", "true");
+        configuration.put("OAuth.BulkIntrospection.PoolSize", "2");
+        PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain("carbon.super");
+        when(realmService.getTenantManager()).thenReturn(tenantManager);
+        doReturn(MultitenantConstants.SUPER_TENANT_ID).when(tenantManager).getTenantId(Mockito.anyString());
+        OAuthComponentServiceHolder.getInstance().setRealmService(realmService);
+        IdentityTenantUtil.setRealmService(realmService);
+
+        Object validatorChains = Whitebox.getInternalState(tokenValidationHandler, "validatorChains");
+        try {
+            Whitebox.setInternalState(IdentityUtil.class, "configuration", configuration);
+            Whitebox.setInternalState(tokenValidationHandler, "validatorChains", new TokenValidationHandler
+                    .ValidatorChains(Collections.singletonMap("test", tokenValidator)));
+
+            List<OAuth2IntrospectionResponseDTO> responses = tokenValidationHandler.buildIntrospectionResponses(
+                    Arrays.asList(getValidationRequest(JWT_ACCESS_TOKEN), getValidationRequest(JWT_ACCESS_TOKEN)));
+            assertEquals(responses.size(), 2);
+            assertEquals(responses.get(1).getError(), "Token validation failed");
+            for (String threadName : threadNames) {
+                assertTrue(threadName.startsWith("BulkTokenIntrospection-"));
+            }
+
+            // The JWT tokens are introspected on a new pool once the pool is shut down.
+            tokenValidationHandler.shutdown();
+            threadNames.clear();
+            responses = tokenValidationHandler.buildIntrospectionResponses(
+                    Arrays.asList(getValidationRequest(JWT_ACCESS_TOKEN), getValidationRequest(JWT_ACCESS_TOKEN)));
+            assertEquals(responses.size(), 2);
+            assertFalse(threadNames.isEmpty());
+        } finally {
+            tokenValidationHandler.shutdown();
+            Whitebox.setInternalState(IdentityUtil.class, "configuration", new HashMap<>());
+            Whitebox.setInternalState(tokenValidationHandler, "validatorChains", validatorChains);
+        }
+    }
+
+    private OAuth2TokenValidationRequestDTO getValidationRequest(String accessTokenIdentifier) {
+
+        OAuth2TokenValidationRequestDTO validationRequest = new OAuth2TokenValidationRequestDTO();
+        OAuth2TokenValidationRequestDTO.OAuth2AccessToken accessToken = validationRequest.new OAuth2AccessToken();
+        accessToken.setIdentifier(accessTokenIdentifier);
+        accessToken.setTokenType("test");
+        validationRequest.setAccessToken(accessToken);
+        return validationRequest;
+    }
+
     protected void mockRequiredObjects() throws Exception {
 
         mockStatic(OAuthServerConfiguration.class);
@@ -46,22 +46,19 @@ import org.wso2.carbon.identity.openidconnect.cache.OIDCScopeClaimCache;
 import org.wso2.carbon.identity.openidconnect.cache.OIDCScopeClaimCacheEntry;
 import org.wso2.carbon.identity.openidconnect.dao.ScopeClaimMappingDAOImpl;
 import org.wso2.carbon.identity.openidconnect.internal.OpenIDConnectServiceComponentHolder;
+import org.wso2.carbon.identity.openidconnect.model.OIDCScopeClaimIndex;
 import org.wso2.carbon.identity.openidconnect.model.RequestedClaim;
-import org.wso2.carbon.registry.core.Resource;
-import org.wso2.carbon.registry.core.ResourceImpl;
-import org.wso2.carbon.registry.core.service.RegistryService;
-import org.wso2.carbon.registry.core.session.UserRegistry;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Properties;
 import java.util.Set;
 
 import static org.mockito.Matchers.any;
-import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
 import static org.wso2.carbon.utils.multitenancy.MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
 
@@ -81,7 +78,6 @@ public class OpenIDConnectClaimFilterImplTest extends PowerMockito {
     private Set<String> requestedScopes;
     private List  scopeDTOList;
     private Map<String, Object> claims;
-    private Resource resource;
 
     @BeforeClass
     public void setUp() throws Exception {
@@ -102,13 +98,6 @@ public class OpenIDConnectClaimFilterImplTest extends PowerMockito {
                 .setClaimMetadataManagementService(claimMetadataManagementService);
         OpenIDConnectServiceComponentHolder.getInstance().setSsoConsentService(ssoConsentService);
 
-        RegistryService registryService = mock(RegistryService.class);
-        UserRegistry userRegistry = mock(UserRegistry.class);
-        resource = new ResourceImpl();
-        OAuth2ServiceComponentHolder.setRegistryService(registryService);
-        when(registryService.getConfigSystemRegistry(anyInt())).thenReturn(userRegistry);
-        when(userRegistry.get(anyString())).thenReturn(resource);
-
         List externalClaims = new ArrayList<>();
         ExternalClaim externalClaim = new ExternalClaim("testUserClaimURI",
                 "testUserClaimURI", "testUserClaimURI");
@@ -260,26 +249,41 @@ public class OpenIDConnectClaimFilterImplTest extends PowerMockito {
     }
 
     @Test
-    public void testGetOIDCScopeProperties() throws Exception {
-
-        resource.setProperty("key", "value");
-        resource.setProperty("key1", "value1");
-        Properties properties = WhiteboxImpl.invokeMethod(openIDConnectClaimFilter, "getOIDCScopeProperties",
-                SUPER_TENANT_DOMAIN_NAME);
-        Assert.assertEquals(properties.getProperty("key"), "value");
-        Assert.assertEquals(properties.getProperty("key1"), "value1");
+    public void testGetOIDCScopeClaimIndex() throws Exception {
+
+        OIDCScopeClaimCacheEntry oidcScopeClaimCacheEntry = new OIDCScopeClaimCacheEntry();
+        oidcScopeClaimCacheEntry.setScopeClaimMapping(getScopeDTOList());
+        OIDCScopeClaimCache.getInstance().addScopeClaimMap(-1234, oidcScopeClaimCacheEntry);
+
+        OIDCScopeClaimIndex index = WhiteboxImpl.invokeMethod(openIDConnectClaimFilter, "getOIDCScopeClaimIndex",
+                SP_TENANT_DOMAIN);
+        Assert.assertEquals(index.getClaimUris("email"), Arrays.asList("claim1", "claim2"));
+        Assert.assertEquals(index.getClaimUris("address"), Collections.singletonList("claim3"));
+        Assert.assertFalse(index.hasScope("phone"));
+        // The index is kept with the cached mapping, so it is not rebuilt for each call.
+        Assert.assertSame(WhiteboxImpl.invokeMethod(openIDConnectClaimFilter, "getOIDCScopeClaimIndex",
+                SP_TENANT_DOMAIN), index);
     }
 
     @Test
-    public void testGetOIDCScopePropertiesWithException() throws Exception {
-
-        resource.setProperty("key", "value");
-        resource.setProperty("key1", "value1");
-        Properties expectedNullProperty = new Properties();
-        OAuth2ServiceComponentHolder.setRegistryService(null);
-        Properties properties = WhiteboxImpl.invokeMethod(openIDConnectClaimFilter, "getOIDCScopeProperties",
-                SUPER_TENANT_DOMAIN_NAME);
-        Assert.assertEquals(properties, expectedNullProperty);
+    public void testGetOIDCScopeClaimIndexAfterMappingUpdate() throws Exception {
+
+        OIDCScopeClaimCacheEntry oidcScopeClaimCacheEntry = new OIDCScopeClaimCacheEntry();
+        oidcScopeClaimCacheEntry.setScopeClaimMapping(getScopeDTOList());
+        OIDCScopeClaimCache.getInstance().addScopeClaimMap(-1234, oidcScopeClaimCacheEntry);
+        OIDCScopeClaimIndex index = WhiteboxImpl.invokeMethod(openIDConnectClaimFilter, "getOIDCScopeClaimIndex",
+                SP_TENANT_DOMAIN);
+
+        List<ScopeDTO> updatedScopes = getScopeDTOList();
+        updatedScopes.get(0).setClaim(new String[]{"claim1"});
+        OIDCScopeClaimCacheEntry updatedCacheEntry = new OIDCScopeClaimCacheEntry();
+        updatedCacheEntry.setScopeClaimMapping(updatedScopes);
+        OIDCScopeClaimCache.getInstance().addScopeClaimMap(-1234, updatedCacheEntry);
+
+        OIDCScopeClaimIndex updatedIndex = WhiteboxImpl.invokeMethod(openIDConnectClaimFilter,
+                "getOIDCScopeClaimIndex", SP_TENANT_DOMAIN);
+        Assert.assertNotSame(updatedIndex, index);
+        Assert.assertEquals(updatedIndex.getClaimUris("email"), Collections.singletonList("claim1"));
     }
 
     @Test
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.openidconnect;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth2.authz.OAuthAuthzReqMessageContext;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2AccessTokenReqDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2AuthorizeReqDTO;
+import org.wso2.carbon.identity.oauth2.token.OAuthTokenReqMessageContext;
+import org.wso2.carbon.identity.openidconnect.UserClaimsResolutionContext.Section;
+import org.wso2.carbon.identity.openidconnect.UserClaimsResolutionContextManager.Lifetime;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+/**
+ * Unit tests for UserClaimsResolutionContextManager and UserClaimsResolutionContext.
+ */
+public class UserClaimsResolutionContextManagerTest {
+
+    private static final String USER_KEY = UserClaimsResolutionContext.getUserKey("carbon.super", "userId", "admin");
+    private static final String EMAIL_CLAIM = "http://wso2.org/claims/emailaddress";
+    private static final String COUNTRY_CLAIM = "http://wso2.org/claims/country";
+    private static final String ROLE_CLAIM = "http://wso2.org/claims/role";
+
+    @Test
+    public void testContextIsSharedWithinRequest() {
+
+        UserClaimsResolutionContextManager manager = new UserClaimsResolutionContextManager(Lifetime.REQUEST,
+                60000, 10);
+        OAuthTokenReqMessageContext tokenReqMessageContext =
+                new OAuthTokenReqMessageContext(new OAuth2AccessTokenReqDTO());
+        UserClaimsResolutionContext context = manager.getContext(tokenReqMessageContext);
+        assertSame(manager.getContext(tokenReqMessageContext), context);
+        assertNotSame(manager.getContext(new OAuthTokenReqMessageContext(new OAuth2AccessTokenReqDTO())), context);
+
+        OAuthAuthzReqMessageContext authzReqMessageContext =
+                new OAuthAuthzReqMessageContext(new OAuth2AuthorizeReqDTO());
+        assertSame(manager.getContext(authzReqMessageContext), manager.getContext(authzReqMessageContext));
+
+        // The context is not kept against the token with the request lifetime.
+        manager.bindToToken("token", context);
+        assertNull(manager.getContextOfToken("token"));
+        assertEquals(manager.size(), 0);
+    }
+
+    @Test
+    public void testContextIsNotSharedWithoutLifetime() {
+
+        UserClaimsResolutionContextManager manager = new UserClaimsResolutionContextManager(Lifetime.NONE,
+                60000, 10);
+        OAuthTokenReqMessageContext tokenReqMessageContext =
+                new OAuthTokenReqMessageContext(new OAuth2AccessTokenReqDTO());
+        assertNotSame(manager.getContext(tokenReqMessageContext), manager.getContext(tokenReqMessageContext));
+    }
+
+    @Test
+    public void testContextOfToken() throws Exception {
+
+        UserClaimsResolutionContextManager manager = new UserClaimsResolutionContextManager(Lifetime.TOKEN,
+                60000, 1);
+        UserClaimsResolutionContext context =
+                manager.getContext(new OAuthTokenReqMessageContext(new OAuth2AccessTokenReqDTO()));
+        manager.bindToToken("token", context);
+        assertSame(manager.getContextOfToken("token"), context);
+        assertNull(manager.getContextOfToken("otherToken"));
+        assertNull(manager.getContextOfToken(null));
+
+        // The contexts are bounded by the capacity.
+        manager.bindToToken("otherToken", context);
+        assertNull(manager.getContextOfToken("otherToken"));
+        assertEquals(manager.size(), 1);
+
+        UserClaimsResolutionContextManager timedOutManager = new UserClaimsResolutionContextManager(Lifetime.TOKEN,
+                0, 10);
+        timedOutManager.bindToToken("token", context);
+        assertNull(timedOutManager.getContextOfToken("token"));
+        assertEquals(timedOutManager.size(), 0);
+    }
+
+    @Test
+    public void testMemoizedValues() {
+
+        UserClaimsResolutionContextManager manager = new UserClaimsResolutionContextManager(Lifetime.REQUEST,
+                60000, 10);
+        UserClaimsResolutionContext context =
+                manager.getContext(new OAuthTokenReqMessageContext(new OAuth2AccessTokenReqDTO()));
+        String serviceProviderKey = UserClaimsResolutionContext.getServiceProviderKey("clientId", "carbon.super");
+
+        assertNull(context.get(Section.SERVICE_PROVIDER, serviceProviderKey));
+        context.put(Section.SERVICE_PROVIDER, serviceProviderKey, "serviceProvider");
+        assertEquals(context.get(Section.SERVICE_PROVIDER, serviceProviderKey), "serviceProvider");
+        assertNull(context.get(Section.USER_REALM, serviceProviderKey));
+
+        // Null values are not memoized.
+        context.put(Section.USER_REALM, "carbon.super", null);
+        assertNull(context.get(Section.USER_REALM, "carbon.super"));
+
+        assertEquals(manager.getHitCount(Section.SERVICE_PROVIDER), 1);
+        assertEquals(manager.getMissCount(Section.SERVICE_PROVIDER), 1);
+        assertEquals(manager.getMissCount(Section.USER_REALM), 2);
+    }
+
+    @Test
+    public void testUserClaimsOfSubsetOfClaimUris() {
+
+        UserClaimsResolutionContextManager manager = new UserClaimsResolutionContextManager(Lifetime.REQUEST,
+                60000, 10);
+        UserClaimsResolutionContext context =
+                manager.getContext(new OAuthTokenReqMessageContext(new OAuth2AccessTokenReqDTO()));
+        assertNull(context.getUserClaims(USER_KEY, Collections.singletonList(EMAIL_CLAIM)));
+
+        Map<String, String> claimValues = new HashMap<>();
+        claimValues.put(EMAIL_CLAIM, "admin@wso2.com");
+        claimValues.put(ROLE_CLAIM, "admin");
+        context.putUserClaims(USER_KEY, Arrays.asList(EMAIL_CLAIM, COUNTRY_CLAIM, ROLE_CLAIM), claimValues);
+        // The claims read are not changed when the caller changes its map.
+        claimValues.put(ROLE_CLAIM, "spRole");
+
+        Map<String, String> userClaims = context.getUserClaims(USER_KEY, Arrays.asList(EMAIL_CLAIM, COUNTRY_CLAIM));
+        assertEquals(userClaims, Collections.singletonMap(EMAIL_CLAIM, "admin@wso2.com"));
+        assertEquals(context.getUserClaims(USER_KEY, Collections.singletonList(ROLE_CLAIM)),
+                Collections.singletonMap(ROLE_CLAIM, "admin"));
+        assertNull(context.getUserClaims(USER_KEY, Arrays.asList(EMAIL_CLAIM, "http://wso2.org/claims/mobile")));
+        assertNull(context.getUserClaims(UserClaimsResolutionContext.getUserKey("carbon.super", null, "admin"),
+                Collections.singletonList(EMAIL_CLAIM)));
+
+        assertEquals(manager.getHitCount(Section.USER_CLAIMS), 2);
+        assertEquals(manager.getMissCount(Section.USER_CLAIMS), 3);
+    }
+}
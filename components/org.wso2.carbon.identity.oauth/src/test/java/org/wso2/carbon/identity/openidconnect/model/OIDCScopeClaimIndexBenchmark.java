@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.openidconnect.model;
+
+import org.apache.commons.lang.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.wso2.carbon.identity.oauth.dto.ScopeDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the scope based filtering of the claims of an ID token, comparing the scope claim map built from
+ * the cached scopes on each call, as OpenIDConnectClaimFilterImpl did before, with {@link OIDCScopeClaimIndex}.
+ *
+ * The tenant has the default OIDC scopes and the given number of custom scopes, and the token request asks for the
+ * openid, profile, email, address and phone scopes. Run the main method from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OIDCScopeClaimIndexBenchmark {
+
+    private static final String ADDRESS_PREFIX = "address.";
+    private static final String[] REQUESTED_SCOPES = {"openid", "profile", "email", "address", "phone"};
+
+    @Param({"0", "50"})
+    private int customScopeCount;
+
+    private List<ScopeDTO> scopes;
+    private OIDCScopeClaimIndex index;
+    private Map<String, Object> userClaims;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        scopes = new ArrayList<>();
+        scopes.add(new ScopeDTO("openid", "openid", null, new String[]{"sub"}));
+        scopes.add(new ScopeDTO("profile", "profile", null, new String[]{"name", "family_name", "given_name",
+                "middle_name", "nickname", "preferred_username", "profile", "picture", "website", "gender",
+                "birthdate", "zoneinfo", "locale", "updated_at"}));
+        scopes.add(new ScopeDTO("email", "email", null, new String[]{"email", "email_verified"}));
+        scopes.add(new ScopeDTO("address", "address", null, new String[]{"street_address", "locality", "region",
+                "postal_code", "country", "formatted"}));
+        scopes.add(new ScopeDTO("phone", "phone", null, new String[]{"phone_number", "phone_number_verified"}));
+        for (int i = 0; i < customScopeCount; i++) {
+            scopes.add(new ScopeDTO("custom" + i, "custom" + i, null, new String[]{"claim" + i, "claim" + (i + 1)}));
+        }
+        index = new OIDCScopeClaimIndex(scopes);
+
+        userClaims = new HashMap<>();
+        for (String claimUri : Arrays.asList("sub", "name", "family_name", "given_name", "nickname", "email",
+                "email_verified", "country", "locality", "phone_number", "claim1", "claim2")) {
+            userClaims.put(claimUri, claimUri + "-value");
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> scopeClaimMapPerCall() {
+
+        Map<String, List<String>> scopeClaimsMap = new HashMap<>();
+        for (ScopeDTO scope : scopes) {
+            scopeClaimsMap.put(scope.getName(), Arrays.asList(scope.getClaim()));
+        }
+        List<String> addressScopeClaimUris = scopeClaimsMap.containsKey("address") ? scopeClaimsMap.get("address") :
+                new ArrayList<>();
+        Map<String, Object> claims = new HashMap<>();
+        Map<String, Object> addressClaims = new HashMap<>();
+        for (String requestedScope : REQUESTED_SCOPES) {
+            if (scopeClaimsMap.containsKey(requestedScope)) {
+                for (String scopeClaim : scopeClaimsMap.get(requestedScope)) {
+                    boolean isAddressClaim = StringUtils.startsWith(scopeClaim, ADDRESS_PREFIX) ||
+                            addressScopeClaimUris.contains(scopeClaim);
+                    filterClaim(scopeClaim, isAddressClaim, claims, addressClaims);
+                }
+            }
+        }
+        claims.putAll(addressClaims);
+        return claims;
+    }
+
+    @Benchmark
+    public Map<String, Object> scopeClaimIndex() {
+
+        Map<String, Object> claims = new HashMap<>();
+        Map<String, Object> addressClaims = new HashMap<>();
+        for (String requestedScope : REQUESTED_SCOPES) {
+            for (String scopeClaim : index.getClaimUris(requestedScope)) {
+                filterClaim(scopeClaim, index.isAddressClaim(scopeClaim), claims, addressClaims);
+            }
+        }
+        claims.putAll(addressClaims);
+        return claims;
+    }
+
+    private void filterClaim(String scopeClaim, boolean isAddressClaim, Map<String, Object> claims,
+                             Map<String, Object> addressClaims) {
+
+        String claimUri = isAddressClaim && scopeClaim.startsWith(ADDRESS_PREFIX) ?
+                scopeClaim.substring(ADDRESS_PREFIX.length()) : scopeClaim;
+        Object claimValue = userClaims.get(claimUri);
+        if (claimValue != null) {
+            if (isAddressClaim) {
+                addressClaims.put(claimUri, claimValue);
+            } else {
+                claims.put(claimUri, claimValue);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        Options options = new OptionsBuilder()
+                .include(OIDCScopeClaimIndexBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.openidconnect.model;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth.dto.ScopeDTO;
+import org.wso2.carbon.identity.openidconnect.cache.OIDCScopeClaimCacheEntry;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for OIDCScopeClaimIndex.
+ */
+public class OIDCScopeClaimIndexTest {
+
+    @Test
+    public void testScopeClaimMappings() {
+
+        OIDCScopeClaimIndex index = new OIDCScopeClaimIndex(buildScopes());
+
+        assertFalse(index.isEmpty());
+        assertTrue(index.hasScope("profile"));
+        assertFalse(index.hasScope("unknown"));
+        assertEquals(index.getClaimUris("profile"), Arrays.asList("given_name", "family_name", "email"));
+        assertTrue(index.getClaimUris("unknown").isEmpty());
+        assertTrue(index.getClaimUris("phone").isEmpty());
+        assertEquals(index.getClaimUris(Arrays.asList("email", "unknown", "profile")),
+                Arrays.asList("email", "email_verified", "given_name", "family_name", "email"));
+        assertEquals(index.getScopeClaimMap().size(), 4);
+    }
+
+    @Test
+    public void testScopesOfClaims() {
+
+        OIDCScopeClaimIndex index = new OIDCScopeClaimIndex(buildScopes());
+
+        assertEquals(index.getScopes("email"), new LinkedHashSet<>(Arrays.asList("profile", "email")));
+        assertEquals(index.getScopes("country"), Collections.singleton("address"));
+        assertTrue(index.getScopes("unknown").isEmpty());
+    }
+
+    @Test
+    public void testAddressClaims() {
+
+        OIDCScopeClaimIndex index = new OIDCScopeClaimIndex(buildScopes());
+
+        assertEquals(index.getAddressClaimUris(), Arrays.asList("country", "locality"));
+        assertTrue(index.isAddressClaim("country"));
+        assertTrue(index.isAddressClaim("address.street"));
+        assertFalse(index.isAddressClaim("email"));
+
+        OIDCScopeClaimIndex emptyIndex = new OIDCScopeClaimIndex(null);
+        assertTrue(emptyIndex.isEmpty());
+        assertTrue(emptyIndex.getAddressClaimUris().isEmpty());
+        assertFalse(emptyIndex.isAddressClaim("country"));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testIndexIsImmutable() {
+
+        new OIDCScopeClaimIndex(buildScopes()).getClaimUris("profile").add("nickname");
+    }
+
+    @Test
+    public void testIndexOfCacheEntry() {
+
+        OIDCScopeClaimCacheEntry cacheEntry = new OIDCScopeClaimCacheEntry();
+        cacheEntry.setScopeClaimMapping(buildScopes());
+        OIDCScopeClaimIndex index = cacheEntry.getScopeClaimIndex();
+        assertSame(cacheEntry.getScopeClaimIndex(), index);
+
+        // The index is rebuilt when the mapping is updated.
+        cacheEntry.setScopeClaimMapping(Collections.singletonList(buildScope("openid", "sub")));
+        assertNotSame(cacheEntry.getScopeClaimIndex(), index);
+        assertEquals(cacheEntry.getScopeClaimIndex().getClaimUris("openid"), Collections.singletonList("sub"));
+        assertFalse(cacheEntry.getScopeClaimIndex().hasScope("profile"));
+    }
+
+    static List<ScopeDTO> buildScopes() {
+
+        return Arrays.asList(
+                buildScope("profile", "given_name", "family_name", "email"),
+                buildScope("email", "email", "email_verified"),
+                buildScope("address", "country", "locality"),
+                new ScopeDTO("phone", "Phone", "Phone", null));
+    }
+
+    private static ScopeDTO buildScope(String name, String... claims) {
+
+        return new ScopeDTO(name, name, name, claims);
+    }
+}
@@ -0,0 +1,476 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oidc.session.backchannellogout;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLContexts;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
+import org.wso2.carbon.identity.base.IdentityConstants;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends back-channel logout requests to the session participants.
+ *
+ * All requests share a pooled HTTP client with per host connection limits and connect/read timeouts. Requests are
+ * sent by a bounded set of worker threads. A request which fails with an I/O error or a 5xx/429 response is retried
+ * with an exponential backoff. Requests which can not be delivered, or which are rejected because too many requests
+ * are pending, are written to the dead letter log. Latency and failure counts are kept per logout endpoint.
+ */
+public class BackChannelLogoutDispatcher {
+
+    private static final Log log = LogFactory.getLog(BackChannelLogoutDispatcher.class);
+    private static final Log deadLetterLog = LogFactory.getLog(BackChannelLogoutDispatcher.class.getName() +
+            ".DeadLetter");
+
+    private static final String LOGOUT_TOKEN = "logout_token";
+
+    private static final String POOL_SIZE = "OAuth.OpenIDConnect.BackChannelLogout.PoolSize";
+    private static final String MAX_PENDING_REQUESTS = "OAuth.OpenIDConnect.BackChannelLogout.MaxPendingRequests";
+    private static final String MAX_CONNECTIONS = "OAuth.OpenIDConnect.BackChannelLogout.MaxConnections";
+    private static final String MAX_CONNECTIONS_PER_HOST =
+            "OAuth.OpenIDConnect.BackChannelLogout.MaxConnectionsPerHost";
+    private static final String CONNECT_TIMEOUT = "OAuth.OpenIDConnect.BackChannelLogout.ConnectTimeout";
+    private static final String READ_TIMEOUT = "OAuth.OpenIDConnect.BackChannelLogout.ReadTimeout";
+    private static final String MAX_RETRIES = "OAuth.OpenIDConnect.BackChannelLogout.MaxRetries";
+    private static final String RETRY_BACKOFF = "OAuth.OpenIDConnect.BackChannelLogout.RetryBackoff";
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+    private static final int DEFAULT_MAX_PENDING_REQUESTS = 5000;
+    private static final int DEFAULT_MAX_CONNECTIONS = 100;
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 5;
+    private static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+    private static final int DEFAULT_READ_TIMEOUT = 10000;
+    private static final int DEFAULT_MAX_RETRIES = 2;
+    private static final long DEFAULT_RETRY_BACKOFF = 1000;
+    private static final long MAX_RETRY_BACKOFF = 60000;
+
+    private static volatile BackChannelLogoutDispatcher instance;
+
+    private final ScheduledThreadPoolExecutor executor;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final int maxPendingRequests;
+    private final int maxRetries;
+    private final long retryBackoffMillis;
+    private final AtomicInteger pendingRequests = new AtomicInteger();
+    // Requests which are scheduled on the executor and have not started yet.
+    private final Set<LogoutRequest> scheduledRequests = ConcurrentHashMap.newKeySet();
+    private final Map<String, EndpointMetrics> endpointMetrics = new ConcurrentHashMap<>();
+
+    private BackChannelLogoutDispatcher() {
+
+        this(OAuth2ConfigUtil.getIntProperty(POOL_SIZE, DEFAULT_POOL_SIZE),
+                OAuth2ConfigUtil.getIntProperty(MAX_PENDING_REQUESTS, DEFAULT_MAX_PENDING_REQUESTS),
+                OAuth2ConfigUtil.getIntProperty(MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS),
+                OAuth2ConfigUtil.getIntProperty(MAX_CONNECTIONS_PER_HOST, DEFAULT_MAX_CONNECTIONS_PER_HOST),
+                OAuth2ConfigUtil.getIntProperty(CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT),
+                OAuth2ConfigUtil.getIntProperty(READ_TIMEOUT, DEFAULT_READ_TIMEOUT),
+                OAuth2ConfigUtil.getIntProperty(MAX_RETRIES, DEFAULT_MAX_RETRIES),
+                OAuth2ConfigUtil.getIntProperty(RETRY_BACKOFF, (int) DEFAULT_RETRY_BACKOFF),
+                !"false".equalsIgnoreCase(
+                        IdentityUtil.getProperty(IdentityConstants.ServerConfig.SLO_HOST_NAME_VERIFICATION_ENABLED)));
+    }
+
+    BackChannelLogoutDispatcher(int poolSize, int maxPendingRequests, int maxConnections, int maxConnectionsPerHost,
+                                int connectTimeoutMillis, int readTimeoutMillis, int maxRetries,
+                                long retryBackoffMillis, boolean hostNameVerificationEnabled) {
+
+        this.maxPendingRequests = maxPendingRequests;
+        this.maxRetries = maxRetries;
+        this.retryBackoffMillis = retryBackoffMillis;
+
+        SSLConnectionSocketFactory sslSocketFactory;
+        if (hostNameVerificationEnabled) {
+            sslSocketFactory = SSLConnectionSocketFactory.getSocketFactory();
+        } else {
+            sslSocketFactory = new SSLConnectionSocketFactory(SSLContexts.createDefault(),
+                    SSLConnectionSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
+        }
+        Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", sslSocketFactory)
+                .build();
+        connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMillis)
+                .setSocketTimeout(readTimeoutMillis)
+                .setConnectionRequestTimeout(readTimeoutMillis)
+                .build();
+        // Failed requests are retried by the dispatcher with a backoff. The client only retries once right away,
+        // to recover from pooled connections which were closed by the session participant. A logout request is
+        // safe to be sent twice.
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setRetryHandler(new DefaultHttpRequestRetryHandler(1, true))
+                .build();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ScheduledThreadPoolExecutor(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "BackChannelLogoutSender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+
+        if (log.isDebugEnabled()) {
+            log.debug("Back-channel logout dispatcher is initialized with pool size: " + poolSize +
+                    ", max pending requests: " + maxPendingRequests + ", max connections per host: " +
+                    maxConnectionsPerHost + ", connect timeout: " + connectTimeoutMillis + "ms, read timeout: " +
+                    readTimeoutMillis + "ms, max retries: " + maxRetries);
+        }
+    }
+
+    /**
+     * Get the dispatcher, creating it on first use.
+     *
+     * @return BackChannelLogoutDispatcher instance.
+     */
+    public static BackChannelLogoutDispatcher getInstance() {
+
+        if (instance == null) {
+            synchronized (BackChannelLogoutDispatcher.class) {
+                if (instance == null) {
+                    instance = new BackChannelLogoutDispatcher();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Shut down the dispatcher if it was created.
+     *
+     * @param timeoutMillis Maximum time to wait for the in flight requests.
+     */
+    public static void shutdownInstance(long timeoutMillis) {
+
+        BackChannelLogoutDispatcher dispatcher;
+        synchronized (BackChannelLogoutDispatcher.class) {
+            dispatcher = instance;
+            instance = null;
+        }
+        if (dispatcher != null) {
+            dispatcher.shutdown(timeoutMillis);
+        }
+    }
+
+    /**
+     * Queue a back-channel logout request.
+     *
+     * @param logoutToken Logout token.
+     * @param logoutUrl   Back-channel logout URL of the session participant.
+     */
+    public void dispatch(String logoutToken, String logoutUrl) {
+
+        if (StringUtils.isBlank(logoutUrl)) {
+            return;
+        }
+        if (pendingRequests.incrementAndGet() > maxPendingRequests) {
+            pendingRequests.decrementAndGet();
+            getEndpointMetrics(logoutUrl).failures.incrementAndGet();
+            writeToDeadLetterLog(logoutUrl, 0, "too many pending back-channel logout requests");
+            return;
+        }
+        schedule(new LogoutRequest(logoutToken, logoutUrl), 0);
+    }
+
+    /**
+     * Stop accepting requests and wait for the pending requests to complete. Retries which are not due, and requests
+     * which are not sent before the timeout, are written to the dead letter log.
+     *
+     * @param timeoutMillis Maximum time to wait.
+     */
+    public void shutdown(long timeoutMillis) {
+
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        // The executor returns the scheduled tasks wrapped in futures and drops the delayed tasks on shutdown, so the
+        // requests which did not start are taken from the scheduled requests instead.
+        int dropped = 0;
+        for (LogoutRequest request : scheduledRequests) {
+            if (scheduledRequests.remove(request)) {
+                pendingRequests.decrementAndGet();
+                getEndpointMetrics(request.logoutUrl).failures.incrementAndGet();
+                writeToDeadLetterLog(request.logoutUrl, request.attempts, "the dispatcher is shut down");
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            log.warn(dropped + " back-channel logout requests were not sent before the shutdown.");
+        }
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            log.error("Error while closing the back-channel logout HTTP client.", e);
+        }
+        connectionManager.shutdown();
+    }
+
+    /**
+     * Get the number of requests which are queued, in flight or waiting for a retry.
+     *
+     * @return Number of pending requests.
+     */
+    public int getPendingRequestCount() {
+
+        return pendingRequests.get();
+    }
+
+    /**
+     * Get the metrics of the back-channel logout endpoints.
+     *
+     * @return Metrics keyed by the back-channel logout URL.
+     */
+    public Map<String, EndpointMetrics> getEndpointMetrics() {
+
+        return Collections.unmodifiableMap(new HashMap<>(endpointMetrics));
+    }
+
+    private void schedule(LogoutRequest request, long delayMillis) {
+
+        scheduledRequests.add(request);
+        try {
+            executor.schedule(request, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            scheduledRequests.remove(request);
+            pendingRequests.decrementAndGet();
+            getEndpointMetrics(request.logoutUrl).failures.incrementAndGet();
+            writeToDeadLetterLog(request.logoutUrl, request.attempts, "the dispatcher is shut down");
+        }
+    }
+
+    private EndpointMetrics getEndpointMetrics(String logoutUrl) {
+
+        return endpointMetrics.computeIfAbsent(logoutUrl, url -> new EndpointMetrics());
+    }
+
+    private void writeToDeadLetterLog(String logoutUrl, int attempts, String reason) {
+
+        // The logout token is not logged, as it is a credential of the session participant.
+        deadLetterLog.warn("Back-channel logout request to: " + logoutUrl + " was dropped after " + attempts +
+                " attempt(s). Reason: " + reason);
+    }
+
+    /**
+     * A single back-channel logout request, which is rescheduled on the executor until it is delivered or the
+     * retries are exhausted.
+     */
+    private class LogoutRequest implements Runnable {
+
+        private final String logoutToken;
+        private final String logoutUrl;
+        private int attempts;
+
+        LogoutRequest(String logoutToken, String logoutUrl) {
+
+            this.logoutToken = logoutToken;
+            this.logoutUrl = logoutUrl;
+        }
+
+        @Override
+        public void run() {
+
+            if (!scheduledRequests.remove(this)) {
+                // The request was written to the dead letter log while the dispatcher was shut down.
+                return;
+            }
+            attempts++;
+            EndpointMetrics metrics = getEndpointMetrics(logoutUrl);
+            if (log.isDebugEnabled()) {
+                log.debug("Sending back-channel logout request to: " + logoutUrl + ". Attempt: " + attempts);
+            }
+
+            String failure;
+            boolean retryable;
+            long start = System.nanoTime();
+            try {
+                int statusCode = send();
+                if (statusCode >= 200 && statusCode < 300) {
+                    metrics.recordSuccess(System.nanoTime() - start);
+                    pendingRequests.decrementAndGet();
+                    return;
+                }
+                failure = "response status " + statusCode;
+                retryable = statusCode >= 500 || statusCode == 429;
+            } catch (IOException e) {
+                failure = e.getClass().getSimpleName() + ": " + e.getMessage();
+                retryable = true;
+            } catch (RuntimeException e) {
+                log.error("Error while sending the back-channel logout request to: " + logoutUrl, e);
+                failure = e.getClass().getSimpleName() + ": " + e.getMessage();
+                retryable = false;
+            }
+            metrics.recordFailure(System.nanoTime() - start);
+
+            if (retryable && attempts <= maxRetries) {
+                metrics.retries.incrementAndGet();
+                long backoff = Math.min(retryBackoffMillis << Math.min(attempts - 1, 16), MAX_RETRY_BACKOFF);
+                if (log.isDebugEnabled()) {
+                    log.debug("Back-channel logout request to: " + logoutUrl + " failed with " + failure +
+                            ". Retrying in " + backoff + "ms.");
+                }
+                schedule(this, backoff);
+                return;
+            }
+            metrics.failures.incrementAndGet();
+            pendingRequests.decrementAndGet();
+            writeToDeadLetterLog(logoutUrl, attempts, failure);
+        }
+
+        private int send() throws IOException {
+
+            List<NameValuePair> logoutReqParams =
+                    Collections.singletonList(new BasicNameValuePair(LOGOUT_TOKEN, logoutToken));
+            HttpPost httpPost = new HttpPost(logoutUrl);
+            httpPost.setEntity(new UrlEncodedFormEntity(logoutReqParams, StandardCharsets.UTF_8));
+            try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
+                // Consume the entity so that the connection is released back to the pool.
+                EntityUtils.consume(response.getEntity());
+                if (log.isDebugEnabled()) {
+                    log.debug("Backchannel logout response: " + response.getStatusLine());
+                }
+                return response.getStatusLine().getStatusCode();
+            }
+        }
+    }
+
+    /**
+     * Delivery and latency metrics of a back-channel logout endpoint.
+     */
+    public static class EndpointMetrics {
+
+        private final AtomicLong successes = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong failedAttempts = new AtomicLong();
+        private final AtomicLong retries = new AtomicLong();
+        private final AtomicLong totalLatencyNanos = new AtomicLong();
+        private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+        private void recordSuccess(long latencyNanos) {
+
+            successes.incrementAndGet();
+            recordLatency(latencyNanos);
+        }
+
+        private void recordFailure(long latencyNanos) {
+
+            failedAttempts.incrementAndGet();
+            recordLatency(latencyNanos);
+        }
+
+        private void recordLatency(long latencyNanos) {
+
+            totalLatencyNanos.addAndGet(latencyNanos);
+            maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+        }
+
+        /**
+         * @return Number of requests delivered to the endpoint.
+         */
+        public long getSuccessCount() {
+
+            return successes.get();
+        }
+
+        /**
+         * @return Number of requests which could not be delivered and were written to the dead letter log.
+         */
+        public long getFailureCount() {
+
+            return failures.get();
+        }
+
+        /**
+         * @return Number of attempts which failed, including the ones which were retried.
+         */
+        public long getFailedAttemptCount() {
+
+            return failedAttempts.get();
+        }
+
+        /**
+         * @return Number of retries.
+         */
+        public long getRetryCount() {
+
+            return retries.get();
+        }
+
+        /**
+         * @return Average latency of an attempt in milliseconds.
+         */
+        public double getAverageLatencyMillis() {
+
+            long attempts = successes.get() + failedAttempts.get();
+            return attempts == 0 ? 0 : totalLatencyNanos.get() / (attempts * 1_000_000d);
+        }
+
+        /**
+         * @return Maximum latency of an attempt in milliseconds.
+         */
+        public double getMaxLatencyMillis() {
+
+            return maxLatencyNanos.get() / 1_000_000d;
+        }
+    }
+}
@@ -34,6 +34,7 @@ import org.wso2.carbon.identity.oauth.common.token.bindings.TokenBinderInfo;
 import org.wso2.carbon.identity.oauth2.token.bindings.TokenBinder;
 import org.wso2.carbon.identity.oidc.session.OIDCInboundSessionContextMgtListener;
 import org.wso2.carbon.identity.oidc.session.OIDCSessionConstants;
+import org.wso2.carbon.identity.oidc.session.backchannellogout.BackChannelLogoutDispatcher;
 import org.wso2.carbon.identity.oidc.session.backchannellogout.ClaimProviderImpl;
 import org.wso2.carbon.identity.oidc.session.handler.OIDCLogoutEventHandler;
 import org.wso2.carbon.identity.oidc.session.handler.OIDCLogoutHandler;
@@ -54,6 +55,7 @@ import javax.servlet.Servlet;
 public class OIDCSessionManagementComponent {
 
     private static final Log log = LogFactory.getLog(OIDCSessionManagementComponent.class);
+    private static final long BACK_CHANNEL_LOGOUT_SHUTDOWN_TIMEOUT = 10000;
 
     protected void activate(ComponentContext context) {
 
@@ -113,6 +115,8 @@ public class OIDCSessionManagementComponent {
 
     protected void deactivate(ComponentContext context) {
 
+        // Give the in flight back-channel logout requests a chance to complete.
+        BackChannelLogoutDispatcher.shutdownInstance(BACK_CHANNEL_LOGOUT_SHUTDOWN_TIMEOUT);
         if (log.isDebugEnabled()) {
             log.info("OIDC Session Management bundle is deactivated");
         }
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oidc.session.backchannellogout;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for BackChannelLogoutDispatcher, using a local stub back-channel logout endpoint.
+ */
+public class BackChannelLogoutDispatcherTest {
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private String baseUrl;
+    private BackChannelLogoutDispatcher dispatcher;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newFixedThreadPool(4);
+        server.setExecutor(serverExecutor);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        dispatcher = new BackChannelLogoutDispatcher(4, 100, 20, 4, 1000, 1000, 2, 10, true);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        dispatcher.shutdown(1000);
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testLogoutTokensAreDelivered() throws Exception {
+
+        int requestCount = 20;
+        List<String> receivedBodies = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(requestCount);
+        server.createContext("/logout", exchange -> {
+            receivedBodies.add(readBody(exchange));
+            respond(exchange, 200);
+            latch.countDown();
+        });
+
+        String logoutUrl = baseUrl + "/logout";
+        for (int i = 0; i < requestCount; i++) {
+            dispatcher.dispatch("token" + i, logoutUrl);
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertTrue(receivedBodies.contains("logout_token=token0"));
+        BackChannelLogoutDispatcher.EndpointMetrics metrics = waitForCompletion(logoutUrl);
+        assertEquals(metrics.getSuccessCount(), requestCount);
+        assertEquals(metrics.getFailureCount(), 0);
+    }
+
+    @Test
+    public void testFailedRequestIsRetried() throws Exception {
+
+        AtomicInteger attempts = new AtomicInteger();
+        server.createContext("/flaky", exchange -> respond(exchange, attempts.incrementAndGet() < 3 ? 503 : 200));
+
+        String logoutUrl = baseUrl + "/flaky";
+        dispatcher.dispatch("token", logoutUrl);
+
+        BackChannelLogoutDispatcher.EndpointMetrics metrics = waitForCompletion(logoutUrl);
+        assertEquals(attempts.get(), 3);
+        assertEquals(metrics.getSuccessCount(), 1);
+        assertEquals(metrics.getRetryCount(), 2);
+        assertEquals(metrics.getFailedAttemptCount(), 2);
+        assertEquals(metrics.getFailureCount(), 0);
+    }
+
+    @Test
+    public void testRequestIsDroppedAfterRetries() throws Exception {
+
+        AtomicInteger attempts = new AtomicInteger();
+        server.createContext("/down", exchange -> {
+            attempts.incrementAndGet();
+            respond(exchange, 500);
+        });
+
+        String logoutUrl = baseUrl + "/down";
+        dispatcher.dispatch("token", logoutUrl);
+
+        BackChannelLogoutDispatcher.EndpointMetrics metrics = waitForCompletion(logoutUrl);
+        assertEquals(attempts.get(), 3);
+        assertEquals(metrics.getSuccessCount(), 0);
+        assertEquals(metrics.getFailureCount(), 1);
+    }
+
+    @Test
+    public void testClientErrorIsNotRetried() throws Exception {
+
+        AtomicInteger attempts = new AtomicInteger();
+        server.createContext("/invalid", exchange -> {
+            attempts.incrementAndGet();
+            respond(exchange, 400);
+        });
+
+        String logoutUrl = baseUrl + "/invalid";
+        dispatcher.dispatch("token", logoutUrl);
+
+        BackChannelLogoutDispatcher.EndpointMetrics metrics = waitForCompletion(logoutUrl);
+        assertEquals(attempts.get(), 1);
+        assertEquals(metrics.getRetryCount(), 0);
+        assertEquals(metrics.getFailureCount(), 1);
+    }
+
+    @Test
+    public void testReadTimeout() throws Exception {
+
+        CountDownLatch release = new CountDownLatch(1);
+        server.createContext("/slow", exchange -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200);
+        });
+        BackChannelLogoutDispatcher noRetryDispatcher =
+                new BackChannelLogoutDispatcher(1, 10, 2, 2, 1000, 200, 0, 10, true);
+        try {
+            String logoutUrl = baseUrl + "/slow";
+            noRetryDispatcher.dispatch("token", logoutUrl);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (noRetryDispatcher.getPendingRequestCount() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(noRetryDispatcher.getPendingRequestCount(), 0);
+            assertEquals(noRetryDispatcher.getEndpointMetrics().get(logoutUrl).getFailureCount(), 1);
+        } finally {
+            release.countDown();
+            noRetryDispatcher.shutdown(1000);
+        }
+    }
+
+    @Test
+    public void testPendingRequestsAreBounded() throws Exception {
+
+        CountDownLatch release = new CountDownLatch(1);
+        server.createContext("/blocked", exchange -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200);
+        });
+        BackChannelLogoutDispatcher boundedDispatcher =
+                new BackChannelLogoutDispatcher(1, 2, 2, 2, 1000, 5000, 0, 10, true);
+        try {
+            String logoutUrl = baseUrl + "/blocked";
+            for (int i = 0; i < 5; i++) {
+                boundedDispatcher.dispatch("token" + i, logoutUrl);
+            }
+            assertEquals(boundedDispatcher.getPendingRequestCount(), 2);
+            assertEquals(boundedDispatcher.getEndpointMetrics().get(logoutUrl).getFailureCount(), 3);
+        } finally {
+            release.countDown();
+            boundedDispatcher.shutdown(5000);
+        }
+    }
+
+    @Test
+    public void testPendingRetryIsDroppedOnShutdown() throws Exception {
+
+        CountDownLatch attempted = new CountDownLatch(1);
+        server.createContext("/unavailable", exchange -> {
+            respond(exchange, 503);
+            attempted.countDown();
+        });
+        BackChannelLogoutDispatcher slowRetryDispatcher =
+                new BackChannelLogoutDispatcher(1, 10, 2, 2, 1000, 1000, 2, 60000, true);
+        String logoutUrl = baseUrl + "/unavailable";
+        slowRetryDispatcher.dispatch("token", logoutUrl);
+        assertTrue(attempted.await(5, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (slowRetryDispatcher.getEndpointMetrics().get(logoutUrl).getRetryCount() == 0 &&
+                System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        slowRetryDispatcher.shutdown(1000);
+
+        assertEquals(slowRetryDispatcher.getPendingRequestCount(), 0);
+        assertEquals(slowRetryDispatcher.getEndpointMetrics().get(logoutUrl).getFailureCount(), 1);
+    }
+
+    @Test
+    public void testQueuedRequestsAreDroppedOnShutdown() throws Exception {
+
+        CountDownLatch received = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        server.createContext("/stuck", exchange -> {
+            received.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200);
+        });
+        BackChannelLogoutDispatcher singleThreadDispatcher =
+                new BackChannelLogoutDispatcher(1, 10, 2, 2, 1000, 5000, 0, 10, true);
+        String logoutUrl = baseUrl + "/stuck";
+        try {
+            for (int i = 0; i < 3; i++) {
+                singleThreadDispatcher.dispatch("token" + i, logoutUrl);
+            }
+            assertTrue(received.await(5, TimeUnit.SECONDS));
+            singleThreadDispatcher.shutdown(100);
+
+            // The request in flight is still pending, while the queued requests are dropped.
+            assertEquals(singleThreadDispatcher.getPendingRequestCount(), 1);
+            assertEquals(singleThreadDispatcher.getEndpointMetrics().get(logoutUrl).getFailureCount(), 2);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private BackChannelLogoutDispatcher.EndpointMetrics waitForCompletion(String logoutUrl) throws Exception {
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (dispatcher.getPendingRequestCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(dispatcher.getPendingRequestCount(), 0);
+        return dispatcher.getEndpointMetrics().get(logoutUrl);
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        try (InputStream inputStream = exchange.getRequestBody()) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void respond(HttpExchange exchange, int status) throws IOException {
+
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+}
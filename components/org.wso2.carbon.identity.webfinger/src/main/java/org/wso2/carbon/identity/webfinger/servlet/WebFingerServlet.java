@@ -21,6 +21,8 @@ package org.wso2.carbon.identity.webfinger.servlet;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.base.ServerConfigurationException;
+import org.wso2.carbon.identity.discovery.DiscoveryDocumentCache;
+import org.wso2.carbon.identity.discovery.DiscoveryDocumentCache.RenderedDocument;
 import org.wso2.carbon.identity.webfinger.WebFingerConstants;
 import org.wso2.carbon.identity.webfinger.WebFingerEndpointException;
 import org.wso2.carbon.identity.webfinger.WebFingerProcessor;
@@ -39,6 +41,9 @@ import javax.servlet.http.HttpServletResponse;
  */
 public class WebFingerServlet extends HttpServlet {
     private static final Log log = LogFactory.getLog(WebFingerServlet.class);
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final String ETAG = "ETag";
+    private static final String CACHE_CONTROL = "Cache-Control";
 
     @Override
     protected void doGet(HttpServletRequest httpServletRequest,
@@ -61,6 +66,17 @@ public class WebFingerServlet extends HttpServlet {
             httpServletResponse.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             return;
         }
+        // The response is not kept in the DiscoveryDocumentCache. Its subject is the resource of the request, which the
+        // client chooses, so a cache keyed by the resource would grow with every distinct request. The issuer link is
+        // the only part shared by a tenant, and it is resolved from the cached resident identity provider. Hence the
+        // response is rendered per request and only validated against the ETag of the client.
+        RenderedDocument document = new RenderedDocument(response);
+        httpServletResponse.setHeader(ETAG, document.getETag());
+        httpServletResponse.setHeader(CACHE_CONTROL, DiscoveryDocumentCache.getInstance().getCacheControl());
+        if (document.matches(httpServletRequest.getHeader(IF_NONE_MATCH))) {
+            httpServletResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
         httpServletResponse.setContentType(WebFingerConstants.RESPONSE_CONTENT_TYPE);
         PrintWriter out = httpServletResponse.getWriter();
         out.print(response);
@@ -23,27 +23,54 @@ import org.mockito.Matchers;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
+import org.powermock.reflect.Whitebox;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+import org.wso2.carbon.identity.discovery.DiscoveryDocumentCache;
 import org.wso2.carbon.identity.webfinger.DefaultWebFingerProcessor;
+import org.wso2.carbon.identity.webfinger.WebFingerProcessor;
+import org.wso2.carbon.identity.webfinger.WebFingerResponse;
 import org.wso2.carbon.identity.webfinger.internal.WebFingerServiceComponentHolder;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.HashMap;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
 /**
  * Tests web-finger servlet.
  */
+@WithCarbonHome
 public class WebFingerServletTest {
 
+    private static final String CACHE_CONTROL = "public, max-age=300";
+
     @BeforeClass
     protected void setUp() {
         WebFingerServiceComponentHolder.setWebFingerProcessor(DefaultWebFingerProcessor.getInstance());
     }
 
+    @BeforeMethod
+    protected void resetDocumentCache() {
+        // The Cache-Control header is read from the default timeout of a new document cache.
+        Whitebox.setInternalState(DiscoveryDocumentCache.class, "instance", (DiscoveryDocumentCache) null);
+    }
+
+    @AfterMethod
+    protected void resetWebFingerProcessor() {
+        WebFingerServiceComponentHolder.setWebFingerProcessor(DefaultWebFingerProcessor.getInstance());
+    }
+
     @Test
     public void testDoGet() throws Exception {
         final Map<String, String> parameters = new HashMap<>();
@@ -74,6 +101,91 @@ public class WebFingerServletTest {
 
     @Test
     public void testGetOIDProviderIssuer() throws Exception {
+        mockWebFingerProcessor("acct:admin@localhost");
+        StringWriter content = new StringWriter();
+        HttpServletResponse response = mockResponse(content);
+
+        new WebFingerServlet().getOIDProviderIssuer(mockRequest(null), response);
+
+        Mockito.verify(response, Mockito.never()).setStatus(Matchers.anyInt());
+        Mockito.verify(response).setHeader("ETag", new DiscoveryDocumentCache.RenderedDocument(content.toString())
+                .getETag());
+        Mockito.verify(response).setHeader("Cache-Control", CACHE_CONTROL);
+        assertTrue(content.toString().contains("acct:admin@localhost"));
+    }
+
+    @DataProvider(name = "provideIfNoneMatchHeaders")
+    public Object[][] provideIfNoneMatchHeaders() {
+        // The ETag of the response replaces the %s of each If-None-Match header.
+        return new Object[][]{
+                {"%s", true},
+                {"W/%s", true},
+                {"*", true},
+                {"\"other\", W/%s", true},
+                {"\"other\"", false},
+                {"W/\"other\"", false},
+        };
+    }
+
+    @Test(dataProvider = "provideIfNoneMatchHeaders")
+    public void testConditionalRequests(String ifNoneMatch, boolean notModified) throws Exception {
+        mockWebFingerProcessor("acct:admin@localhost");
+        StringWriter content = new StringWriter();
+        new WebFingerServlet().getOIDProviderIssuer(mockRequest(null), mockResponse(content));
+        String eTag = new DiscoveryDocumentCache.RenderedDocument(content.toString()).getETag();
+
+        StringWriter conditionalContent = new StringWriter();
+        HttpServletResponse response = mockResponse(conditionalContent);
+        new WebFingerServlet().getOIDProviderIssuer(mockRequest(String.format(ifNoneMatch, eTag)), response);
+
+        Mockito.verify(response).setHeader("ETag", eTag);
+        Mockito.verify(response).setHeader("Cache-Control", CACHE_CONTROL);
+        if (notModified) {
+            Mockito.verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            Mockito.verify(response, Mockito.never()).getWriter();
+            assertEquals(conditionalContent.toString(), "");
+        } else {
+            Mockito.verify(response, Mockito.never()).setStatus(Matchers.anyInt());
+            assertEquals(conditionalContent.toString(), content.toString());
+        }
+    }
+
+    @Test
+    public void testETagChangesWithResource() throws Exception {
+        mockWebFingerProcessor("acct:admin@localhost");
+        StringWriter content = new StringWriter();
+        new WebFingerServlet().getOIDProviderIssuer(mockRequest(null), mockResponse(content));
+        String eTag = new DiscoveryDocumentCache.RenderedDocument(content.toString()).getETag();
+
+        mockWebFingerProcessor("acct:user@localhost");
+        StringWriter otherContent = new StringWriter();
+        HttpServletResponse response = mockResponse(otherContent);
+        new WebFingerServlet().getOIDProviderIssuer(mockRequest(eTag), response);
+
+        Mockito.verify(response, Mockito.never()).setStatus(Matchers.anyInt());
+        Mockito.verify(response, Mockito.never()).setHeader("ETag", eTag);
+        assertTrue(otherContent.toString().contains("acct:user@localhost"));
+    }
+
+    private void mockWebFingerProcessor(String subject) throws Exception {
+        WebFingerResponse webFingerResponse = new WebFingerResponse();
+        webFingerResponse.setSubject(subject);
+        webFingerResponse.addLink("http://openid.net/specs/connect/1.0/issuer", "https://localhost:9443/oauth2/token");
+        WebFingerProcessor processor = Mockito.mock(WebFingerProcessor.class);
+        Mockito.when(processor.getResponse(Matchers.any(HttpServletRequest.class))).thenReturn(webFingerResponse);
+        WebFingerServiceComponentHolder.setWebFingerProcessor(processor);
+    }
+
+    private HttpServletRequest mockRequest(String ifNoneMatch) {
+        HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        Mockito.when(request.getHeader("If-None-Match")).thenReturn(ifNoneMatch);
+        return request;
+    }
+
+    private HttpServletResponse mockResponse(StringWriter content) throws Exception {
+        HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        Mockito.when(response.getWriter()).thenReturn(new PrintWriter(content, true));
+        return response;
     }
 
 }